@@ -0,0 +1,284 @@
+package org.grobid.core.document;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.data.LabeledLexicalInformation;
+import org.grobid.core.layout.LayoutToken;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Result of the first levels of the cascade on a PDF, kept on disk so that the training data of the lower levels can
+ * be created again without running pdfalto, the dictionary segmentation, the body segmentation and the lexical entry
+ * models: the tokens of the body of the document (text, font, font size, bold, italic, new line after and page) and
+ * the clusters of the body segmentation and of each lexical entry, as runs of positions in these tokens.
+ *
+ * The file is made of a table of the strings (texts, fonts and labels), the tokens referring to it, the first token
+ * of each page, and the clusters. It is read with a memory mapped buffer.
+ */
+public class DictionaryCascadeArtifact {
+
+    private static final int MAGIC = 0x47444341;
+    private static final int VERSION = 1;
+
+    // Version of the code producing the content of the artifacts: the featurisation, the labeling and the clustering
+    // of the dictionary segmentation, body segmentation and lexical entry levels. It is part of the key of the
+    // artifacts, so it must be incremented when this code changes, as VERSION is when the file layout changes.
+    public static final int CASCADE_VERSION = 1;
+
+    private static final int BOLD = 1;
+    private static final int ITALIC = 2;
+    private static final int NEW_LINE_AFTER = 4;
+
+    private final LabeledLexicalInformation bodyComponents;
+    private List<LabeledLexicalInformation> lexicalEntries;
+    private Function<LabeledLexicalInformation, List<LabeledLexicalInformation>> lexicalEntryLabeler;
+
+    public DictionaryCascadeArtifact(LabeledLexicalInformation bodyComponents, List<LabeledLexicalInformation> lexicalEntries) {
+        this.bodyComponents = bodyComponents;
+        this.lexicalEntries = lexicalEntries;
+    }
+
+    /**
+     * Artifact whose lexical entries are labeled by the given function from the body components, the first time they
+     * are read: the levels which only need the body segmentation do not run the lexical entry model
+     */
+    public DictionaryCascadeArtifact(LabeledLexicalInformation bodyComponents,
+                                     Function<LabeledLexicalInformation, List<LabeledLexicalInformation>> lexicalEntryLabeler) {
+        this.bodyComponents = bodyComponents;
+        this.lexicalEntryLabeler = lexicalEntryLabeler;
+    }
+
+    /**
+     * Clusters of the body segmentation, as DictionaryDocument.getBodyComponents()
+     */
+    public LabeledLexicalInformation getBodyComponents() {
+        return bodyComponents;
+    }
+
+    /**
+     * Clusters of the lexical entries of the body, in the order of the document
+     */
+    public synchronized List<LabeledLexicalInformation> getLexicalEntries() {
+        if (lexicalEntries == null) {
+            lexicalEntries = lexicalEntryLabeler.apply(bodyComponents);
+            lexicalEntryLabeler = null;
+        }
+        return lexicalEntries;
+    }
+
+    public void write(File file) throws IOException {
+        List<LabeledLexicalInformation> lexicalEntries = getLexicalEntries();
+
+        // the tokens are numbered in the order they are met, which is the order of the document
+        Map<LayoutToken, Integer> tokenIds = new IdentityHashMap<>();
+        List<LayoutToken> tokens = new ArrayList<>();
+        addTokens(bodyComponents, tokenIds, tokens);
+        for (LabeledLexicalInformation lexicalEntry : lexicalEntries) {
+            addTokens(lexicalEntry, tokenIds, tokens);
+        }
+
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int[] texts = new int[tokens.size()];
+        int[] fonts = new int[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            texts[i] = getStringId(tokens.get(i).getText(), stringIds, strings);
+            fonts[i] = getStringId(tokens.get(i).getFont(), stringIds, strings);
+        }
+        addLabels(bodyComponents, stringIds, strings);
+        for (LabeledLexicalInformation lexicalEntry : lexicalEntries) {
+            addLabels(lexicalEntry, stringIds, strings);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                LayoutToken token = tokens.get(i);
+                out.writeInt(texts[i]);
+                out.writeInt(fonts[i]);
+                out.writeDouble(token.getFontSize());
+                out.writeByte((token.getBold() ? BOLD : 0) | (token.getItalic() ? ITALIC : 0)
+                        | (token.isNewLineAfter() ? NEW_LINE_AFTER : 0));
+            }
+
+            // pages, as the first token of each run of tokens on the same page
+            List<int[]> pages = new ArrayList<>();
+            for (int i = 0; i < tokens.size(); i++) {
+                if (i == 0 || tokens.get(i).getPage() != tokens.get(i - 1).getPage()) {
+                    pages.add(new int[]{tokens.get(i).getPage(), i});
+                }
+            }
+            out.writeInt(pages.size());
+            for (int[] page : pages) {
+                out.writeInt(page[0]);
+                out.writeInt(page[1]);
+            }
+
+            writeClusters(out, bodyComponents, tokenIds, stringIds);
+            out.writeInt(lexicalEntries.size());
+            for (LabeledLexicalInformation lexicalEntry : lexicalEntries) {
+                writeClusters(out, lexicalEntry, tokenIds, stringIds);
+            }
+        }
+    }
+
+    public static DictionaryCascadeArtifact read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a cascade artifact of the current version: " + file.getPath());
+            }
+
+            String[] strings = new String[buffer.getInt()];
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < strings.length; i++) {
+                int length = buffer.getInt();
+                if (length > bytes.length) {
+                    bytes = new byte[length];
+                }
+                buffer.get(bytes, 0, length);
+                strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+
+            LayoutToken[] tokens = new LayoutToken[buffer.getInt()];
+            for (int i = 0; i < tokens.length; i++) {
+                LayoutToken token = new LayoutToken(getString(strings, buffer.getInt()));
+                token.setFont(getString(strings, buffer.getInt()));
+                token.setFontSize(buffer.getDouble());
+                byte flags = buffer.get();
+                token.setBold((flags & BOLD) != 0);
+                token.setItalic((flags & ITALIC) != 0);
+                token.setNewLineAfter((flags & NEW_LINE_AFTER) != 0);
+                tokens[i] = token;
+            }
+
+            int nbPages = buffer.getInt();
+            int[] pageNumbers = new int[nbPages];
+            int[] firstTokens = new int[nbPages];
+            for (int i = 0; i < nbPages; i++) {
+                pageNumbers[i] = buffer.getInt();
+                firstTokens[i] = buffer.getInt();
+            }
+            for (int i = 0; i < nbPages; i++) {
+                int end = i + 1 < nbPages ? firstTokens[i + 1] : tokens.length;
+                for (int j = firstTokens[i]; j < end; j++) {
+                    tokens[j].setPage(pageNumbers[i]);
+                }
+            }
+
+            LabeledLexicalInformation bodyComponents = readClusters(buffer, tokens, strings);
+            int nbLexicalEntries = buffer.getInt();
+            List<LabeledLexicalInformation> lexicalEntries = new ArrayList<>(nbLexicalEntries);
+            for (int i = 0; i < nbLexicalEntries; i++) {
+                lexicalEntries.add(readClusters(buffer, tokens, strings));
+            }
+            return new DictionaryCascadeArtifact(bodyComponents, lexicalEntries);
+        }
+    }
+
+    private static void addTokens(LabeledLexicalInformation clusters, Map<LayoutToken, Integer> tokenIds, List<LayoutToken> tokens) {
+        for (Pair<List<LayoutToken>, String> cluster : clusters.getLabels()) {
+            for (LayoutToken token : cluster.getLeft()) {
+                if (!tokenIds.containsKey(token)) {
+                    tokenIds.put(token, tokens.size());
+                    tokens.add(token);
+                }
+            }
+        }
+    }
+
+    private static void addLabels(LabeledLexicalInformation clusters, Map<String, Integer> stringIds, List<String> strings) {
+        for (Pair<List<LayoutToken>, String> cluster : clusters.getLabels()) {
+            getStringId(cluster.getRight(), stringIds, strings);
+        }
+    }
+
+    // -1 for null
+    private static int getStringId(String string, Map<String, Integer> stringIds, List<String> strings) {
+        if (string == null) {
+            return -1;
+        }
+        Integer id = stringIds.get(string);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(string, id);
+            strings.add(string);
+        }
+        return id;
+    }
+
+    private static String getString(String[] strings, int id) {
+        return id == -1 ? null : strings[id];
+    }
+
+    /**
+     * Each cluster is written as its label and the runs of consecutive token positions it is made of
+     */
+    private static void writeClusters(DataOutputStream out, LabeledLexicalInformation clusters,
+                                      Map<LayoutToken, Integer> tokenIds, Map<String, Integer> stringIds) throws IOException {
+        out.writeInt(clusters.getLabels().size());
+        for (Pair<List<LayoutToken>, String> cluster : clusters.getLabels()) {
+            out.writeInt(cluster.getRight() == null ? -1 : stringIds.get(cluster.getRight()));
+
+            List<int[]> runs = new ArrayList<>();
+            for (LayoutToken token : cluster.getLeft()) {
+                int id = tokenIds.get(token);
+                int[] last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+                if (last != null && last[0] + last[1] == id) {
+                    last[1]++;
+                } else {
+                    runs.add(new int[]{id, 1});
+                }
+            }
+            out.writeInt(runs.size());
+            for (int[] run : runs) {
+                out.writeInt(run[0]);
+                out.writeInt(run[1]);
+            }
+        }
+    }
+
+    private static LabeledLexicalInformation readClusters(ByteBuffer buffer, LayoutToken[] tokens, String[] strings) {
+        LabeledLexicalInformation clusters = new LabeledLexicalInformation();
+        int nbClusters = buffer.getInt();
+        for (int i = 0; i < nbClusters; i++) {
+            String label = getString(strings, buffer.getInt());
+            int nbRuns = buffer.getInt();
+            List<LayoutToken> clusterTokens = new ArrayList<>();
+            for (int j = 0; j < nbRuns; j++) {
+                int start = buffer.getInt();
+                int length = buffer.getInt();
+                for (int k = start; k < start + length; k++) {
+                    clusterTokens.add(tokens[k]);
+                }
+            }
+            clusters.addLabel(Pair.of(clusterTokens, label));
+        }
+        return clusters;
+    }
+}
@@ -21,6 +21,7 @@ public class DictionaryDocument extends Document {
     private LabeledLexicalInformation headnotesOptimised = new LabeledLexicalInformation();
     private LabeledLexicalInformation footnotesOptimised = new LabeledLexicalInformation();
     private LabeledLexicalInformation dictScrapsOptimised = new LabeledLexicalInformation();
+    private DocumentLineIndex lineIndex = null;
 
 
     public DictionaryDocument(Document document) {
@@ -29,6 +30,16 @@ public class DictionaryDocument extends Document {
 
     }
 
+    /**
+     * Lines of the document blocks, built the first time they are needed, once the document is tokenized
+     */
+    public DocumentLineIndex getLineIndex() {
+        if (lineIndex == null) {
+            lineIndex = new DocumentLineIndex(this);
+        }
+        return lineIndex;
+    }
+
     public SortedSet<DocumentPiece> getDocumentDictionaryPart(String segmentationLabel) {
         if (this.labeledBlocks == null) {
             LOGGER.debug("labeledBlocks is null");
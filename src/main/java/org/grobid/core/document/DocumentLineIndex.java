@@ -0,0 +1,212 @@
+package org.grobid.core.document;
+
+import org.grobid.core.features.FeaturesUtils;
+import org.grobid.core.layout.Block;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.utilities.TextUtilities;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lines of the blocks of a document, as used by the line level model (dictionary segmentation): the text of each
+ * block is split once into lines, and for each line are kept its block, its text, trimmed text and the positions of
+ * its first and last tokens in the document tokenization. The feature generation and the passes which follow the
+ * labeled lines read the lines from here, instead of splitting the text of the blocks again.
+ */
+public class DocumentLineIndex {
+
+    private static final Line[] NO_LINES = new Line[0];
+
+    private final List<BlockLines> blocks;
+    private final Map<Block, BlockLines> blocksByIdentity;
+
+    /**
+     * The index of the document, built once for a DictionaryDocument
+     */
+    public static DocumentLineIndex of(Document doc) {
+        if (doc instanceof DictionaryDocument) {
+            return ((DictionaryDocument) doc).getLineIndex();
+        }
+        return new DocumentLineIndex(doc);
+    }
+
+    DocumentLineIndex(Document doc) {
+        List<Block> docBlocks = doc.getBlocks();
+        int nbBlocks = docBlocks == null ? 0 : docBlocks.size();
+        blocks = new ArrayList<>(nbBlocks);
+        blocksByIdentity = new IdentityHashMap<>(nbBlocks);
+
+        for (int blockIndex = 0; blockIndex < nbBlocks; blockIndex++) {
+            Block block = docBlocks.get(blockIndex);
+            BlockLines blockLines = new BlockLines(blockIndex, block);
+            blocks.add(blockLines);
+            blocksByIdentity.put(block, blockLines);
+        }
+    }
+
+    /**
+     * Lines of a block, same as block.getText().split("[\\n\\r]"), no line when the block has no text
+     */
+    public Line[] getLines(int blockIndex) {
+        return blocks.get(blockIndex).lines;
+    }
+
+    public Line[] getLines(Block block) {
+        return getBlockLines(block).lines;
+    }
+
+    /**
+     * True when the block has no text or only white spaces
+     */
+    public boolean isBlank(int blockIndex) {
+        return blocks.get(blockIndex).blank;
+    }
+
+    public int getMaxLineLength(Block block) {
+        return getBlockLines(block).maxLineLength;
+    }
+
+    private BlockLines getBlockLines(Block block) {
+        BlockLines blockLines = blocksByIdentity.get(block);
+        if (blockLines == null) {
+            // a block which is not one of the document blocks
+            blockLines = new BlockLines(-1, block);
+        }
+        return blockLines;
+    }
+
+    private static class BlockLines {
+        private final Line[] lines;
+        private final boolean blank;
+        private final int maxLineLength;
+
+        BlockLines(int blockIndex, Block block) {
+            String text = block.getText();
+            if (text == null) {
+                lines = NO_LINES;
+                blank = true;
+                maxLineLength = 0;
+                return;
+            }
+
+            String[] lineTexts = text.split("[\\n\\r]");
+            int[][] tokenRanges = getLineTokenRanges(block, lineTexts.length);
+
+            lines = new Line[lineTexts.length];
+            int maxLength = 0;
+            for (int i = 0; i < lineTexts.length; i++) {
+                lines[i] = new Line(blockIndex, i, lineTexts[i], tokenRanges[i][0], tokenRanges[i][1]);
+                maxLength = Math.max(maxLength, lineTexts[i].length());
+            }
+            maxLineLength = maxLength;
+            blank = text.trim().length() == 0;
+        }
+
+        /**
+         * Document positions of the first and last tokens of each line, the lines being separated by the new line
+         * tokens of the block. -1 when the block tokens are not in the document tokenization.
+         */
+        private static int[][] getLineTokenRanges(Block block, int nbLines) {
+            int[][] ranges = new int[nbLines][];
+            for (int i = 0; i < nbLines; i++) {
+                ranges[i] = new int[]{-1, -1};
+            }
+
+            List<LayoutToken> tokens = block.getTokens();
+            int startToken = block.getStartToken();
+            if (tokens == null || startToken < 0) {
+                return ranges;
+            }
+
+            int line = 0;
+            int lineStart = startToken;
+            for (int i = 0; i < tokens.size() && line < nbLines; i++) {
+                String text = tokens.get(i).t();
+                if (text.equals("\n") || text.equals("\r")) {
+                    ranges[line][0] = lineStart;
+                    ranges[line][1] = startToken + i - 1;
+                    line++;
+                    lineStart = startToken + i + 1;
+                }
+            }
+            if (line < nbLines && lineStart < startToken + tokens.size()) {
+                ranges[line][0] = lineStart;
+                ranges[line][1] = startToken + tokens.size() - 1;
+            }
+            return ranges;
+        }
+    }
+
+    public static class Line {
+        private final int blockIndex;
+        private final int indexInBlock;
+        private final String text;
+        private final String trimmedText;
+        private final boolean significant;
+        private final int startToken;
+        private final int endToken;
+        private long patternFingerprint;
+        private boolean patternComputed;
+
+        Line(int blockIndex, int indexInBlock, String text, int startToken, int endToken) {
+            this.blockIndex = blockIndex;
+            this.indexInBlock = indexInBlock;
+            this.text = text;
+            this.trimmedText = text.trim();
+            this.significant = trimmedText.length() > 0 && !TextUtilities.filterLine(text);
+            this.startToken = startToken;
+            this.endToken = endToken;
+        }
+
+        public int getBlockIndex() {
+            return blockIndex;
+        }
+
+        public int getIndexInBlock() {
+            return indexInBlock;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getTrimmedText() {
+            return trimmedText;
+        }
+
+        /**
+         * False for the blank lines and the lines filtered out of the text flow, which are not labeled
+         */
+        public boolean isSignificant() {
+            return significant;
+        }
+
+        /**
+         * Position in the document tokenization of the first token of the line, white spaces included
+         */
+        public int getStartToken() {
+            return startToken;
+        }
+
+        /**
+         * Position in the document tokenization of the last token of the line, before the new line
+         */
+        public int getEndToken() {
+            return endToken;
+        }
+
+        /**
+         * Fingerprint of the text pattern of the line, computed once, see FeaturesUtils.computePatternFingerprint
+         */
+        public long getPatternFingerprint() {
+            if (!patternComputed) {
+                patternFingerprint = FeaturesUtils.computePatternFingerprint(text);
+                patternComputed = true;
+            }
+            return patternFingerprint;
+        }
+    }
+}
@@ -2,10 +2,12 @@ package org.grobid.core.document;
 
 import org.grobid.core.engines.EngineParsers;
 import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.layout.Block;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.layout.LayoutTokenization;
 import org.grobid.core.layout.Page;
+import org.grobid.core.utilities.DictionaryResources;
 import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.core.utilities.KeyGen;
 
@@ -31,7 +33,7 @@ public class DocumentUtils {
         DocumentSource documentSource = null;
 
 
-        documentSource = DocumentSource.fromPdf(originFile);
+        documentSource = fromPdf(originFile, -1, -1);
         Document doc;
         try {
             doc = new Document(documentSource);
@@ -47,6 +49,24 @@ public class DocumentUtils {
         return doc;
     }
 
+    /**
+     * Run pdfalto on the PDF, without exceeding the number of pdfalto processes allowed at the same time
+     */
+    public static DocumentSource fromPdf(File originFile, int startPage, int endPage) {
+        DictionaryResources resources = DictionaryResources.getInstance();
+        try {
+            resources.acquirePdfalto();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrobidException("Interrupted while waiting for a pdfalto process.", e);
+        }
+        try {
+            return DocumentSource.fromPdf(originFile, startPage, endPage);
+        } finally {
+            resources.releasePdfalto();
+        }
+    }
+
     public static LayoutTokenization getLayoutTokenizations(DictionaryDocument doc, SortedSet<DocumentPiece> documentParts) {
 
 
@@ -146,7 +166,7 @@ public class DocumentUtils {
 
         // Method to create raw for the whole document. Useful for the DictionarySegmentation model
         GrobidAnalysisConfig config = GrobidAnalysisConfig.builder().generateTeiIds(true).build();
-        DocumentSource documentSource = DocumentSource.fromPdf(originFile, config.getStartPage(), config.getEndPage());
+        DocumentSource documentSource = fromPdf(originFile, config.getStartPage(), config.getEndPage());
         //Old BODY from document
         Document doc = new EngineParsers().getSegmentationParser().processing(documentSource, config);
 
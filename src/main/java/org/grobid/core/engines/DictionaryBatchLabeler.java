@@ -0,0 +1,136 @@
+package org.grobid.core.engines;
+
+import org.apache.commons.lang3.StringUtils;
+import org.grobid.core.GrobidModel;
+import org.grobid.core.data.LabeledLexicalInformation;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.features.FeatureMatrix;
+import org.grobid.core.features.TokenFeatureTable;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.utilities.DictionaryProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Labels the feature matrices of several token sequences with a single call of the tagger, instead of one call per
+ * sequence. The matrices are concatenated with a blank line between them, as the sequences of the training data,
+ * and the CRF labels each of them independently, so the labels are the same as with one call per sequence.
+ */
+public class DictionaryBatchLabeler {
+
+    /**
+     * Process a list of token sequences at the same cascade level: features, labeling and clustering.
+     *
+     * @param features   the feature matrix of a sequence
+     * @param clustering the labeled information of a sequence from its tokens and the tagger output
+     */
+    public static List<LabeledLexicalInformation> process(AbstractParser parser, List<List<LayoutToken>> sequences,
+                                                          DictionaryProgress progress,
+                                                          Function<List<LayoutToken>, String> features,
+                                                          BiFunction<List<LayoutToken>, String, LabeledLexicalInformation> clustering) {
+        List<String> featureMatrices = new ArrayList<>(sequences.size());
+        for (List<LayoutToken> sequence : sequences) {
+            featureMatrices.add(features.apply(sequence));
+        }
+
+        List<String> outputs = label(parser, featureMatrices, progress);
+
+        List<LabeledLexicalInformation> labeledSequences = new ArrayList<>(sequences.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            labeledSequences.add(clustering.apply(sequences.get(i), outputs.get(i)));
+        }
+        return labeledSequences;
+    }
+
+    /**
+     * Same as process with the features of a table: the labels of the rows are read as ids of the model vocabulary
+     * and the clusters are built from the token ids of the rows, unless the text path is asked for.
+     *
+     * @param textClustering the labeled information of a sequence from its tokens and the tagger output, for the
+     *                       text path
+     */
+    public static List<LabeledLexicalInformation> process(AbstractParser parser, GrobidModel model,
+                                                          List<List<LayoutToken>> sequences,
+                                                          TokenFeatureTable features, DictionaryProgress progress,
+                                                          BiFunction<List<LayoutToken>, String, LabeledLexicalInformation> textClustering) {
+        if (DictionaryProperties.isTaggingTextFallback()) {
+            return process(parser, sequences, progress, features::getFeatureMatrix, textClustering);
+        }
+
+        List<FeatureMatrix> featureMatrices = new ArrayList<>(sequences.size());
+        for (List<LayoutToken> sequence : sequences) {
+            featureMatrices.add(features.getFeatureMatrixWithIds(sequence));
+        }
+
+        TaggingLabelVocabulary vocabulary = TaggingLabelVocabulary.forModel(model);
+        List<int[]> labels = FeatureMatrixTagger.label(parser, vocabulary, featureMatrices, progress);
+
+        List<LabeledLexicalInformation> labeledSequences = new ArrayList<>(sequences.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            labeledSequences.add(FeatureMatrixTagger.cluster(sequences.get(i), featureMatrices.get(i),
+                    labels.get(i), vocabulary));
+        }
+        return labeledSequences;
+    }
+
+    /**
+     * Label the feature matrices, the output of a blank matrix is an empty string.
+     */
+    public static List<String> label(AbstractParser parser, List<String> featureMatrices, DictionaryProgress progress) {
+        List<String> outputs = new ArrayList<>(featureMatrices.size());
+
+        StringBuilder batch = new StringBuilder();
+        int sequences = 0;
+        for (String featureMatrix : featureMatrices) {
+            if (StringUtils.isBlank(featureMatrix)) {
+                continue;
+            }
+            batch.append(featureMatrix);
+            if (!featureMatrix.endsWith("\n")) {
+                batch.append("\n");
+            }
+            batch.append("\n");
+            sequences++;
+        }
+
+        if (sequences == 0) {
+            for (int i = 0; i < featureMatrices.size(); i++) {
+                outputs.add("");
+            }
+            return outputs;
+        }
+
+        String output = parser.label(batch.toString());
+        progress.taggerCalled(sequences);
+
+        // one output line per token line: the sequences are split back by counting their lines
+        String[] outputLines = output.split("\n");
+        int position = 0;
+        for (String featureMatrix : featureMatrices) {
+            if (StringUtils.isBlank(featureMatrix)) {
+                outputs.add("");
+                continue;
+            }
+
+            StringBuilder sequenceOutput = new StringBuilder();
+            for (String featureLine : featureMatrix.split("\n")) {
+                if (featureLine.trim().isEmpty()) {
+                    continue;
+                }
+                while (position < outputLines.length && outputLines[position].trim().isEmpty()) {
+                    position++;
+                }
+                if (position == outputLines.length) {
+                    throw new GrobidException("The tagger output has fewer lines than the batched feature matrices.");
+                }
+                sequenceOutput.append(outputLines[position++]).append("\n");
+            }
+            outputs.add(sequenceOutput.toString());
+        }
+
+        return outputs;
+    }
+}
@@ -0,0 +1,82 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.document.DictionaryDocument;
+import org.grobid.core.document.DocumentPiece;
+import org.grobid.core.engines.label.DictionarySegmentationLabels;
+import org.grobid.core.layout.Page;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Per document state used while rendering the body segmentation in TEI: the dictionary parts of all the pages,
+ * the offsets where each page begins and the indexes of the next header, footer and scrap to show.
+ * A new context is created for each document, so one DictionaryBodySegmentationParser can render several documents at the same time.
+ */
+public class DictionaryBodyRenderContext {
+    SortedSet<DocumentPiece> headNotesOfAllPages = new TreeSet<>();
+    SortedSet<DocumentPiece> footNotesOfAllPages = new TreeSet<>();
+    SortedSet<DocumentPiece> bodiesOfAllPages = new TreeSet<>();
+    SortedSet<DocumentPiece> dictScrapsOfAllPages = new TreeSet<>();
+
+    List<Integer> pagesOffsetArray = new ArrayList<>();
+
+    int pagesNumber;
+    int currentHeadIndex = 1;
+    int currentFootIndex = 0;
+    int currentOtherIndex = 0;
+
+    public DictionaryBodyRenderContext(DictionaryDocument doc) {
+        extractDocumentParts(doc);
+        extractPagesOffsetArray(doc);
+        pagesNumber = doc.getPages().size();
+    }
+
+    private void extractDocumentParts(DictionaryDocument doc) {
+        if (doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_HEADNOTE_LABEL) != null) {
+            headNotesOfAllPages = doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_HEADNOTE_LABEL);
+        }
+        if (doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_BODY_LABEL) != null) {
+            bodiesOfAllPages = doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_BODY_LABEL);
+        }
+        if (doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_FOOTNOTE_LABEL) != null) {
+            footNotesOfAllPages = doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_FOOTNOTE_LABEL);
+        }
+        if (doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_DICTSCRAP_LABEL) != null) {
+            dictScrapsOfAllPages = doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_DICTSCRAP_LABEL);
+        }
+    }
+
+    private void extractPagesOffsetArray(DictionaryDocument doc) {
+        // Offset based index of the pages
+        for (Page page : doc.getPages()) {
+            if (page.getBlocks() != null) {
+                int beginOffSet = page.getBlocks().get(0).getTokens().get(0).getOffset();
+
+                pagesOffsetArray.add(beginOffSet);
+            }
+        }
+    }
+
+    public SortedSet<DocumentPiece> getHeadNotesOfAllPages() {
+        return headNotesOfAllPages;
+    }
+
+    public SortedSet<DocumentPiece> getFootNotesOfAllPages() {
+        return footNotesOfAllPages;
+    }
+
+    public SortedSet<DocumentPiece> getBodiesOfAllPages() {
+        return bodiesOfAllPages;
+    }
+
+    public SortedSet<DocumentPiece> getDictScrapsOfAllPages() {
+        return dictScrapsOfAllPages;
+    }
+
+    public List<Integer> getPagesOffsetArray() {
+        return pagesOffsetArray;
+    }
+}
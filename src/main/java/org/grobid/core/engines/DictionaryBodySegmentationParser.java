@@ -1,12 +1,13 @@
 package org.grobid.core.engines;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.grobid.core.data.LabeledLexicalInformation;
 import org.grobid.core.engines.label.*;
-import org.grobid.core.layout.Page;
 import org.grobid.core.utilities.*;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.StringBuilderWriter;
 import org.grobid.core.document.DictionaryDocument;
 import org.grobid.core.document.DocumentPiece;
 import org.grobid.core.document.DocumentUtils;
@@ -14,6 +15,7 @@ import org.grobid.core.document.TEIDictionaryFormatter;
 import org.grobid.core.engines.config.GrobidAnalysisConfig;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.features.FeatureVectorLexicalEntry;
+import org.grobid.core.features.TokenFeatureTable;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.layout.LayoutTokenization;
 import org.grobid.core.tokenization.TaggingTokenCluster;
@@ -26,6 +28,10 @@ import java.io.*;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 
 import static org.grobid.core.engines.label.DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL;
@@ -42,22 +48,12 @@ import static org.grobid.service.DictionaryPaths.*;
 public class DictionaryBodySegmentationParser extends AbstractParser {
     private static final Logger LOGGER = LoggerFactory.getLogger(DictionarySegmentationParser.class);
     private static volatile DictionaryBodySegmentationParser instance;
-    private SortedSet<DocumentPiece> headNotesOfAllPages = new TreeSet();
-    private SortedSet<DocumentPiece> footNotesOfAllPages = new TreeSet();
-    private SortedSet<DocumentPiece> bodiesOfAllPages = new TreeSet();
-    private SortedSet<DocumentPiece> dictScrapsOfAllPages = new TreeSet();
+    // pool of the lexical entries of the documents, and number of documents using it (guarded by the class)
+    private static ForkJoinPool cascadePool;
+    private static final Map<ForkJoinPool, Integer> cascadePoolUsers = new IdentityHashMap<>();
     private DocumentUtils formatter = new DocumentUtils();
 
 
-    private List<Integer> headnotesPageNumber = new ArrayList<Integer>();
-    private List<Integer> pagesOffsetArray = new ArrayList<Integer>();
-
-    int pagesNumber;
-    int currentHeadIndex;
-    int currentFootIndex;
-    int currentOtherIndex;
-
-
     public DictionaryBodySegmentationParser() {
 
         super(DictionaryModels.DICTIONARY_BODY_SEGMENTATION);
@@ -78,28 +74,52 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
     }
 
     public String processToTEI(File originFile, String modelToRun) {
+        return processToTEI(originFile, modelToRun, new DictionaryParserSet());
+    }
+
+    public String processToTEI(File originFile, String modelToRun, DictionaryParserSet parsers) {
+        return processToTEI(originFile, modelToRun, parsers, new DictionaryProgress());
+    }
+
+    public String processToTEI(File originFile, String modelToRun, DictionaryParserSet parsers, DictionaryProgress progress) {
+        StringBuilderWriter segmentedBody = new StringBuilderWriter();
+        processToTEI(originFile, modelToRun, parsers, progress, segmentedBody);
+
+        return segmentedBody.toString();
+    }
+
+    /**
+     * Same as processToTEI but the TEI is written to the writer while it's produced, page by page or entry by entry,
+     * instead of being returned once complete.
+     */
+    public void processToTEI(File originFile, String modelToRun, DictionaryParserSet parsers, DictionaryProgress progress, Writer out) {
         //This method is used by the service mode to display the segmentation result as text in tei-xml format
         //Prepare
         GrobidAnalysisConfig config = GrobidAnalysisConfig.defaultInstance();
         DictionaryDocument doc = null;
 
         try {
-            doc = processing(originFile);
+            doc = processing(originFile, parsers);
         } catch (GrobidException e) {
             throw e;
         } catch (Exception e) {
             throw new GrobidException("An exception occurred while running Grobid.", e);
         }
 
-        String segmentedBody = toTEIFormatDictionaryBodySegmentation(config, null, doc, modelToRun).toString();
-
-        return segmentedBody;
+        progress.setTotalPages(doc.getPages().size());
+        StringBuilder segmentedBodyEnd = toTEIFormatDictionaryBodySegmentation(config, null, doc, modelToRun, parsers, progress, out);
+        flushTEI(segmentedBodyEnd, out);
+        progress.finish();
     }
 
     public DictionaryDocument processing(File originFile) {
+        return processing(originFile, DictionaryParserSet.forCurrentThread());
+    }
+
+    public DictionaryDocument processing(File originFile, DictionaryParserSet parsers) {
         // This method is to be called by the following parser
         GrobidAnalysisConfig config = GrobidAnalysisConfig.defaultInstance();
-        DictionarySegmentationParser dictionaryParser = new DictionarySegmentationParser();
+        DictionarySegmentationParser dictionaryParser = parsers.getDictionarySegmentationParser();
         DictionaryDocument doc = dictionaryParser.initiateProcessing(originFile, config);
         try {
             //Get Body
@@ -254,37 +274,6 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
     }
 
-    public void getDocumentParts(DictionaryDocument doc) {
-        if (doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_HEADNOTE_LABEL) != null) {
-            headNotesOfAllPages = doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_HEADNOTE_LABEL);
-
-        }
-        if (doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_BODY_LABEL) != null) {
-            bodiesOfAllPages = doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_BODY_LABEL);
-
-        }
-        if (doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_FOOTNOTE_LABEL) != null) {
-            footNotesOfAllPages = doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_FOOTNOTE_LABEL);
-
-        }
-        if (doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_DICTSCRAP_LABEL) != null) {
-            dictScrapsOfAllPages = doc.getDocumentDictionaryPart(DICTIONARY_DICTSCRAP_LABEL);
-        }
-    }
-
-    public void extractPagesOffsetArray(DictionaryDocument doc) {
-
-
-        for (Page page : doc.getPages()) {
-            if (page.getBlocks() != null) {
-                int beginOffSet = page.getBlocks().get(0).getTokens().get(0).getOffset();
-
-                pagesOffsetArray.add(beginOffSet);
-            }
-
-        }
-
-    }
 //    public void extractPageNumberForBodyParts(DictionaryDocument doc){
 ////        List<DocumentPiece> listOfHeadnotes = new ArrayList<DocumentPiece>(headNotesOfAllPages);
 ////        ArrayList<List<Object>> mixedDocLogicIndex = new ArrayList();
@@ -325,29 +314,47 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
     public StringBuilder toTEIFormatDictionaryBodySegmentation(GrobidAnalysisConfig config,
                                                                TEIDictionaryFormatter.SchemaDeclaration schemaDeclaration, DictionaryDocument doc, String modelToRun) {
+        return toTEIFormatDictionaryBodySegmentation(config, schemaDeclaration, doc, modelToRun, DictionaryParserSet.forCurrentThread());
+    }
+
+    public StringBuilder toTEIFormatDictionaryBodySegmentation(GrobidAnalysisConfig config,
+                                                               TEIDictionaryFormatter.SchemaDeclaration schemaDeclaration, DictionaryDocument doc, String modelToRun,
+                                                               DictionaryParserSet parsers) {
+        return toTEIFormatDictionaryBodySegmentation(config, schemaDeclaration, doc, modelToRun, parsers, new DictionaryProgress());
+    }
+
+    public StringBuilder toTEIFormatDictionaryBodySegmentation(GrobidAnalysisConfig config,
+                                                               TEIDictionaryFormatter.SchemaDeclaration schemaDeclaration, DictionaryDocument doc, String modelToRun,
+                                                               DictionaryParserSet parsers, DictionaryProgress progress) {
+        return toTEIFormatDictionaryBodySegmentation(config, schemaDeclaration, doc, modelToRun, parsers, progress, null);
+    }
+
+    /**
+     * When out is not null, the TEI produced so far is written to it at each page break and after each lexical entry
+     * of the full dictionary cascade, and the returned builder only contains the end of the document.
+     */
+    private StringBuilder toTEIFormatDictionaryBodySegmentation(GrobidAnalysisConfig config,
+                                                                TEIDictionaryFormatter.SchemaDeclaration schemaDeclaration, DictionaryDocument doc, String modelToRun,
+                                                                DictionaryParserSet parsers, DictionaryProgress progress, Writer out) {
         StringBuilder headerTEI = new StringBuilder();
         StringBuilder tei = formatHeader(config, schemaDeclaration, doc);
         tei.append(headerTEI);
 
-        getDocumentParts(doc);
-
-
-        pagesNumber = doc.getPages().size();
-        currentHeadIndex = 1;
-        currentFootIndex = 0;
-        currentOtherIndex = 0;
+        // Dictionary parts and offset based index for pages of this document
+        DictionaryBodyRenderContext context = new DictionaryBodyRenderContext(doc);
         LayoutToken lastVisitedLayoutToken = new LayoutToken();
         lastVisitedLayoutToken.setPage(1);
 
 
-        // Prepare an offset based index for pages
-        extractPagesOffsetArray(doc);
-
-
         // Prepare an offset based index for LEs
         List<Integer> lexicalEntriesOffsetArray = new ArrayList<Integer>();
         LabeledLexicalInformation bodyComponents = doc.getBodyComponents();
         int lexicalEntriesNumber = bodyComponents.getLabels().size();
+        int[] pagesOfLastTokens = new int[lexicalEntriesNumber];
+        for (int i = 0; i < lexicalEntriesNumber; i++) {
+            pagesOfLastTokens[i] = Iterables.getLast(bodyComponents.getLabels().get(i).getLeft()).getPage();
+        }
+        progress.setEntries(pagesOfLastTokens);
 
         for (int i = 0; i < lexicalEntriesNumber; i++) {
             int beginLEOffSet = bodyComponents.getLabels().get(i).getLeft().get(0).getOffset();
@@ -358,13 +365,13 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
         List<Pair<List<LayoutToken>, String>> lexicalEntriesSubList = new ArrayList<>();
 
         if (modelToRun.equals(PROCESS_DICTIONARY_BODY_SEGMENTATION)) {
-            if (lexicalEntriesNumber > pagesNumber) {
+            if (lexicalEntriesNumber > context.pagesNumber) {
                 int j = 0;
                 int lexicalEntryBeginIndex;
 
-                for (int i = 1; i <= pagesOffsetArray.size() - 1; i++) {
+                for (int i = 1; i <= context.pagesOffsetArray.size() - 1; i++) {
 
-                    int newPageOffset = pagesOffsetArray.get(i);
+                    int newPageOffset = context.pagesOffsetArray.get(i);
                     lexicalEntryBeginIndex = j;
                     // Check if the lexical entries are recognized (exist)
                     while (j < lexicalEntriesOffsetArray.size()) {
@@ -385,8 +392,8 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
                 if (bigEntryIsInsideDetected) {
 //                    tei = headerTEI;
-                    if (headNotesOfAllPages.size() != 0) {
-                        for (DocumentPiece header : headNotesOfAllPages) {
+                    if (context.headNotesOfAllPages.size() != 0) {
+                        for (DocumentPiece header : context.headNotesOfAllPages) {
                             tei.append("\t\t<fw type=\"header\">");
                             tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(header)));
                             tei.append("</fw>");
@@ -404,20 +411,20 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
                     }
 
-                    simpleDisplayEndOfPage(tei, doc);
+                    simpleDisplayEndOfPage(tei, doc, context);
                 } else {
-                    if (headNotesOfAllPages.size() != 0) {
+                    if (context.headNotesOfAllPages.size() != 0) {
                         tei.append("\t\t<fw " + "type=\"header\">");
-                        tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(headNotesOfAllPages.first())));
+                        tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(context.headNotesOfAllPages.first())));
                         tei.append("</fw>\n");
                     }
 
-                    if (pagesOffsetArray.size() > 1) {
+                    if (context.pagesOffsetArray.size() > 1) {
                         int k = 0;
 
-                        for (int pageOffsetIndex = 1; pageOffsetIndex <= pagesOffsetArray.size() - 1; pageOffsetIndex++) {
+                        for (int pageOffsetIndex = 1; pageOffsetIndex <= context.pagesOffsetArray.size() - 1; pageOffsetIndex++) {
 
-                            int newPageOffset = pagesOffsetArray.get(pageOffsetIndex);
+                            int newPageOffset = context.pagesOffsetArray.get(pageOffsetIndex);
                             lexicalEntryBeginIndex = k;
                             // Check if the lexical entries are recognized (exist)
                             while (k < lexicalEntriesOffsetArray.size()) {
@@ -442,7 +449,8 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                                 }
 
 
-                                treatEndOfPageAndBeginingOfSecondPage(tei, doc);
+                                treatEndOfPageAndBeginingOfSecondPage(tei, doc, context);
+                                flushTEI(tei, out);
 
 
                             } else {
@@ -477,7 +485,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                                 textToShowInTokens = DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(firstPartOfLastLexicalEntry));
 
 
-                                textToShowInTokens = treatEndOfSplitPage(textToShowInTokens, doc);
+                                textToShowInTokens = treatEndOfSplitPage(textToShowInTokens, doc, context);
 
 
                                 textToShowInTokens += DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(restOfLexicalEntryTokens));
@@ -486,7 +494,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
 
                             }
-                            if (pageOffsetIndex == pagesOffsetArray.size() - 1) {
+                            if (pageOffsetIndex == context.pagesOffsetArray.size() - 1) {
                                 lexicalEntriesSubList = bodyComponents.getLabels().subList(k, bodyComponents.getLabels().size());
 
 
@@ -498,7 +506,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                                 }
 
 
-                                treatEndOfLastPage(tei, doc);
+                                treatEndOfLastPage(tei, doc, context);
 
 
                             }
@@ -514,7 +522,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                             produceXmlNode(tei, clusterContent, tagLabel, false);
                         }
 
-                        simpleDisplayEndOfPage(tei, doc);
+                        simpleDisplayEndOfPage(tei, doc, context);
 
 
                     }
@@ -525,8 +533,8 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
             } else {
                 // This is caused probably by a lack of training. So just try to show what is already recognized in a consistent way
 
-                if (headNotesOfAllPages.size() != 0) {
-                    for (DocumentPiece header : headNotesOfAllPages) {
+                if (context.headNotesOfAllPages.size() != 0) {
+                    for (DocumentPiece header : context.headNotesOfAllPages) {
                         tei.append("\t\t<fw type=\"header\">");
                         tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(header)));
                         tei.append("</fw>");
@@ -541,18 +549,18 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                     produceXmlNode(tei, clusterContent, tagLabel, false);
                 }
 
-                simpleDisplayEndOfPage(tei, doc);
+                simpleDisplayEndOfPage(tei, doc, context);
 
 
             }
 
         } else if (modelToRun.equals(PROCESS_BIBLIOGRAPHY_BODY_SEGMENTATION)) {
             bigEntryIsInsideDetected = false;
-            if (lexicalEntriesNumber > pagesNumber) {
+            if (lexicalEntriesNumber > context.pagesNumber) {
                 int j = 0;
                 int lexicalEntryBeginIndex;
-                for (int i = 1; i <= pagesOffsetArray.size() - 1; i++) {
-                    int newPageOffset = pagesOffsetArray.get(i);
+                for (int i = 1; i <= context.pagesOffsetArray.size() - 1; i++) {
+                    int newPageOffset = context.pagesOffsetArray.get(i);
                     lexicalEntryBeginIndex = j;
                     // Check if the lexical entries are recognized (exist)
                     while (j < lexicalEntriesOffsetArray.size()) {
@@ -573,8 +581,8 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
                 if (bigEntryIsInsideDetected) {
 //                    tei = headerTEI;
-                    if (headNotesOfAllPages.size() != 0) {
-                        for (DocumentPiece header : headNotesOfAllPages) {
+                    if (context.headNotesOfAllPages.size() != 0) {
+                        for (DocumentPiece header : context.headNotesOfAllPages) {
                             tei.append("\t\t<fw type=\"header\">");
                             tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(header)));
                             tei.append("</fw>");
@@ -592,24 +600,24 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
                     }
 
-                    simpleDisplayEndOfPage(tei, doc);
+                    simpleDisplayEndOfPage(tei, doc, context);
 
 
                 } else {
-                    if (headNotesOfAllPages.size() != 0) {
+                    if (context.headNotesOfAllPages.size() != 0) {
                         tei.append("\t\t<fw " + "type=\"header\">");
-                        tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(headNotesOfAllPages.first())));
+                        tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(context.headNotesOfAllPages.first())));
                         tei.append("</fw>\n");
                     }
                 }
 
 
-                if (pagesOffsetArray.size() > 1) {
+                if (context.pagesOffsetArray.size() > 1) {
                     int k = 0;
 
-                    for (int pageOffsetIndex = 1; pageOffsetIndex <= pagesOffsetArray.size() - 1; pageOffsetIndex++) {
+                    for (int pageOffsetIndex = 1; pageOffsetIndex <= context.pagesOffsetArray.size() - 1; pageOffsetIndex++) {
 
-                        int newPageOffset = pagesOffsetArray.get(pageOffsetIndex);
+                        int newPageOffset = context.pagesOffsetArray.get(pageOffsetIndex);
                         lexicalEntryBeginIndex = k;
                         // Check if the lexical entries are recognized (exist)
                         while (j < lexicalEntriesOffsetArray.size()) {
@@ -634,7 +642,8 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                             }
 
 
-                            treatEndOfPageAndBeginingOfSecondPage(tei, doc);
+                            treatEndOfPageAndBeginingOfSecondPage(tei, doc, context);
+                            flushTEI(tei, out);
 
 
                         } else {
@@ -669,7 +678,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                             textToShowInTokens = DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(firstPartOfLastLexicalEntry));
 
 
-                            textToShowInTokens = treatEndOfSplitPage(textToShowInTokens, doc);
+                            textToShowInTokens = treatEndOfSplitPage(textToShowInTokens, doc, context);
 
 
                             textToShowInTokens += DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(restOfLexicalEntryTokens));
@@ -678,7 +687,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
 
                         }
-                        if (pageOffsetIndex == pagesOffsetArray.size() - 1) {
+                        if (pageOffsetIndex == context.pagesOffsetArray.size() - 1) {
                             lexicalEntriesSubList = bodyComponents.getLabels().subList(k, bodyComponents.getLabels().size());
 
 
@@ -690,7 +699,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                             }
 
 
-                            treatEndOfLastPage(tei, doc);
+                            treatEndOfLastPage(tei, doc, context);
 
 
                         }
@@ -706,7 +715,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                         produceXmlNodeBib(tei, clusterContent, tagLabel, false);
                     }
 
-                    simpleDisplayEndOfPage(tei, doc);
+                    simpleDisplayEndOfPage(tei, doc, context);
 
 
                 }
@@ -714,8 +723,8 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
             } else {
                 // This is caused probably by a lack of training. So just try to show what is already recognized in a consistent way
 
-                if (headNotesOfAllPages.size() != 0) {
-                    for (DocumentPiece header : headNotesOfAllPages) {
+                if (context.headNotesOfAllPages.size() != 0) {
+                    for (DocumentPiece header : context.headNotesOfAllPages) {
                         tei.append("\t\t<fw type=\"header\">");
                         tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(header)));
                         tei.append("</fw>");
@@ -730,7 +739,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                     produceXmlNode(tei, clusterContent, tagLabel, false);
                 }
 
-                simpleDisplayEndOfPage(tei, doc);
+                simpleDisplayEndOfPage(tei, doc, context);
 
 
             }
@@ -738,13 +747,13 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
         } else if (modelToRun.equals(PATH_LEXICAL_ENTRY)) {
             bigEntryIsInsideDetected = false;
-            LexicalEntryParser lexicalEntryParser = new LexicalEntryParser();
-            if (lexicalEntriesNumber > pagesNumber) {
+            LexicalEntryParser lexicalEntryParser = parsers.getLexicalEntryParser();
+            if (lexicalEntriesNumber > context.pagesNumber) {
                 int j = 0;
                 int lexicalEntryBeginIndex;
-                for (int pageOffsetIndex = 1; pageOffsetIndex <= pagesOffsetArray.size() - 1; pageOffsetIndex++) {
+                for (int pageOffsetIndex = 1; pageOffsetIndex <= context.pagesOffsetArray.size() - 1; pageOffsetIndex++) {
 
-                    int newPageOffset = pagesOffsetArray.get(pageOffsetIndex);
+                    int newPageOffset = context.pagesOffsetArray.get(pageOffsetIndex);
                     lexicalEntryBeginIndex = j;
                     // Check if the lexical entries are recognized (exist)
                     while (j < lexicalEntriesOffsetArray.size()) {
@@ -765,21 +774,21 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
                 if (bigEntryIsInsideDetected) {
                     //       tei = headerTEI;
-                    tei = bigEntryFormat(modelToRun, tei, bodyComponents, doc);
+                    tei = bigEntryFormat(modelToRun, tei, bodyComponents, doc, context, parsers);
 
                 } else {
-                    if (headNotesOfAllPages.size() != 0) {
+                    if (context.headNotesOfAllPages.size() != 0) {
                         tei.append("\t\t<fw " + "type=\"header\">");
-                        tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(headNotesOfAllPages.first())));
+                        tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(context.headNotesOfAllPages.first())));
                         tei.append("</fw>\n");
 
                     }
-                    if (pagesOffsetArray.size() > 1) {
+                    if (context.pagesOffsetArray.size() > 1) {
                         int k = 0;
 
-                        for (int pageOffsetIndex = 1; pageOffsetIndex <= pagesOffsetArray.size() - 1; pageOffsetIndex++) {
+                        for (int pageOffsetIndex = 1; pageOffsetIndex <= context.pagesOffsetArray.size() - 1; pageOffsetIndex++) {
 
-                            int newPageOffset = pagesOffsetArray.get(pageOffsetIndex);
+                            int newPageOffset = context.pagesOffsetArray.get(pageOffsetIndex);
                             lexicalEntryBeginIndex = k;
                             // Check if the lexical entries are recognized (exist)
                             if (k < lexicalEntriesOffsetArray.size()) {
@@ -802,14 +811,15 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                                     if (bodyComponent.getRight().equals(DictionaryBodySegmentationLabels.PUNCTUATION_LABEL)) {
                                         clusterContent = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(allTokensOfaLE));
                                     } else {
-                                        clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun);
+                                        clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun, parsers);
                                     }
 
                                     produceXmlNode(tei, clusterContent, bodyComponent.getRight(), true);
                                 }
 
 
-                                treatEndOfPageAndBeginingOfSecondPage(tei, doc);
+                                treatEndOfPageAndBeginingOfSecondPage(tei, doc, context);
+                                flushTEI(tei, out);
 
 
                             } else {
@@ -843,7 +853,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                                     if (tag.equals(DictionaryBodySegmentationLabels.PUNCTUATION_LABEL)) {
                                         clusterContent = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(allTokensOfaLE));
                                     } else {
-                                        clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun);
+                                        clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun, parsers);
                                     }
                                     produceXmlNode(tei, clusterContent, tag, true);
                                 }
@@ -864,7 +874,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                                         textToShowInTokens += DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(firstPartOfSplitComponent));
 
 
-                                        textToShowInTokens = treatEndOfSplitPage(textToShowInTokens, doc);
+                                        textToShowInTokens = treatEndOfSplitPage(textToShowInTokens, doc, context);
 
 
                                         textToShowInTokens += DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(restOfSplitComponentTokens));
@@ -881,7 +891,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                                 produceXmlNodeWithSplitInside(tei, clusterContent, tagLabel, true, null);
 
                             }
-                            if (pageOffsetIndex == pagesOffsetArray.size() - 1) {
+                            if (pageOffsetIndex == context.pagesOffsetArray.size() - 1) {
                                 lexicalEntriesSubList = bodyComponents.getLabels().subList(k, bodyComponents.getLabels().size());
 
                                 for (Pair<List<LayoutToken>, String> bodyComponent : lexicalEntriesSubList) {
@@ -891,13 +901,13 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                                     if (tagLabel.equals(DictionaryBodySegmentationLabels.PUNCTUATION_LABEL)) {
                                         clusterContent = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(allTokensOfaLE));
                                     } else {
-                                        clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun);
+                                        clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun, parsers);
                                     }
                                     produceXmlNode(tei, clusterContent, tagLabel, true);
                                 }
 
 
-                                treatEndOfLastPage(tei, doc);
+                                treatEndOfLastPage(tei, doc, context);
 
 
                             }
@@ -912,12 +922,12 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                             if (tagLabel.equals(DictionaryBodySegmentationLabels.PUNCTUATION_LABEL)) {
                                 clusterContent = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(allTokensOfaLE));
                             } else {
-                                clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun);
+                                clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun, parsers);
                             }
                             produceXmlNode(tei, clusterContent, tagLabel, true);
                         }
 
-                        simpleDisplayEndOfPage(tei, doc);
+                        simpleDisplayEndOfPage(tei, doc, context);
 
 
                     }
@@ -925,9 +935,9 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
             } else {
                 // This is caused probably by a lack of training. So just try to show what is already recognized in a consistent way
-                if (headNotesOfAllPages.size() != 0) {
+                if (context.headNotesOfAllPages.size() != 0) {
 
-                    for (DocumentPiece header : headNotesOfAllPages) {
+                    for (DocumentPiece header : context.headNotesOfAllPages) {
                         tei.append("\t\t<fw type=\"header\">");
                         tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(header)));
                         tei.append("</fw>");
@@ -941,31 +951,31 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                     if (tagLabel.equals(DictionaryBodySegmentationLabels.PUNCTUATION_LABEL)) {
                         clusterContent = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(allTokensOfaLE));
                     } else {
-                        clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun);
+                        clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun, parsers);
                     }
                     produceXmlNode(tei, clusterContent, tagLabel, true);
                 }
 
-                simpleDisplayEndOfPage(tei, doc);
+                simpleDisplayEndOfPage(tei, doc, context);
 
 
             }
 
         } else if (modelToRun.equals(PATH_BIBLIOGRAPHY_ENTRY)) {
-            LexicalEntryParser lexicalEntryParser = new LexicalEntryParser();
-            if (lexicalEntriesNumber > pagesNumber) {
-                if (headNotesOfAllPages.size() != 0) {
+            LexicalEntryParser lexicalEntryParser = parsers.getLexicalEntryParser();
+            if (lexicalEntriesNumber > context.pagesNumber) {
+                if (context.headNotesOfAllPages.size() != 0) {
                     tei.append("\t\t<fw " + "type=\"header\">");
-                    tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(headNotesOfAllPages.first())));
+                    tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(context.headNotesOfAllPages.first())));
                     tei.append("</fw>\n");
 
                 }
-                if (pagesOffsetArray.size() > 1) {
+                if (context.pagesOffsetArray.size() > 1) {
                     int k = 0;
                     int lexicalEntryBeginIndex;
-                    for (int pageOffsetIndex = 1; pageOffsetIndex <= pagesOffsetArray.size() - 1; pageOffsetIndex++) {
+                    for (int pageOffsetIndex = 1; pageOffsetIndex <= context.pagesOffsetArray.size() - 1; pageOffsetIndex++) {
 
-                        int newPageOffset = pagesOffsetArray.get(pageOffsetIndex);
+                        int newPageOffset = context.pagesOffsetArray.get(pageOffsetIndex);
                         lexicalEntryBeginIndex = k;
                         // Check if the lexical entries are recognized (exist)
                          while (k < lexicalEntriesOffsetArray.size()) {
@@ -995,14 +1005,14 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                                 if (bodyComponent.getRight().equals(DictionaryBodySegmentationLabels.PUNCTUATION_LABEL)) {
                                     clusterContent = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(allTokensOfaLE));
                                 } else {
-                                    clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun);
+                                    clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun, parsers);
                                 }
 
                                 tei.append(clusterContent);
                             }
 
 
-                            treatEndOfPageAndBeginingOfSecondPage(tei, doc);
+                            treatEndOfPageAndBeginingOfSecondPage(tei, doc, context);
 
 
                         } else {
@@ -1036,7 +1046,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                                 if (tag.equals(DictionaryBodySegmentationLabels.PUNCTUATION_LABEL)) {
                                     clusterContent = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(allTokensOfaLE));
                                 } else {
-                                    clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun);
+                                    clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun, parsers);
                                 }
                                 tei.append(clusterContent);
                             }
@@ -1044,13 +1054,13 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                             boolean splitProcessed = false;
 
                             String tagLabel = lexicalEntriesSubList.get(lexicalEntriesSubList.size() - 1).getRight();
-                            String clusterContent = lexicalEntryParser.processToTei(lexicalEntriesSubList.get(subListSize - 1).getLeft(), modelToRun);
+                            String clusterContent = lexicalEntryParser.processToTei(lexicalEntriesSubList.get(subListSize - 1).getLeft(), modelToRun, parsers);
                             clusterContent = treatEndOfSplitPage(clusterContent, doc);
 
                             tei.append(clusterContent);
 
                         }
-                        if (pageOffsetIndex == pagesOffsetArray.size() - 1) {
+                        if (pageOffsetIndex == context.pagesOffsetArray.size() - 1) {
                             lexicalEntriesSubList = bodyComponents.getLabels().subList(k, bodyComponents.getLabels().size());
 
                             for (Pair<List<LayoutToken>, String> bodyComponent : lexicalEntriesSubList) {
@@ -1060,13 +1070,13 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                                 if (tagLabel.equals(DictionaryBodySegmentationLabels.PUNCTUATION_LABEL)) {
                                     clusterContent = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(allTokensOfaLE));
                                 } else {
-                                    clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun);
+                                    clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun, parsers);
                                 }
                                 tei.append(clusterContent);
                             }
 
 
-                            treatEndOfLastPage(tei, doc);
+                            treatEndOfLastPage(tei, doc, context);
 
 
                         }
@@ -1082,25 +1092,25 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                         if (tagLabel.equals(DictionaryBodySegmentationLabels.PUNCTUATION_LABEL)) {
                             clusterContent = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(allTokensOfaLE));
                         } else {
-                            clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun);
+                            clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun, parsers);
                         }
                         tei.append(clusterContent);
                     }
 
-                    simpleDisplayEndOfPage(tei, doc);
+                    simpleDisplayEndOfPage(tei, doc, context);
 
 
                 }
                 if (bigEntryIsInsideDetected) {
 //                    tei = headerTEI;
-                    tei.append(bigEntryFormat(modelToRun, tei, bodyComponents, doc));
+                    tei.append(bigEntryFormat(modelToRun, tei, bodyComponents, doc, context, parsers));
 
                 }
             } else {
                 // This is caused probably by a lack of training. So just try to show what is already recognized in a consistent way
-                if (headNotesOfAllPages.size() != 0) {
+                if (context.headNotesOfAllPages.size() != 0) {
 
-                    for (DocumentPiece header : headNotesOfAllPages) {
+                    for (DocumentPiece header : context.headNotesOfAllPages) {
                         tei.append("\t\t<fw type=\"header\">");
                         tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(header)));
                         tei.append("</fw>");
@@ -1114,12 +1124,12 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                     if (tagLabel.equals(DictionaryBodySegmentationLabels.PUNCTUATION_LABEL)) {
                         clusterContent = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(allTokensOfaLE));
                     } else {
-                        clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun);
+                        clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun, parsers);
                     }
                     tei.append(clusterContent);
                 }
 
-                simpleDisplayEndOfPage(tei, doc);
+                simpleDisplayEndOfPage(tei, doc, context);
 
 
             }
@@ -1129,13 +1139,9 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
             String[] parsingModels = modelToRun.split("-");
 //            System.out.println(modelToRun);
-            LexicalEntryParser lexicalEntryParser = new LexicalEntryParser();
-            FormParser formParser = new FormParser();
-            SenseParser senseParser = new SenseParser();
 
-            for (Pair<List<LayoutToken>, String> bodyComponent : bodyComponents.getLabels()) {
-                processFullABodyComponentToTEI(bodyComponent, tei, modelToRun);
-            }
+            flushTEI(tei, out);
+            processFullBodyComponentsToTEI(bodyComponents.getLabels(), tei, modelToRun, parsers, progress, out);
 
 
             // Ignore dictionary segmentation components for now as more complex objects are needed for the optimal rendering
@@ -1426,7 +1432,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
             textToShowInTokens += DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(firstPartOfSplitComponent));
 
 
-            textToShowInTokens = treatEndOfSplitPage(textToShowInTokens, doc);
+            textToShowInTokens = treatEndOfSplitPage(textToShowInTokens, doc, context);
 
 
             textToShowInTokens += DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(restOfSplitComponentTokens));
@@ -1441,86 +1447,36 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
     }
 
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        // This method is to create feature matrix and create pre-annotated data using the existing model
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            int n = 0;
-            // we process all pdf files in the directory
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-                    // Create the pre-annotated file and the raw text
-                    createTrainingDictionaryBody(fileEntry, outputDirectory, false);
-                    n++;
-                }
-
-            } else {
-                createTrainingDictionaryBody(path, outputDirectory, false);
-                n++;
-
-            }
-
-
-            System.out.println(n + " files to be processed.");
+        return createTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            return n;
-        } catch (final Exception exp) {
-            throw new GrobidException("An exception occurred while running Grobid batch.", exp);
-        }
+    public int createTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("dictionaryBodySegmentation", false, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingDictionaryBody(pdf, output, false));
     }
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        // This method is to create feature matrix and create pre-annotated data using the existing model
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            int n = 0;
-            // we process all pdf files in the directory
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-                    // Create the pre-annotated file and the raw text
-                    createTrainingDictionaryBody(fileEntry, outputDirectory, true);
-                    n++;
-                }
-
-            } else {
-                createTrainingDictionaryBody(path, outputDirectory, true);
-                n++;
-
-            }
-
-
-            System.out.println(n + " files to be processed.");
+        return createAnnotatedTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            return n;
-        } catch (final Exception exp) {
-            throw new GrobidException("An exception occurred while running Grobid batch.", exp);
-        }
+    public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("dictionaryBodySegmentation", true, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingDictionaryBody(pdf, output, true));
     }
 
     public void createTrainingDictionaryBody(File path, String outputDirectory, boolean isAnnotated) throws Exception {
 
         // Segment the doc
         DictionaryDocument doc = processing(path);
+        createTrainingDictionaryBody(path, doc, outputDirectory, isAnnotated);
+    }
+
+    /**
+     * Same as createTrainingDictionaryBody, the document being already segmented
+     */
+    public void createTrainingDictionaryBody(File path, DictionaryDocument doc, String outputDirectory,
+                                             boolean isAnnotated) throws Exception {
         //Get Body
         SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentDictionaryPart(DictionarySegmentationLabels.DICTIONARY_BODY_LABEL);
 
@@ -1542,15 +1498,6 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
         String outPathRawtext = outputDirectory + "/" + path.getName().substring(0, path.getName().length() - 4) + ".training.dictionaryBodySegmentation.rawtxt";
         FileUtils.writeStringToFile(new File(outPathRawtext), rawtxt.toString(), "UTF-8");
 
-        //Create rng and css files for guiding the annotation
-        File existingRngFile = new File("templates/dictionaryBodySegmentation.rng");
-        File newRngFile = new File(outputDirectory + "/" + "dictionaryBodySegmentation.rng");
-        copyFileUsingStream(existingRngFile, newRngFile);
-
-        File existingCssFile = new File("templates/dictionaryBodySegmentation.css");
-        File newCssFile = new File(outputDirectory + "/" + "dictionaryBodySegmentation.css");
-        copyFileUsingStream(existingCssFile, newCssFile);
-
         StringBuffer bufferFulltext = new StringBuffer();
 
         if (isAnnotated) {
@@ -1688,14 +1635,13 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
     }
 
 
-    public StringBuilder bigEntryFormat(String modelToRun, StringBuilder tei, LabeledLexicalInformation bodyComponents, DictionaryDocument doc) {
+    public StringBuilder bigEntryFormat(String modelToRun, StringBuilder tei, LabeledLexicalInformation bodyComponents, DictionaryDocument doc,
+                                        DictionaryBodyRenderContext context, DictionaryParserSet parsers) {
 
 
-        LexicalEntryParser lexicalEntryParser = new LexicalEntryParser();
-        FormParser formParser = new FormParser();
-        SenseParser senseParser = new SenseParser();
-        if (headNotesOfAllPages.size() != 0) {
-            for (DocumentPiece header : headNotesOfAllPages) {
+        LexicalEntryParser lexicalEntryParser = parsers.getLexicalEntryParser();
+        if (context.headNotesOfAllPages.size() != 0) {
+            for (DocumentPiece header : context.headNotesOfAllPages) {
                 tei.append("\t\t<fw type=\"header\">");
                 tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(header)));
                 tei.append("</fw>");
@@ -1714,7 +1660,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
                     clusterContent = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(allTokensOfaLE));
 
                 } else {
-                    clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun);
+                    clusterContent = lexicalEntryParser.processToTei(allTokensOfaLE, modelToRun, parsers);
                 }
 
             } else if (modelToRun.equals(PATH_FULL_DICTIONARY)) {
@@ -1733,33 +1679,33 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
         }
 
-        simpleDisplayEndOfPage(tei, doc);
+        simpleDisplayEndOfPage(tei, doc, context);
 
 
         return tei;
     }
 
-    private void treatEndOfPageAndBeginingOfSecondPage(StringBuilder tei, DictionaryDocument doc) {
-        if (currentFootIndex < footNotesOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(footNotesOfAllPages, currentFootIndex))) != "") {
+    private void treatEndOfPageAndBeginingOfSecondPage(StringBuilder tei, DictionaryDocument doc, DictionaryBodyRenderContext context) {
+        if (context.currentFootIndex < context.footNotesOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.footNotesOfAllPages, context.currentFootIndex))) != "") {
             // With this check, just one foot note that doesn't correspond to the right page could stop showing the rest of the footnotes in the Stack.
             // This is caused by the forced check of the footnote'a index and its supposed page
             // Need to choose between showing things in their right spots or show them and it  doesn't matter if they are correctly labelled
 //                                if (lastVisitedLayoutToken.getPage() == currentFootIndex+1) {
             tei.append("\t\t<fw type=\"footer\">");
-            tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(footNotesOfAllPages, currentFootIndex))));
-            currentFootIndex++;
+            tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.footNotesOfAllPages, context.currentFootIndex))));
+            context.currentFootIndex++;
             tei.append("</fw>");
             tei.append("\n");
 //                                }
         }
 
 
-        if (currentOtherIndex < dictScrapsOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(dictScrapsOfAllPages, currentOtherIndex))) != "") {
+        if (context.currentOtherIndex < context.dictScrapsOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.dictScrapsOfAllPages, context.currentOtherIndex))) != "") {
             // Same logic as the footnote
 //                                if (lastVisitedLayoutToken.getPage() == currentFootIndex+1) {
             tei.append("\t\t<dictScrap>");
-            tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(dictScrapsOfAllPages, currentOtherIndex))));
-            currentOtherIndex++;
+            tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.dictScrapsOfAllPages, context.currentOtherIndex))));
+            context.currentOtherIndex++;
             tei.append("</dictScrap>");
             tei.append("\n");
 //                                }
@@ -1767,31 +1713,31 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
         tei.append("<pb/>");
 
-        if (currentHeadIndex < headNotesOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(headNotesOfAllPages, currentHeadIndex))) != "") {
+        if (context.currentHeadIndex < context.headNotesOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.headNotesOfAllPages, context.currentHeadIndex))) != "") {
             tei.append("\t\t<fw type=\"header\">");
-            tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(headNotesOfAllPages, currentHeadIndex))));
-            currentHeadIndex++;
+            tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.headNotesOfAllPages, context.currentHeadIndex))));
+            context.currentHeadIndex++;
             tei.append("</fw>");
 
         }
     }
 
-    private void simpleDisplayEndOfPage(StringBuilder tei, DictionaryDocument doc) {
-        if (footNotesOfAllPages.size() != 0) {
-            for (DocumentPiece footer : footNotesOfAllPages) {
+    private void simpleDisplayEndOfPage(StringBuilder tei, DictionaryDocument doc, DictionaryBodyRenderContext context) {
+        if (context.footNotesOfAllPages.size() != 0) {
+            for (DocumentPiece footer : context.footNotesOfAllPages) {
 
                 tei.append("\t\t<fw type=\"footer\">");
                 tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(footer)));
-                currentFootIndex++;
+                context.currentFootIndex++;
                 tei.append("</fw>");
                 tei.append("\n");
             }
         }
-        if (dictScrapsOfAllPages.size() != 0) {
-            for (DocumentPiece other : dictScrapsOfAllPages) {
+        if (context.dictScrapsOfAllPages.size() != 0) {
+            for (DocumentPiece other : context.dictScrapsOfAllPages) {
                 tei.append("\t\t<dictScrap>");
                 tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(other)));
-                currentOtherIndex++;
+                context.currentOtherIndex++;
                 tei.append("</dictScrap>");
                 tei.append("\n");
             }
@@ -1799,72 +1745,311 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
     }
 
-    private void treatEndOfLastPage(StringBuilder tei, DictionaryDocument doc) {
-        if (currentFootIndex < footNotesOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(footNotesOfAllPages, currentFootIndex))) != "") {
+    private void treatEndOfLastPage(StringBuilder tei, DictionaryDocument doc, DictionaryBodyRenderContext context) {
+        if (context.currentFootIndex < context.footNotesOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.footNotesOfAllPages, context.currentFootIndex))) != "") {
             // With this check, just one foot note that doesn't correspond to the right page could stop showing the rest of the footnotes in the Stack.
             // This is caused by the forced check of the footnote'a index and its supposed page
             // Need to choose between showing things in their right spots or show them and it  doesn't matter if they are correctly labelled
             tei.append("\t\t<fw type=\"footer\">");
-            tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(footNotesOfAllPages, currentFootIndex))));
-            currentFootIndex++;
+            tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.footNotesOfAllPages, context.currentFootIndex))));
+            context.currentFootIndex++;
             tei.append("</fw>");
             tei.append("\n");
 
         }
 
 
-        if (currentOtherIndex < dictScrapsOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(dictScrapsOfAllPages, currentOtherIndex))) != "") {
+        if (context.currentOtherIndex < context.dictScrapsOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.dictScrapsOfAllPages, context.currentOtherIndex))) != "") {
             // Same logic as the footnote
             tei.append("\t\t<dictScrap>");
-            tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(dictScrapsOfAllPages, currentOtherIndex))));
-            currentOtherIndex++;
+            tei.append(LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.dictScrapsOfAllPages, context.currentOtherIndex))));
+            context.currentOtherIndex++;
             tei.append("</dictScrap>");
             tei.append("\n");
         }
     }
 
-    private String treatEndOfSplitPage(String textToShowInTokens, DictionaryDocument doc) {
-        if (currentFootIndex < footNotesOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(footNotesOfAllPages, currentFootIndex))) != "") {
+    private String treatEndOfSplitPage(String textToShowInTokens, DictionaryDocument doc, DictionaryBodyRenderContext context) {
+        if (context.currentFootIndex < context.footNotesOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.footNotesOfAllPages, context.currentFootIndex))) != "") {
             textToShowInTokens += "\t\t<fw type=\"footer\">";
-            textToShowInTokens += LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(footNotesOfAllPages, currentFootIndex)));
-            currentFootIndex++;
+            textToShowInTokens += LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.footNotesOfAllPages, context.currentFootIndex)));
+            context.currentFootIndex++;
             textToShowInTokens += "</fw>";
             textToShowInTokens += "\n";
 
         }
 
 
-        if (currentOtherIndex < dictScrapsOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(dictScrapsOfAllPages, currentOtherIndex))) != "") {
+        if (context.currentOtherIndex < context.dictScrapsOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.dictScrapsOfAllPages, context.currentOtherIndex))) != "") {
             textToShowInTokens += "\t\t<dictScrap>";
-            textToShowInTokens += LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(dictScrapsOfAllPages, currentOtherIndex)));
-            currentOtherIndex++;
+            textToShowInTokens += LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.dictScrapsOfAllPages, context.currentOtherIndex)));
+            context.currentOtherIndex++;
             textToShowInTokens += "</dictScrap>";
             textToShowInTokens += "\n";
         }
         textToShowInTokens += "\t\t<pb/>";
 
 
-        if (currentHeadIndex < headNotesOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(headNotesOfAllPages, currentHeadIndex))) != "") {
+        if (context.currentHeadIndex < context.headNotesOfAllPages.size() && LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.headNotesOfAllPages, context.currentHeadIndex))) != "") {
 
             textToShowInTokens += "\t\t<fw type=\"header\">";
-            textToShowInTokens += LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(headNotesOfAllPages, currentHeadIndex)));
-            currentHeadIndex++;
+            textToShowInTokens += LayoutTokensUtil.normalizeText(doc.getDocumentPieceText(Iterables.get(context.headNotesOfAllPages, context.currentHeadIndex)));
+            context.currentHeadIndex++;
             textToShowInTokens += "</fw>";
         }
 
         return textToShowInTokens;
     }
 
-    private void processFullABodyComponentToTEI(Pair<List<LayoutToken>, String> bodyComponent, StringBuilder tei, String modelToRun) {
+    /**
+     * Pool of the current cascade parallelism, to be released by the document once its entries are processed. When
+     * the parallelism changes, the previous pool is shut down once the documents still using it are done.
+     */
+    private static synchronized ForkJoinPool acquireCascadePool() {
+        int parallelism = DictionaryProperties.getCascadeParallelism();
+        if (cascadePool == null || cascadePool.getParallelism() != parallelism) {
+            ForkJoinPool previousPool = cascadePool;
+            cascadePool = new ForkJoinPool(parallelism);
+            if (previousPool != null && !cascadePoolUsers.containsKey(previousPool)) {
+                previousPool.shutdown();
+            }
+        }
+        cascadePoolUsers.merge(cascadePool, 1, Integer::sum);
+        return cascadePool;
+    }
+
+    private static synchronized void releaseCascadePool(ForkJoinPool pool) {
+        int users = cascadePoolUsers.get(pool) - 1;
+        if (users > 0) {
+            cascadePoolUsers.put(pool, users);
+            return;
+        }
+        cascadePoolUsers.remove(pool);
+        if (pool != cascadePool) {
+            // shutdown() lets the tasks already submitted finish
+            pool.shutdown();
+        }
+    }
+
+    void processFullBodyComponentsToTEI(List<Pair<List<LayoutToken>, String>> bodyComponents, StringBuilder tei, final String modelToRun,
+                                        final DictionaryParserSet parsers, final DictionaryProgress progress, Writer out) {
+        int parallelism = DictionaryProperties.getCascadeParallelism();
+        int batchSize = DictionaryProperties.getCascadeBatchSize();
+        final boolean batched = batchSize > 1;
+
+        // With batched labeling, the entries go through the cascade by chunks, with one tagger call per model and
+        // chunk. The chunks are small enough to give work to all the threads of the pool.
+        int chunkSize = 1;
+        if (batched) {
+            chunkSize = Math.max(1, Math.min(batchSize, (bodyComponents.size() + parallelism - 1) / parallelism));
+        }
+        List<List<Pair<List<LayoutToken>, String>>> chunks = Lists.partition(bodyComponents, chunkSize);
+
+        if (parallelism == 1 || chunks.size() < 2) {
+            for (List<Pair<List<LayoutToken>, String>> chunk : chunks) {
+                tei.append(processFullBodyComponentsChunkToTEI(chunk, batched, modelToRun, parsers, progress));
+                flushTEI(tei, out);
+            }
+            return;
+        }
+
+        // The lexical entries are independent from each other: each chunk goes through the cascade on the pool
+        // and the TEI fragments are appended back in document order, so the output is the same as the sequential one.
+        // At most two chunks per thread are submitted ahead of the writer, so that a slow client holds back the
+        // cascade and only the fragments not written yet are kept in memory.
+        ForkJoinPool pool = acquireCascadePool();
+        Deque<Future<String>> pendingChunkTEIs = new ArrayDeque<>();
+        try {
+            int next = 0;
+            while (next < chunks.size() || !pendingChunkTEIs.isEmpty()) {
+                while (next < chunks.size() && pendingChunkTEIs.size() < 2 * parallelism) {
+                    final List<Pair<List<LayoutToken>, String>> chunk = chunks.get(next++);
+                    pendingChunkTEIs.add(pool.submit(new Callable<String>() {
+                        @Override
+                        public String call() {
+                            return processFullBodyComponentsChunkToTEI(chunk, batched, modelToRun, parsers, progress);
+                        }
+                    }));
+                }
+                // each fragment is written as soon as it and all the previous ones are ready
+                tei.append(pendingChunkTEIs.peek().get());
+                flushTEI(tei, out);
+                pendingChunkTEIs.poll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrobidException("Interrupted while processing the lexical entries.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof GrobidException) {
+                throw (GrobidException) e.getCause();
+            }
+            throw new GrobidException("An exception occurred while processing a lexical entry.", e.getCause());
+        } finally {
+            // when a chunk fails or the TEI can't be written (e.g. the client of a stream went away), the chunks
+            // not processed yet would keep the pool busy for nothing
+            for (Future<String> chunkTEI : pendingChunkTEIs) {
+                chunkTEI.cancel(true);
+            }
+            releaseCascadePool(pool);
+        }
+    }
+
+    String processFullBodyComponentsChunkToTEI(List<Pair<List<LayoutToken>, String>> bodyComponents, boolean batched,
+                                               String modelToRun, DictionaryParserSet parsers, DictionaryProgress progress) {
+        StringBuilder chunkTEI = new StringBuilder();
+        if (batched) {
+            processFullBodyComponentsBatchToTEI(bodyComponents, chunkTEI, modelToRun, parsers, progress);
+            progress.chunkLabeled();
+        } else {
+            for (Pair<List<LayoutToken>, String> bodyComponent : bodyComponents) {
+                processFullABodyComponentToTEI(bodyComponent, chunkTEI, modelToRun, parsers);
+            }
+        }
+        for (Pair<List<LayoutToken>, String> bodyComponent : bodyComponents) {
+            progress.entryProcessed(Iterables.getLast(bodyComponent.getLeft()).getPage());
+        }
+        return chunkTEI.toString();
+    }
+
+    /**
+     * Same output as processFullABodyComponentToTEI on each body component, but each model of the cascade is run once
+     * on the sequences of all the body components: first the lexical entries, then their forms, senses and etyms,
+     * then the sub-senses and etym segments. The TEI is then built in document order from the labeled sequences.
+     */
+    private void processFullBodyComponentsBatchToTEI(List<Pair<List<LayoutToken>, String>> bodyComponents, StringBuilder tei,
+                                                     String modelToRun, DictionaryParserSet parsers, DictionaryProgress progress) {
+        String[] parsingModels = modelToRun.split("-");
+        boolean subSenses = parsingModels[1].equals("subSense");
+
+        // Lexical entries
+        List<List<LayoutToken>> entries = new ArrayList<>();
+        for (Pair<List<LayoutToken>, String> bodyComponent : bodyComponents) {
+            if (bodyComponent.getRight().equals(DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL)) {
+                entries.add(bodyComponent.getLeft());
+            }
+        }
+        // the features of the tokens are computed once for the entries, and shared by all the levels
+        TokenFeatureTable features = TokenFeatureTable.forSequences(entries);
+        List<LabeledLexicalInformation> parsedEntries = parsers.getLexicalEntryParser().processBatch(entries, features, progress);
+
+        // Forms, senses and etyms of all the entries
+        List<List<LayoutToken>> forms = new ArrayList<>();
+        List<List<LayoutToken>> senses = new ArrayList<>();
+        List<List<LayoutToken>> etyms = new ArrayList<>();
+        for (LabeledLexicalInformation parsedEntry : parsedEntries) {
+            for (Pair<List<LayoutToken>, String> segmentedEntryComponent : parsedEntry.getLabels()) {
+                String label = segmentedEntryComponent.getRight();
+                if (label.equals(LEXICAL_ENTRY_FORM_LABEL) && parsingModels[0].equals("form")) {
+                    forms.add(segmentedEntryComponent.getLeft());
+                } else if (label.equals(LEXICAL_ENTRY_SENSE_LABEL) && (parsingModels[1].equals("sense") || subSenses)) {
+                    senses.add(segmentedEntryComponent.getLeft());
+                } else if (label.equals(LEXICAL_ENTRY_ETYM_LABEL) && parsingModels[2].equals("etym")) {
+                    etyms.add(segmentedEntryComponent.getLeft());
+                }
+            }
+        }
+        List<LabeledLexicalInformation> parsedForms = parsers.getFormParser().processBatch(forms, features, progress);
+        List<LabeledLexicalInformation> parsedSenses = parsers.getSenseParser().processBatch(senses, features, progress);
+        List<LabeledLexicalInformation> parsedEtyms = parsers.getEtymQuoteParser().processBatch(etyms, features, progress);
+
+        // Sub-senses (or senses again) of the senses, and segments of the etyms
+        List<List<LayoutToken>> subSenseSegments = new ArrayList<>();
+        List<List<LayoutToken>> senseSegments = new ArrayList<>();
+        if (subSenses) {
+            for (LabeledLexicalInformation parsedSense : parsedSenses) {
+                for (Pair<List<LayoutToken>, String> segmentedSense : parsedSense.getLabels()) {
+                    if (segmentedSense.getRight().equals(SUBSENSE_SENSE_LABEL)) {
+                        subSenseSegments.add(segmentedSense.getLeft());
+                    } else {
+                        senseSegments.add(segmentedSense.getLeft());
+                    }
+                }
+            }
+        }
+        List<List<LayoutToken>> etymSegments = new ArrayList<>();
+        for (LabeledLexicalInformation parsedEtym : parsedEtyms) {
+            for (Pair<List<LayoutToken>, String> segmentedEtym : parsedEtym.getLabels()) {
+                etymSegments.add(segmentedEtym.getLeft());
+            }
+        }
+        Iterator<LabeledLexicalInformation> parsedSubSenseSegments =
+                parsers.getSubSenseParser().processBatch(subSenseSegments, features, progress).iterator();
+        Iterator<LabeledLexicalInformation> parsedSenseSegments =
+                parsers.getSenseParser().processBatch(senseSegments, features, progress).iterator();
+        Iterator<LabeledLexicalInformation> parsedEtymSegments =
+                parsers.getEtymParser().processBatch(etymSegments, features, progress).iterator();
+
+        // TEI, in the same order as the sequences were collected
+        Iterator<LabeledLexicalInformation> parsedEntriesIterator = parsedEntries.iterator();
+        Iterator<LabeledLexicalInformation> parsedFormsIterator = parsedForms.iterator();
+        Iterator<LabeledLexicalInformation> parsedSensesIterator = parsedSenses.iterator();
+        Iterator<LabeledLexicalInformation> parsedEtymsIterator = parsedEtyms.iterator();
+        for (Pair<List<LayoutToken>, String> bodyComponent : bodyComponents) {
+            StringBuilder clusterContent = new StringBuilder();
+            String tagLabel = bodyComponent.getRight();
+
+            if (tagLabel.equals(DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL)) {
+                for (Pair<List<LayoutToken>, String> segmentedEntryComponent : parsedEntriesIterator.next().getLabels()) {
+                    String label = segmentedEntryComponent.getRight();
+
+                    if (label.equals(LEXICAL_ENTRY_FORM_LABEL) && parsingModels[0].equals("form")) {
+                        clusterContent.append(parsers.getFormParser().processToTEI(parsedFormsIterator.next()).toString());
+
+                    } else if (label.equals(LEXICAL_ENTRY_SENSE_LABEL) && parsingModels[1].equals("sense")) {
+                        clusterContent.append(parsers.getSenseParser().processToTEI(parsedSensesIterator.next()).toString());
+
+                    } else if (label.equals(LEXICAL_ENTRY_SENSE_LABEL) && subSenses) {
+                        for (Pair<List<LayoutToken>, String> segmentedSense : parsedSensesIterator.next().getLabels()) {
+                            if (segmentedSense.getRight().equals(SUBSENSE_SENSE_LABEL)) {
+                                clusterContent.append(parsers.getSubSenseParser().processToTEI(parsedSubSenseSegments.next()).toString());
+                            } else {
+                                clusterContent.append(parsers.getSenseParser().processToTEI(parsedSenseSegments.next()).toString());
+                            }
+                        }
+
+                    } else if (label.equals(LEXICAL_ENTRY_ETYM_LABEL) && parsingModels[2].equals("etym")) {
+                        String etymTEIString = "";
+                        for (Pair<List<LayoutToken>, String> segmentedEtym : parsedEtymsIterator.next().getLabels()) {
+                            etymTEIString = etymTEIString + parsers.getEtymParser().processToTei(parsedEtymSegments.next(), segmentedEtym.getRight()).toString();
+                        }
+                        produceXmlNode(clusterContent, etymTEIString, LEXICAL_ENTRY_ETYM_LABEL, true);
+
+                    } else {
+                        clusterContent.append(parsers.getLexicalEntryParser().toTEILexicalEntry(segmentedEntryComponent));
+                    }
+                }
+            } else {
+                clusterContent.append(LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(bodyComponent.getLeft())));
+            }
+
+            produceXmlNode(tei, clusterContent.toString(), tagLabel, true);
+        }
+    }
+
+    private static void flushTEI(StringBuilder tei, Writer out) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.append(tei);
+            out.flush();
+        } catch (IOException e) {
+            throw new GrobidException("An exception occurred while writing the TEI.", e);
+        }
+        tei.setLength(0);
+    }
+
+    private void processFullABodyComponentToTEI(Pair<List<LayoutToken>, String> bodyComponent, StringBuilder tei, String modelToRun,
+                                                DictionaryParserSet parsers) {
         StringBuilder clusterContent = new StringBuilder();
-        LexicalEntryParser lexicalEntryParser = new LexicalEntryParser();
+        LexicalEntryParser lexicalEntryParser = parsers.getLexicalEntryParser();
         List<LayoutToken> allTokensOfaLE = bodyComponent.getLeft();
 
         String tagLabel = bodyComponent.getRight();
         if (tagLabel.equals(DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL)) {
             LabeledLexicalInformation parsedLexicalEntry = lexicalEntryParser.process(allTokensOfaLE, modelToRun);
             for (Pair<List<LayoutToken>, String> segmentedEntryComponent : parsedLexicalEntry.getLabels()) {
-                clusterContent.append(processALexicalEntryComponentToTEI(tagLabel, segmentedEntryComponent, modelToRun));
+                clusterContent.append(processALexicalEntryComponentToTEI(tagLabel, segmentedEntryComponent, modelToRun, parsers));
             }
         } else {
 
@@ -1876,14 +2061,15 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
         produceXmlNode(tei, clusterContent.toString(), tagLabel, true);
     }
 
-    private String processALexicalEntryComponentToTEI(String tagLabel, Pair<List<LayoutToken>, String> segmentedEntryComponent, String modelToRun) {
+    private String processALexicalEntryComponentToTEI(String tagLabel, Pair<List<LayoutToken>, String> segmentedEntryComponent, String modelToRun,
+                                                      DictionaryParserSet parsers) {
         StringBuilder clusterContent = new StringBuilder();
         String[] parsingModels = modelToRun.split("-");
-        LexicalEntryParser lexicalEntryParser = new LexicalEntryParser();
-        FormParser formParser = new FormParser();
-        SenseParser senseParser = new SenseParser();
-        EtymQuoteParser etymQuoteParser = new EtymQuoteParser();
-        EtymParser etymParser = new EtymParser();
+        LexicalEntryParser lexicalEntryParser = parsers.getLexicalEntryParser();
+        FormParser formParser = parsers.getFormParser();
+        SenseParser senseParser = parsers.getSenseParser();
+        EtymQuoteParser etymQuoteParser = parsers.getEtymQuoteParser();
+        EtymParser etymParser = parsers.getEtymParser();
 
 
         if (segmentedEntryComponent.getRight().equals(LEXICAL_ENTRY_FORM_LABEL) && parsingModels[0].equals("form")) {
@@ -1893,7 +2079,7 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
             clusterContent.append(senseParser.processToTEI(segmentedEntryComponent.getLeft()).toString());
         } else if (segmentedEntryComponent.getRight().equals(LEXICAL_ENTRY_SENSE_LABEL) && parsingModels[1].equals("subSense")) {
-            SubSenseParser subSenseParser = new SubSenseParser();
+            SubSenseParser subSenseParser = parsers.getSubSenseParser();
             LabeledLexicalInformation parsedSense = senseParser.process(segmentedEntryComponent.getLeft());
             for (Pair<List<LayoutToken>, String> segmentedSense : parsedSense.getLabels()) {
                 if (segmentedSense.getRight().equals(SUBSENSE_SENSE_LABEL)) {
@@ -1929,21 +2115,4 @@ public class DictionaryBodySegmentationParser extends AbstractParser {
 
         return clusterContent.toString();
     }
-
-    private static void copyFileUsingStream(File source, File dest) throws IOException {
-        InputStream is = null;
-        OutputStream os = null;
-        try {
-            is = new FileInputStream(source);
-            os = new FileOutputStream(dest);
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = is.read(buffer)) > 0) {
-                os.write(buffer, 0, length);
-            }
-        } finally {
-            is.close();
-            os.close();
-        }
-    }
 }
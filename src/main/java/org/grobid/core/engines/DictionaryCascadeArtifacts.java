@@ -0,0 +1,176 @@
+package org.grobid.core.engines;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.grobid.core.GrobidModel;
+import org.grobid.core.data.LabeledLexicalInformation;
+import org.grobid.core.document.DictionaryCascadeArtifact;
+import org.grobid.core.document.DictionaryDocument;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.utilities.DictionaryProperties;
+import org.grobid.core.utilities.GrobidProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Directory of the cascade artifacts of the PDF files: the body segmentation and the lexical entries of a PDF are
+ * computed once, and read from its artifact when the training data of the lower levels is created again. An artifact
+ * is identified by the SHA-256 of the PDF, the checksums of the models it comes from and
+ * DictionaryCascadeArtifact.CASCADE_VERSION, so it is not used anymore once one of these models is trained again or
+ * the code of these levels changes.
+ *
+ * The artifacts are kept only with -Dgrobid.dictionaries.artifacts.enabled=true, otherwise the cascade is run every
+ * time. Nothing is removed from the directory: the artifacts which are not used anymore stay there until the directory
+ * is deleted.
+ */
+public class DictionaryCascadeArtifacts {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryCascadeArtifacts.class);
+    private static volatile DictionaryCascadeArtifacts instance;
+
+    private static final String EXTENSION = ".cascade";
+
+    // models run to build an artifact
+    private static final List<GrobidModel> MODELS = Arrays.asList(DictionaryModels.DICTIONARY_SEGMENTATION,
+            DictionaryModels.DICTIONARY_BODY_SEGMENTATION, DictionaryModels.LEXICAL_ENTRY);
+
+    private final File directory;
+
+    // size and modification date of the model files, to avoid hashing them again when nothing changed
+    private String modelFilesStamp;
+    private String modelsChecksum;
+
+    public static DictionaryCascadeArtifacts getInstance() {
+        if (instance == null) {
+            getNewInstance();
+        }
+        return instance;
+    }
+
+    private static synchronized void getNewInstance() {
+        if (instance == null) {
+            instance = new DictionaryCascadeArtifacts(DictionaryProperties.getArtifactsDirectory());
+        }
+    }
+
+    DictionaryCascadeArtifacts(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Artifact of a PDF, read from the directory when there is one, otherwise built by running the cascade. The
+     * lexical entries are labeled only when they are read, and the artifact is then saved.
+     */
+    public DictionaryCascadeArtifact get(File pdf) throws IOException {
+        if (!DictionaryProperties.isArtifactsEnabled()) {
+            return build(segmentBody(pdf), null);
+        }
+
+        File file = getFile(pdf);
+        if (file.exists()) {
+            try {
+                DictionaryCascadeArtifact artifact = DictionaryCascadeArtifact.read(file);
+                LOGGER.info("Cascade of " + pdf.getPath() + " read from " + file.getPath());
+                return artifact;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Cannot read the cascade artifact " + file.getPath() + ", the cascade is run again", e);
+            }
+        }
+
+        return build(segmentBody(pdf), file);
+    }
+
+    /**
+     * Artifact of a PDF already segmented, saved for the next runs once its lexical entries are labeled
+     */
+    public DictionaryCascadeArtifact create(File pdf, DictionaryDocument doc) throws IOException {
+        return build(doc.getBodyComponents(), DictionaryProperties.isArtifactsEnabled() ? getFile(pdf) : null);
+    }
+
+    File getFile(File pdf) throws IOException {
+        return getFile(pdf, DictionaryCascadeArtifact.CASCADE_VERSION);
+    }
+
+    File getFile(File pdf, int cascadeVersion) throws IOException {
+        String pdfChecksum = Files.asByteSource(pdf).hash(Hashing.sha256()).toString();
+        String key = Hashing.sha256()
+                .hashString(pdfChecksum + "|" + getModelsChecksum() + "|" + cascadeVersion,
+                        StandardCharsets.UTF_8)
+                .toString();
+        return new File(directory, key + EXTENSION);
+    }
+
+    /**
+     * Artifact of the body segmentation of a document, saved in the given file (when not null) once its lexical
+     * entries are labeled
+     */
+    private DictionaryCascadeArtifact build(LabeledLexicalInformation bodyComponents, final File file) {
+        return new DictionaryCascadeArtifact(bodyComponents, components -> {
+            List<LabeledLexicalInformation> lexicalEntries = labelLexicalEntries(components);
+            if (file != null) {
+                save(new DictionaryCascadeArtifact(components, lexicalEntries), file);
+            }
+            return lexicalEntries;
+        });
+    }
+
+    LabeledLexicalInformation segmentBody(File pdf) {
+        return DictionaryBodySegmentationParser.getInstance().processing(pdf).getBodyComponents();
+    }
+
+    List<LabeledLexicalInformation> labelLexicalEntries(LabeledLexicalInformation bodyComponents) {
+        return LexicalEntryParser.getInstance().processLexicalEntries(bodyComponents);
+    }
+
+    private void save(DictionaryCascadeArtifact artifact, File file) {
+        if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+            throw new GrobidException("Cannot create the artifacts directory " + directory.getAbsolutePath());
+        }
+        // written under a temporary name, so that a file with the name of an artifact is always complete
+        File partial = new File(directory, file.getName() + "." + Thread.currentThread().getId() + ".part");
+        try {
+            artifact.write(partial);
+            java.nio.file.Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            partial.delete();
+            LOGGER.warn("Cannot write the cascade artifact " + file.getPath(), e);
+        }
+    }
+
+    private synchronized String getModelsChecksum() throws IOException {
+        StringBuilder stamp = new StringBuilder();
+        for (GrobidModel model : MODELS) {
+            File modelFile = getModelFile(model);
+            stamp.append(modelFile.getAbsolutePath()).append(':')
+                    .append(modelFile.lastModified()).append(':')
+                    .append(modelFile.length()).append(';');
+        }
+        if (stamp.toString().equals(modelFilesStamp)) {
+            return modelsChecksum;
+        }
+
+        StringBuilder checksums = new StringBuilder();
+        for (GrobidModel model : MODELS) {
+            File modelFile = getModelFile(model);
+            if (modelFile.exists()) {
+                checksums.append(Files.asByteSource(modelFile).hash(Hashing.sha256()).toString());
+            }
+            checksums.append(';');
+        }
+        modelFilesStamp = stamp.toString();
+        modelsChecksum = Hashing.sha256().hashString(checksums, StandardCharsets.UTF_8).toString();
+
+        return modelsChecksum;
+    }
+
+    File getModelFile(GrobidModel model) {
+        return GrobidProperties.getModelPath(model);
+    }
+}
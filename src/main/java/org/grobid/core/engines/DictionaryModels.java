@@ -1,6 +1,11 @@
 package org.grobid.core.engines;
 import org.grobid.core.GrobidModel;
 import org.grobid.core.GrobidModels;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Created by med on 30.11.16.
  */
@@ -18,4 +23,8 @@ public class DictionaryModels {
     public static final GrobidModel ETYM_QUOTE = GrobidModels.modelFor("etymQuote");
     public static final GrobidModel ETYM = GrobidModels.modelFor("etym");
 
+    public static final List<GrobidModel> ALL_MODELS = Collections.unmodifiableList(Arrays.asList(
+            DICTIONARY_SEGMENTATION, DICTIONARY_BODY_SEGMENTATION, LEXICAL_ENTRY, FORM, SENSE, SUB_SENSE,
+            GRAMMATICAL_GROUP, ETYM_QUOTE, ETYM));
+
 }
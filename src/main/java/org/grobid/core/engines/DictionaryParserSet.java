@@ -0,0 +1,65 @@
+package org.grobid.core.engines;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+/**
+ * The parsers of the dictionary cascade, each one built once (on first use) and then reused for every
+ * lexical entry of a request, instead of creating new parsers for each entry component.
+ *
+ * The grammatical group model has no parser yet, so there are only the eight parsers below.
+ */
+public class DictionaryParserSet {
+
+    private final Supplier<DictionarySegmentationParser> dictionarySegmentationParser =
+            Suppliers.memoize(DictionarySegmentationParser::new);
+    private final Supplier<DictionaryBodySegmentationParser> dictionaryBodySegmentationParser =
+            Suppliers.memoize(DictionaryBodySegmentationParser::new);
+    private final Supplier<LexicalEntryParser> lexicalEntryParser = Suppliers.memoize(LexicalEntryParser::new);
+    private final Supplier<FormParser> formParser = Suppliers.memoize(FormParser::new);
+    private final Supplier<SenseParser> senseParser = Suppliers.memoize(SenseParser::new);
+    private final Supplier<SubSenseParser> subSenseParser = Suppliers.memoize(SubSenseParser::new);
+    private final Supplier<EtymQuoteParser> etymQuoteParser = Suppliers.memoize(EtymQuoteParser::new);
+    private final Supplier<EtymParser> etymParser = Suppliers.memoize(EtymParser::new);
+
+    private static final ThreadLocal<DictionaryParserSet> perThread = ThreadLocal.withInitial(DictionaryParserSet::new);
+
+    /**
+     * Parser set bound to the current thread, for the callers that can't carry a set along (e.g. batch loops).
+     */
+    public static DictionaryParserSet forCurrentThread() {
+        return perThread.get();
+    }
+
+    public DictionarySegmentationParser getDictionarySegmentationParser() {
+        return dictionarySegmentationParser.get();
+    }
+
+    public DictionaryBodySegmentationParser getDictionaryBodySegmentationParser() {
+        return dictionaryBodySegmentationParser.get();
+    }
+
+    public LexicalEntryParser getLexicalEntryParser() {
+        return lexicalEntryParser.get();
+    }
+
+    public FormParser getFormParser() {
+        return formParser.get();
+    }
+
+    public SenseParser getSenseParser() {
+        return senseParser.get();
+    }
+
+    public SubSenseParser getSubSenseParser() {
+        return subSenseParser.get();
+    }
+
+    public EtymQuoteParser getEtymQuoteParser() {
+        return etymQuoteParser.get();
+    }
+
+    public EtymParser getEtymParser() {
+        return etymParser.get();
+    }
+}
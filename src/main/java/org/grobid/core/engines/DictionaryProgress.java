@@ -0,0 +1,110 @@
+package org.grobid.core.engines;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Progress of a document through the cascade, counted in pages and lexical entries, and calls of the tagger.
+ * It is updated by the worker threads of the cascade and can be read at any time from another thread.
+ */
+public class DictionaryProgress {
+    private final AtomicInteger totalPages = new AtomicInteger();
+    private final AtomicInteger processedPages = new AtomicInteger();
+    private final AtomicInteger totalEntries = new AtomicInteger();
+    private final AtomicInteger processedEntries = new AtomicInteger();
+    private final AtomicInteger taggerCalls = new AtomicInteger();
+    private final AtomicInteger labeledSequences = new AtomicInteger();
+    private final AtomicInteger labeledChunks = new AtomicInteger();
+
+    // number of entries not processed yet ending on each page (index 0 for page 1)
+    private volatile AtomicIntegerArray remainingEntriesByPage = new AtomicIntegerArray(0);
+
+    public void setTotalPages(int pages) {
+        totalPages.set(pages);
+    }
+
+    /**
+     * Body components to be processed, given by the page of their last token
+     */
+    public void setEntries(int[] pagesOfLastTokens) {
+        int lastPage = 0;
+        for (int page : pagesOfLastTokens) {
+            lastPage = Math.max(lastPage, page);
+        }
+        AtomicIntegerArray remaining = new AtomicIntegerArray(lastPage);
+        for (int page : pagesOfLastTokens) {
+            remaining.incrementAndGet(Math.max(1, page) - 1);
+        }
+        remainingEntriesByPage = remaining;
+        totalEntries.set(pagesOfLastTokens.length);
+    }
+
+    /**
+     * A body component has been processed. The body components are processed in parallel and in any order, so a page
+     * is counted as processed once all the body components ending on it or on the pages before are processed.
+     */
+    public void entryProcessed(int pageOfLastToken) {
+        processedEntries.incrementAndGet();
+
+        AtomicIntegerArray remaining = remainingEntriesByPage;
+        int index = Math.max(1, pageOfLastToken) - 1;
+        if (index >= remaining.length() || remaining.decrementAndGet(index) > 0) {
+            return;
+        }
+        synchronized (this) {
+            int pages = processedPages.get();
+            while (pages < remaining.length() && remaining.get(pages) <= 0) {
+                pages++;
+            }
+            processedPages.set(pages);
+        }
+    }
+
+    /**
+     * The tagger has been called once for the given number of sequences
+     */
+    public void taggerCalled(int sequences) {
+        taggerCalls.incrementAndGet();
+        labeledSequences.addAndGet(sequences);
+    }
+
+    /**
+     * A chunk of body components has gone through the cascade with batched labeling
+     */
+    public void chunkLabeled() {
+        labeledChunks.incrementAndGet();
+    }
+
+    public void finish() {
+        processedEntries.set(totalEntries.get());
+        processedPages.set(totalPages.get());
+    }
+
+    public int getTotalPages() {
+        return totalPages.get();
+    }
+
+    public int getProcessedPages() {
+        return processedPages.get();
+    }
+
+    public int getTotalEntries() {
+        return totalEntries.get();
+    }
+
+    public int getProcessedEntries() {
+        return processedEntries.get();
+    }
+
+    public int getTaggerCalls() {
+        return taggerCalls.get();
+    }
+
+    public int getLabeledSequences() {
+        return labeledSequences.get();
+    }
+
+    public int getLabeledChunks() {
+        return labeledChunks.get();
+    }
+}
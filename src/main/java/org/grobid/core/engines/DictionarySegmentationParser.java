@@ -16,6 +16,7 @@ import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.exceptions.GrobidExceptionStatus;
 import org.grobid.core.features.FeatureFactory;
 import org.grobid.core.features.FeaturesVectorSegmentation;
+import org.grobid.core.features.RepetitivePatterns;
 import org.grobid.core.layout.*;
 import org.grobid.core.utilities.*;
 import org.apache.commons.lang3.tuple.Pair;
@@ -76,6 +77,7 @@ public class DictionarySegmentationParser extends AbstractParser {
         SortedSetMultimap<String, DocumentPiece> labeledBlocks = TreeMultimap.create();
         doc.setLabeledBlocks(labeledBlocks);
         List<Block> docBlocks = doc.getBlocks();
+        DocumentLineIndex lineIndex = doc.getLineIndex();
         int indexLine = 0;
         int blockIndex = 0;
         int p = 0; // position in the labeled result
@@ -112,6 +114,8 @@ public class DictionarySegmentationParser extends AbstractParser {
             }
         }
 
+        LineTokenAligner aligner = new LineTokenAligner(documentTokens, lastTokenInd);
+
         // we do this concatenation trick so that we don't have to process stuff after the main loop
         // no copying of lists happens because of this, so it's ok to concatenate
         String ignoredLabel = "@IGNORED_LABEL@";
@@ -130,8 +134,7 @@ public class DictionarySegmentationParser extends AbstractParser {
             while ((line == null) && (blockIndex < docBlocks.size())) {
                 Block block = docBlocks.get(blockIndex);
                 List<LayoutToken> tokens = block.getTokens();
-                String localText = block.getText();
-                if ((tokens == null) || (localText == null) || (localText.trim().length() == 0)) {
+                if ((tokens == null) || lineIndex.isBlank(blockIndex)) {
                     blockIndex++;
                     indexLine = 0;
                     if (blockIndex < docBlocks.size()) {
@@ -140,7 +143,7 @@ public class DictionarySegmentationParser extends AbstractParser {
                     }
                     continue;
                 }
-                String[] lines = localText.split("[\\n\\r]");
+                DocumentLineIndex.Line[] lines = lineIndex.getLines(blockIndex);
                 if ((lines.length == 0) || (indexLine >= lines.length)) {
                     blockIndex++;
                     indexLine = 0;
@@ -150,53 +153,22 @@ public class DictionarySegmentationParser extends AbstractParser {
                     }
                     continue;
                 } else {
-                    line = lines[indexLine];
+                    DocumentLineIndex.Line indexedLine = lines[indexLine];
                     indexLine++;
-                    if ((line.trim().length() == 0) || (TextUtilities.filterLine(line))) {
-                        line = null;
+                    if (!indexedLine.isSignificant()) {
                         continue;
                     }
+                    line = indexedLine.getText();
 
                     if (currentLineStartPos > lastTokenInd)
                         continue;
 
                     // adjust the start token position in documentTokens to this non trivial line
-                    // first skip possible space characters and tabs at the beginning of the line
-                    while ((documentTokens.get(currentLineStartPos).t().equals(" ") ||
-                            documentTokens.get(currentLineStartPos).t().equals("\t"))
-                            && (currentLineStartPos != lastTokenInd)) {
-                        currentLineStartPos++;
-                    }
-                    if (!labeledTokenPair.getLeft().startsWith(documentTokens.get(currentLineStartPos).getText())) {
-                        while (currentLineStartPos < block.getEndToken()) {
-                            if (documentTokens.get(currentLineStartPos).t().equals("\n")
-                                    || documentTokens.get(currentLineStartPos).t().equals("\r")) {
-                                // move to the start of the next line, but ignore space characters and tabs
-                                currentLineStartPos++;
-                                while ((documentTokens.get(currentLineStartPos).t().equals(" ") ||
-                                        documentTokens.get(currentLineStartPos).t().equals("\t"))
-                                        && (currentLineStartPos != lastTokenInd)) {
-                                    currentLineStartPos++;
-                                }
-                                if ((currentLineStartPos != lastTokenInd) &&
-                                        labeledTokenPair.getLeft().startsWith(documentTokens.get(currentLineStartPos).getText())) {
-                                    break;
-                                }
-                            }
-                            currentLineStartPos++;
-                        }
-                    }
+                    currentLineStartPos = aligner.findLineStart(currentLineStartPos, block.getEndToken(),
+                            labeledTokenPair.getLeft());
 
                     // what is then the position of the last token of this line?
-                    currentLineEndPos = currentLineStartPos;
-                    while (currentLineEndPos < block.getEndToken()) {
-                        if (documentTokens.get(currentLineEndPos).t().equals("\n")
-                                || documentTokens.get(currentLineEndPos).t().equals("\r")) {
-                            currentLineEndPos--;
-                            break;
-                        }
-                        currentLineEndPos++;
-                    }
+                    currentLineEndPos = aligner.findLineEnd(currentLineStartPos, block.getEndToken());
                 }
             }
             curLabel = labeledTokenPair.getRight();
@@ -263,7 +235,7 @@ public class DictionarySegmentationParser extends AbstractParser {
 
     public DictionaryDocument initiateProcessing(File originFile, GrobidAnalysisConfig config) {
         // This method is to be called by any parser to perform first level segmentation: Headnote, Body and Footnote
-        DocumentSource documentSource = DocumentSource.fromPdf(originFile, config.getStartPage(), config.getEndPage());
+        DocumentSource documentSource = DocumentUtils.fromPdf(originFile, config.getStartPage(), config.getEndPage());
         try {
             Document document = new Document(documentSource);
 
@@ -381,10 +353,11 @@ public class DictionarySegmentationParser extends AbstractParser {
 
         //This method is used to tokenize and set the diffrent sections of the document (labelled blocks)
         List<LayoutToken> tokenizations = doc.getTokenizations();
-//        if (tokenizations.size() > GrobidProperties.getPdfTokensMax()) {
-//            throw new GrobidException("The document has " + tokenizations.size() + " tokens, but the limit is " + GrobidProperties.getPdfTokensMax(),
-//                    GrobidExceptionStatus.TOO_MANY_TOKENS);
-//        }
+        int maxTokens = DictionaryProperties.getMaxTokensPerDocument();
+        if (tokenizations.size() > maxTokens) {
+            throw new GrobidException("The document has " + tokenizations.size() + " tokens, but the limit is " + maxTokens,
+                    GrobidExceptionStatus.TOO_MANY_TOKENS);
+        }
 
         doc.produceStatistics();
         String content = getAllLinesFeatured(doc);
@@ -480,11 +453,11 @@ public class DictionarySegmentationParser extends AbstractParser {
 
         boolean graphicVector = false;
         boolean graphicBitmap = false;
+        DocumentLineIndex lineIndex = DocumentLineIndex.of(doc);
 
         // list of textual patterns at the head and foot of pages which can be re-occur on several pages
         // (typically indicating a publisher foot or head notes)
-        Map<String, Integer> patterns = new TreeMap<String, Integer>();
-        Map<String, Boolean> firstTimePattern = new TreeMap<String, Boolean>();
+        RepetitivePatterns patterns = new RepetitivePatterns();
 
         for (Page page : doc.getPages()) {
             // we just look at the two first and last blocks of the page
@@ -494,18 +467,9 @@ public class DictionarySegmentationParser extends AbstractParser {
                         Block block = page.getBlocks().get(blockIndex);
                         String localText = block.getText();
                         if ((localText != null) && (localText.length() > 0)) {
-                            String[] lines = localText.split("[\\n\\r]");
+                            DocumentLineIndex.Line[] lines = lineIndex.getLines(block);
                             if (lines.length > 0) {
-                                String line = lines[0];
-                                String pattern = featureFactory.getPattern(line);
-                                if (pattern.length() > 8) {
-                                    Integer nb = patterns.get(pattern);
-                                    if (nb == null) {
-                                        patterns.put(pattern, new Integer(1));
-                                        firstTimePattern.put(pattern, false);
-                                    } else
-                                        patterns.put(pattern, new Integer(nb + 1));
-                                }
+                                patterns.add(lines[0].getPatternFingerprint());
                             }
                         }
                     }
@@ -513,14 +477,13 @@ public class DictionarySegmentationParser extends AbstractParser {
             }
         }
 
-        String featuresAsString = getFeatureVectorsAsString(doc, graphicVector, graphicBitmap, patterns, firstTimePattern);
+        String featuresAsString = getFeatureVectorsAsString(doc, lineIndex, graphicVector, graphicBitmap, patterns);
 
         return featuresAsString;
     }
 
-    private String getFeatureVectorsAsString(Document doc, boolean graphicVector,
-                                             boolean graphicBitmap, Map<String, Integer> patterns,
-                                             Map<String, Boolean> firstTimePattern) {
+    private String getFeatureVectorsAsString(Document doc, DocumentLineIndex lineIndex, boolean graphicVector,
+                                             boolean graphicBitmap, RepetitivePatterns patterns) {
         StringBuilder fulltext = new StringBuilder();
         int documentLength = doc.getDocumentLenghtChar();
 
@@ -609,19 +572,15 @@ public class DictionarySegmentationParser extends AbstractParser {
                 if (pageBoundingBox == null || (!pageBoundingBox.contains(blockBoundingBox) && !pageBoundingBox.intersect(blockBoundingBox)))
                     inPageMainArea = false;
 
-                String[] lines = localText.split("[\\n\\r]");
+                DocumentLineIndex.Line[] lines = lineIndex.getLines(block);
                 // set the max length of the lines in the block, in number of characters
-                int maxLineLength = 0;
-                for (int p = 0; p < lines.length; p++) {
-                    if (lines[p].length() > maxLineLength)
-                        maxLineLength = lines[p].length();
-                }
+                int maxLineLength = lineIndex.getMaxLineLength(block);
                 List<LayoutToken> tokens = block.getTokens();
                 if ((tokens == null) || (tokens.size() == 0)) {
                     continue;
                 }
                 for (int li = 0; li < lines.length; li++) {
-                    String line = lines[li];
+                    String line = lines[li].getText();
                     /*boolean firstPageBlock = false;
                     boolean lastPageBlock = false;
 
@@ -643,16 +602,10 @@ public class DictionarySegmentationParser extends AbstractParser {
                     features.line = line;
 
                     if ((blockIndex < 2) || (blockIndex > page.getBlocks().size() - 2)) {
-                        String pattern = featureFactory.getPattern(line);
-                        Integer nb = patterns.get(pattern);
-                        if ((nb != null) && (nb > 1)) {
+                        long pattern = lines[li].getPatternFingerprint();
+                        if (patterns.isRepetitive(pattern)) {
                             features.repetitivePattern = true;
-
-                            Boolean firstTimeDone = firstTimePattern.get(pattern);
-                            if ((firstTimeDone != null) && !firstTimeDone) {
-                                features.firstRepetitivePattern = true;
-                                firstTimePattern.put(pattern, true);
-                            }
+                            features.firstRepetitivePattern = patterns.isFirstRepetitive(pattern);
                         }
                     }
 
@@ -861,90 +814,22 @@ public class DictionarySegmentationParser extends AbstractParser {
         return fulltext.toString();
     }
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        // This method is to create feature matrix and create pre-annotated data using the existing model
-
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            // we process all pdf files in the directory
-
-            int n = 0;
-
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-
-                    // Create the pre-annotated file and the raw text
-                    createTrainingDictionary(fileEntry, outputDirectory, false);
-                    n++;
-                }
-
-            } else {
-
-                createTrainingDictionary(path, outputDirectory, false);
-                n++;
-
-            }
-
-            System.out.println(n + " files to be processed.");
+        return createTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            return n;
-        } catch (Exception e) {
-            throw new GrobidException("An exception occured while running Grobid training" +
-                    " data generation for segmentation model.", e);
-        }
+    public int createTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("dictionarySegmentation", false, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingDictionary(pdf, output, false));
     }
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        // This method is to create feature matrix and create pre-annotated data using the existing model
-
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            // we process all pdf files in the directory
-
-            int n = 0;
-
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-
-                    // Create the pre-annotated file and the raw text
-                    createTrainingDictionary(fileEntry, outputDirectory, true);
-                    n++;
-                }
-
-            } else {
-
-                createTrainingDictionary(path, outputDirectory, true);
-                n++;
-
-            }
-
-            System.out.println(n + " files to be processed.");
+        return createAnnotatedTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            return n;
-        } catch (Exception e) {
-            throw new GrobidException("An exception occured while running Grobid training" +
-                    " data generation for segmentation model.", e);
-        }
+    public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("dictionarySegmentation", true, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingDictionary(pdf, output, true));
     }
 
     public void createTrainingDictionary(File path, String outputDirectory, Boolean isAnnotated) throws Exception {
@@ -963,16 +848,6 @@ public class DictionarySegmentationParser extends AbstractParser {
         writer.write(featuredText);
         IOUtils.closeQuietly(writer);
 
-        //Create rng and css files for guiding the annotation
-        File existingRngFile = new File("templates/dictionarySegmentation.rng");
-        File newRngFile = new File(outputDirectory + "/" + "dictionarySegmentation.rng");
-        copyFileUsingStream(existingRngFile, newRngFile);
-
-        File existingCssFile = new File("templates/dictionarySegmentation.css");
-        File newCssFile = new File(outputDirectory + "/" + "dictionarySegmentation.css");
-//        Files.copy(Gui.getClass().getResourceAsStream("templates/lexicalEntry.css"), Paths.get("new_project","css","lexicalEntry.css"))
-        copyFileUsingStream(existingCssFile, newCssFile);
-
         // also write the raw text as seen before segmentation
 
         StringBuffer rawtxt = new StringBuffer();
@@ -1023,6 +898,7 @@ public class DictionarySegmentationParser extends AbstractParser {
         StringBuffer buffer = new StringBuffer();
         try {
             List<Block> blocks = doc.getBlocks();
+            DocumentLineIndex lineIndex = DocumentLineIndex.of(doc);
             int currentBlockIndex = 0;
             int indexLine = 0;
 
@@ -1076,30 +952,23 @@ public class DictionarySegmentationParser extends AbstractParser {
                         indexLine = 0;
                         continue;
                     }
-                    String localText = block.getText();
-                    if ((localText == null) || (localText.trim().length() == 0)) {
+                    if (lineIndex.isBlank(currentBlockIndex)) {
                         currentBlockIndex++;
                         indexLine = 0;
                         continue;
                     }
-                    //String[] lines = localText.split("\n");
-                    String[] lines = localText.split("[\\n\\r]");
+                    DocumentLineIndex.Line[] lines = lineIndex.getLines(currentBlockIndex);
                     if ((lines.length == 0) || (indexLine >= lines.length)) {
                         currentBlockIndex++;
                         indexLine = 0;
                         continue;
                     } else {
-                        line = lines[indexLine];
+                        DocumentLineIndex.Line indexedLine = lines[indexLine];
                         indexLine++;
-                        if (line.trim().length() == 0) {
-                            line = null;
-                            continue;
-                        }
-
-                        if (TextUtilities.filterLine(line)) {
-                            line = null;
+                        if (!indexedLine.isSignificant()) {
                             continue;
                         }
+                        line = indexedLine.getText();
                     }
                 }
 
@@ -1181,6 +1050,7 @@ public class DictionarySegmentationParser extends AbstractParser {
         StringBuffer buffer = new StringBuffer();
         try {
             List<Block> blocks = doc.getBlocks();
+            DocumentLineIndex lineIndex = DocumentLineIndex.of(doc);
             int currentBlockIndex = 0;
             int indexLine = 0;
 
@@ -1234,30 +1104,23 @@ public class DictionarySegmentationParser extends AbstractParser {
                         indexLine = 0;
                         continue;
                     }
-                    String localText = block.getText();
-                    if ((localText == null) || (localText.trim().length() == 0)) {
+                    if (lineIndex.isBlank(currentBlockIndex)) {
                         currentBlockIndex++;
                         indexLine = 0;
                         continue;
                     }
-                    //String[] lines = localText.split("\n");
-                    String[] lines = localText.split("[\\n\\r]");
+                    DocumentLineIndex.Line[] lines = lineIndex.getLines(currentBlockIndex);
                     if ((lines.length == 0) || (indexLine >= lines.length)) {
                         currentBlockIndex++;
                         indexLine = 0;
                         continue;
                     } else {
-                        line = lines[indexLine];
+                        DocumentLineIndex.Line indexedLine = lines[indexLine];
                         indexLine++;
-                        if (line.trim().length() == 0) {
-                            line = null;
-                            continue;
-                        }
-
-                        if (TextUtilities.filterLine(line)) {
-                            line = null;
+                        if (!indexedLine.isSignificant()) {
                             continue;
                         }
+                        line = indexedLine.getText();
                     }
                 }
 
@@ -1570,22 +1433,4 @@ public class DictionarySegmentationParser extends AbstractParser {
 
         return tei;
     }
-
-    private static void copyFileUsingStream(File source, File dest) throws IOException {
-        InputStream is = null;
-        OutputStream os = null;
-        try {
-            is = new FileInputStream(source);
-            os = new FileOutputStream(dest);
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = is.read(buffer)) > 0) {
-                os.write(buffer, 0, length);
-            }
-        } finally {
-            is.close();
-            os.close();
-        }
-    }
-
 }
@@ -0,0 +1,246 @@
+package org.grobid.core.engines;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.grobid.core.exceptions.GrobidException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the training data of a model for a directory of PDF files, on a pool of worker threads. A file which
+ * fails is reported and the batch goes on with the others.
+ *
+ * Each file is recorded in a manifest in the output directory (one per model and mode, e.g.
+ * form.training.manifest.tsv), with its status and the time it took. The files recorded as done are skipped, so an
+ * interrupted batch, or one with failures, can be run again on the same directories. The rng and css templates of
+ * the model are copied once in the output directory, before the files are processed.
+ *
+ * The training files are written directly in the output directory and named after the PDF file, so when PDF files of
+ * the same name are found in different sub-directories, only the first one in path order is processed, the others
+ * being recorded as failed.
+ */
+public class DictionaryTrainingBatch {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryTrainingBatch.class);
+
+    public static final String TEMPLATES_DIRECTORY = "templates";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    /**
+     * Training data of a single PDF file, written in the output directory
+     */
+    public interface TrainingFileCreator {
+        void create(File pdf, String outputDirectory) throws Exception;
+    }
+
+    private final String model;
+    private final boolean isAnnotated;
+    private final int nbThreads;
+    private final boolean recursive;
+    private String[] templates;
+
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public DictionaryTrainingBatch(String model, boolean isAnnotated, int nbThreads, boolean recursive) {
+        this.model = model;
+        this.isAnnotated = isAnnotated;
+        this.nbThreads = nbThreads;
+        this.recursive = recursive;
+        this.templates = new String[]{model};
+    }
+
+    /**
+     * Models whose templates are copied in the output directory, the model of the batch by default
+     */
+    public DictionaryTrainingBatch setTemplates(String... templates) {
+        this.templates = templates;
+        return this;
+    }
+
+    public String getManifestName() {
+        return model + (isAnnotated ? ".annotatedTraining" : ".training") + ".manifest.tsv";
+    }
+
+    /**
+     * @return the number of files processed, the skipped and failed ones excluded
+     */
+    public int createTrainingBatch(String inputDirectory, String outputDirectory, final TrainingFileCreator creator) {
+        final File input = new File(inputDirectory);
+        if (!input.exists()) {
+            throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
+        }
+        final File output = new File(outputDirectory);
+        if (!output.exists()) {
+            throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
+        }
+
+        copyTemplates(output);
+
+        List<File> pdfs = new ArrayList<>();
+        if (input.isDirectory()) {
+            listPdfs(input, pdfs);
+            pdfs.sort(Comparator.comparing((File pdf) -> getName(input, pdf)));
+        } else {
+            pdfs.add(input);
+        }
+        System.out.println(pdfs.size() + " files to be processed.");
+
+        File manifest = new File(output, getManifestName());
+        Set<String> done = readDone(manifest);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, nbThreads),
+                new ThreadFactoryBuilder().setNameFormat("dictionary-training-%d").build());
+        try (final Writer manifestWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(manifest, true), StandardCharsets.UTF_8))) {
+            List<Future<?>> tasks = new ArrayList<>(pdfs.size());
+            // the training files are named after the PDF file only, so with -r two PDF files of the same name in
+            // different sub-directories would overwrite each other's: the first one in path order is kept
+            Map<String, String> namesByFileName = new HashMap<>();
+            for (final File pdf : pdfs) {
+                final String name = getName(input, pdf);
+                String sameFileName = namesByFileName.putIfAbsent(pdf.getName(), name);
+                if (sameFileName != null) {
+                    failed.incrementAndGet();
+                    LOGGER.error("Cannot create the training data of " + pdf.getPath() + ", " + sameFileName
+                            + " has the same file name");
+                    record(manifestWriter, name + "\t" + FAILED + "\t0\tsame file name as " + sameFileName);
+                    continue;
+                }
+                if (done.contains(name)) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                tasks.add(executor.submit(() -> createTrainingFile(pdf, name, output, creator, manifestWriter)));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (IOException e) {
+            throw new GrobidException("Cannot write the manifest " + manifest.getPath(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrobidException("Interrupted while creating the training data.", e);
+        } catch (ExecutionException e) {
+            throw new GrobidException("An exception occurred while running Grobid batch.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        System.out.println(processed.get() + " files processed, " + skipped.get() + " already processed, "
+                + failed.get() + " failed, see " + manifest.getPath());
+        return processed.get();
+    }
+
+    private void createTrainingFile(File pdf, String name, File output, TrainingFileCreator creator, Writer manifestWriter) {
+        long start = System.currentTimeMillis();
+        String status = DONE;
+        String message = "";
+        try {
+            creator.create(pdf, output.getPath());
+            processed.incrementAndGet();
+            LOGGER.info(pdf.getPath() + " processed in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            status = FAILED;
+            message = String.valueOf(e.getMessage()).replaceAll("\\s+", " ");
+            LOGGER.error("Cannot create the training data of " + pdf.getPath(), e);
+        }
+        record(manifestWriter, name + "\t" + status + "\t" + (System.currentTimeMillis() - start) + "\t" + message);
+    }
+
+    private static void record(Writer manifestWriter, String line) {
+        synchronized (manifestWriter) {
+            try {
+                manifestWriter.write(line + "\n");
+                manifestWriter.flush();
+            } catch (IOException e) {
+                LOGGER.error("Cannot write the manifest", e);
+            }
+        }
+    }
+
+    /**
+     * Files recorded as done in a manifest, the last record of a file being the one which counts
+     */
+    static Set<String> readDone(File manifest) {
+        Set<String> done = new HashSet<>();
+        if (!manifest.exists()) {
+            return done;
+        }
+        try {
+            for (String line : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length < 2) {
+                    continue;
+                }
+                if (fields[1].equals(DONE)) {
+                    done.add(fields[0]);
+                } else {
+                    done.remove(fields[0]);
+                }
+            }
+        } catch (IOException e) {
+            throw new GrobidException("Cannot read the manifest " + manifest.getPath(), e);
+        }
+        return done;
+    }
+
+    private void copyTemplates(File output) {
+        for (String template : templates) {
+            for (String extension : new String[]{".rng", ".css"}) {
+                File source = new File(TEMPLATES_DIRECTORY, template + extension);
+                try {
+                    Files.copy(source.toPath(), new File(output, source.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new GrobidException("Cannot copy the template " + source.getPath(), e);
+                }
+            }
+        }
+    }
+
+    private void listPdfs(File directory, List<File> pdfs) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                if (recursive) {
+                    listPdfs(file, pdfs);
+                }
+            } else if (file.getName().toLowerCase().endsWith(".pdf")) {
+                pdfs.add(file);
+            }
+        }
+    }
+
+    // name of a file in the manifest: its path relative to the input directory
+    private static String getName(File input, File pdf) {
+        if (!input.isDirectory()) {
+            return pdf.getName();
+        }
+        return input.toPath().relativize(pdf.toPath()).toString();
+    }
+}
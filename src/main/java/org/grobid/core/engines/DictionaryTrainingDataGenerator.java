@@ -0,0 +1,86 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.data.LabeledLexicalInformation;
+import org.grobid.core.document.DictionaryCascadeArtifact;
+import org.grobid.core.document.DictionaryDocument;
+import org.grobid.core.utilities.DictionaryProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Training data of all the levels of the cascade below the dictionary segmentation, created from a single run of
+ * the cascade on each PDF: the document is segmented and its lexical entries are labeled once, and the feature,
+ * rawtxt and TEI files of the dictionary body segmentation, lexical entry, form, sense, sub-sense, etym quote and
+ * etym models are written from them. The files are the same as the ones of the createTraining* command of each
+ * level.
+ */
+public class DictionaryTrainingDataGenerator {
+    private static volatile DictionaryTrainingDataGenerator instance;
+
+    // models whose training data is created, named as their templates
+    private static final String[] LEVELS = {"dictionaryBodySegmentation", "lexicalEntry", "form", "sense", "subSense",
+            "etymQuote", "etym"};
+
+    public static DictionaryTrainingDataGenerator getInstance() {
+        if (instance == null) {
+            getNewInstance();
+        }
+        return instance;
+    }
+
+    private static synchronized void getNewInstance() {
+        instance = new DictionaryTrainingDataGenerator();
+    }
+
+    public int createTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
+        return createTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
+
+    public int createTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        return createTrainingBatch(inputDirectory, outputDirectory, false, nbThreads, recursive);
+    }
+
+    public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
+        return createAnnotatedTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
+
+    public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        return createTrainingBatch(inputDirectory, outputDirectory, true, nbThreads, recursive);
+    }
+
+    private int createTrainingBatch(String inputDirectory, String outputDirectory, final boolean isAnnotated,
+                                    int nbThreads, boolean recursive) {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("allLevels", isAnnotated, nbThreads, recursive)
+                .setTemplates(LEVELS);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingAllLevels(pdf, output, isAnnotated));
+    }
+
+    public void createTrainingAllLevels(File path, String outputDirectory, boolean isAnnotated) throws Exception {
+        DictionaryBodySegmentationParser bodySegmentationParser = DictionaryBodySegmentationParser.getInstance();
+        DictionaryDocument doc = bodySegmentationParser.processing(path);
+        bodySegmentationParser.createTrainingDictionaryBody(path, doc, outputDirectory, isAnnotated);
+
+        // the lexical entries are labeled once for the levels below, and kept with the body segmentation in the
+        // artifact of the file for the next runs of the createTraining* commands of these levels
+        DictionaryCascadeArtifact artifact = DictionaryCascadeArtifacts.getInstance().create(path, doc);
+        createTrainingLexicalEntryLevels(path, artifact, outputDirectory, isAnnotated, DictionaryParserSet.forCurrentThread());
+    }
+
+    /**
+     * Training data of the lexical entry level and of the levels below it, from the body components and the lexical
+     * entries of the artifact of a document
+     */
+    void createTrainingLexicalEntryLevels(File path, DictionaryCascadeArtifact artifact, String outputDirectory,
+                                          boolean isAnnotated, DictionaryParserSet parsers) throws Exception {
+        parsers.getLexicalEntryParser().createTrainingLexicalEntries(path, artifact.getBodyComponents(), outputDirectory, isAnnotated);
+
+        List<LabeledLexicalInformation> lexicalEntries = artifact.getLexicalEntries();
+        parsers.getFormParser().createTrainingForm(path, lexicalEntries, outputDirectory, isAnnotated);
+        parsers.getSenseParser().createTrainingSense(path, lexicalEntries, outputDirectory, isAnnotated);
+        parsers.getSubSenseParser().createTrainingSubSense(path, lexicalEntries, outputDirectory, isAnnotated);
+        parsers.getEtymQuoteParser().createTrainingtoEtymQuote(path, lexicalEntries, outputDirectory, isAnnotated);
+        parsers.getEtymParser().createTrainingEtym(path, lexicalEntries, outputDirectory, isAnnotated);
+    }
+}
@@ -4,16 +4,17 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.io.IOUtils;
 import org.grobid.core.data.LabeledLexicalInformation;
-import org.grobid.core.document.DictionaryDocument;
+import org.grobid.core.document.DictionaryCascadeArtifact;
 import org.grobid.core.document.DocumentUtils;
 import org.grobid.core.engines.label.*;
-import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.features.FeatureVectorLexicalEntry;
+import org.grobid.core.features.TokenFeatureTable;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.layout.LayoutTokenization;
 import org.grobid.core.tokenization.TaggingTokenCluster;
 import org.grobid.core.tokenization.TaggingTokenClusteror;
 import org.grobid.core.utilities.LayoutTokensUtil;
+import org.grobid.core.utilities.DictionaryProperties;
 //import org.grobid.core.utilities.Pair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
@@ -53,7 +54,10 @@ public class EtymParser extends AbstractParser {
     }
 
     public StringBuilder processToTei(List<LayoutToken> etymEntry, String label) {
-        LabeledLexicalInformation labeledSense = process(etymEntry, PATH_FULL_DICTIONARY);
+        return processToTei(process(etymEntry, PATH_FULL_DICTIONARY), label);
+    }
+
+    public StringBuilder processToTei(LabeledLexicalInformation labeledSense, String label) {
         StringBuilder sb = new StringBuilder();
 
         if(label.equals("<quote>")) {
@@ -85,33 +89,60 @@ public class EtymParser extends AbstractParser {
     }
 
     public LabeledLexicalInformation process(List<LayoutToken> etymEntry, String parentTag) {
-        LabeledLexicalInformation labeledLexicalEntry = new LabeledLexicalInformation();
-
-        LayoutTokenization layoutTokenization = new LayoutTokenization(etymEntry);
-
-        String featSeg = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization(), DICTIONARY_ENTRY_LABEL).toString();
+        String featSeg = getFeatureMatrix(etymEntry);
 
         if (StringUtils.isNotBlank(featSeg)) {
             // Run the lexical entry model to label the features
             String modelOutput = label(featSeg);
-            TaggingTokenClusteror clusteror = new TaggingTokenClusteror(DictionaryModels.ETYM, modelOutput, etymEntry);
+            return processLabeled(etymEntry, modelOutput);
+        }
 
-            List<TaggingTokenCluster> clusters = clusteror.cluster();
+        return new LabeledLexicalInformation();
+    }
 
-            for (TaggingTokenCluster cluster : clusters) {
-                if (cluster == null) {
-                    continue;
-                }
-                TaggingLabel clusterLabel = cluster.getTaggingLabel();
-                Engine.getCntManager().i((TaggingLabel) clusterLabel);
+    /**
+     * Same as process for several sequences, labeled with a single call of the tagger
+     */
+    public List<LabeledLexicalInformation> processBatch(List<List<LayoutToken>> etymEntries, DictionaryProgress progress) {
+        return processBatch(etymEntries, TokenFeatureTable.forSequences(etymEntries), progress);
+    }
 
-                List<LayoutToken> concatenatedTokens = cluster.concatTokens();
-                String tagLabel = clusterLabel.getLabel();
+    /**
+     * Same as processBatch, the features of the tokens being taken from a table shared by the levels of the cascade
+     */
+    public List<LabeledLexicalInformation> processBatch(List<List<LayoutToken>> etymEntries, TokenFeatureTable features,
+                                                        DictionaryProgress progress) {
+        return DictionaryBatchLabeler.process(this, DictionaryModels.ETYM, etymEntries, features, progress, this::processLabeled);
+    }
 
-                labeledLexicalEntry.addLabel(Pair.of(concatenatedTokens, tagLabel));
-            }
+    private String getFeatureMatrix(List<LayoutToken> etymEntry) {
+        LayoutTokenization layoutTokenization = new LayoutTokenization(etymEntry);
+
+        return FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization(), DICTIONARY_ENTRY_LABEL).toString();
+    }
+
+    private LabeledLexicalInformation processLabeled(List<LayoutToken> etymEntry, String modelOutput) {
+        LabeledLexicalInformation labeledLexicalEntry = new LabeledLexicalInformation();
+        if (StringUtils.isBlank(modelOutput)) {
+            return labeledLexicalEntry;
         }
 
+        TaggingTokenClusteror clusteror = new TaggingTokenClusteror(DictionaryModels.ETYM, modelOutput, etymEntry);
+
+        List<TaggingTokenCluster> clusters = clusteror.cluster();
+
+        for (TaggingTokenCluster cluster : clusters) {
+            if (cluster == null) {
+                continue;
+            }
+            TaggingLabel clusterLabel = cluster.getTaggingLabel();
+            Engine.getCntManager().i((TaggingLabel) clusterLabel);
+
+            List<LayoutToken> concatenatedTokens = cluster.concatTokens();
+            String tagLabel = clusterLabel.getLabel();
+
+            labeledLexicalEntry.addLabel(Pair.of(concatenatedTokens, tagLabel));
+        }
 
         return labeledLexicalEntry;
     }
@@ -152,174 +183,106 @@ public class EtymParser extends AbstractParser {
 
 
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            int n = 0;
-            // we process all pdf files in the directory
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-                    // Create the pre-annotated file and the raw text
-                    createTrainingEtym(fileEntry, outputDirectory, false);
-                    n++;
-                }
-
-            } else {
-                createTrainingEtym(path, outputDirectory, false);
-                n++;
-
-            }
-
+        return createTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            System.out.println(n + " files to be processed.");
-            return n;
-        } catch (final Exception exp) {
-            throw new GrobidException("An exception occurred while running Grobid batch.", exp);
-        }
+    public int createTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("etym", false, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingEtym(pdf, output, false));
     }
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            int n = 0;
-            // we process all pdf files in the directory
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-                    // Create the pre-annotated file and the raw text
-                    createTrainingEtym(fileEntry, outputDirectory, true);
-                    n++;
-                }
-
-            } else {
-                createTrainingEtym(path, outputDirectory, true);
-                n++;
-
-            }
-
+        return createAnnotatedTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            System.out.println(n + " files to be processed.");
-            return n;
-        } catch (final Exception exp) {
-            throw new GrobidException("An exception occurred while running Grobid batch.", exp);
-        }
+    public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("etym", true, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingEtym(pdf, output, true));
     }
 
     public void createTrainingEtym(File path, String outputDirectory, Boolean isAnnotated) throws Exception {
-        // Calling previous cascading model
-        DictionaryBodySegmentationParser bodySegmentationParser = new DictionaryBodySegmentationParser();
-        DictionaryDocument doc = bodySegmentationParser.processing(path);
+        // Calling previous cascading models, or reading their result from the artifact of the file
+        DictionaryCascadeArtifact artifact = DictionaryCascadeArtifacts.getInstance().get(path);
+        createTrainingEtym(path, artifact.getLexicalEntries(), outputDirectory, isAnnotated);
+    }
+
+    /**
+     * Same as createTrainingEtym, the lexical entries of the document being already labeled
+     */
+    public void createTrainingEtym(File path, List<LabeledLexicalInformation> lexicalEntries, String outputDirectory,
+                                   Boolean isAnnotated) throws Exception {
 
         //Writing feature file
         String featuresFile = outputDirectory + "/" + path.getName().substring(0, path.getName().length() - 4) + ".training.etym";
         Writer featureWriter = new OutputStreamWriter(new FileOutputStream(new File(featuresFile), false), "UTF-8");
 
-        //Create rng and css files for guiding the annotation
-        File existingRngFile = new File("templates/etym.rng");
-        File newRngFile = new File(outputDirectory + "/" + "etym.rng");
-        copyFileUsingStream(existingRngFile, newRngFile);
-
-        File existingCssFile = new File("templates/etym.css");
-        File newCssFile = new File(outputDirectory + "/" + "etym.css");
-//        Files.copy(Gui.getClass().getResourceAsStream("templates/lexicalEntry.css"), Paths.get("new_project","css","lexicalEntry.css"))
-        copyFileUsingStream(existingCssFile, newCssFile);
-
-
         StringBuffer rawtxt = new StringBuffer();
 
         StringBuffer etyms = new StringBuffer();
-        LexicalEntryParser lexicalEntryParser = new LexicalEntryParser();
         EtymQuoteParser etymQuoteParser = new EtymQuoteParser();
-        for (Pair<List<LayoutToken>, String> lexicalEntryLayoutTokens : doc.getBodyComponents().getLabels()) {
-
-            if (lexicalEntryLayoutTokens.getRight().equals(DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL)) {
-                LabeledLexicalInformation lexicalEntryComponents = lexicalEntryParser.process(lexicalEntryLayoutTokens.getLeft(), DICTIONARY_ENTRY_LABEL);
-
-                for (Pair<List<LayoutToken>, String> lexicalEntryComponent : lexicalEntryComponents.getLabels()) {
-                    if (lexicalEntryComponent.getRight().equals(LEXICAL_ENTRY_ETYM_LABEL)) {
-                        etyms.append("<etym>");
-                        LabeledLexicalInformation segOrQuoteComponents = etymQuoteParser.process(lexicalEntryComponent.getLeft(), EtymQuoteLabels.QUOTE__ETYMQUOTE_LABEL);
-                        for (Pair<List<LayoutToken>, String> segOrQuoteComponent : segOrQuoteComponents.getLabels()) {
-                            if (segOrQuoteComponent.getRight().equals(EtymQuoteLabels.QUOTE__ETYMQUOTE_LABEL)) {
-                                //Write raw text
-                                for (LayoutToken txtline : segOrQuoteComponent.getLeft()) {
-                                    rawtxt.append(txtline.getText());
-                                }
-                                etyms.append("<quote>");
-                                LayoutTokenization layoutTokenization = new LayoutTokenization(segOrQuoteComponent.getLeft());
-                                String featSeg = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization()).toString();
-                                featureWriter.write(featSeg + "\n");
-                                if (isAnnotated) {
-                                    String labeledFeatures = null;
-                                    // if featSeg is null, it usually means that no body segment is found in the
-
-                                    if ((featSeg != null) && (featSeg.trim().length() > 0)) {
+        for (LabeledLexicalInformation lexicalEntryComponents : lexicalEntries) {
+            for (Pair<List<LayoutToken>, String> lexicalEntryComponent : lexicalEntryComponents.getLabels()) {
+                if (lexicalEntryComponent.getRight().equals(LEXICAL_ENTRY_ETYM_LABEL)) {
+                    etyms.append("<etym>");
+                    LabeledLexicalInformation segOrQuoteComponents = etymQuoteParser.process(lexicalEntryComponent.getLeft(), EtymQuoteLabels.QUOTE__ETYMQUOTE_LABEL);
+                    for (Pair<List<LayoutToken>, String> segOrQuoteComponent : segOrQuoteComponents.getLabels()) {
+                        if (segOrQuoteComponent.getRight().equals(EtymQuoteLabels.QUOTE__ETYMQUOTE_LABEL)) {
+                            //Write raw text
+                            for (LayoutToken txtline : segOrQuoteComponent.getLeft()) {
+                                rawtxt.append(txtline.getText());
+                            }
+                            etyms.append("<quote>");
+                            LayoutTokenization layoutTokenization = new LayoutTokenization(segOrQuoteComponent.getLeft());
+                            String featSeg = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization()).toString();
+                            featureWriter.write(featSeg + "\n");
+                            if (isAnnotated) {
+                                String labeledFeatures = null;
+                                // if featSeg is null, it usually means that no body segment is found in the
 
+                                if ((featSeg != null) && (featSeg.trim().length() > 0)) {
 
-                                        labeledFeatures = label(featSeg);
-                                        etyms.append(toTEIEtym(labeledFeatures, layoutTokenization.getTokenization(), true));
-                                    }
-                                } else {
-                                    etyms.append(DocumentUtils.replaceLinebreaksWithTags(DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(segOrQuoteComponent.getLeft()))));
 
+                                    labeledFeatures = label(featSeg);
+                                    etyms.append(toTEIEtym(labeledFeatures, layoutTokenization.getTokenization(), true));
                                 }
+                            } else {
+                                etyms.append(DocumentUtils.replaceLinebreaksWithTags(DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(segOrQuoteComponent.getLeft()))));
 
-                                etyms.append("</quote>");
-                            } else if (segOrQuoteComponent.getRight().equals(EtymQuoteLabels.SEG_ETYMQUOTE_LABEL)) {
-                                //Write raw text
-                                for (LayoutToken txtline : segOrQuoteComponent.getLeft()) {
-                                    rawtxt.append(txtline.getText());
-                                }
-                                etyms.append("<seg>");
-                                LayoutTokenization layoutTokenization = new LayoutTokenization(segOrQuoteComponent.getLeft());
-                                if (isAnnotated) {
-                                    String featSeg = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization()).toString();
-                                    String labeledFeatures = null;
-                                    // if featSeg is null, it usually means that no body segment is found in the
-
-                                    if ((featSeg != null) && (featSeg.trim().length() > 0)) {
-                                        featureWriter.write(featSeg + "\n");
-
-                                        labeledFeatures = label(featSeg);
-                                        etyms.append(toTEIEtym(labeledFeatures, layoutTokenization.getTokenization(), true));
-                                    }
-                                } else {
-                                    etyms.append(DocumentUtils.replaceLinebreaksWithTags(LayoutTokensUtil.toText(segOrQuoteComponent.getLeft())));
+                            }
 
-                                }
+                            etyms.append("</quote>");
+                        } else if (segOrQuoteComponent.getRight().equals(EtymQuoteLabels.SEG_ETYMQUOTE_LABEL)) {
+                            //Write raw text
+                            for (LayoutToken txtline : segOrQuoteComponent.getLeft()) {
+                                rawtxt.append(txtline.getText());
+                            }
+                            etyms.append("<seg>");
+                            LayoutTokenization layoutTokenization = new LayoutTokenization(segOrQuoteComponent.getLeft());
+                            if (isAnnotated) {
+                                String featSeg = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization()).toString();
+                                String labeledFeatures = null;
+                                // if featSeg is null, it usually means that no body segment is found in the
 
-                                etyms.append("</seg>");
+                                if ((featSeg != null) && (featSeg.trim().length() > 0)) {
+                                    featureWriter.write(featSeg + "\n");
+
+                                    labeledFeatures = label(featSeg);
+                                    etyms.append(toTEIEtym(labeledFeatures, layoutTokenization.getTokenization(), true));
+                                }
+                            } else {
+                                etyms.append(DocumentUtils.replaceLinebreaksWithTags(LayoutTokensUtil.toText(segOrQuoteComponent.getLeft())));
 
                             }
+
+                            etyms.append("</seg>");
+
                         }
-                        etyms.append("</etym>");
                     }
-
+                    etyms.append("</etym>");
                 }
 
-
             }
-
-
         }
 
         //Writing RAW file (only text)
@@ -342,21 +305,4 @@ public class EtymParser extends AbstractParser {
 
         IOUtils.closeQuietly(featureWriter, teiWriter);
     }
-
-    private static void copyFileUsingStream(File source, File dest) throws IOException {
-        InputStream is = null;
-        OutputStream os = null;
-        try {
-            is = new FileInputStream(source);
-            os = new FileOutputStream(dest);
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = is.read(buffer)) > 0) {
-                os.write(buffer, 0, length);
-            }
-        } finally {
-            is.close();
-            os.close();
-        }
-    }
 }
\ No newline at end of file
@@ -5,16 +5,17 @@ import org.apache.commons.lang3.StringUtils;
 
 import org.apache.commons.io.IOUtils;
 import org.grobid.core.data.LabeledLexicalInformation;
-import org.grobid.core.document.DictionaryDocument;
+import org.grobid.core.document.DictionaryCascadeArtifact;
 import org.grobid.core.document.DocumentUtils;
 import org.grobid.core.engines.label.*;
-import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.features.FeatureVectorLexicalEntry;
+import org.grobid.core.features.TokenFeatureTable;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.layout.LayoutTokenization;
 import org.grobid.core.tokenization.TaggingTokenCluster;
 import org.grobid.core.tokenization.TaggingTokenClusteror;
 import org.grobid.core.utilities.LayoutTokensUtil;
+import org.grobid.core.utilities.DictionaryProperties;
 //import org.grobid.core.utilities.Pair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.grobid.core.utilities.TextUtilities;
@@ -76,33 +77,60 @@ public class EtymQuoteParser extends AbstractParser {
     }
 
     public LabeledLexicalInformation process(List<LayoutToken> etymEntry, String parentTag) {
-        LabeledLexicalInformation labeledLexicalEntry = new LabeledLexicalInformation();
-
-        LayoutTokenization layoutTokenization = new LayoutTokenization(etymEntry);
-
-        String featSeg = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization(), DICTIONARY_ENTRY_LABEL).toString();
+        String featSeg = getFeatureMatrix(etymEntry);
 
         if (StringUtils.isNotBlank(featSeg)) {
             // Run the lexical entry model to label the features
             String modelOutput = label(featSeg);
-            TaggingTokenClusteror clusteror = new TaggingTokenClusteror(DictionaryModels.ETYM_QUOTE, modelOutput, etymEntry);
+            return processLabeled(etymEntry, modelOutput);
+        }
 
-            List<TaggingTokenCluster> clusters = clusteror.cluster();
+        return new LabeledLexicalInformation();
+    }
 
-            for (TaggingTokenCluster cluster : clusters) {
-                if (cluster == null) {
-                    continue;
-                }
-                TaggingLabel clusterLabel = cluster.getTaggingLabel();
-                Engine.getCntManager().i((TaggingLabel) clusterLabel);
+    /**
+     * Same as process for several sequences, labeled with a single call of the tagger
+     */
+    public List<LabeledLexicalInformation> processBatch(List<List<LayoutToken>> etymEntries, DictionaryProgress progress) {
+        return processBatch(etymEntries, TokenFeatureTable.forSequences(etymEntries), progress);
+    }
+
+    /**
+     * Same as processBatch, the features of the tokens being taken from a table shared by the levels of the cascade
+     */
+    public List<LabeledLexicalInformation> processBatch(List<List<LayoutToken>> etymEntries, TokenFeatureTable features,
+                                                        DictionaryProgress progress) {
+        return DictionaryBatchLabeler.process(this, DictionaryModels.ETYM_QUOTE, etymEntries, features, progress, this::processLabeled);
+    }
 
-                List<LayoutToken> concatenatedTokens = cluster.concatTokens();
-                String tagLabel = clusterLabel.getLabel();
+    private String getFeatureMatrix(List<LayoutToken> etymEntry) {
+        LayoutTokenization layoutTokenization = new LayoutTokenization(etymEntry);
 
-                labeledLexicalEntry.addLabel(Pair.of(concatenatedTokens, tagLabel));
-            }
+        return FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization(), DICTIONARY_ENTRY_LABEL).toString();
+    }
+
+    private LabeledLexicalInformation processLabeled(List<LayoutToken> etymEntry, String modelOutput) {
+        LabeledLexicalInformation labeledLexicalEntry = new LabeledLexicalInformation();
+        if (StringUtils.isBlank(modelOutput)) {
+            return labeledLexicalEntry;
         }
 
+        TaggingTokenClusteror clusteror = new TaggingTokenClusteror(DictionaryModels.ETYM_QUOTE, modelOutput, etymEntry);
+
+        List<TaggingTokenCluster> clusters = clusteror.cluster();
+
+        for (TaggingTokenCluster cluster : clusters) {
+            if (cluster == null) {
+                continue;
+            }
+            TaggingLabel clusterLabel = cluster.getTaggingLabel();
+            Engine.getCntManager().i((TaggingLabel) clusterLabel);
+
+            List<LayoutToken> concatenatedTokens = cluster.concatTokens();
+            String tagLabel = clusterLabel.getLabel();
+
+            labeledLexicalEntry.addLabel(Pair.of(concatenatedTokens, tagLabel));
+        }
 
         return labeledLexicalEntry;
     }
@@ -142,140 +170,72 @@ public class EtymQuoteParser extends AbstractParser {
     }
 
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            int n = 0;
-            // we process all pdf files in the directory
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-                    // Create the pre-annotated file and the raw text
-                    createTrainingtoEtymQuote(fileEntry, outputDirectory, false);
-                    n++;
-                }
-
-            } else {
-                createTrainingtoEtymQuote(path, outputDirectory, false);
-                n++;
-
-            }
-
+        return createTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            System.out.println(n + " files to be processed.");
-            return n;
-        } catch (final Exception exp) {
-            throw new GrobidException("An exception occurred while running Grobid batch.", exp);
-        }
+    public int createTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("etymQuote", false, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingtoEtymQuote(pdf, output, false));
     }
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            int n = 0;
-            // we process all pdf files in the directory
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-                    // Create the pre-annotated file and the raw text
-                    createTrainingtoEtymQuote(fileEntry, outputDirectory, true);
-                    n++;
-                }
-
-            } else {
-                createTrainingtoEtymQuote(path, outputDirectory, true);
-                n++;
-
-            }
-
+        return createAnnotatedTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            System.out.println(n + " files to be processed.");
-            return n;
-        } catch (final Exception exp) {
-            throw new GrobidException("An exception occurred while running Grobid batch.", exp);
-        }
+    public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("etymQuote", true, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingtoEtymQuote(pdf, output, true));
     }
 
     public void createTrainingtoEtymQuote(File path, String outputDirectory, Boolean isAnnotated) throws Exception {
-        // Calling previous cascading model
-        DictionaryBodySegmentationParser bodySegmentationParser = new DictionaryBodySegmentationParser();
-        DictionaryDocument doc = bodySegmentationParser.processing(path);
+        // Calling previous cascading models, or reading their result from the artifact of the file
+        DictionaryCascadeArtifact artifact = DictionaryCascadeArtifacts.getInstance().get(path);
+        createTrainingtoEtymQuote(path, artifact.getLexicalEntries(), outputDirectory, isAnnotated);
+    }
+
+    /**
+     * Same as createTrainingtoEtymQuote, the lexical entries of the document being already labeled
+     */
+    public void createTrainingtoEtymQuote(File path, List<LabeledLexicalInformation> lexicalEntries, String outputDirectory,
+                                          Boolean isAnnotated) throws Exception {
 
         //Writing feature file
         String featuresFile = outputDirectory + "/" + path.getName().substring(0, path.getName().length() - 4) + ".training.etymQuote";
         Writer featureWriter = new OutputStreamWriter(new FileOutputStream(new File(featuresFile), false), "UTF-8");
 
-        //Create rng and css files for guiding the annotation
-        File existingRngFile = new File("templates/etymQuote.rng");
-        File newRngFile = new File(outputDirectory + "/" + "etymQuote.rng");
-        copyFileUsingStream(existingRngFile, newRngFile);
-
-        File existingCssFile = new File("templates/etymQuote.css");
-        File newCssFile = new File(outputDirectory + "/" + "etymQuote.css");
-//        Files.copy(Gui.getClass().getResourceAsStream("templates/lexicalEntry.css"), Paths.get("new_project","css","lexicalEntry.css"))
-        copyFileUsingStream(existingCssFile, newCssFile);
-
-
         StringBuffer rawtxt = new StringBuffer();
 
         StringBuffer etymQuotes = new StringBuffer();
-        LexicalEntryParser lexicalEntryParser = new LexicalEntryParser();
-        for (Pair<List<LayoutToken>, String> lexicalEntryLayoutTokens : doc.getBodyComponents().getLabels()) {
-
-            if (lexicalEntryLayoutTokens.getRight().equals(DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL)) {
-                LabeledLexicalInformation lexicalEntryComponents = lexicalEntryParser.process(lexicalEntryLayoutTokens.getLeft(), DICTIONARY_ENTRY_LABEL);
-
-                for (Pair<List<LayoutToken>, String> lexicalEntryComponent : lexicalEntryComponents.getLabels()) {
-                    if (lexicalEntryComponent.getRight().equals(LEXICAL_ENTRY_ETYM_LABEL)) {
-                        //Write raw text
-                        for (LayoutToken txtline : lexicalEntryComponent.getLeft()) {
-                            rawtxt.append(txtline.getText());
-                        }
-                        etymQuotes.append("<etym>");
-                        LayoutTokenization layoutTokenization = new LayoutTokenization(lexicalEntryComponent.getLeft());
-                        String featSeg = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization()).toString();
-                        featureWriter.write(featSeg + "\n");
-                        if (isAnnotated) {
-                            String labeledFeatures = null;
-                            // if featSeg is null, it usually means that no body segment is found in the
-
-                            if ((featSeg != null) && (featSeg.trim().length() > 0)) {
+        for (LabeledLexicalInformation lexicalEntryComponents : lexicalEntries) {
+            for (Pair<List<LayoutToken>, String> lexicalEntryComponent : lexicalEntryComponents.getLabels()) {
+                if (lexicalEntryComponent.getRight().equals(LEXICAL_ENTRY_ETYM_LABEL)) {
+                    //Write raw text
+                    for (LayoutToken txtline : lexicalEntryComponent.getLeft()) {
+                        rawtxt.append(txtline.getText());
+                    }
+                    etymQuotes.append("<etym>");
+                    LayoutTokenization layoutTokenization = new LayoutTokenization(lexicalEntryComponent.getLeft());
+                    String featSeg = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization()).toString();
+                    featureWriter.write(featSeg + "\n");
+                    if (isAnnotated) {
+                        String labeledFeatures = null;
+                        // if featSeg is null, it usually means that no body segment is found in the
 
+                        if ((featSeg != null) && (featSeg.trim().length() > 0)) {
 
-                                labeledFeatures = label(featSeg);
-                                etymQuotes.append(toTEIEtymQuote(labeledFeatures, layoutTokenization.getTokenization(), true));
-                            }
-                        } else {
-                            etymQuotes.append(DocumentUtils.replaceLinebreaksWithTags(DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(lexicalEntryComponent.getLeft()))));
 
+                            labeledFeatures = label(featSeg);
+                            etymQuotes.append(toTEIEtymQuote(labeledFeatures, layoutTokenization.getTokenization(), true));
                         }
+                    } else {
+                        etymQuotes.append(DocumentUtils.replaceLinebreaksWithTags(DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(lexicalEntryComponent.getLeft()))));
 
-                        etymQuotes.append("</etym>");
                     }
-                }
-
 
+                    etymQuotes.append("</etym>");
+                }
             }
-
-
         }
 
         //Writing RAW file (only text)
@@ -299,21 +259,4 @@ public class EtymQuoteParser extends AbstractParser {
         IOUtils.closeQuietly(featureWriter);
         IOUtils.closeQuietly(teiWriter);
     }
-
-    private static void copyFileUsingStream(File source, File dest) throws IOException {
-        InputStream is = null;
-        OutputStream os = null;
-        try {
-            is = new FileInputStream(source);
-            os = new FileOutputStream(dest);
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = is.read(buffer)) > 0) {
-                os.write(buffer, 0, length);
-            }
-        } finally {
-            is.close();
-            os.close();
-        }
-    }
 }
\ No newline at end of file
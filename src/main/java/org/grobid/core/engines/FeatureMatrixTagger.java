@@ -0,0 +1,134 @@
+package org.grobid.core.engines;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.data.LabeledLexicalInformation;
+import org.grobid.core.engines.label.TaggingLabel;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.features.FeatureMatrix;
+import org.grobid.core.layout.LayoutToken;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Labeling of feature matrices whose rows are already attached to their tokens. The tagger output is only read for
+ * the label of each row, turned into an id of the model vocabulary, and the clusters are built from the token ids of
+ * the rows: the output is not parsed again and synchronized with the tokens by TaggingTokenClusteror.
+ *
+ * The text path (tagger output given to TaggingTokenClusteror) stays available with
+ * -Dgrobid.dictionaries.tagging.textFallback=true, to compare the results or debug the models.
+ */
+public class FeatureMatrixTagger {
+
+    private static final int[] NO_LABELS = new int[0];
+
+    /**
+     * Label the feature matrices with a single call of the tagger
+     *
+     * @return the label id of each row of each matrix, no label for an empty matrix
+     */
+    public static List<int[]> label(AbstractParser parser, TaggingLabelVocabulary vocabulary,
+                                    List<FeatureMatrix> matrices, DictionaryProgress progress) {
+        StringBuilder batch = new StringBuilder();
+        int sequences = 0;
+        for (FeatureMatrix matrix : matrices) {
+            if (matrix.isEmpty()) {
+                continue;
+            }
+            batch.append(matrix.getText()).append("\n");
+            sequences++;
+        }
+
+        List<int[]> labels = new ArrayList<>(matrices.size());
+        if (sequences == 0) {
+            for (int i = 0; i < matrices.size(); i++) {
+                labels.add(NO_LABELS);
+            }
+            return labels;
+        }
+
+        String output = parser.label(batch.toString());
+        progress.taggerCalled(sequences);
+
+        // one output line per row, the blank lines between the sequences are skipped
+        int position = 0;
+        for (FeatureMatrix matrix : matrices) {
+            int[] matrixLabels = new int[matrix.size()];
+            for (int row = 0; row < matrix.size(); row++) {
+                int lineEnd;
+                while (true) {
+                    if (position >= output.length()) {
+                        throw new GrobidException("The tagger output has fewer lines than the batched feature matrices.");
+                    }
+                    lineEnd = output.indexOf('\n', position);
+                    if (lineEnd < 0) {
+                        lineEnd = output.length();
+                    }
+                    if (!isBlank(output, position, lineEnd)) {
+                        break;
+                    }
+                    position = lineEnd + 1;
+                }
+                matrixLabels[row] = vocabulary.getId(lastField(output, position, lineEnd));
+                position = lineEnd + 1;
+            }
+            labels.add(matrixLabels);
+        }
+        return labels;
+    }
+
+    /**
+     * Clusters of consecutive tokens with the same label, a new cluster starting at each beginning label, as with
+     * TaggingTokenClusteror. The spaces and line breaks before the token of a row belong to its cluster.
+     */
+    public static LabeledLexicalInformation cluster(List<LayoutToken> sequence, FeatureMatrix matrix, int[] labels,
+                                                    TaggingLabelVocabulary vocabulary) {
+        LabeledLexicalInformation labeledSequence = new LabeledLexicalInformation();
+
+        TaggingLabel clusterLabel = null;
+        int clusterStart = 0;
+        int previousTokenId = -1;
+        for (int row = 0; row < matrix.size(); row++) {
+            TaggingLabel label = vocabulary.getTaggingLabel(labels[row]);
+            if (clusterLabel == null || vocabulary.isBeginning(labels[row]) || label != clusterLabel) {
+                if (clusterLabel != null) {
+                    addCluster(labeledSequence, sequence, clusterStart, previousTokenId + 1, clusterLabel);
+                }
+                clusterLabel = label;
+                clusterStart = previousTokenId + 1;
+            }
+            previousTokenId = matrix.getTokenId(row);
+        }
+        if (clusterLabel != null) {
+            addCluster(labeledSequence, sequence, clusterStart, previousTokenId + 1, clusterLabel);
+        }
+        return labeledSequence;
+    }
+
+    private static void addCluster(LabeledLexicalInformation labeledSequence, List<LayoutToken> sequence,
+                                   int from, int to, TaggingLabel label) {
+        Engine.getCntManager().i(label);
+        labeledSequence.addLabel(Pair.of(new ArrayList<>(sequence.subList(from, to)), label.getLabel()));
+    }
+
+    private static boolean isBlank(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the label is the last column of an output line
+    private static String lastField(String s, int from, int to) {
+        while (to > from && Character.isWhitespace(s.charAt(to - 1))) {
+            to--;
+        }
+        int start = to;
+        while (start > from && !Character.isWhitespace(s.charAt(start - 1))) {
+            start--;
+        }
+        return s.substring(start, to);
+    }
+}
@@ -4,30 +4,25 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.grobid.core.data.LabeledLexicalInformation;
 import org.grobid.core.data.Person;
-import org.grobid.core.document.DictionaryDocument;
+import org.grobid.core.document.DictionaryCascadeArtifact;
 import org.grobid.core.document.DocumentUtils;
 import org.grobid.core.engines.label.*;
-import org.grobid.core.exceptions.GrobidException;
-import org.grobid.core.features.FeatureVectorForm;
 import org.grobid.core.features.FeatureVectorLexicalEntry;
-import org.grobid.core.features.FeaturesUtils;
-import org.grobid.core.features.enums.LineStatus;
+import org.grobid.core.features.TokenFeatureTable;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.layout.LayoutTokenization;
 import org.grobid.core.tokenization.TaggingTokenCluster;
 import org.grobid.core.tokenization.TaggingTokenClusteror;
 import org.grobid.core.utilities.LayoutTokensUtil;
+import org.grobid.core.utilities.DictionaryProperties;
 //import org.grobid.core.utilities.Pair;
 import org.apache.commons.lang3.tuple.Pair;
-import org.grobid.core.utilities.TextUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.List;
 
-import static org.apache.commons.lang3.StringUtils.isBlank;
-import static org.grobid.core.engines.label.DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL;
 import static org.grobid.core.engines.label.FormLabels.*;
 import static org.grobid.core.engines.label.LexicalEntryLabels.LEXICAL_ENTRY_FORM_LABEL;
 
@@ -58,10 +53,10 @@ public class FormParser extends AbstractParser {
 
     public StringBuilder processToTEI(List<LayoutToken> formEntry) {
         //This method is used by the parent parser to get the TEI to include the general TEI output
+        return processToTEI(process(formEntry));
+    }
 
-
-        LabeledLexicalInformation labeledForm = process(formEntry);
-
+    public StringBuilder processToTEI(LabeledLexicalInformation labeledForm) {
         StringBuilder sb = new StringBuilder();
 
 //        sb.append("<form type=\"lemma\">").append("\n");
@@ -117,68 +112,32 @@ public class FormParser extends AbstractParser {
 
     public LabeledLexicalInformation process(List<LayoutToken> layoutTokens) {
         //This method is used by the parent parser to feed a following parser with a cluster of layout tokens
+        String features = getFeatureMatrix(layoutTokens);
+        String output = label(features);
 
-        StringBuilder featureMatrix = new StringBuilder();
-        String previousFont = null;
-        String fontStatus = null;
-        String lineStatus = null;
-
-        int counter = 0;
-        int nbToken = layoutTokens.size();
-        for (LayoutToken token : layoutTokens) {
-            String text = token.getText();
-            text = text.replace(" ", "");
-
-            if (TextUtilities.filterLine(text) || isBlank(text)) {
-                counter++;
-                continue;
-            }
-            if (text.equals("\n") || text.equals("\r") || (text.equals("\n\r"))) {
-                counter++;
-                continue;
-            }
-
-            // First token
-            if (counter - 1 < 0) {
-                lineStatus = LineStatus.LINE_START.toString();
-            } else if (counter + 1 == nbToken) {
-                // Last token
-                lineStatus = LineStatus.LINE_END.toString();
-            } else {
-                String previousTokenText;
-                Boolean previousTokenIsNewLineAfter;
-                String nextTokenText;
-                Boolean nextTokenIsNewLineAfter;
-                Boolean afterNextTokenIsNewLineAfter = false;
-
-                //The existence of the previousToken and nextToken is already check.
-                previousTokenText = layoutTokens.get(counter - 1).getText();
-                previousTokenIsNewLineAfter = layoutTokens.get(counter - 1).isNewLineAfter();
-                nextTokenText = layoutTokens.get(counter + 1).getText();
-                nextTokenIsNewLineAfter = layoutTokens.get(counter + 1).isNewLineAfter();
-
-                // Check the existence of the afterNextToken
-                if ((nbToken > counter + 2) && (layoutTokens.get(counter + 2) != null)) {
-                    afterNextTokenIsNewLineAfter = layoutTokens.get(counter + 2).isNewLineAfter();
-                }
-
-                lineStatus = FeaturesUtils.checkLineStatus(text, previousTokenIsNewLineAfter, previousTokenText, nextTokenIsNewLineAfter, nextTokenText, afterNextTokenIsNewLineAfter);
-
-            }
-            counter++;
+        return processLabeled(layoutTokens, output);
+    }
 
-            String[] returnedFont = FeaturesUtils.checkFontStatus(token.getFont(), previousFont);
-            previousFont = returnedFont[0];
-            fontStatus = returnedFont[1];
+    /**
+     * Same as process for several sequences, labeled with a single call of the tagger
+     */
+    public List<LabeledLexicalInformation> processBatch(List<List<LayoutToken>> sequences, DictionaryProgress progress) {
+        return processBatch(sequences, TokenFeatureTable.forSequences(sequences), progress);
+    }
 
-            FeatureVectorForm featureVectorForm = FeatureVectorForm.addFeaturesForm(token, "",
-                    lineStatus, fontStatus);
+    /**
+     * Same as processBatch, the features of the tokens being taken from a table shared by the levels of the cascade
+     */
+    public List<LabeledLexicalInformation> processBatch(List<List<LayoutToken>> sequences, TokenFeatureTable features,
+                                                        DictionaryProgress progress) {
+        return DictionaryBatchLabeler.process(this, DictionaryModels.FORM, sequences, features, progress, this::processLabeled);
+    }
 
-            featureMatrix.append(featureVectorForm.printVector() + "\n");
-        }
+    private String getFeatureMatrix(List<LayoutToken> layoutTokens) {
+        return TokenFeatureTable.forTokens(layoutTokens).getFeatureMatrix(layoutTokens);
+    }
 
-        String features = featureMatrix.toString();
-        String output = label(features);
+    private LabeledLexicalInformation processLabeled(List<LayoutToken> layoutTokens, String output) {
 
         TaggingTokenClusteror clusteror = new TaggingTokenClusteror(DictionaryModels.FORM,
                 output, layoutTokens);
@@ -240,141 +199,73 @@ public class FormParser extends AbstractParser {
 
 
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            int n = 0;
-            // we process all pdf files in the directory
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-                    // Create the pre-annotated file and the raw text
-                    createTrainingForm(fileEntry, outputDirectory, false);
-                    n++;
-                }
-
-            } else {
-                createTrainingForm(path, outputDirectory, false);
-                n++;
-
-            }
-
+        return createTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            System.out.println(n + " files to be processed.");
-            return n;
-        } catch (final Exception exp) {
-            throw new GrobidException("An exception occurred while running Grobid batch.", exp);
-        }
+    public int createTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("form", false, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingForm(pdf, output, false));
     }
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            int n = 0;
-            // we process all pdf files in the directory
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-                    // Create the pre-annotated file and the raw text
-                    createTrainingForm(fileEntry, outputDirectory, true);
-                    n++;
-                }
-
-            } else {
-                createTrainingForm(path, outputDirectory, true);
-                n++;
-
-            }
-
+        return createAnnotatedTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            System.out.println(n + " files to be processed.");
-            return n;
-        } catch (final Exception exp) {
-            throw new GrobidException("An exception occurred while running Grobid batch.", exp);
-        }
+    public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("form", true, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingForm(pdf, output, true));
     }
 
     public void createTrainingForm(File path, String outputDirectory, Boolean isAnnotated) throws Exception {
-        // Calling previous cascading model
-        DictionaryBodySegmentationParser bodySegmentationParser = new DictionaryBodySegmentationParser();
-        DictionaryDocument doc = bodySegmentationParser.processing(path);
+        // Calling previous cascading models, or reading their result from the artifact of the file
+        DictionaryCascadeArtifact artifact = DictionaryCascadeArtifacts.getInstance().get(path);
+        createTrainingForm(path, artifact.getLexicalEntries(), outputDirectory, isAnnotated);
+    }
+
+    /**
+     * Same as createTrainingForm, the lexical entries of the document being already labeled
+     */
+    public void createTrainingForm(File path, List<LabeledLexicalInformation> lexicalEntries, String outputDirectory,
+                                   Boolean isAnnotated) throws Exception {
 
         //Writing feature file
         String featuresFile = outputDirectory + "/" + path.getName().substring(0, path.getName().length() - 4) + ".training.form";
         Writer featureWriter = new OutputStreamWriter(new FileOutputStream(new File(featuresFile), false), "UTF-8");
 
-        //Create rng and css files for guiding the annotation
-        File existingRngFile = new File("templates/form.rng");
-        File newRngFile = new File(outputDirectory + "/" + "form.rng");
-        copyFileUsingStream(existingRngFile, newRngFile);
-
-        File existingCssFile = new File("templates/form.css");
-        File newCssFile = new File(outputDirectory + "/" + "form.css");
-//        Files.copy(Gui.getClass().getResourceAsStream("templates/lexicalEntry.css"), Paths.get("new_project","css","lexicalEntry.css"))
-        copyFileUsingStream(existingCssFile, newCssFile);
-
-
         StringBuffer rawtxt = new StringBuffer();
 
         StringBuffer forms = new StringBuffer();
-        LexicalEntryParser lexicalEntryParser = new LexicalEntryParser();
-        for (Pair<List<LayoutToken>, String> lexicalEntryLayoutTokens : doc.getBodyComponents().getLabels()) {
-
-            if (lexicalEntryLayoutTokens.getRight().equals(DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL)) {
-                LabeledLexicalInformation lexicalEntryComponents = lexicalEntryParser.process(lexicalEntryLayoutTokens.getLeft(), DICTIONARY_ENTRY_LABEL);
-
-                for (Pair<List<LayoutToken>, String> lexicalEntryComponent : lexicalEntryComponents.getLabels()) {
-                    if (lexicalEntryComponent.getRight().equals(LEXICAL_ENTRY_FORM_LABEL)) {
-                        //Write raw text
-                        for (LayoutToken txtline : lexicalEntryComponent.getLeft()) {
-                            rawtxt.append(txtline.getText());
-                        }
-                        forms.append("<form>");
-                        LayoutTokenization layoutTokenization = new LayoutTokenization(lexicalEntryComponent.getLeft());
-                        String featSeg = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization()).toString();
-                        featureWriter.write(featSeg + "\n");
-                        if (isAnnotated) {
-
-                            String labeledFeatures = null;
-                            // if featSeg is null, it usually means that no body segment is found in the
+        for (LabeledLexicalInformation lexicalEntryComponents : lexicalEntries) {
+            for (Pair<List<LayoutToken>, String> lexicalEntryComponent : lexicalEntryComponents.getLabels()) {
+                if (lexicalEntryComponent.getRight().equals(LEXICAL_ENTRY_FORM_LABEL)) {
+                    //Write raw text
+                    for (LayoutToken txtline : lexicalEntryComponent.getLeft()) {
+                        rawtxt.append(txtline.getText());
+                    }
+                    forms.append("<form>");
+                    LayoutTokenization layoutTokenization = new LayoutTokenization(lexicalEntryComponent.getLeft());
+                    String featSeg = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization()).toString();
+                    featureWriter.write(featSeg + "\n");
+                    if (isAnnotated) {
 
-                            if ((featSeg != null) && (featSeg.trim().length() > 0)) {
+                        String labeledFeatures = null;
+                        // if featSeg is null, it usually means that no body segment is found in the
 
+                        if ((featSeg != null) && (featSeg.trim().length() > 0)) {
 
-                                labeledFeatures = label(featSeg);
-                                forms.append(toTEIForm(labeledFeatures, layoutTokenization.getTokenization(), true));
-                            }
-                        } else {
-                            forms.append(DocumentUtils.replaceLinebreaksWithTags(DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(lexicalEntryComponent.getLeft()))));
 
+                            labeledFeatures = label(featSeg);
+                            forms.append(toTEIForm(labeledFeatures, layoutTokenization.getTokenization(), true));
                         }
+                    } else {
+                        forms.append(DocumentUtils.replaceLinebreaksWithTags(DocumentUtils.escapeHTMLCharac(LayoutTokensUtil.toText(lexicalEntryComponent.getLeft()))));
 
-                        forms.append("</form>");
                     }
-                }
-
 
+                    forms.append("</form>");
+                }
             }
-
-
         }
 
         //Writing RAW file (only text)
@@ -397,22 +288,4 @@ public class FormParser extends AbstractParser {
 
         IOUtils.closeQuietly(featureWriter, teiWriter);
     }
-
-    private static void copyFileUsingStream(File source, File dest) throws IOException {
-        InputStream is = null;
-        OutputStream os = null;
-        try {
-            is = new FileInputStream(source);
-            os = new FileOutputStream(dest);
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = is.read(buffer)) > 0) {
-                os.write(buffer, 0, length);
-            }
-        } finally {
-            is.close();
-            os.close();
-        }
-    }
-
 }
\ No newline at end of file
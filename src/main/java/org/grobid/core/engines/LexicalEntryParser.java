@@ -5,6 +5,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.io.IOUtils;
 import org.grobid.core.data.BiblioItem;
 import org.grobid.core.data.LabeledLexicalInformation;
+import org.grobid.core.document.DictionaryCascadeArtifact;
 import org.grobid.core.document.DictionaryDocument;
 import org.grobid.core.document.DocumentUtils;
 
@@ -13,13 +14,14 @@ import org.grobid.core.engines.label.DictionaryBodySegmentationLabels;
 import org.grobid.core.engines.label.DictionarySegmentationLabels;
 import org.grobid.core.engines.label.LexicalEntryLabels;
 import org.grobid.core.engines.label.TaggingLabel;
-import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.features.FeatureVectorLexicalEntry;
+import org.grobid.core.features.TokenFeatureTable;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.layout.LayoutTokenization;
 import org.grobid.core.tokenization.TaggingTokenCluster;
 import org.grobid.core.tokenization.TaggingTokenClusteror;
 import org.grobid.core.utilities.LayoutTokensUtil;
+import org.grobid.core.utilities.DictionaryProperties;
 import org.apache.commons.lang3.tuple.Pair;
 import org.grobid.core.utilities.TextUtilities;
 import org.slf4j.Logger;
@@ -27,6 +29,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 
@@ -59,6 +62,10 @@ public class LexicalEntryParser extends AbstractParser {
     }
 
     public String processToTei(List<LayoutToken> entry, String modelToRun) {
+        return processToTei(entry, modelToRun, DictionaryParserSet.forCurrentThread());
+    }
+
+    public String processToTei(List<LayoutToken> entry, String modelToRun, DictionaryParserSet parsers) {
         StringBuilder bodyWithSegmentedLexicalEntries = new StringBuilder();
 
 
@@ -84,7 +91,7 @@ public class LexicalEntryParser extends AbstractParser {
         } else {
             //In the complete case, parse the component of the LE
             for (Pair<List<LayoutToken>, String> entryComponent : labeledEntry.getLabels()) {
-                bodyWithSegmentedLexicalEntries.append(toTEILexicalEntryAndBeyond(entryComponent));
+                bodyWithSegmentedLexicalEntries.append(toTEILexicalEntryAndBeyond(entryComponent, parsers));
             }
 
 
@@ -110,33 +117,74 @@ public class LexicalEntryParser extends AbstractParser {
 
 
     public LabeledLexicalInformation process(List<LayoutToken> entry, String parentTag) {
-        LabeledLexicalInformation labeledLexicalEntry = new LabeledLexicalInformation();
-
-        LayoutTokenization layoutTokenization = new LayoutTokenization(entry);
-
-        String featSeg = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization(), DICTIONARY_ENTRY_LABEL).toString();
+        String featSeg = getFeatureMatrix(entry);
 
         if (StringUtils.isNotBlank(featSeg)) {
             // Run the lexical entry model to label the features
             String modelOutput = label(featSeg);
-            TaggingTokenClusteror clusteror = new TaggingTokenClusteror(DictionaryModels.LEXICAL_ENTRY, modelOutput, entry);
+            return processLabeled(entry, modelOutput);
+        }
 
-            List<TaggingTokenCluster> clusters = clusteror.cluster();
+        return new LabeledLexicalInformation();
+    }
 
-            for (TaggingTokenCluster cluster : clusters) {
-                if (cluster == null) {
-                    continue;
-                }
-                TaggingLabel clusterLabel = cluster.getTaggingLabel();
-                Engine.getCntManager().i((TaggingLabel) clusterLabel);
+    /**
+     * Same as process for several sequences, labeled with a single call of the tagger
+     */
+    public List<LabeledLexicalInformation> processBatch(List<List<LayoutToken>> entries, DictionaryProgress progress) {
+        return processBatch(entries, TokenFeatureTable.forSequences(entries), progress);
+    }
 
-                List<LayoutToken> concatenatedTokens = cluster.concatTokens();
-                String tagLabel = clusterLabel.getLabel();
+    /**
+     * Same as processBatch, the features of the tokens being taken from a table shared by the levels of the cascade
+     */
+    public List<LabeledLexicalInformation> processBatch(List<List<LayoutToken>> entries, TokenFeatureTable features,
+                                                        DictionaryProgress progress) {
+        return DictionaryBatchLabeler.process(this, DictionaryModels.LEXICAL_ENTRY, entries, features, progress, this::processLabeled);
+    }
 
-                labeledLexicalEntry.addLabel(Pair.of(concatenatedTokens, tagLabel));
+    /**
+     * Components of the lexical entries of the body components of a document, in the order of the document, labeled
+     * with a single call of the tagger
+     */
+    public List<LabeledLexicalInformation> processLexicalEntries(LabeledLexicalInformation bodyComponents) {
+        List<List<LayoutToken>> entries = new ArrayList<>();
+        for (Pair<List<LayoutToken>, String> bodyComponent : bodyComponents.getLabels()) {
+            if (bodyComponent.getRight().equals(DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL)) {
+                entries.add(bodyComponent.getLeft());
             }
         }
+        return processBatch(entries, new DictionaryProgress());
+    }
+
+    private String getFeatureMatrix(List<LayoutToken> entry) {
+        LayoutTokenization layoutTokenization = new LayoutTokenization(entry);
+
+        return FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(layoutTokenization.getTokenization(), DICTIONARY_ENTRY_LABEL).toString();
+    }
+
+    private LabeledLexicalInformation processLabeled(List<LayoutToken> entry, String modelOutput) {
+        LabeledLexicalInformation labeledLexicalEntry = new LabeledLexicalInformation();
+        if (StringUtils.isBlank(modelOutput)) {
+            return labeledLexicalEntry;
+        }
+
+        TaggingTokenClusteror clusteror = new TaggingTokenClusteror(DictionaryModels.LEXICAL_ENTRY, modelOutput, entry);
+
+        List<TaggingTokenCluster> clusters = clusteror.cluster();
+
+        for (TaggingTokenCluster cluster : clusters) {
+            if (cluster == null) {
+                continue;
+            }
+            TaggingLabel clusterLabel = cluster.getTaggingLabel();
+            Engine.getCntManager().i((TaggingLabel) clusterLabel);
 
+            List<LayoutToken> concatenatedTokens = cluster.concatTokens();
+            String tagLabel = clusterLabel.getLabel();
+
+            labeledLexicalEntry.addLabel(Pair.of(concatenatedTokens, tagLabel));
+        }
 
         return labeledLexicalEntry;
     }
@@ -162,16 +210,20 @@ public class LexicalEntryParser extends AbstractParser {
 
 
     public String toTEILexicalEntryAndBeyond(Pair<List<LayoutToken>, String> entryComponent) {
+        return toTEILexicalEntryAndBeyond(entryComponent, DictionaryParserSet.forCurrentThread());
+    }
+
+    public String toTEILexicalEntryAndBeyond(Pair<List<LayoutToken>, String> entryComponent, DictionaryParserSet parsers) {
         final StringBuilder sb = new StringBuilder();
         String token = LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(entryComponent.getLeft()));
         String label = entryComponent.getRight();
 
         if (label.equals("<form>")) {
-            sb.append(new FormParser().processToTEI(entryComponent.getLeft()));
+            sb.append(parsers.getFormParser().processToTEI(entryComponent.getLeft()));
 
 
         } else if (label.equals("<sense>")) {
-            sb.append(new SenseParser().processToTEI(entryComponent.getLeft()));
+            sb.append(parsers.getSenseParser().processToTEI(entryComponent.getLeft()));
 
 //            } else if (label.equals("<re>")) {
 //                //I apply the same model recursively on the relative entry
@@ -236,101 +288,43 @@ public class LexicalEntryParser extends AbstractParser {
 
 
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            int n = 0;
-
-            // we process all pdf files in the directory
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-                    // Create the pre-annotated file and the raw text
-                    createTrainingLexicalEntries(fileEntry, outputDirectory, false);
-                    n++;
-                }
-
-            } else {
-                createTrainingLexicalEntries(path, outputDirectory, false);
-                n++;
-
-            }
-
+        return createTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            System.out.println(n + " files to be processed.");
-            return n;
-        } catch (final Exception exp) {
-            throw new GrobidException("An exception occurred while running Grobid batch.", exp);
-        }
+    public int createTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("lexicalEntry", false, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingLexicalEntries(pdf, output, false));
     }
 
-    @SuppressWarnings({"UnusedParameters"})
     public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory) throws IOException {
-        try {
-            File path = new File(inputDirectory);
-            if (!path.exists()) {
-                throw new GrobidException("Cannot create training data because input directory can not be accessed: " + inputDirectory);
-            }
-
-            File pathOut = new File(outputDirectory);
-            if (!pathOut.exists()) {
-                throw new GrobidException("Cannot create training data because ouput directory can not be accessed: " + outputDirectory);
-            }
-
-            int n = 0;
-            // we process all pdf files in the directory
-            if (path.isDirectory()) {
-                for (File fileEntry : path.listFiles()) {
-                    // Create the pre-annotated file and the raw text
-                    createTrainingLexicalEntries(fileEntry, outputDirectory, true);
-                    n++;
-                }
-
-            } else {
-                createTrainingLexicalEntries(path, outputDirectory, true);
-                n++;
-
-            }
-
+        return createAnnotatedTrainingBatch(inputDirectory, outputDirectory, DictionaryProperties.getPoolMaxSize(), false);
+    }
 
-            System.out.println(n + " files to be processed.");
-            return n;
-        } catch (final Exception exp) {
-            throw new GrobidException("An exception occurred while running Grobid batch.", exp);
-        }
+    public int createAnnotatedTrainingBatch(String inputDirectory, String outputDirectory, int nbThreads, boolean recursive) throws IOException {
+        DictionaryTrainingBatch batch = new DictionaryTrainingBatch("lexicalEntry", true, nbThreads, recursive);
+        return batch.createTrainingBatch(inputDirectory, outputDirectory, (pdf, output) -> createTrainingLexicalEntries(pdf, output, true));
     }
 
     public void createTrainingLexicalEntries(File path, String outputDirectory, Boolean isAnnotated) throws Exception {
-        // Calling previous cascading model 
-        DictionaryBodySegmentationParser bodySegmentationParser = new DictionaryBodySegmentationParser();
-        DictionaryDocument doc = bodySegmentationParser.processing(path);
+        // Calling previous cascading model, or reading its result from the artifact of the file
+        DictionaryCascadeArtifact artifact = DictionaryCascadeArtifacts.getInstance().get(path);
+        createTrainingLexicalEntries(path, artifact.getBodyComponents(), outputDirectory, isAnnotated);
+    }
 
+    /**
+     * Same as createTrainingLexicalEntries, the body of the document being already segmented
+     */
+    public void createTrainingLexicalEntries(File path, LabeledLexicalInformation bodyComponents, String outputDirectory,
+                                             Boolean isAnnotated) throws Exception {
         //Writing feature file
         String featuresFile = outputDirectory + "/" + path.getName().substring(0, path.getName().length() - 4) + ".training.lexicalEntry";
         Writer featureWriter = new OutputStreamWriter(new FileOutputStream(new File(featuresFile), false), "UTF-8");
-        //Create rng and css files for guiding the annotation
-        File existingRngFile = new File("templates/lexicalEntry.rng");
-        File newRngFile = new File(outputDirectory + "/" + "lexicalEntry.rng");
-        copyFileUsingStream(existingRngFile, newRngFile);
-
-        File existingCssFile = new File("templates/lexicalEntry.css");
-        File newCssFile = new File(outputDirectory + "/" + "lexicalEntry.css");
-//        Files.copy(Gui.getClass().getResourceAsStream("templates/lexicalEntry.css"), Paths.get("new_project","css","lexicalEntry.css"))
-        copyFileUsingStream(existingCssFile, newCssFile);
 
         StringBuffer rawtxt = new StringBuffer();
 
         StringBuffer lexicalEntries = new StringBuffer();
-        for (Pair<List<LayoutToken>, String> lexicalEntryLayoutTokens : doc.getBodyComponents().getLabels()) {
+        for (Pair<List<LayoutToken>, String> lexicalEntryLayoutTokens : bodyComponents.getLabels()) {
 
             if (lexicalEntryLayoutTokens.getRight().equals(DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL)) {
                 for (LayoutToken txtline : lexicalEntryLayoutTokens.getLeft()) {
@@ -384,23 +378,4 @@ public class LexicalEntryParser extends AbstractParser {
 
         IOUtils.closeQuietly(featureWriter, teiWriter);
     }
-
-    private static void copyFileUsingStream(File source, File dest) throws IOException {
-        InputStream is = null;
-        OutputStream os = null;
-        try {
-            is = new FileInputStream(source);
-            os = new FileOutputStream(dest);
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = is.read(buffer)) > 0) {
-                os.write(buffer, 0, length);
-            }
-        } finally {
-            is.close();
-            os.close();
-        }
-    }
-
-
 }
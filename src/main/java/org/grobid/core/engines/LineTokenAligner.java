@@ -0,0 +1,104 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.layout.LayoutToken;
+
+import java.util.List;
+
+/**
+ * Positions in the document tokenization of the lines labeled by the dictionary segmentation model. The next new
+ * line token and the next token which is not a space or a tab are precomputed for every position, so that finding
+ * the first and last tokens of a line jumps from line to line instead of scanning the tokens again. The positions
+ * found are the same as with the token by token scan.
+ */
+class LineTokenAligner {
+
+    private final List<LayoutToken> documentTokens;
+    private final int lastTokenInd;
+
+    // first new line token at or after each position, documentTokens.size() if there is none
+    private final int[] nextNewLines;
+
+    // first token at or after each position which is not a space or a tab, lastTokenInd at most
+    private final int[] nextNonSpaces;
+
+    LineTokenAligner(List<LayoutToken> documentTokens, int lastTokenInd) {
+        this.documentTokens = documentTokens;
+        this.lastTokenInd = lastTokenInd;
+
+        int nbTokens = documentTokens.size();
+        nextNewLines = new int[nbTokens + 1];
+        nextNewLines[nbTokens] = nbTokens;
+        for (int i = nbTokens - 1; i >= 0; i--) {
+            nextNewLines[i] = isNewLine(i) ? i : nextNewLines[i + 1];
+        }
+
+        int lastPosition = Math.min(lastTokenInd, nbTokens - 1);
+        nextNonSpaces = new int[lastPosition + 1];
+        for (int i = lastPosition; i >= 0; i--) {
+            nextNonSpaces[i] = (i == lastTokenInd || !isSpace(i)) ? i : nextNonSpaces[i + 1];
+        }
+    }
+
+    /**
+     * Position of the first token of the labeled line starting with the given text, looking from the given position
+     * to the end of the block: the current position when its token starts the line, otherwise the first token of
+     * the next line of the block which does. The end of the block when no line matches.
+     */
+    int findLineStart(int position, int blockEndToken, String lineStart) {
+        // first skip possible space characters and tabs at the beginning of the line
+        position = skipSpaces(position);
+        if (lineStart.startsWith(documentTokens.get(position).getText())) {
+            return position;
+        }
+
+        while (position < blockEndToken) {
+            int newLine = nextNewLine(position);
+            if (newLine >= blockEndToken) {
+                return blockEndToken;
+            }
+            // move to the start of the next line, but ignore space characters and tabs
+            position = skipSpaces(newLine + 1);
+            if ((position != lastTokenInd) && lineStart.startsWith(documentTokens.get(position).getText())) {
+                return position;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Position of the last token of the line starting at the given position: the token before the next new line,
+     * or the end of the block
+     */
+    int findLineEnd(int lineStartPosition, int blockEndToken) {
+        if (lineStartPosition >= blockEndToken) {
+            return lineStartPosition;
+        }
+        int newLine = nextNewLine(lineStartPosition);
+        return newLine < blockEndToken ? newLine - 1 : blockEndToken;
+    }
+
+    private int skipSpaces(int position) {
+        if (position < nextNonSpaces.length) {
+            return nextNonSpaces[position];
+        }
+        while (isSpace(position) && (position != lastTokenInd)) {
+            position++;
+        }
+        return position;
+    }
+
+    private int nextNewLine(int position) {
+        return position < nextNewLines.length ? nextNewLines[position] : documentTokens.size();
+    }
+
+    private boolean isNewLine(int position) {
+        String text = documentTokens.get(position).t();
+        return text.equals("\n") || text.equals("\r");
+    }
+
+    private boolean isSpace(int position) {
+        String text = documentTokens.get(position).t();
+        return text.equals(" ") || text.equals("\t");
+    }
+}
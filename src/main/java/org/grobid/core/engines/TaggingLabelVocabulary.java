@@ -0,0 +1,62 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.GrobidModel;
+import org.grobid.core.engines.label.TaggingLabel;
+import org.grobid.core.engines.label.TaggingLabels;
+import org.grobid.core.engines.tagging.GenericTaggerUtils;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Integer ids of the labels output by the tagger for a model, e.g. "I-&lt;orth&gt;" and "&lt;orth&gt;" get two ids
+ * sharing the same TaggingLabel, the first one being the beginning of a field. The ids are given in order of first
+ * appearance and are only meaningful within the running process.
+ */
+public class TaggingLabelVocabulary {
+
+    private static final String BEGINNING_PREFIX = "I-";
+
+    private static final ConcurrentMap<String, TaggingLabelVocabulary> vocabularies = new ConcurrentHashMap<>();
+
+    private final GrobidModel model;
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<TaggingLabel> taggingLabels = new CopyOnWriteArrayList<>();
+    private final List<Boolean> beginnings = new CopyOnWriteArrayList<>();
+
+    public static TaggingLabelVocabulary forModel(GrobidModel model) {
+        return vocabularies.computeIfAbsent(model.getModelName(), name -> new TaggingLabelVocabulary(model));
+    }
+
+    private TaggingLabelVocabulary(GrobidModel model) {
+        this.model = model;
+    }
+
+    public int getId(String label) {
+        Integer id = ids.get(label);
+        if (id == null) {
+            id = ids.computeIfAbsent(label, this::register);
+        }
+        return id;
+    }
+
+    // the ids of two new labels are not given at the same time
+    private synchronized Integer register(String label) {
+        taggingLabels.add(TaggingLabels.labelFor(model, GenericTaggerUtils.getPlainLabel(label)));
+        beginnings.add(label.startsWith(BEGINNING_PREFIX));
+        return taggingLabels.size() - 1;
+    }
+
+    /**
+     * The label without its beginning prefix, as in the clusters of TaggingTokenClusteror
+     */
+    public TaggingLabel getTaggingLabel(int id) {
+        return taggingLabels.get(id);
+    }
+
+    public boolean isBeginning(int id) {
+        return beginnings.get(id);
+    }
+}
@@ -0,0 +1,216 @@
+package org.grobid.core.factory;
+
+import org.apache.commons.pool.BasePoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.grobid.core.engines.DictionaryParserSet;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.utilities.DictionaryProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of cascade workers (one DictionaryParserSet each) used by the service, in the same way as the
+ * GrobidPoolingFactory for the GROBID engines. At most grobid.dictionaries.pool.maxSize documents are processed
+ * at the same time, at most grobid.dictionaries.pool.maxQueued requests wait for a free worker, and a request
+ * which can't get a worker in time gets a NoSuchElementException. When these sizes are derived from the container
+ * limits, the pool follows them as they change.
+ *
+ * grobid.dictionaries.jobs.workers of the workers are kept for the asynchronous jobs (getParsersForJob), so that a
+ * backlog of jobs doesn't starve the synchronous requests, and the other way round. With a single worker, the jobs
+ * get one more.
+ */
+public class DictionaryPoolingFactory extends BasePoolableObjectFactory<DictionaryParserSet> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryPoolingFactory.class);
+
+    private static volatile GenericObjectPool<DictionaryParserSet> parserPool;
+    private static final AtomicInteger admitted = new AtomicInteger();
+
+    // workers of the synchronous requests and of the jobs, resized with the pool
+    private static final Slots requestSlots = new Slots();
+    private static final Slots jobSlots = new Slots();
+
+    private DictionaryPoolingFactory() {
+    }
+
+    private static synchronized void newPoolInstance() {
+        if (parserPool != null) {
+            return;
+        }
+        int maxQueued = DictionaryProperties.getPoolMaxQueued();
+        int maxWaitSeconds = DictionaryProperties.getPoolMaxWaitSeconds();
+
+        GenericObjectPool<DictionaryParserSet> pool = new GenericObjectPool<>(new DictionaryPoolingFactory());
+        pool.setMaxWait(maxWaitSeconds * 1000L);
+        pool.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_BLOCK);
+        resize(pool);
+        LOGGER.info("Creating the cascade worker pool: " + requestSlots.size + " workers for the requests, "
+                + jobSlots.size + " for the jobs, " + maxQueued + " waiting requests, " + maxWaitSeconds
+                + "s maximum wait");
+
+        parserPool = pool;
+    }
+
+    /**
+     * Follow the pool size and the share of the jobs, the workers in use above a smaller size are dropped as they
+     * are returned
+     */
+    private static synchronized void resize(GenericObjectPool<DictionaryParserSet> pool) {
+        int maxSize = DictionaryProperties.getPoolMaxSize();
+        int jobWorkers = Math.max(1, Math.min(DictionaryProperties.getJobsWorkers(), maxSize - 1));
+        int requestWorkers = Math.max(1, maxSize - jobWorkers);
+        if (requestSlots.size == requestWorkers && jobSlots.size == jobWorkers) {
+            return;
+        }
+        if (pool == parserPool) {
+            LOGGER.info("Resizing the cascade worker pool to " + requestWorkers + " workers for the requests, "
+                    + jobWorkers + " for the jobs");
+        }
+        requestSlots.resize(requestWorkers);
+        jobSlots.resize(jobWorkers);
+        pool.setMaxActive(requestWorkers + jobWorkers);
+        pool.setMaxIdle(requestWorkers + jobWorkers);
+    }
+
+    private static GenericObjectPool<DictionaryParserSet> getPool() {
+        if (parserPool == null) {
+            newPoolInstance();
+        }
+        resize(parserPool);
+        return parserPool;
+    }
+
+    /**
+     * Borrow a cascade worker of the synchronous requests, waiting at most grobid.dictionaries.pool.maxWaitSeconds.
+     *
+     * @throws NoSuchElementException when the wait queue is full or no worker got free in time
+     */
+    public static DictionaryParserSet getParsersFromPool() {
+        GenericObjectPool<DictionaryParserSet> pool = getPool();
+        if (admitted.incrementAndGet() > requestSlots.size + DictionaryProperties.getPoolMaxQueued()) {
+            admitted.decrementAndGet();
+            throw new NoSuchElementException("Too many requests waiting for a cascade worker");
+        }
+        try {
+            if (!requestSlots.tryAcquire(DictionaryProperties.getPoolMaxWaitSeconds(), TimeUnit.SECONDS)) {
+                admitted.decrementAndGet();
+                throw new NoSuchElementException("No cascade worker got free in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted.decrementAndGet();
+            throw new GrobidException("Interrupted while waiting for a cascade worker.", e);
+        }
+        try {
+            return borrow(pool);
+        } catch (RuntimeException e) {
+            requestSlots.release();
+            admitted.decrementAndGet();
+            throw e;
+        }
+    }
+
+    public static void returnParsers(DictionaryParserSet parsers) {
+        try {
+            parserPool.returnObject(parsers);
+        } catch (Exception e) {
+            LOGGER.error("Failed to return the cascade worker to the pool", e);
+        } finally {
+            requestSlots.release();
+            admitted.decrementAndGet();
+        }
+    }
+
+    /**
+     * Borrow a cascade worker of the jobs, blocking until one is returned or the timeout has passed.
+     *
+     * @return null when no worker got free in time
+     */
+    public static DictionaryParserSet getParsersForJob(long timeout, TimeUnit unit) throws InterruptedException {
+        GenericObjectPool<DictionaryParserSet> pool = getPool();
+        if (!jobSlots.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        try {
+            return borrow(pool);
+        } catch (RuntimeException e) {
+            jobSlots.release();
+            throw e;
+        }
+    }
+
+    public static void returnJobParsers(DictionaryParserSet parsers) {
+        try {
+            parserPool.returnObject(parsers);
+        } catch (Exception e) {
+            LOGGER.error("Failed to return the cascade worker to the pool", e);
+        } finally {
+            jobSlots.release();
+        }
+    }
+
+    private static DictionaryParserSet borrow(GenericObjectPool<DictionaryParserSet> pool) {
+        try {
+            return pool.borrowObject();
+        } catch (NoSuchElementException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while getting a cascade worker from the pool.", e);
+        }
+    }
+
+    /**
+     * Number of workers in use, of requests waiting for one and of jobs running
+     */
+    public static Map<String, Integer> getStatistics() {
+        int activeRequests = requestSlots.getUsed();
+        Map<String, Integer> statistics = new LinkedHashMap<>();
+        statistics.put("active", parserPool == null ? 0 : parserPool.getNumActive());
+        statistics.put("waiting", Math.max(0, admitted.get() - activeRequests));
+        statistics.put("activeJobs", jobSlots.getUsed());
+        return statistics;
+    }
+
+    /**
+     * Suggested delay for the Retry-After header when the pool is exhausted.
+     */
+    public static int getRetryAfterSeconds() {
+        return DictionaryProperties.getPoolMaxWaitSeconds();
+    }
+
+    @Override
+    public DictionaryParserSet makeObject() throws Exception {
+        return new DictionaryParserSet();
+    }
+
+    /**
+     * Semaphore whose number of permits follows the pool size, the permits in use above a smaller size being
+     * dropped as they are released
+     */
+    private static class Slots extends Semaphore {
+        private volatile int size = 0;
+
+        Slots() {
+            super(0, true);
+        }
+
+        synchronized void resize(int newSize) {
+            if (newSize > size) {
+                release(newSize - size);
+            } else if (newSize < size) {
+                reducePermits(size - newSize);
+            }
+            size = newSize;
+        }
+
+        int getUsed() {
+            return Math.max(0, size - availablePermits());
+        }
+    }
+}
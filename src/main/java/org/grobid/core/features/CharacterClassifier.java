@@ -0,0 +1,115 @@
+package org.grobid.core.features;
+
+import org.grobid.core.features.enums.CapitalisationType;
+import org.grobid.core.features.enums.PonctuationType;
+
+/**
+ * Classification of the characters of a token for the features, in a single pass over the token and without
+ * allocation. The classes of the characters up to U+07FF (Latin, Greek, Cyrillic, Armenian, Hebrew, Arabic) are
+ * precomputed in a table, the other characters go through java.lang.Character.
+ *
+ * As with the regular expressions and FeatureFactory tests it replaces, the tokens are read char by char: the two
+ * halves of a supplementary character are neither upper nor lower case.
+ */
+class CharacterClassifier {
+
+    private static final int TABLE_SIZE = 0x0800;
+
+    static final int UPPER_CASE = 1;
+    static final int LOWER_CASE = 1 << 1;
+    // \p{Punct}, which is ASCII only
+    static final int PUNCTUATION = 1 << 2;
+    static final int OPEN_BRACKET = 1 << 3;
+    static final int CLOSE_BRACKET = 1 << 4;
+    // [A-Za-z0-9 ]
+    static final int ASCII_ALPHANUMERIC_OR_SPACE = 1 << 5;
+    static final int ASCII = 1 << 6;
+
+    private static final byte[] CLASSES = new byte[TABLE_SIZE];
+
+    static {
+        for (char c = 0; c < TABLE_SIZE; c++) {
+            CLASSES[c] = (byte) computeClasses(c);
+        }
+    }
+
+    private CharacterClassifier() {
+    }
+
+    static int classesOf(char c) {
+        return c < TABLE_SIZE ? CLASSES[c] : computeClasses(c);
+    }
+
+    private static int computeClasses(char c) {
+        int classes = 0;
+        if (Character.isUpperCase(c)) {
+            classes |= UPPER_CASE;
+        }
+        if (Character.isLowerCase(c)) {
+            classes |= LOWER_CASE;
+        }
+        if (c < 0x80) {
+            classes |= ASCII;
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == ' ') {
+                classes |= ASCII_ALPHANUMERIC_OR_SPACE;
+            } else if (c > ' ' && c < 0x7F) {
+                classes |= PUNCTUATION;
+                if (c == '(' || c == '[' || c == '{') {
+                    classes |= OPEN_BRACKET;
+                } else if (c == ')' || c == ']' || c == '}') {
+                    classes |= CLOSE_BRACKET;
+                }
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * ALLCAPS when no character is lower case, INITCAP when the first one is upper case, NOCAPS otherwise
+     */
+    static CapitalisationType capitalisation(String word) {
+        if (word == null || word.length() == 0) {
+            return CapitalisationType.NOCAPS;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if ((classesOf(word.charAt(i)) & LOWER_CASE) != 0) {
+                return (classesOf(word.charAt(0)) & UPPER_CASE) != 0 ? CapitalisationType.INITCAP : CapitalisationType.NOCAPS;
+            }
+        }
+        return CapitalisationType.ALLCAPS;
+    }
+
+    static PonctuationType punctuationType(String token) {
+        if (token.length() != 1) {
+            return PonctuationType.NOPUNCT;
+        }
+        int classes = classesOf(token.charAt(0));
+        if ((classes & OPEN_BRACKET) != 0) {
+            return PonctuationType.OPENBRACKET;
+        } else if ((classes & CLOSE_BRACKET) != 0) {
+            return PonctuationType.ENDBRACKET;
+        } else if ((classes & PUNCTUATION) != 0) {
+            return PonctuationType.PUNCT;
+        }
+        return PonctuationType.NOPUNCT;
+    }
+
+    /**
+     * A single character (code point) which is not an ASCII letter, digit or space
+     */
+    static boolean isSpecialCharacter(String s) {
+        if (s.length() == 1) {
+            return (classesOf(s.charAt(0)) & ASCII_ALPHANUMERIC_OR_SPACE) == 0;
+        }
+        return s.length() == 2 && Character.isHighSurrogate(s.charAt(0)) && Character.isLowSurrogate(s.charAt(1));
+    }
+
+    static boolean isPureAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if ((classesOf(s.charAt(i)) & ASCII) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
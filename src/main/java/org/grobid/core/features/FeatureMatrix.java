@@ -0,0 +1,36 @@
+package org.grobid.core.features;
+
+/**
+ * Feature matrix of a token sequence with, for each of its rows, the position in the sequence of the token it
+ * describes. The spaces and line breaks have no row, so the tokens of a row are the ones following the token of the
+ * previous row up to its own token, as the tagger output is synchronized with the layout tokens.
+ */
+public class FeatureMatrix {
+
+    private final String text;
+    private final int[] tokenIds;
+
+    public FeatureMatrix(String text, int[] tokenIds) {
+        this.text = text;
+        this.tokenIds = tokenIds;
+    }
+
+    /**
+     * The rows, one line per token, as given to the tagger
+     */
+    public String getText() {
+        return text;
+    }
+
+    public int getTokenId(int row) {
+        return tokenIds[row];
+    }
+
+    public int size() {
+        return tokenIds.length;
+    }
+
+    public boolean isEmpty() {
+        return tokenIds.length == 0;
+    }
+}
@@ -3,8 +3,6 @@ package org.grobid.core.features;
 import org.grobid.core.document.DictionaryDocument;
 import org.grobid.core.engines.DictionarySegmentationParser;
 import org.grobid.core.engines.config.GrobidAnalysisConfig;
-import org.grobid.core.features.enums.CapitalisationType;
-import org.grobid.core.features.enums.LineStatus;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.layout.LayoutTokenization;
 import org.grobid.core.utilities.TextUtilities;
@@ -12,7 +10,6 @@ import org.grobid.core.utilities.TextUtilities;
 import java.io.File;
 import java.util.List;
 
-import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.grobid.core.engines.label.DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL;
 
 /**
@@ -48,7 +45,6 @@ public class FeatureVectorLexicalEntry {
                                                                       String label, String lineStatus,
                                                                       String fontStatus, String parentTag) {
 
-        FeatureFactory featureFactory = FeatureFactory.getInstance();
         String word = layoutToken.getText();
 
         FeatureVectorLexicalEntry featuresVector = new FeatureVectorLexicalEntry();
@@ -57,19 +53,13 @@ public class FeatureVectorLexicalEntry {
 
         //get features from layout tokens
 
-        featuresVector.fontSize = String.valueOf(layoutToken.getFontSize());
+        featuresVector.fontSize = FeatureVocabulary.getInstance().internFontSize(layoutToken.getFontSize());
         featuresVector.bold = layoutToken.getBold();
         featuresVector.italic = layoutToken.getItalic();
 
         //calculate features that are not in the layoutToken
         //Capitalisation
-        if (featureFactory.test_all_capital(word)) {
-            featuresVector.capitalisation = CapitalisationType.ALLCAPS.toString();
-        } else if (featureFactory.test_first_capital(word)) {
-            featuresVector.capitalisation = CapitalisationType.INITCAP.toString();
-        } else {
-            featuresVector.capitalisation = CapitalisationType.NOCAPS.toString();
-        }
+        featuresVector.capitalisation = FeaturesUtils.computeCapitalisation(word).toString();
 
         featuresVector.punctType = FeaturesUtils.checkPunctuationType(word);
 
@@ -90,65 +80,7 @@ public class FeatureVectorLexicalEntry {
     public static StringBuilder createFeaturesFromLayoutTokens(List<LayoutToken> tokens, String parentTag) {
 
         StringBuilder stringBuilder = new StringBuilder();
-
-        String previousFont = null;
-        String fontStatus = null;
-
-        String lineStatus = null;
-        int nbToken = tokens.size();
-        int counter = 0;
-
-        for (LayoutToken layoutToken : tokens) {
-            // Feature Vector won't contain the space between tokens neither the different line breaks, although they are considered as a separate layoutToken
-            String text = layoutToken.getText();
-            text = text.replace(" ", "");
-
-            if (TextUtilities.filterLine(text) || isBlank(text)) {
-                counter++;
-                continue;
-            }
-            if (text.equals("\n") || text.equals("\r") || (text.equals("\n\r"))) {
-                counter++;
-                continue;
-            }
-
-            // First token
-            if (counter - 1 < 0) {
-                lineStatus = LineStatus.LINE_START.toString();
-            } else if (counter + 1 == nbToken) {
-                // Last token
-                lineStatus = LineStatus.LINE_END.toString();
-            } else {
-                String previousTokenText;
-                Boolean previousTokenIsNewLineAfter;
-                String nextTokenText;
-                Boolean nextTokenIsNewLineAfter;
-                Boolean afterNextTokenIsNewLineAfter = false;
-
-                //The existence of the previousToken and nextToken is already check.
-                previousTokenText = tokens.get(counter - 1).getText();
-                previousTokenIsNewLineAfter = tokens.get(counter - 1).isNewLineAfter();
-                nextTokenText = tokens.get(counter + 1).getText();
-                nextTokenIsNewLineAfter = tokens.get(counter + 1).isNewLineAfter();
-
-                // Check the existence of the afterNextToken
-                if ((nbToken > counter + 2) && (tokens.get(counter + 2) != null)) {
-                    afterNextTokenIsNewLineAfter = tokens.get(counter + 2).isNewLineAfter();
-                }
-
-                lineStatus = FeaturesUtils.checkLineStatus(text, previousTokenIsNewLineAfter, previousTokenText, nextTokenIsNewLineAfter, nextTokenText, afterNextTokenIsNewLineAfter);
-
-            }
-            counter++;
-
-            String[] returnedFont = FeaturesUtils.checkFontStatus(layoutToken.getFont(), previousFont);
-            previousFont = returnedFont[0];
-            fontStatus = returnedFont[1];
-            FeatureVectorLexicalEntry vector = FeatureVectorLexicalEntry.addFeaturesLexicalEntries(layoutToken, "", lineStatus, fontStatus, parentTag);
-            String featureVector = vector.printVector();
-            stringBuilder.append(featureVector + "\n");
-
-        }
+        TokenFeatureTable.forTokens(tokens).appendFeatureMatrix(stringBuilder, tokens);
 
         return stringBuilder;
     }
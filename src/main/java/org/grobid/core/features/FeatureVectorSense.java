@@ -35,7 +35,7 @@ public class FeatureVectorSense {
         featuresVector.label = StringUtils.isBlank(label) ? "" : label;
 
         //1. get features from layout tokens
-        featuresVector.fontSize = String.valueOf(layoutToken.getFontSize());
+        featuresVector.fontSize = FeatureVocabulary.getInstance().internFontSize(layoutToken.getFontSize());
         featuresVector.bold = layoutToken.getBold();
         featuresVector.italic = layoutToken.getItalic();
 
@@ -0,0 +1,93 @@
+package org.grobid.core.features;
+
+import org.grobid.core.layout.LayoutToken;
+
+import java.util.Locale;
+
+/**
+ * Writes the feature vector of a token directly into the feature matrix, without building the FeatureVector object,
+ * its String fields and the intermediate Strings of printVector(). The output is the same as printVector() + "\n"
+ * of FeatureVectorLexicalEntry, FeatureVectorForm and FeatureVectorSense, which share the same columns.
+ */
+public class FeatureVectorSerializer {
+
+    private static final int AFFIX_LENGTH = 4;
+
+    private FeatureVectorSerializer() {
+    }
+
+    /**
+     * Append the features of the token followed by a new line
+     */
+    public static void appendVector(StringBuilder out, LayoutToken layoutToken, String label,
+                                    String lineStatus, String fontStatus) {
+        String word = layoutToken.getText();
+
+        appendVector(out, word, FeatureVocabulary.getInstance().internFontSize(layoutToken.getFontSize()),
+                layoutToken.getBold(), layoutToken.getItalic(),
+                FeaturesUtils.computeCapitalisation(word).toString(), FeaturesUtils.checkPunctuationType(word),
+                lineStatus, fontStatus, label);
+    }
+
+    /**
+     * Append the features of a token given as their text, the font size being the text of String.valueOf(double)
+     */
+    public static void appendVector(StringBuilder out, String string, String fontSize, boolean bold, boolean italic,
+                                    String capitalisation, String punctType, String lineStatus, String fontStatus,
+                                    String label) {
+        if (string == null || string.length() == 0) {
+            // printVector() returns null in this case
+            out.append("null\n");
+            return;
+        }
+        int length = string.length();
+
+        // token string and lowercase string
+        out.append(string).append(' ');
+        appendLowerCase(out, string);
+
+        // prefix (4)
+        for (int i = 1; i <= AFFIX_LENGTH; i++) {
+            out.append(' ').append(string, 0, Math.min(i, length));
+        }
+
+        // suffix (4)
+        for (int i = 1; i <= AFFIX_LENGTH; i++) {
+            out.append(' ').append(string, Math.max(0, length - i), length);
+        }
+
+        out.append(' ').append(fontSize);
+        out.append(' ').append(bold);
+        out.append(' ').append(italic);
+        out.append(' ').append(capitalisation);
+        out.append(' ').append(punctType);
+        out.append(' ').append(lineStatus);
+        out.append(' ').append(fontStatus);
+        out.append(' ').append(label);
+        out.append('\n');
+    }
+
+    /**
+     * Same characters as string.toLowerCase(), char by char when the default locale and the characters allow it
+     */
+    static void appendLowerCase(StringBuilder out, String string) {
+        String language = Locale.getDefault().getLanguage();
+        boolean simpleCase = !"tr".equals(language) && !"az".equals(language) && !"lt".equals(language);
+
+        for (int i = 0; simpleCase && i < string.length(); i++) {
+            char c = string.charAt(i);
+            // these characters are lowercased depending on their context, or into several characters
+            if (Character.isSurrogate(c) || c == '\u03A3' || c == '\u0130') {
+                simpleCase = false;
+            }
+        }
+
+        if (!simpleCase) {
+            out.append(string.toLowerCase());
+            return;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            out.append(Character.toLowerCase(string.charAt(i)));
+        }
+    }
+}
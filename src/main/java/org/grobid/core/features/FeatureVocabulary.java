@@ -0,0 +1,140 @@
+package org.grobid.core.features;
+
+import org.grobid.core.features.enums.CapitalisationType;
+import org.grobid.core.features.enums.LineStatus;
+import org.grobid.core.features.enums.PonctuationType;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Values of the token features shared by all the cascade levels, interned as small integer ids. The statuses,
+ * capitalisation and punctuation types are the ordinals of their enums, the font sizes are numbered by each
+ * TokenFeatureTable, in the order it meets them. The features of a token are then kept in a single int and the text of
+ * the values, as written in the Wapiti feature matrices, is only looked up when the matrix is serialised.
+ *
+ * Nothing is registered for the whole process: the texts of the font sizes are shared through a cache of a fixed
+ * size, whatever the number of distinct sizes seen by a long running service.
+ */
+public class FeatureVocabulary {
+
+    private static volatile FeatureVocabulary instance;
+
+    private static final LineStatus[] LINE_STATUSES = LineStatus.values();
+    private static final CapitalisationType[] CAPITALISATIONS = CapitalisationType.values();
+    private static final PonctuationType[] PUNCTUATION_TYPES = PonctuationType.values();
+
+    // bits of the compact features of a token
+    private static final int FEATURED = 1;
+    private static final int SAME_FONT = 1 << 1;
+    private static final int BOLD = 1 << 2;
+    private static final int ITALIC = 1 << 3;
+    private static final int LINE_STATUS_SHIFT = 4;
+    private static final int CAPITALISATION_SHIFT = 6;
+    private static final int PUNCTUATION_SHIFT = 8;
+    private static final int FONT_SIZE_SHIFT = 10;
+    private static final int TWO_BITS = 3;
+
+    // the largest font size id which can be encoded, given to all the sizes of a table beyond the previous ones
+    public static final int OVERFLOW_FONT_SIZE_ID = (1 << (32 - FONT_SIZE_SHIFT - 1)) - 1;
+
+    // direct mapped cache of the texts of the font sizes, a slot being replaced by the last size hashed to it
+    private static final int FONT_SIZE_CACHE_BITS = 10;
+    private final AtomicReferenceArray<FontSizeText> fontSizeTexts = new AtomicReferenceArray<>(1 << FONT_SIZE_CACHE_BITS);
+
+    private static final class FontSizeText {
+        private final long key;
+        private final String text;
+
+        private FontSizeText(long key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+
+    public static FeatureVocabulary getInstance() {
+        if (instance == null) {
+            synchronized (FeatureVocabulary.class) {
+                if (instance == null) {
+                    instance = new FeatureVocabulary();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private FeatureVocabulary() {
+    }
+
+    /**
+     * The text of a font size, as String.valueOf(double) written by the FeatureVector classes, shared by the tokens
+     * of the same size instead of a new String for each token
+     */
+    public String internFontSize(double fontSize) {
+        long key = Double.doubleToLongBits(fontSize);
+        int slot = ((int) (key ^ (key >>> 32)) * 0x9E3779B9) >>> (32 - FONT_SIZE_CACHE_BITS);
+        FontSizeText fontSizeText = fontSizeTexts.get(slot);
+        if (fontSizeText == null || fontSizeText.key != key) {
+            fontSizeText = new FontSizeText(key, String.valueOf(fontSize));
+            fontSizeTexts.set(slot, fontSizeText);
+        }
+        return fontSizeText.text;
+    }
+
+    /**
+     * The compact features of a token which is part of the feature matrix, its font size being given by its id in
+     * the table of the token (at most OVERFLOW_FONT_SIZE_ID)
+     */
+    public int encode(LineStatus lineStatus, boolean sameFont, CapitalisationType capitalisation,
+                      PonctuationType punctuationType, boolean bold, boolean italic, int fontSizeId) {
+        int features = FEATURED;
+        if (sameFont) {
+            features |= SAME_FONT;
+        }
+        if (bold) {
+            features |= BOLD;
+        }
+        if (italic) {
+            features |= ITALIC;
+        }
+        features |= lineStatus.ordinal() << LINE_STATUS_SHIFT;
+        features |= capitalisation.ordinal() << CAPITALISATION_SHIFT;
+        features |= punctuationType.ordinal() << PUNCTUATION_SHIFT;
+        features |= fontSizeId << FONT_SIZE_SHIFT;
+        return features;
+    }
+
+    /**
+     * False for the tokens without feature vector (spaces, line breaks), which are encoded as 0
+     */
+    public static boolean isFeatured(int features) {
+        return (features & FEATURED) != 0;
+    }
+
+    public static boolean isSameFont(int features) {
+        return (features & SAME_FONT) != 0;
+    }
+
+    public static boolean isBold(int features) {
+        return (features & BOLD) != 0;
+    }
+
+    public static boolean isItalic(int features) {
+        return (features & ITALIC) != 0;
+    }
+
+    public static LineStatus getLineStatus(int features) {
+        return LINE_STATUSES[(features >>> LINE_STATUS_SHIFT) & TWO_BITS];
+    }
+
+    public static CapitalisationType getCapitalisation(int features) {
+        return CAPITALISATIONS[(features >>> CAPITALISATION_SHIFT) & TWO_BITS];
+    }
+
+    public static PonctuationType getPunctuationType(int features) {
+        return PUNCTUATION_TYPES[(features >>> PUNCTUATION_SHIFT) & TWO_BITS];
+    }
+
+    public static int getEncodedFontSizeId(int features) {
+        return features >>> FONT_SIZE_SHIFT;
+    }
+}
@@ -5,10 +5,8 @@ import org.grobid.core.features.enums.FontStatus;
 import org.grobid.core.features.enums.LineStatus;
 import org.grobid.core.features.enums.PonctuationType;
 
-import java.nio.charset.Charset;
-import java.nio.charset.CharsetEncoder;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Locale;
+
 
 /**
  * Created by med on 20.10.16.
@@ -18,7 +16,11 @@ import java.util.regex.Pattern;
 
 
 public class FeaturesUtils {
-    static CharsetEncoder asciiEncoder = Charset.forName("US-ASCII").newEncoder(); // or "ISO-8859-1" for ISO Latin 1
+
+    public static final long NO_PATTERN = 0;
+
+    private static final long FINGERPRINT_OFFSET = 0xCBF29CE484222325L;
+    private static final long FINGERPRINT_PRIME = 0x100000001B3L;
 
     public FeaturesUtils() {
 
@@ -43,68 +45,122 @@ public class FeaturesUtils {
     public static String checkLineStatus(String text, Boolean previousTokenIsNewLineAfter, String previousTokenText,
                                          Boolean nextTokenIsNewLineAfter, String nextTokenText,
                                          Boolean afterNextTokenIsNewLineAfter) {
+        return computeLineStatus(text, previousTokenIsNewLineAfter, previousTokenText, nextTokenIsNewLineAfter,
+                nextTokenText, afterNextTokenIsNewLineAfter).toString();
+    }
 
-        String lineStatus;
+    public static LineStatus computeLineStatus(String text, boolean previousTokenIsNewLineAfter, String previousTokenText,
+                                               boolean nextTokenIsNewLineAfter, String nextTokenText,
+                                               boolean afterNextTokenIsNewLineAfter) {
+
+        LineStatus lineStatus;
         if (previousTokenIsNewLineAfter || (previousTokenText.equals(" ") && previousTokenIsNewLineAfter)) {
-            lineStatus = LineStatus.LINE_START.toString();
+            lineStatus = LineStatus.LINE_START;
         } else if (nextTokenIsNewLineAfter || (nextTokenText.equals(" ") && afterNextTokenIsNewLineAfter)
                 || (text.equals("-") && nextTokenIsNewLineAfter)
                 || (text.equals("-") && nextTokenText.equals(" ") && afterNextTokenIsNewLineAfter)) {
-            lineStatus = LineStatus.LINE_END.toString();
+            lineStatus = LineStatus.LINE_END;
         } else {
-            lineStatus = LineStatus.LINE_IN.toString();
+            lineStatus = LineStatus.LINE_IN;
         }
 
         return lineStatus;
     }
 
     public static String checkPunctuationType(String token) {
+        return computePunctuationType(token).toString();
+    }
+
+    public static PonctuationType computePunctuationType(String token) {
         //Punctuation: Only the categorization of different value of a ponctuation type matters to be captured for the features
-        String punctuationType;
-
-        Pattern punctuationPattern = Pattern.compile("\\p{Punct}");
-        Matcher mP = punctuationPattern.matcher(token);
-        boolean isPonctuationCharacter = mP.matches();
-
-
-        if (isPonctuationCharacter) {
-            Pattern openBracketPattern = Pattern.compile("[\\[\\(\\{]");
-            Matcher mOB = openBracketPattern.matcher(token);
-            boolean isOpenBracket = mOB.matches();
-            Pattern closeBracketPattern = Pattern.compile("[\\]\\)\\}]");
-            Matcher mCB = closeBracketPattern.matcher(token);
-            boolean isCloseBracket = mCB.matches();
-            if (isOpenBracket) {
-                punctuationType = PonctuationType.OPENBRACKET.toString();
-            } else if (isCloseBracket) {
-                punctuationType = PonctuationType.ENDBRACKET.toString();
+        return CharacterClassifier.punctuationType(token);
+    }
+
+    public static CapitalisationType computeCapitalisation(String word) {
+        return CharacterClassifier.capitalisation(word);
+    }
+
+    public static boolean containsSpecialCharacter(String s) {
+        return (s == null) ? false : CharacterClassifier.isSpecialCharacter(s);
+    }
+
+    public static boolean isPureAscii(String v) {
+        return CharacterClassifier.isPureAscii(v);
+    }
+
+    /**
+     * 64-bit rolling hash of the text pattern of a line (FeatureFactory.getPattern), used to find the lines repeated
+     * at the head or foot of the pages. NO_PATTERN when the pattern has 8 characters or less, which are not counted.
+     * <p>
+     * The characters of the pattern are hashed as they are read from the line, without building the pattern: the
+     * digits and the white spaces are skipped and the others are lower-cased, as getPattern does. The lines whose
+     * lower-casing depends on the context or on the locale (dotted capital I, capital sigma, surrogate pairs, Turkish,
+     * Azeri or Lithuanian default locale) are rare and go through getPattern.
+     */
+    public static long computePatternFingerprint(String line) {
+        if (line == null) {
+            return NO_PATTERN;
+        }
+        if (!hasContextFreeLowerCase(line)) {
+            String pattern = FeatureFactory.getInstance().getPattern(line);
+            return pattern == null ? NO_PATTERN : computeFingerprint(pattern);
+        }
+        long fingerprint = FINGERPRINT_OFFSET;
+        int length = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if ((c >= '0' && c <= '9') || c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f'
+                    || c == '\r') {
+                continue;
+            }
+            if (c < 0x80) {
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
             } else {
-                punctuationType = PonctuationType.PUNCT.toString();
+                c = Character.toLowerCase(c);
             }
-        } else {
-            punctuationType = PonctuationType.NOPUNCT.toString();
+            fingerprint = (fingerprint ^ c) * FINGERPRINT_PRIME;
+            length++;
         }
-
-        return punctuationType;
+        return finishFingerprint(fingerprint, length);
     }
 
-    public static CapitalisationType computeCapitalisation(String word) {
-        FeatureFactory featureFactory = FeatureFactory.getInstance();
-        if (featureFactory.test_all_capital(word)) {
-            return CapitalisationType.ALLCAPS;
-        } else if (featureFactory.test_first_capital(word)) {
-            return CapitalisationType.INITCAP;
-        } else {
-            return CapitalisationType.NOCAPS;
+    /**
+     * Fingerprint of a pattern already built, same hash as computePatternFingerprint
+     */
+    static long computeFingerprint(String pattern) {
+        long fingerprint = FINGERPRINT_OFFSET;
+        for (int i = 0; i < pattern.length(); i++) {
+            fingerprint = (fingerprint ^ pattern.charAt(i)) * FINGERPRINT_PRIME;
         }
+        return finishFingerprint(fingerprint, pattern.length());
     }
 
-    public static boolean containsSpecialCharacter(String s) {
-        return (s == null) ? false : s.matches("[^A-Za-z0-9 ]");
+    private static long finishFingerprint(long fingerprint, int length) {
+        if (length <= 8) {
+            return NO_PATTERN;
+        }
+        // the pattern length is mixed in, and NO_PATTERN is kept for the short patterns
+        fingerprint ^= length;
+        return fingerprint == NO_PATTERN ? 1 : fingerprint;
     }
 
-    public static boolean isPureAscii(String v) {
-        return asciiEncoder.canEncode(v);
+    /**
+     * True when String.toLowerCase gives, for each character of the line, Character.toLowerCase of the character
+     */
+    private static boolean hasContextFreeLowerCase(String line) {
+        String language = Locale.getDefault().getLanguage();
+        if (language.equals("tr") || language.equals("az") || language.equals("lt")) {
+            return false;
+        }
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c >= 0x80 && (c == '\u0130' || c == '\u03A3' || Character.isSurrogate(c))) {
+                return false;
+            }
+        }
+        return true;
     }
 
 
@@ -0,0 +1,85 @@
+package org.grobid.core.features;
+
+import org.grobid.core.features.enums.LineStatus;
+import org.grobid.core.layout.LayoutToken;
+
+import java.util.List;
+
+/**
+ * Line status of the tokens of a token list, from two bitmaps computed once: the tokens followed by a new line and
+ * the single space tokens. The status of a token in any range of the list (a sequence, or a part of a sequence
+ * labeled at a lower level of the cascade) is then the one of FeaturesUtils.computeLineStatus on that range, without
+ * getting its neighbours from the list again.
+ */
+public class LineStatuses {
+
+    private final int nbTokens;
+    private final long[] newLinesAfter;
+    private final long[] spaces;
+
+    public static LineStatuses of(List<LayoutToken> tokens) {
+        return new LineStatuses(tokens.toArray(new LayoutToken[0]));
+    }
+
+    public static LineStatuses of(LayoutToken[] tokens) {
+        return new LineStatuses(tokens);
+    }
+
+    private LineStatuses(LayoutToken[] tokens) {
+        nbTokens = tokens.length;
+        newLinesAfter = new long[(nbTokens + 63) >>> 6];
+        spaces = new long[(nbTokens + 63) >>> 6];
+        for (int i = 0; i < nbTokens; i++) {
+            LayoutToken token = tokens[i];
+            if (token == null) {
+                continue;
+            }
+            if (token.isNewLineAfter()) {
+                newLinesAfter[i >>> 6] |= 1L << i;
+            }
+            if (" ".equals(token.getText())) {
+                spaces[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    /**
+     * Line status of the token at position i of the range [from, to): LINESTART after a new line, LINEEND before a
+     * new line (possibly after a space), the first and last tokens of the range being LINESTART and LINEEND
+     */
+    public LineStatus get(int i, int from, int to) {
+        if (i == from) {
+            return LineStatus.LINE_START;
+        } else if (i + 1 == to) {
+            return LineStatus.LINE_END;
+        } else if (isNewLineAfter(i - 1)) {
+            return LineStatus.LINE_START;
+        } else if (isNewLineAfter(i + 1) || (isSpace(i + 1) && i + 2 < to && isNewLineAfter(i + 2))) {
+            return LineStatus.LINE_END;
+        }
+        return LineStatus.LINE_IN;
+    }
+
+    /**
+     * Line status of all the tokens of the range [from, to), in a single sweep
+     */
+    public LineStatus[] getAll(int from, int to) {
+        LineStatus[] statuses = new LineStatus[to - from];
+        for (int i = from; i < to; i++) {
+            statuses[i - from] = get(i, from, to);
+        }
+        return statuses;
+    }
+
+    public int size() {
+        return nbTokens;
+    }
+
+    private boolean isNewLineAfter(int i) {
+        return (newLinesAfter[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private boolean isSpace(int i) {
+        return (spaces[i >>> 6] & (1L << i)) != 0;
+    }
+}
@@ -0,0 +1,39 @@
+package org.grobid.core.features;
+
+import org.grobid.core.utilities.LongIntHashMap;
+
+/**
+ * Text patterns of the lines at the head and foot of the pages which re-occur on several pages (typically indicating
+ * a publisher head or foot note), counted by fingerprint (FeaturesUtils.computePatternFingerprint). They give the
+ * repetitivePattern and firstRepetitivePattern features of the segmentation model.
+ */
+public class RepetitivePatterns {
+
+    private final LongIntHashMap counts = new LongIntHashMap();
+    // the patterns already given the firstRepetitivePattern feature
+    private final LongIntHashMap firstOccurrences = new LongIntHashMap();
+
+    /**
+     * Count the pattern of the first line of a block at the head or foot of a page
+     */
+    public void add(long patternFingerprint) {
+        if (patternFingerprint != FeaturesUtils.NO_PATTERN) {
+            counts.addTo(patternFingerprint, 1);
+        }
+    }
+
+    public boolean isRepetitive(long patternFingerprint) {
+        return patternFingerprint != FeaturesUtils.NO_PATTERN && counts.get(patternFingerprint, 0) > 1;
+    }
+
+    /**
+     * True for the first line of a repetitive pattern only, the next calls with the same pattern return false
+     */
+    public boolean isFirstRepetitive(long patternFingerprint) {
+        if (!isRepetitive(patternFingerprint) || firstOccurrences.containsKey(patternFingerprint)) {
+            return false;
+        }
+        firstOccurrences.put(patternFingerprint, -1);
+        return true;
+    }
+}
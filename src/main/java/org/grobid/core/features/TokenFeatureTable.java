@@ -0,0 +1,255 @@
+package org.grobid.core.features;
+
+import org.grobid.core.features.enums.FontStatus;
+import org.grobid.core.features.enums.LineStatus;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.utilities.LongIntHashMap;
+import org.grobid.core.utilities.TextUtilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Token features of one or several sequences of layout tokens (typically the lexical entries of a chunk), computed
+ * once and stored as a single int per token (see FeatureVocabulary). The feature matrix of any contiguous part of a
+ * sequence (a form, a sense, an etym of a lexical entry...) is then written from them, without computing the features
+ * again at each level of the cascade.
+ *
+ * The matrix of a part is the same as if its features were computed on the part alone: the line status of its first
+ * and last tokens, and the font status of its first token, depend on the boundaries of the part and are adjusted.
+ */
+public class TokenFeatureTable {
+
+    private final LayoutToken[] tokens;
+    private final int[] sequences;
+    // position + 1 of the first occurrence of each token, by identity, open addressing with linear probing
+    private final int[] positionSlots;
+
+    // features of each token encoded by the vocabulary, 0 for the spaces and the line breaks which have no vector
+    private final int[] features;
+    private final LineStatuses lineStatuses;
+    private final FeatureVocabulary vocabulary = FeatureVocabulary.getInstance();
+
+    // font sizes of the table, numbered in the order they are met. The sizes met after OVERFLOW_FONT_SIZE_ID others
+    // all get this id and keep their text by token.
+    private final LongIntHashMap fontSizeIds = new LongIntHashMap();
+    private final List<String> fontSizeTexts = new ArrayList<>();
+    private String[] overflowFontSizeTexts;
+
+    public static TokenFeatureTable forTokens(List<LayoutToken> tokens) {
+        return new TokenFeatureTable(Collections.singletonList(tokens));
+    }
+
+    public static TokenFeatureTable forSequences(List<List<LayoutToken>> sequences) {
+        return new TokenFeatureTable(sequences);
+    }
+
+    private TokenFeatureTable(List<List<LayoutToken>> sequenceList) {
+        int nbTokens = 0;
+        for (List<LayoutToken> sequence : sequenceList) {
+            nbTokens += sequence.size();
+        }
+
+        tokens = new LayoutToken[nbTokens];
+        sequences = new int[nbTokens];
+        positionSlots = new int[Integer.highestOneBit(Math.max(nbTokens + nbTokens / 2, 2) - 1) << 1];
+        features = new int[nbTokens];
+
+        int position = 0;
+        int[] sequenceEnds = new int[sequenceList.size()];
+        for (int s = 0; s < sequenceList.size(); s++) {
+            for (LayoutToken token : sequenceList.get(s)) {
+                tokens[position] = token;
+                sequences[position] = s;
+                addPosition(position);
+                position++;
+            }
+            sequenceEnds[s] = position;
+        }
+
+        lineStatuses = LineStatuses.of(tokens);
+        int from = 0;
+        for (int sequenceEnd : sequenceEnds) {
+            computeFeatures(from, sequenceEnd);
+            from = sequenceEnd;
+        }
+    }
+
+    private void addPosition(int position) {
+        int mask = positionSlots.length - 1;
+        int slot = System.identityHashCode(tokens[position]) & mask;
+        while (positionSlots[slot] != 0) {
+            if (tokens[positionSlots[slot] - 1] == tokens[position]) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        positionSlots[slot] = position + 1;
+    }
+
+    private int getPosition(LayoutToken token) {
+        int mask = positionSlots.length - 1;
+        int slot = System.identityHashCode(token) & mask;
+        while (positionSlots[slot] != 0) {
+            if (tokens[positionSlots[slot] - 1] == token) {
+                return positionSlots[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void computeFeatures(int from, int to) {
+        String previousFont = null;
+        LineStatus[] sequenceLineStatuses = lineStatuses.getAll(from, to);
+
+        for (int i = from; i < to; i++) {
+            // Feature Vector won't contain the space between tokens neither the different line breaks
+            String text = getStrippedText(i);
+            if (TextUtilities.filterLine(text) || isBlank(text)) {
+                continue;
+            }
+            if (text.equals("\n") || text.equals("\r") || (text.equals("\n\r"))) {
+                continue;
+            }
+            LayoutToken token = tokens[i];
+            boolean sameFont = previousFont != null && previousFont.equals(token.getFont());
+            previousFont = token.getFont();
+
+            String word = token.getText();
+            features[i] = vocabulary.encode(sequenceLineStatuses[i - from], sameFont,
+                    FeaturesUtils.computeCapitalisation(word), FeaturesUtils.computePunctuationType(word),
+                    token.getBold(), token.getItalic(), getFontSizeId(i, token.getFontSize()));
+        }
+    }
+
+    private int getFontSizeId(int position, double fontSize) {
+        long key = Double.doubleToLongBits(fontSize);
+        int id = fontSizeIds.get(key, -1);
+        if (id >= 0) {
+            return id;
+        }
+        if (fontSizeTexts.size() == FeatureVocabulary.OVERFLOW_FONT_SIZE_ID) {
+            if (overflowFontSizeTexts == null) {
+                overflowFontSizeTexts = new String[tokens.length];
+            }
+            overflowFontSizeTexts[position] = vocabulary.internFontSize(fontSize);
+            return FeatureVocabulary.OVERFLOW_FONT_SIZE_ID;
+        }
+        id = fontSizeTexts.size();
+        fontSizeIds.put(key, id);
+        fontSizeTexts.add(vocabulary.internFontSize(fontSize));
+        return id;
+    }
+
+    private String getFontSizeText(int position, int fontSizeId) {
+        if (fontSizeId == FeatureVocabulary.OVERFLOW_FONT_SIZE_ID) {
+            return overflowFontSizeTexts[position];
+        }
+        return fontSizeTexts.get(fontSizeId);
+    }
+
+    private String getStrippedText(int i) {
+        return tokens[i].getText().replace(" ", "");
+    }
+
+    /**
+     * Feature matrix of a sequence of the table, or of a contiguous part of one. A sequence which is not in the table
+     * gets its features computed on its own.
+     */
+    public String getFeatureMatrix(List<LayoutToken> sequence) {
+        StringBuilder featureMatrix = new StringBuilder();
+        appendFeatureMatrix(featureMatrix, sequence);
+        return featureMatrix.toString();
+    }
+
+    public void appendFeatureMatrix(StringBuilder out, List<LayoutToken> sequence) {
+        if (sequence.isEmpty()) {
+            return;
+        }
+        int from = indexOf(sequence);
+        if (from < 0) {
+            forTokens(sequence).appendFeatureMatrix(out, 0, sequence.size(), null);
+        } else {
+            appendFeatureMatrix(out, from, from + sequence.size(), null);
+        }
+    }
+
+    /**
+     * Same as getFeatureMatrix, with the position in the sequence of the token of each row
+     */
+    public FeatureMatrix getFeatureMatrixWithIds(List<LayoutToken> sequence) {
+        if (sequence.isEmpty()) {
+            return new FeatureMatrix("", new int[0]);
+        }
+        int from = indexOf(sequence);
+        if (from < 0) {
+            return forTokens(sequence).getFeatureMatrixWithIds(0, sequence.size());
+        }
+        return getFeatureMatrixWithIds(from, from + sequence.size());
+    }
+
+    private FeatureMatrix getFeatureMatrixWithIds(int from, int to) {
+        StringBuilder featureMatrix = new StringBuilder();
+        int[] tokenIds = new int[to - from];
+        int nbRows = appendFeatureMatrix(featureMatrix, from, to, tokenIds);
+        return new FeatureMatrix(featureMatrix.toString(), Arrays.copyOf(tokenIds, nbRows));
+    }
+
+    /**
+     * Write the rows of the part, and the position in the part of their tokens when tokenIds is given
+     *
+     * @return the number of rows
+     */
+    private int appendFeatureMatrix(StringBuilder out, int from, int to, int[] tokenIds) {
+        boolean firstFeatured = true;
+        int nbRows = 0;
+        for (int i = from; i < to; i++) {
+            int tokenFeatures = features[i];
+            if (!FeatureVocabulary.isFeatured(tokenFeatures)) {
+                continue;
+            }
+            if (tokenIds != null) {
+                tokenIds[nbRows] = i - from;
+            }
+            nbRows++;
+
+            // the neighbours used for the line status are not all within the part at its boundaries
+            LineStatus lineStatus = FeatureVocabulary.getLineStatus(tokenFeatures);
+            if (i == from || i + 2 >= to) {
+                lineStatus = lineStatuses.get(i, from, to);
+            }
+            boolean sameFont = !firstFeatured && FeatureVocabulary.isSameFont(tokenFeatures);
+            FontStatus fontStatus = sameFont ? FontStatus.SAMEFONT : FontStatus.NEWFONT;
+            firstFeatured = false;
+
+            FeatureVectorSerializer.appendVector(out, tokens[i].getText(),
+                    getFontSizeText(i, FeatureVocabulary.getEncodedFontSizeId(tokenFeatures)),
+                    FeatureVocabulary.isBold(tokenFeatures), FeatureVocabulary.isItalic(tokenFeatures),
+                    FeatureVocabulary.getCapitalisation(tokenFeatures).toString(),
+                    FeatureVocabulary.getPunctuationType(tokenFeatures).toString(), lineStatus.toString(),
+                    fontStatus.toString(), "");
+        }
+        return nbRows;
+    }
+
+    /**
+     * Position of the sequence in the table, -1 if its tokens are not contiguous tokens of one sequence of the table
+     */
+    private int indexOf(List<LayoutToken> sequence) {
+        int from = getPosition(sequence.get(0));
+        if (from < 0 || from + sequence.size() > tokens.length) {
+            return -1;
+        }
+        for (int j = 0; j < sequence.size(); j++) {
+            if (tokens[from + j] != sequence.get(j) || sequences[from + j] != sequences[from]) {
+                return -1;
+            }
+        }
+        return from;
+    }
+}
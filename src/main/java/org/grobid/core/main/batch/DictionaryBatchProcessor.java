@@ -0,0 +1,195 @@
+package org.grobid.core.main.batch;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.grobid.core.engines.DictionaryBodySegmentationParser;
+import org.grobid.core.engines.DictionaryParserSet;
+import org.grobid.core.engines.DictionaryProgress;
+import org.grobid.core.exceptions.GrobidException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.grobid.service.DictionaryPaths.PATH_LEXICAL_ENTRY;
+import static org.grobid.service.DictionaryPaths.PROCESS_DICTIONARY_BODY_SEGMENTATION;
+
+/**
+ * Runs the production cascade over a directory of PDF files, on a pool of worker threads, and writes one TEI file
+ * per input in the output directory (keeping the sub-directories when recursive).
+ *
+ * A TEI file is first written under a temporary name and renamed when complete, so the inputs which already have
+ * their TEI file are skipped and an interrupted run can be started again on the same directories.
+ */
+public class DictionaryBatchProcessor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryBatchProcessor.class);
+
+    public enum Level {
+        DICTIONARY_SEGMENTATION, DICTIONARY_BODY_SEGMENTATION, LEXICAL_ENTRY, FULL_DICTIONARY
+    }
+
+    /**
+     * TEI of a single PDF file, written with the parsers of the worker thread
+     */
+    public interface FileProcessor {
+        void process(File pdf, DictionaryParserSet parsers, Writer writer) throws Exception;
+    }
+
+    private static final String TEI_EXTENSION = ".tei.xml";
+    private static final String PARTIAL_EXTENSION = ".part";
+
+    private final Level level;
+    private final String fullDictionaryModels;
+    private final int nbThreads;
+    private final boolean recursive;
+
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public DictionaryBatchProcessor(Level level, String fullDictionaryModels, int nbThreads, boolean recursive) {
+        this.level = level;
+        this.fullDictionaryModels = fullDictionaryModels;
+        this.nbThreads = nbThreads;
+        this.recursive = recursive;
+    }
+
+    /**
+     * @return the number of files processed, the skipped and failed ones excluded
+     */
+    public int processBatch(String inputDirectory, String outputDirectory) {
+        return processBatch(inputDirectory, outputDirectory, this::process);
+    }
+
+    /**
+     * @return the number of files processed, the skipped and failed ones excluded
+     */
+    public int processBatch(String inputDirectory, String outputDirectory, final FileProcessor processor) {
+        File input = new File(inputDirectory);
+        if (!input.exists()) {
+            throw new GrobidException("Cannot process the files because input directory can not be accessed: " + inputDirectory);
+        }
+        File output = new File(outputDirectory);
+        if (!output.exists() && !output.mkdirs()) {
+            throw new GrobidException("Cannot process the files because ouput directory can not be created: " + outputDirectory);
+        }
+
+        List<File> pdfs = new ArrayList<>();
+        if (input.isDirectory()) {
+            listPdfs(input, pdfs);
+        } else {
+            pdfs.add(input);
+        }
+        System.out.println(pdfs.size() + " files to be processed.");
+
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads,
+                new ThreadFactoryBuilder().setNameFormat("dictionary-batch-%d").build());
+        try {
+            List<Future<?>> tasks = new ArrayList<>(pdfs.size());
+            for (final File pdf : pdfs) {
+                final File tei = getOutputFile(input, pdf, output);
+                tasks.add(executor.submit(() -> processFile(pdf, tei, processor)));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrobidException("Interrupted while running the batch.", e);
+        } catch (ExecutionException e) {
+            throw new GrobidException("An exception occurred while running Grobid batch.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        System.out.println(processed.get() + " files processed, " + skipped.get() + " already processed, "
+                + failed.get() + " failed.");
+        return processed.get();
+    }
+
+    private void listPdfs(File directory, List<File> pdfs) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                if (recursive) {
+                    listPdfs(file, pdfs);
+                }
+            } else if (file.getName().toLowerCase().endsWith(".pdf")) {
+                pdfs.add(file);
+            }
+        }
+    }
+
+    private static File getOutputFile(File input, File pdf, File output) {
+        String name = pdf.getName().replaceAll("(?i)\\.pdf$", "") + TEI_EXTENSION;
+        if (!input.isDirectory()) {
+            return new File(output, name);
+        }
+        String relativeDirectory = input.toPath().relativize(pdf.getParentFile().toPath()).toString();
+        return new File(new File(output, relativeDirectory), name);
+    }
+
+    private void processFile(File pdf, File tei, FileProcessor processor) {
+        if (tei.exists()) {
+            skipped.incrementAndGet();
+            return;
+        }
+
+        File partial = new File(tei.getPath() + PARTIAL_EXTENSION);
+        long start = System.currentTimeMillis();
+        try {
+            File directory = tei.getParentFile();
+            if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+                throw new GrobidException("Cannot create the output directory " + directory.getAbsolutePath());
+            }
+
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(partial), StandardCharsets.UTF_8))) {
+                processor.process(pdf, DictionaryParserSet.forCurrentThread(), writer);
+            }
+            Files.move(partial.toPath(), tei.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+            processed.incrementAndGet();
+            LOGGER.info(pdf.getPath() + " processed in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            partial.delete();
+            LOGGER.error("Cannot process " + pdf.getPath(), e);
+        }
+    }
+
+    private void process(File pdf, DictionaryParserSet parsers, Writer writer) throws IOException {
+        DictionaryBodySegmentationParser bodySegmentationParser = DictionaryBodySegmentationParser.getInstance();
+
+        switch (level) {
+            case DICTIONARY_SEGMENTATION:
+                writer.write(parsers.getDictionarySegmentationParser().processToTEI(pdf));
+                break;
+            case DICTIONARY_BODY_SEGMENTATION:
+                bodySegmentationParser.processToTEI(pdf, PROCESS_DICTIONARY_BODY_SEGMENTATION, parsers, new DictionaryProgress(), writer);
+                break;
+            case LEXICAL_ENTRY:
+                bodySegmentationParser.processToTEI(pdf, PATH_LEXICAL_ENTRY, parsers, new DictionaryProgress(), writer);
+                break;
+            case FULL_DICTIONARY:
+                bodySegmentationParser.processToTEI(pdf, fullDictionaryModels, parsers, new DictionaryProgress(), writer);
+                break;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.grobid.core.main.batch;
 import org.grobid.core.main.GrobidHomeFinder;
 import org.grobid.core.engines.*;
 import org.grobid.core.main.LibraryLoader;
+import org.grobid.core.utilities.DictionaryProperties;
 import org.grobid.core.utilities.GrobidProperties;
 
 import java.io.File;
@@ -33,6 +34,14 @@ public class DictionaryMain {
     private static final String CREATE_ANNOTATED_TRAINING_ETYMQUOTE = "createAnnotatedTrainingEtymQuote";
     private static final String CREATE_TRAINING_ETYM = "createTrainingEtym";
     private static final String CREATE_ANNOTATED_TRAINING_ETYM = "createAnnotatedTrainingEtym";
+    private static final String CREATE_TRAINING_ALL_LEVELS = "createTrainingAllLevels";
+    private static final String CREATE_ANNOTATED_TRAINING_ALL_LEVELS = "createAnnotatedTrainingAllLevels";
+    private static final String PROCESS_DICTIONARY_SEGMENTATION = "processDictionarySegmentation";
+    private static final String PROCESS_DICTIONARY_BODY_SEGMENTATION = "processDictionaryBodySegmentation";
+    private static final String PROCESS_LEXICAL_ENTRY = "processLexicalEntry";
+    private static final String PROCESS_FULL_DICTIONARY = "processFullDictionary";
+
+    private static final String DEFAULT_FULL_DICTIONARY_MODELS = "form-sense-etym-re-xr-subEntry-note";
 
     private static List<String> availableCommands = Arrays.asList(
             CREATE_TRAINING_DICTIONARY_SEGMENTATION,
@@ -50,13 +59,29 @@ public class DictionaryMain {
             CREATE_ANNOTATED_TRAINING_SENSE,
             CREATE_ANNOTATED_TRAINING_SUB_SENSE,
             CREATE_ANNOTATED_TRAINING_ETYMQUOTE,
-            CREATE_ANNOTATED_TRAINING_ETYM);
+            CREATE_ANNOTATED_TRAINING_ETYM,
+            CREATE_TRAINING_ALL_LEVELS,
+            CREATE_ANNOTATED_TRAINING_ALL_LEVELS,
+            PROCESS_DICTIONARY_SEGMENTATION,
+            PROCESS_DICTIONARY_BODY_SEGMENTATION,
+            PROCESS_LEXICAL_ENTRY,
+            PROCESS_FULL_DICTIONARY);
 
     /**
      * Arguments of the batch.
      */
     private static GrobidMainArgs gbdArgs;
 
+    /**
+     * Number of files processed at the same time by the process* commands.
+     */
+    private static int nbThreads;
+
+    /**
+     * Models of the full dictionary cascade, as in the path of the processFullDictionary service.
+     */
+    private static String fullDictionaryModels;
+
     /**
      * Build the path to grobid.properties from the path to grobid-home.
      *
@@ -107,6 +132,8 @@ public class DictionaryMain {
         help.append("-s: is the parameter used for process using string as input and not file.\n");
         help.append("-r: recursive directory initiateProcessing, default initiateProcessing is not recursive.\n");
         help.append("-ignoreAssets: do not extract and save the PDF assets (bitmaps, vector graphics), by default the assets are extracted and saved.\n");
+        help.append("-nbThreads: number of files processed at the same time by the process* and create* commands, by default derived from the available CPUs and memory.\n");
+        help.append("-models: models of the processFullDictionary command, default " + DEFAULT_FULL_DICTIONARY_MODELS + ".\n");
         help.append("-exe: gives the command to execute. The value should be one of these:\n");
         help.append("\t" + availableCommands + "\n");
         return help.toString();
@@ -182,11 +209,38 @@ public class DictionaryMain {
                     gbdArgs.setRecursive(true);
                     continue;
                 }
+                if (currArg.equals("-nbThreads")) {
+                    try {
+                        nbThreads = Integer.parseInt(pArgs[i + 1]);
+                    } catch (NumberFormatException e) {
+                        System.err.println("-nbThreads value should be a number");
+                        result = false;
+                        break;
+                    }
+                    i++;
+                    continue;
+                }
+                if (currArg.equals("-models")) {
+                    fullDictionaryModels = pArgs[i + 1];
+                    i++;
+                    continue;
+                }
             }
         }
         return result;
     }
 
+    private static int getNbThreads() {
+        return nbThreads > 0 ? nbThreads : DictionaryProperties.getPoolMaxSize();
+    }
+
+    private static int processBatch(DictionaryBatchProcessor.Level level) {
+        DictionaryBatchProcessor batchProcessor = new DictionaryBatchProcessor(level, fullDictionaryModels, getNbThreads(),
+                gbdArgs.isRecursive());
+        String outputDirectory = gbdArgs.getPath2Output() != null ? gbdArgs.getPath2Output() : ".";
+        return batchProcessor.processBatch(gbdArgs.getPath2Input(), outputDirectory);
+    }
+
     /**
      * Starts Grobid from command line using the following parameters:
      *
@@ -194,6 +248,8 @@ public class DictionaryMain {
      */
     public static void main(final String[] args) throws Exception {
         gbdArgs = new GrobidMainArgs();
+        nbThreads = 0;
+        fullDictionaryModels = DEFAULT_FULL_DICTIONARY_MODELS;
 
         if (processArgs(args) && (gbdArgs.getProcessMethodName() != null)) {
             if (isNotEmpty(gbdArgs.getPath2grobidHome())) {
@@ -209,82 +265,108 @@ public class DictionaryMain {
 
             if (gbdArgs.getProcessMethodName().equals(CREATE_TRAINING_DICTIONARY_SEGMENTATION)) {
                 DictionarySegmentationParser dictionarySegmentationParser = DictionarySegmentationParser.getInstance();
-                nb = dictionarySegmentationParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = dictionarySegmentationParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_ANNOTATED_TRAINING_DICTIONARY_SEGMENTATION)) {
                 DictionarySegmentationParser dictionarySegmentationParser = DictionarySegmentationParser.getInstance();
-                nb = dictionarySegmentationParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = dictionarySegmentationParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_TRAINING_DICTIONARY_BODY_SEGMENTATION)) {
                 DictionaryBodySegmentationParser dictionaryBodySegmentationParser = DictionaryBodySegmentationParser.getInstance();
-                nb = dictionaryBodySegmentationParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = dictionaryBodySegmentationParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_ANNOTATED_TRAINING_DICTIONARY_BODY_SEGMENTATION)) {
                 DictionaryBodySegmentationParser dictionaryBodySegmentationParser = DictionaryBodySegmentationParser.getInstance();
-                nb = dictionaryBodySegmentationParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = dictionaryBodySegmentationParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_TRAINING_LEXICAL_ENTRY)) {
                 LexicalEntryParser lexicalEntryParser = LexicalEntryParser.getInstance();
-                nb = lexicalEntryParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = lexicalEntryParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_ANNOTATED_TRAINING_LEXICAL_ENTRY)) {
                 LexicalEntryParser lexicalEntryParser = LexicalEntryParser.getInstance();
-                nb = lexicalEntryParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = lexicalEntryParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_TRAINING_FORM)) {
                 FormParser formParser = FormParser.getInstance();
-                nb = formParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = formParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_ANNOTATED_TRAINING_FORM)) {
                 FormParser formParser = FormParser.getInstance();
-                nb = formParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = formParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_TRAINING_SENSE)) {
                 SenseParser senseParser = SenseParser.getInstance();
-                nb = senseParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = senseParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_ANNOTATED_TRAINING_SENSE)) {
                 SenseParser senseParser = SenseParser.getInstance();
-                nb = senseParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = senseParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_TRAINING_SUB_SENSE)) {
                 SubSenseParser subSenseParser = SubSenseParser.getInstance();
-                nb = subSenseParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = subSenseParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_ANNOTATED_TRAINING_SUB_SENSE)) {
                 SubSenseParser subSenseParser = SubSenseParser.getInstance();
-                nb = subSenseParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = subSenseParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_TRAINING_ETYMQUOTE)) {
                 EtymQuoteParser etymQuoteParser = EtymQuoteParser.getInstance();
-                nb = etymQuoteParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = etymQuoteParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_ANNOTATED_TRAINING_ETYMQUOTE)) {
                 EtymQuoteParser etymQuoteParser = EtymQuoteParser.getInstance();
-                nb = etymQuoteParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = etymQuoteParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_TRAINING_ETYM)) {
                 EtymParser etymParser = EtymParser.getInstance();
-                nb = etymParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = etymParser.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
             if (gbdArgs.getProcessMethodName().equals(CREATE_ANNOTATED_TRAINING_ETYM)) {
                 EtymParser etymParser = EtymParser.getInstance();
-                nb = etymParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output());
+                nb = etymParser.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
+                System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
+            }
+            if (gbdArgs.getProcessMethodName().equals(CREATE_TRAINING_ALL_LEVELS)) {
+                DictionaryTrainingDataGenerator trainingDataGenerator = DictionaryTrainingDataGenerator.getInstance();
+                nb = trainingDataGenerator.createTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
+                System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
+            }
+            if (gbdArgs.getProcessMethodName().equals(CREATE_ANNOTATED_TRAINING_ALL_LEVELS)) {
+                DictionaryTrainingDataGenerator trainingDataGenerator = DictionaryTrainingDataGenerator.getInstance();
+                nb = trainingDataGenerator.createAnnotatedTrainingBatch(gbdArgs.getPath2Input(), gbdArgs.getPath2Output(), getNbThreads(), gbdArgs.isRecursive());
+                System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
+            }
+            if (gbdArgs.getProcessMethodName().equals(PROCESS_DICTIONARY_SEGMENTATION)) {
+                nb = processBatch(DictionaryBatchProcessor.Level.DICTIONARY_SEGMENTATION);
+                System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
+            }
+            if (gbdArgs.getProcessMethodName().equals(PROCESS_DICTIONARY_BODY_SEGMENTATION)) {
+                nb = processBatch(DictionaryBatchProcessor.Level.DICTIONARY_BODY_SEGMENTATION);
+                System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
+            }
+            if (gbdArgs.getProcessMethodName().equals(PROCESS_LEXICAL_ENTRY)) {
+                nb = processBatch(DictionaryBatchProcessor.Level.LEXICAL_ENTRY);
+                System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
+            }
+            if (gbdArgs.getProcessMethodName().equals(PROCESS_FULL_DICTIONARY)) {
+                nb = processBatch(DictionaryBatchProcessor.Level.FULL_DICTIONARY);
                 System.out.println(nb + " files processed in " + (System.currentTimeMillis() - time) + " milliseconds");
             }
 
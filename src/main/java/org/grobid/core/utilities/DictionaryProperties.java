@@ -0,0 +1,170 @@
+package org.grobid.core.utilities;
+
+import java.io.File;
+
+/**
+ * Runtime settings specific to grobid-dictionaries. The values are read from system properties
+ * (e.g. -Dgrobid.dictionaries.cascade.parallelism=8) so they can be tuned without touching grobid-home.
+ * The sizes which are not given are derived from the container limits by DictionaryResources.
+ */
+public class DictionaryProperties {
+
+    // Number of lexical entries processed at the same time in the full dictionary cascade, 1 means sequential
+    public static final String CASCADE_PARALLELISM = "grobid.dictionaries.cascade.parallelism";
+
+    // Number of lexical entries labeled together, with one call of the tagger per model, 1 means one call per entry
+    public static final String CASCADE_BATCH_SIZE = "grobid.dictionaries.cascade.batchSize";
+
+    // Label with the text path (tagger output parsed again by TaggingTokenClusteror) instead of the label ids
+    public static final String TAGGING_TEXT_FALLBACK = "grobid.dictionaries.tagging.textFallback";
+
+    // Number of documents processed at the same time by the service
+    public static final String POOL_MAX_SIZE = "grobid.dictionaries.pool.maxSize";
+
+    // Number of requests allowed to wait for a free slot when all of them are busy
+    public static final String POOL_MAX_QUEUED = "grobid.dictionaries.pool.maxQueued";
+
+    // How long a request waits for a free slot before being answered with 503
+    public static final String POOL_MAX_WAIT_SECONDS = "grobid.dictionaries.pool.maxWaitSeconds";
+
+    // Where the results of the asynchronous jobs are kept
+    public static final String JOBS_DIRECTORY = "grobid.dictionaries.jobs.directory";
+
+    // How long the result of a finished job is kept
+    public static final String JOBS_TTL_MINUTES = "grobid.dictionaries.jobs.ttlMinutes";
+
+    // Number of jobs allowed to wait to be run, and how long a job waits for a free worker before it times out
+    public static final String JOBS_MAX_QUEUED = "grobid.dictionaries.jobs.maxQueued";
+    public static final String JOBS_MAX_WAIT_MINUTES = "grobid.dictionaries.jobs.maxWaitMinutes";
+
+    // Number of the pool workers kept for the jobs, the other ones are left to the synchronous requests
+    public static final String JOBS_WORKERS = "grobid.dictionaries.jobs.workers";
+
+    // Results cache: kill switch, size of the in-memory and on-disk tiers and location of the on-disk tier
+    public static final String CACHE_ENABLED = "grobid.dictionaries.cache.enabled";
+    public static final String CACHE_MEMORY_MB = "grobid.dictionaries.cache.memoryMb";
+    public static final String CACHE_DISK_MB = "grobid.dictionaries.cache.diskMb";
+    public static final String CACHE_DIRECTORY = "grobid.dictionaries.cache.directory";
+
+    // Number of pdfalto processes running at the same time
+    public static final String PDFALTO_MAX_PROCESSES = "grobid.dictionaries.pdfalto.maxProcesses";
+
+    // Documents with more tokens are rejected, no limit when not given
+    public static final String MAX_TOKENS_PER_DOCUMENT = "grobid.dictionaries.maxTokensPerDocument";
+
+    // Number of annotated files turned into training data at the same time by the trainers, 1 means sequential
+    public static final String TRAINING_PARALLELISM = "grobid.dictionaries.training.parallelism";
+
+    // Results of the first levels of the cascade kept on disk for the creation of the training data: switch (off by
+    // default) and location, never cleaned automatically
+    public static final String ARTIFACTS_ENABLED = "grobid.dictionaries.artifacts.enabled";
+    public static final String ARTIFACTS_DIRECTORY = "grobid.dictionaries.artifacts.directory";
+
+    // Estimates used to derive the sizes above from the container limits
+    public static final String DOCUMENT_HEAP_MB = "grobid.dictionaries.resources.documentHeapMb";
+    public static final String BYTES_PER_TOKEN = "grobid.dictionaries.resources.bytesPerToken";
+    public static final String PDFALTO_MEMORY_MB = "grobid.dictionaries.resources.pdfaltoMemoryMb";
+
+    public static int getCascadeParallelism() {
+        return getPositiveInteger(CASCADE_PARALLELISM, DictionaryResources.getInstance().getPlan().getCascadeWorkers());
+    }
+
+    public static int getCascadeBatchSize() {
+        return getPositiveInteger(CASCADE_BATCH_SIZE, 64);
+    }
+
+    public static boolean isTaggingTextFallback() {
+        return Boolean.getBoolean(TAGGING_TEXT_FALLBACK);
+    }
+
+    public static int getPoolMaxSize() {
+        return getPositiveInteger(POOL_MAX_SIZE, DictionaryResources.getInstance().getPlan().getDocumentWorkers());
+    }
+
+    public static int getPoolMaxQueued() {
+        return getPositiveInteger(POOL_MAX_QUEUED, 2 * getPoolMaxSize());
+    }
+
+    public static int getPoolMaxWaitSeconds() {
+        return getPositiveInteger(POOL_MAX_WAIT_SECONDS, 30);
+    }
+
+    public static File getJobsDirectory() {
+        return new File(System.getProperty(JOBS_DIRECTORY,
+                System.getProperty("java.io.tmpdir") + File.separator + "grobid-dictionaries-jobs"));
+    }
+
+    public static int getJobsTtlMinutes() {
+        return getPositiveInteger(JOBS_TTL_MINUTES, 60);
+    }
+
+    public static int getJobsMaxQueued() {
+        return getPositiveInteger(JOBS_MAX_QUEUED, 100);
+    }
+
+    public static int getJobsMaxWaitMinutes() {
+        return getPositiveInteger(JOBS_MAX_WAIT_MINUTES, 30);
+    }
+
+    public static int getJobsWorkers() {
+        return getPositiveInteger(JOBS_WORKERS, Math.max(1, getPoolMaxSize() / 2));
+    }
+
+    public static boolean isCacheEnabled() {
+        return Boolean.parseBoolean(System.getProperty(CACHE_ENABLED, "true"));
+    }
+
+    public static int getCacheMemoryMb() {
+        return getPositiveInteger(CACHE_MEMORY_MB, 64);
+    }
+
+    public static int getCacheDiskMb() {
+        return getPositiveInteger(CACHE_DISK_MB, 1024);
+    }
+
+    public static File getCacheDirectory() {
+        return new File(System.getProperty(CACHE_DIRECTORY,
+                System.getProperty("java.io.tmpdir") + File.separator + "grobid-dictionaries-cache"));
+    }
+
+    public static int getPdfaltoMaxProcesses() {
+        return getPositiveInteger(PDFALTO_MAX_PROCESSES, DictionaryResources.getInstance().getPlan().getPdfaltoProcesses());
+    }
+
+    public static int getMaxTokensPerDocument() {
+        return getPositiveInteger(MAX_TOKENS_PER_DOCUMENT, Integer.MAX_VALUE);
+    }
+
+    public static int getTrainingParallelism() {
+        return getPositiveInteger(TRAINING_PARALLELISM, DictionaryResources.getInstance().getPlan().getCpuLimit());
+    }
+
+    public static boolean isArtifactsEnabled() {
+        return Boolean.getBoolean(ARTIFACTS_ENABLED);
+    }
+
+    public static File getArtifactsDirectory() {
+        return new File(System.getProperty(ARTIFACTS_DIRECTORY,
+                System.getProperty("java.io.tmpdir") + File.separator + "grobid-dictionaries-artifacts"));
+    }
+
+    public static int getDocumentHeapMb() {
+        return getPositiveInteger(DOCUMENT_HEAP_MB, 512);
+    }
+
+    public static int getBytesPerToken() {
+        return getPositiveInteger(BYTES_PER_TOKEN, 2048);
+    }
+
+    public static int getPdfaltoMemoryMb() {
+        return getPositiveInteger(PDFALTO_MEMORY_MB, 512);
+    }
+
+    protected static int getPositiveInteger(String key, int defaultValue) {
+        Integer value = Integer.getInteger(key);
+        if (value == null || value < 1) {
+            return defaultValue;
+        }
+        return value;
+    }
+}
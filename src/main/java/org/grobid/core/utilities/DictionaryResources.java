@@ -0,0 +1,302 @@
+package org.grobid.core.utilities;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sizing of the processing resources from the limits of the container the JVM runs in. The CPU quota and the memory
+ * limit are read from the cgroup (v2, or v1 as a fallback) and, when there is no limit, from the JVM and the host.
+ * From them are derived the number of documents processed at the same time, the number of cascade workers, the
+ * number of concurrent pdfalto processes, and an estimate of the maximum number of tokens of a document (reported
+ * only, the limit is applied when it is given). The limits are read again every minute, so that a resized container
+ * gets new values without a restart.
+ *
+ * The values given explicitly as system properties (see DictionaryProperties) always take precedence.
+ */
+public class DictionaryResources {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryResources.class);
+    private static volatile DictionaryResources instance;
+
+    static final long UNLIMITED = -1;
+
+    // cgroup v1 reports "no limit" as a huge page aligned number
+    private static final long CGROUP_V1_UNLIMITED = Long.MAX_VALUE / 2;
+
+    // Memory kept for the JVM itself (metaspace, threads, direct buffers) on top of the heap
+    private static final long JVM_OVERHEAD_BYTES = 256L * 1024 * 1024;
+
+    // Part of the heap that the documents being processed are allowed to use
+    private static final double DOCUMENTS_HEAP_RATIO = 0.75;
+
+    private final Path cgroupRoot;
+    private final long maxHeapBytes;
+    private volatile Plan plan;
+    private int runningPdfalto;
+
+    public static DictionaryResources getInstance() {
+        if (instance == null) {
+            getNewInstance();
+        }
+        return instance;
+    }
+
+    private static synchronized void getNewInstance() {
+        if (instance == null) {
+            instance = new DictionaryResources(Paths.get("/sys/fs/cgroup"), Runtime.getRuntime().maxMemory());
+
+            ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("dictionary-resources").build());
+            refresher.scheduleWithFixedDelay(instance::refresh, 1, 1, TimeUnit.MINUTES);
+        }
+    }
+
+    DictionaryResources(Path cgroupRoot, long maxHeapBytes) {
+        this.cgroupRoot = cgroupRoot;
+        this.maxHeapBytes = maxHeapBytes;
+        this.plan = computePlan();
+        LOGGER.info("Resource plan: " + plan);
+    }
+
+    public Plan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Read the container limits again, and derive new values if they changed
+     */
+    public void refresh() {
+        Plan newPlan = computePlan();
+        if (!newPlan.equals(plan)) {
+            LOGGER.info("The container limits changed, new resource plan: " + newPlan);
+            synchronized (this) {
+                plan = newPlan;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Wait until a pdfalto process can be started
+     */
+    public synchronized void acquirePdfalto() throws InterruptedException {
+        while (runningPdfalto >= DictionaryProperties.getPdfaltoMaxProcesses()) {
+            wait();
+        }
+        runningPdfalto++;
+    }
+
+    public synchronized void releasePdfalto() {
+        runningPdfalto--;
+        notifyAll();
+    }
+
+    /**
+     * Current limits, derived values and what is left of them, for the metrics endpoint
+     */
+    public Map<String, Object> getStatistics() {
+        Plan current = plan;
+        Runtime runtime = Runtime.getRuntime();
+        long usedHeapBytes = runtime.totalMemory() - runtime.freeMemory();
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("cpuLimit", current.cpuLimit);
+        statistics.put("memoryLimitBytes", current.memoryLimitBytes);
+        statistics.put("maxHeapBytes", maxHeapBytes);
+        statistics.put("documentWorkers", DictionaryProperties.getPoolMaxSize());
+        statistics.put("cascadeWorkers", DictionaryProperties.getCascadeParallelism());
+        statistics.put("pdfaltoProcesses", DictionaryProperties.getPdfaltoMaxProcesses());
+        synchronized (this) {
+            statistics.put("pdfaltoRunning", runningPdfalto);
+        }
+        statistics.put("maxTokensPerDocument", DictionaryProperties.getMaxTokensPerDocument());
+        statistics.put("estimatedMaxTokensPerDocument", current.maxTokensPerDocument);
+        statistics.put("heapHeadroomBytes", maxHeapBytes - usedHeapBytes);
+        long memoryUsage = readMemoryUsage();
+        if (current.memoryLimitBytes != UNLIMITED && memoryUsage != UNLIMITED) {
+            statistics.put("memoryHeadroomBytes", current.memoryLimitBytes - memoryUsage);
+        }
+
+        return statistics;
+    }
+
+    private Plan computePlan() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        double cpuQuota = readCpuQuota();
+        int cpuLimit = cpuQuota == UNLIMITED ? processors : (int) Math.max(1, Math.min(processors, Math.ceil(cpuQuota)));
+
+        long memoryLimitBytes = readMemoryLimit();
+
+        // the heap sets how many documents fit at the same time, and how big each of them can be
+        long documentsHeapBytes = (long) (maxHeapBytes * DOCUMENTS_HEAP_RATIO);
+        long documentHeapBytes = DictionaryProperties.getDocumentHeapMb() * 1024L * 1024L;
+        int documentWorkers = (int) Math.max(1, Math.min(cpuLimit, documentsHeapBytes / documentHeapBytes));
+        int maxTokensPerDocument = (int) Math.max(1,
+                Math.min(Integer.MAX_VALUE, documentsHeapBytes / documentWorkers / DictionaryProperties.getBytesPerToken()));
+
+        // pdfalto runs outside of the JVM, it uses what the container has left next to the heap
+        int pdfaltoProcesses = cpuLimit;
+        if (memoryLimitBytes != UNLIMITED) {
+            long nativeBytes = memoryLimitBytes - maxHeapBytes - JVM_OVERHEAD_BYTES;
+            long pdfaltoBytes = DictionaryProperties.getPdfaltoMemoryMb() * 1024L * 1024L;
+            pdfaltoProcesses = (int) Math.max(1, Math.min(cpuLimit, nativeBytes / pdfaltoBytes));
+        }
+
+        return new Plan(cpuLimit, memoryLimitBytes, documentWorkers, cpuLimit, pdfaltoProcesses, maxTokensPerDocument);
+    }
+
+    /**
+     * Number of CPUs allowed by the CFS quota, UNLIMITED when there is none
+     */
+    double readCpuQuota() {
+        // cgroup v2: "<quota> <period>" or "max <period>"
+        List<String> cpuMax = readLines(cgroupRoot.resolve("cpu.max"));
+        if (cpuMax != null && !cpuMax.isEmpty()) {
+            String[] values = cpuMax.get(0).trim().split("\\s+");
+            if (values.length == 2 && !"max".equals(values[0])) {
+                return Double.parseDouble(values[0]) / Double.parseDouble(values[1]);
+            }
+            return UNLIMITED;
+        }
+
+        // cgroup v1: the quota is -1 when there is none
+        long quota = readLong(cgroupRoot.resolve("cpu").resolve("cpu.cfs_quota_us"));
+        long period = readLong(cgroupRoot.resolve("cpu").resolve("cpu.cfs_period_us"));
+        if (quota > 0 && period > 0) {
+            return (double) quota / period;
+        }
+        return UNLIMITED;
+    }
+
+    /**
+     * Memory limit of the container in bytes, UNLIMITED when there is none
+     */
+    long readMemoryLimit() {
+        List<String> memoryMax = readLines(cgroupRoot.resolve("memory.max"));
+        if (memoryMax != null && !memoryMax.isEmpty()) {
+            String value = memoryMax.get(0).trim();
+            return "max".equals(value) ? UNLIMITED : Long.parseLong(value);
+        }
+
+        long limit = readLong(cgroupRoot.resolve("memory").resolve("memory.limit_in_bytes"));
+        if (limit > 0 && limit < CGROUP_V1_UNLIMITED) {
+            return limit;
+        }
+        return UNLIMITED;
+    }
+
+    long readMemoryUsage() {
+        long usage = readLong(cgroupRoot.resolve("memory.current"));
+        if (usage == UNLIMITED) {
+            usage = readLong(cgroupRoot.resolve("memory").resolve("memory.usage_in_bytes"));
+        }
+        return usage;
+    }
+
+    private static long readLong(Path file) {
+        List<String> lines = readLines(file);
+        if (lines == null || lines.isEmpty()) {
+            return UNLIMITED;
+        }
+        try {
+            return Long.parseLong(lines.get(0).trim());
+        } catch (NumberFormatException e) {
+            return UNLIMITED;
+        }
+    }
+
+    private static List<String> readLines(Path file) {
+        if (!Files.isReadable(file)) {
+            return null;
+        }
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Values derived from the container limits, before the system properties are applied
+     */
+    public static class Plan {
+        private final int cpuLimit;
+        private final long memoryLimitBytes;
+        private final int documentWorkers;
+        private final int cascadeWorkers;
+        private final int pdfaltoProcesses;
+        private final int maxTokensPerDocument;
+
+        Plan(int cpuLimit, long memoryLimitBytes, int documentWorkers, int cascadeWorkers,
+             int pdfaltoProcesses, int maxTokensPerDocument) {
+            this.cpuLimit = cpuLimit;
+            this.memoryLimitBytes = memoryLimitBytes;
+            this.documentWorkers = documentWorkers;
+            this.cascadeWorkers = cascadeWorkers;
+            this.pdfaltoProcesses = pdfaltoProcesses;
+            this.maxTokensPerDocument = maxTokensPerDocument;
+        }
+
+        public int getCpuLimit() {
+            return cpuLimit;
+        }
+
+        public long getMemoryLimitBytes() {
+            return memoryLimitBytes;
+        }
+
+        public int getDocumentWorkers() {
+            return documentWorkers;
+        }
+
+        public int getCascadeWorkers() {
+            return cascadeWorkers;
+        }
+
+        public int getPdfaltoProcesses() {
+            return pdfaltoProcesses;
+        }
+
+        public int getMaxTokensPerDocument() {
+            return maxTokensPerDocument;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Plan)) {
+                return false;
+            }
+            Plan other = (Plan) o;
+            return cpuLimit == other.cpuLimit && memoryLimitBytes == other.memoryLimitBytes
+                    && documentWorkers == other.documentWorkers && cascadeWorkers == other.cascadeWorkers
+                    && pdfaltoProcesses == other.pdfaltoProcesses && maxTokensPerDocument == other.maxTokensPerDocument;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cpuLimit, memoryLimitBytes, documentWorkers, cascadeWorkers,
+                    pdfaltoProcesses, maxTokensPerDocument);
+        }
+
+        @Override
+        public String toString() {
+            return cpuLimit + " CPUs, " + (memoryLimitBytes == UNLIMITED ? "no memory limit" : memoryLimitBytes + " bytes of memory")
+                    + ", " + documentWorkers + " document workers, " + cascadeWorkers + " cascade workers, "
+                    + pdfaltoProcesses + " pdfalto processes, " + maxTokensPerDocument + " tokens per document";
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.grobid.core.utilities;
+
+/**
+ * Map from long keys to int values without boxing: open addressing with linear probing in two parallel arrays,
+ * resized when more than half full. Absent keys are read with a default value, there is no removal.
+ */
+public class LongIntHashMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    // 0 marks a free slot, the value of the key 0 is kept aside
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2 * expectedSize) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    public LongIntHashMap(LongIntHashMap other) {
+        keys = other.keys.clone();
+        values = other.values.clone();
+        size = other.size;
+        hasZeroKey = other.hasZeroKey;
+        zeroValue = other.zeroValue;
+    }
+
+    public int get(long key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : keys[slot(key)] == key;
+    }
+
+    public void put(long key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            size++;
+            values[slot] = value;
+            if (2 * size > keys.length) {
+                resize();
+            }
+            return;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Add the increment to the value of the key, 0 when absent
+     *
+     * @return the new value
+     */
+    public int addTo(long key, int increment) {
+        int value = get(key, 0) + increment;
+        put(key, value);
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // slot of the key, or the free slot where it would be inserted
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.grobid.service;
+
+import org.grobid.core.engines.DictionaryProgress;
+
+import java.io.File;
+
+/**
+ * A document submitted to the asynchronous job API, with its status and progress.
+ * The public getters are the JSON representation returned by the status endpoint.
+ */
+public class DictionaryJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED, TIMED_OUT
+    }
+
+    private final String id;
+    private final String modelToRun;
+    private final File resultFile;
+    private final DictionaryProgress progress = new DictionaryProgress();
+    private final long submittedAt = System.currentTimeMillis();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String error;
+    private volatile long finishedAt;
+
+    public DictionaryJob(String id, String modelToRun, File resultFile) {
+        this.id = id;
+        this.modelToRun = modelToRun;
+        this.resultFile = resultFile;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getModelToRun() {
+        return modelToRun;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public int getTotalPages() {
+        return progress.getTotalPages();
+    }
+
+    public int getProcessedPages() {
+        return progress.getProcessedPages();
+    }
+
+    public int getTotalEntries() {
+        return progress.getTotalEntries();
+    }
+
+    public int getProcessedEntries() {
+        return progress.getProcessedEntries();
+    }
+
+    DictionaryProgress progress() {
+        return progress;
+    }
+
+    File resultFile() {
+        return resultFile;
+    }
+
+    boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED || status == Status.TIMED_OUT;
+    }
+
+    void running() {
+        status = Status.RUNNING;
+    }
+
+    void done() {
+        finishedAt = System.currentTimeMillis();
+        status = Status.DONE;
+    }
+
+    void failed(String message) {
+        error = message;
+        finishedAt = System.currentTimeMillis();
+        status = Status.FAILED;
+    }
+
+    void timedOut(String message) {
+        error = message;
+        finishedAt = System.currentTimeMillis();
+        status = Status.TIMED_OUT;
+    }
+}
@@ -0,0 +1,177 @@
+package org.grobid.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.io.FileUtils;
+import org.grobid.core.engines.DictionaryBodySegmentationParser;
+import org.grobid.core.engines.DictionaryParserSet;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.factory.DictionaryPoolingFactory;
+import org.grobid.core.utilities.DictionaryProperties;
+import org.grobid.core.utilities.IOUtilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the asynchronous jobs in-process: the jobs wait in the executor queue, run through the cascade with a worker
+ * of the DictionaryPoolingFactory and write their TEI result in the jobs directory. The finished jobs and their
+ * results are removed after grobid.dictionaries.jobs.ttlMinutes.
+ *
+ * At most grobid.dictionaries.jobs.workers jobs run at the same time, on the workers of the pool kept for them, at
+ * most grobid.dictionaries.jobs.maxQueued jobs wait in the queue, the next ones are rejected, and a job which gets
+ * no worker within grobid.dictionaries.jobs.maxWaitMinutes ends as TIMED_OUT.
+ */
+public class DictionaryJobManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryJobManager.class);
+    private static volatile DictionaryJobManager instance;
+
+    private static final String RESULT_EXTENSION = ".tei.xml";
+
+    private final Map<String, DictionaryJob> jobs = new ConcurrentHashMap<>();
+    private final File jobsDirectory;
+    private final long ttlMillis;
+    private final long maxWaitMillis;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService cleaner;
+
+    public static DictionaryJobManager getInstance() {
+        if (instance == null) {
+            getNewInstance();
+        }
+        return instance;
+    }
+
+    private static synchronized void getNewInstance() {
+        if (instance == null) {
+            instance = new DictionaryJobManager();
+        }
+    }
+
+    private DictionaryJobManager() {
+        jobsDirectory = DictionaryProperties.getJobsDirectory();
+        if (!jobsDirectory.exists() && !jobsDirectory.mkdirs()) {
+            throw new GrobidException("Cannot create the jobs directory " + jobsDirectory.getAbsolutePath());
+        }
+        ttlMillis = TimeUnit.MINUTES.toMillis(DictionaryProperties.getJobsTtlMinutes());
+
+        maxWaitMillis = TimeUnit.MINUTES.toMillis(DictionaryProperties.getJobsMaxWaitMinutes());
+
+        int nbThreads = DictionaryProperties.getJobsWorkers();
+        executor = new ThreadPoolExecutor(nbThreads, nbThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(DictionaryProperties.getJobsMaxQueued()),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("dictionary-job-%d").build());
+        cleaner = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("dictionary-job-cleaner").build());
+        // the first run also removes the results left by the jobs of a previous run of the service
+        cleaner.scheduleWithFixedDelay(this::removeExpiredJobs, 0, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Queue the processing of a PDF already written on disk, the file is removed once the job is finished.
+     *
+     * @throws RejectedExecutionException when grobid.dictionaries.jobs.maxQueued jobs are already waiting, the file
+     *                                    is then left to the caller
+     */
+    public DictionaryJob submit(final File originFile, String modelToRun) {
+        String id = UUID.randomUUID().toString();
+        final DictionaryJob job = new DictionaryJob(id, modelToRun, new File(jobsDirectory, id + RESULT_EXTENSION));
+        jobs.put(id, job);
+        try {
+            executor.execute(() -> run(job, originFile));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            throw e;
+        }
+
+        return job;
+    }
+
+    public DictionaryJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public File getResultFile(DictionaryJob job) {
+        return job.resultFile();
+    }
+
+    private void run(DictionaryJob job, File originFile) {
+        DictionaryParserSet parsers = null;
+        try {
+            parsers = borrowParsers();
+            if (parsers == null) {
+                LOGGER.warn("The job " + job.getId() + " got no cascade worker in time.");
+                job.timedOut("No cascade worker got free within " + DictionaryProperties.getJobsMaxWaitMinutes()
+                        + " minutes, the job can be submitted again.");
+                return;
+            }
+            job.running();
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(job.resultFile()), StandardCharsets.UTF_8))) {
+                DictionaryBodySegmentationParser.getInstance()
+                        .processToTEI(originFile, job.getModelToRun(), parsers, job.progress(), writer);
+            }
+            job.done();
+        } catch (Throwable e) {
+            LOGGER.error("The job " + job.getId() + " failed. ", e);
+            job.failed(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        } finally {
+            if (parsers != null) {
+                DictionaryPoolingFactory.returnJobParsers(parsers);
+            }
+            IOUtilities.removeTempFile(originFile);
+        }
+    }
+
+    /**
+     * A job waits longer than a synchronous request, it keeps its place until a worker of the jobs is returned or
+     * grobid.dictionaries.jobs.maxWaitMinutes have passed.
+     *
+     * @return null when no worker got free in time
+     */
+    private DictionaryParserSet borrowParsers() throws InterruptedException {
+        return DictionaryPoolingFactory.getParsersForJob(maxWaitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void removeExpiredJobs() {
+        long now = System.currentTimeMillis();
+        Iterator<DictionaryJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            DictionaryJob job = iterator.next();
+            if (job.isFinished() && now - job.getFinishedAt() > ttlMillis) {
+                iterator.remove();
+                FileUtils.deleteQuietly(job.resultFile());
+                LOGGER.debug("The job " + job.getId() + " expired.");
+            }
+        }
+
+        // results of jobs this service doesn't know, e.g. from before a restart
+        File[] resultFiles = jobsDirectory.listFiles((dir, name) -> name.endsWith(RESULT_EXTENSION));
+        if (resultFiles == null) {
+            return;
+        }
+        for (File resultFile : resultFiles) {
+            String id = resultFile.getName().substring(0, resultFile.getName().length() - RESULT_EXTENSION.length());
+            if (!jobs.containsKey(id) && now - resultFile.lastModified() > ttlMillis) {
+                FileUtils.deleteQuietly(resultFile);
+                LOGGER.debug("The result of the unknown job " + id + " expired.");
+            }
+        }
+    }
+}
@@ -29,4 +29,14 @@ public interface DictionaryPaths {
 
     public static final String PATH_FULL_DICTIONARY = "processFullDictionary";
 //    public static final String PATH_FULL_DICTIONARY_OPTIMISED = "processFullDictionaryOptimised";
+
+    /**
+     * path extension for the asynchronous jobs.
+     */
+    public static final String PATH_JOBS = "jobs";
+
+    /**
+     * path extension for the service metrics.
+     */
+    public static final String PATH_METRICS = "metrics";
 }
@@ -1,23 +1,54 @@
 package org.grobid.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.grobid.core.engines.*;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.exceptions.GrobidExceptionStatus;
+import org.grobid.core.factory.DictionaryPoolingFactory;
+import org.grobid.core.utilities.DictionaryProperties;
+import org.grobid.core.utilities.DictionaryResources;
 import org.grobid.core.utilities.IOUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.grobid.service.DictionaryPaths.PATH_FULL_DICTIONARY;
 import static org.grobid.service.DictionaryPaths.PATH_LEXICAL_ENTRY;
+import static org.grobid.service.DictionaryPaths.PROCESS_DICTIONARY_SEGMENTATION;
 
 /**
  * Created by med on 29.07.16.
  */
 public class DictionaryProcessFile {
     private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryProcessFile.class);
+    private static final String RETRY_AFTER = "Retry-After";
+    private static final int REQUEST_ENTITY_TOO_LARGE = 413;
+    private static final ObjectMapper jsonMapper = new ObjectMapper();
+
+    private static final ScheduledExecutorService streamReleaser = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("dictionary-stream-releaser").build());
+
     public static Response processDictionarySegmentation(final InputStream inputStream) {
         LOGGER.debug(methodLogIn());
         Response response = null;
@@ -25,6 +56,7 @@ public class DictionaryProcessFile {
         // Does GrobidServiceProperties need to be imported or use properties as in DictionaryRestService class?
 //        boolean isparallelExec = GrobidServiceProperties.isParallelExec();
         File originFile = null;
+        DictionaryParserSet parsers = null;
         Engine engine = null;
 
          /*
@@ -40,19 +72,28 @@ public class DictionaryProcessFile {
             if (originFile == null) {
                 response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
             } else {
-                // starts conversion process - single thread! :)
-                DictionarySegmentationParser dictionarySegmentationParser = new DictionarySegmentationParser();
-
-                response = Response.ok(dictionarySegmentationParser.processToTEI(originFile)).build();
+                String cacheKey = getResultCacheKey(originFile, PROCESS_DICTIONARY_SEGMENTATION);
+                String tei = getCachedResult(cacheKey);
+                if (tei == null) {
+                    parsers = DictionaryPoolingFactory.getParsersFromPool();
+                    DictionarySegmentationParser dictionarySegmentationParser = parsers.getDictionarySegmentationParser();
+
+                    tei = dictionarySegmentationParser.processToTEI(originFile);
+                    cacheResult(cacheKey, tei);
+                }
+                response = Response.ok(tei).build();
             }
         } catch (NoSuchElementException nseExp) {
             LOGGER.error("Could not get an engine from the pool within configured time. Sending service unavailable.", nseExp);
-            response = Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+            response = Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(RETRY_AFTER, DictionaryPoolingFactory.getRetryAfterSeconds())
+                    .build();
         } catch (Exception e) {
-            LOGGER.error("An unexpected exception occurs. ", e);
-            String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
-            response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(message).build();
+            response = errorResponse(e);
         } finally {
+            if (parsers != null) {
+                DictionaryPoolingFactory.returnParsers(parsers);
+            }
             IOUtilities.removeTempFile(originFile);
         }
         LOGGER.debug(methodLogOut());
@@ -66,6 +107,7 @@ public class DictionaryProcessFile {
         // Does GrobidServiceProperties need to be imported or use properties as in DictionaryRestService class?
 //        boolean isparallelExec = GrobidServiceProperties.isParallelExec();
         File originFile = null;
+        DictionaryParserSet parsers = null;
         Engine engine = null;
 
          /*
@@ -81,19 +123,29 @@ public class DictionaryProcessFile {
             if (originFile == null) {
                 response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
             } else {
-                // starts conversion process - single thread! :)
-                DictionaryBodySegmentationParser dictionaryBodySegmentationParser = new DictionaryBodySegmentationParser();
-
-                response = Response.ok(dictionaryBodySegmentationParser.processToTEI(originFile, modelToRun)).build();
+                // the parser keeps no per document state, so the same instance serves all the requests
+                DictionaryBodySegmentationParser dictionaryBodySegmentationParser = DictionaryBodySegmentationParser.getInstance();
+
+                String cacheKey = getResultCacheKey(originFile, modelToRun);
+                String tei = getCachedResult(cacheKey);
+                if (tei == null) {
+                    parsers = DictionaryPoolingFactory.getParsersFromPool();
+                    tei = dictionaryBodySegmentationParser.processToTEI(originFile, modelToRun, parsers);
+                    cacheResult(cacheKey, tei);
+                }
+                response = Response.ok(tei).build();
             }
         } catch (NoSuchElementException nseExp) {
             LOGGER.error("Could not get an engine from the pool within configured time. Sending service unavailable.", nseExp);
-            response = Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+            response = Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(RETRY_AFTER, DictionaryPoolingFactory.getRetryAfterSeconds())
+                    .build();
         } catch (Exception e) {
-            LOGGER.error("An unexpected exception occurs. ", e);
-            String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
-            response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(message).build();
+            response = errorResponse(e);
         } finally {
+            if (parsers != null) {
+                DictionaryPoolingFactory.returnParsers(parsers);
+            }
             IOUtilities.removeTempFile(originFile);
         }
         LOGGER.debug(methodLogOut());
@@ -113,6 +165,7 @@ public class DictionaryProcessFile {
         LOGGER.debug(methodLogIn());
         Response response = null;
         File originFile = null;
+        DictionaryParserSet parsers = null;
 
         try {
             LOGGER.debug(">> set raw text for stateless quantity service'...");
@@ -124,22 +177,31 @@ public class DictionaryProcessFile {
             if (originFile == null) {
                 response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
             } else {
-                // starts conversion process - single thread! :)
 //                LexicalEntryParser lexEntryParser = new LexicalEntryParser();
 //
 //                response = Response.ok(lexEntryParser.processToTei(originFile, modelToRun)).build();
-                DictionaryBodySegmentationParser dictionaryBodySegmentationParser = new DictionaryBodySegmentationParser();
-
-                response = Response.ok(dictionaryBodySegmentationParser.processToTEI(originFile, modelToRun)).build();
+                DictionaryBodySegmentationParser dictionaryBodySegmentationParser = DictionaryBodySegmentationParser.getInstance();
+
+                String cacheKey = getResultCacheKey(originFile, modelToRun);
+                String tei = getCachedResult(cacheKey);
+                if (tei == null) {
+                    parsers = DictionaryPoolingFactory.getParsersFromPool();
+                    tei = dictionaryBodySegmentationParser.processToTEI(originFile, modelToRun, parsers);
+                    cacheResult(cacheKey, tei);
+                }
+                response = Response.ok(tei).build();
             }
         } catch (NoSuchElementException nseExp) {
             LOGGER.error("Could not get an engine from the pool within configured time. Sending service unavailable.", nseExp);
-            response = Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+            response = Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(RETRY_AFTER, DictionaryPoolingFactory.getRetryAfterSeconds())
+                    .build();
         } catch (Exception e) {
-            LOGGER.error("An unexpected exception occurs. ", e);
-            String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
-            response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(message).build();
+            response = errorResponse(e);
         } finally {
+            if (parsers != null) {
+                DictionaryPoolingFactory.returnParsers(parsers);
+            }
             IOUtilities.removeTempFile(originFile);
         }
         LOGGER.debug(methodLogOut());
@@ -150,6 +212,7 @@ public class DictionaryProcessFile {
         LOGGER.debug(methodLogIn());
         Response response = null;
         File originFile = null;
+        DictionaryParserSet parsers = null;
 
         try {
             LOGGER.debug(">> set raw text for stateless quantity service'...");
@@ -161,18 +224,29 @@ public class DictionaryProcessFile {
             if (originFile == null) {
                 response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
             } else {
-                // starts conversion process - single thread! :)
-                DictionaryBodySegmentationParser dictionaryBodySegmentationParser = new DictionaryBodySegmentationParser();
-
-                response = Response.ok(dictionaryBodySegmentationParser.processToTEI(originFile, modelToRun)).build();
+                // the parser keeps no per document state, so the same instance serves all the requests
+                DictionaryBodySegmentationParser dictionaryBodySegmentationParser = DictionaryBodySegmentationParser.getInstance();
+
+                String cacheKey = getResultCacheKey(originFile, modelToRun);
+                String tei = getCachedResult(cacheKey);
+                if (tei == null) {
+                    parsers = DictionaryPoolingFactory.getParsersFromPool();
+                    tei = dictionaryBodySegmentationParser.processToTEI(originFile, modelToRun, parsers);
+                    cacheResult(cacheKey, tei);
+                }
+                response = Response.ok(tei).build();
             }
         } catch (NoSuchElementException nseExp) {
             LOGGER.error("Could not get an engine from the pool within configured time. Sending service unavailable.", nseExp);
-            response = Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+            response = Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(RETRY_AFTER, DictionaryPoolingFactory.getRetryAfterSeconds())
+                    .build();
         } catch (Exception e) {
-            LOGGER.error("An unexpected exception occurs. ", e);
-            response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getCause().getMessage()).build();
+            response = errorResponse(e);
         } finally {
+            if (parsers != null) {
+                DictionaryPoolingFactory.returnParsers(parsers);
+            }
             IOUtilities.removeTempFile(originFile);
         }
         LOGGER.debug(methodLogOut());
@@ -183,6 +257,7 @@ public class DictionaryProcessFile {
         LOGGER.debug(methodLogIn());
         Response response = null;
         File originFile = null;
+        DictionaryParserSet parsers = null;
 
         try {
             LOGGER.debug(">> set raw text for stateless quantity service'...");
@@ -194,17 +269,168 @@ public class DictionaryProcessFile {
             if (originFile == null) {
                 response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
             } else {
-                // starts conversion process - single thread! :)
-                DictionaryBodySegmentationParser dictionaryBodySegmentationParser = new DictionaryBodySegmentationParser();
+                // the parser keeps no per document state, so the same instance serves all the requests
+                DictionaryBodySegmentationParser dictionaryBodySegmentationParser = DictionaryBodySegmentationParser.getInstance();
+
+                String cacheKey = getResultCacheKey(originFile, modelToRun);
+                String tei = getCachedResult(cacheKey);
+                if (tei == null) {
+                    parsers = DictionaryPoolingFactory.getParsersFromPool();
+                    tei = dictionaryBodySegmentationParser.processToTEI(originFile, modelToRun, parsers);
+                    cacheResult(cacheKey, tei);
+                }
+                response = Response.ok(tei).build();
+            }
+        } catch (NoSuchElementException nseExp) {
+            LOGGER.error("Could not get an engine from the pool within configured time. Sending service unavailable.", nseExp);
+            response = Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(RETRY_AFTER, DictionaryPoolingFactory.getRetryAfterSeconds())
+                    .build();
+        } catch (Exception e) {
+            response = errorResponse(e);
+        } finally {
+            if (parsers != null) {
+                DictionaryPoolingFactory.returnParsers(parsers);
+            }
+            IOUtilities.removeTempFile(originFile);
+        }
+        LOGGER.debug(methodLogOut());
+        return response;
+    }
+
+    /**
+     * Same as processDictionaryBodySegmentation, processLexicalEntries and processFullDictionary, but the TEI is
+     * sent to the client while it's produced. The results sent this way are not added to the cache.
+     */
+    public static Response processStreaming(final InputStream inputStream, final String modelToRun) {
+        LOGGER.debug(methodLogIn());
+        Response response;
+        File originFile = null;
+        DictionaryParserSet parsers = null;
 
-                response = Response.ok(dictionaryBodySegmentationParser.processToTEI(originFile, modelToRun)).build();
+        try {
+            originFile = IOUtilities.writeInputFile(inputStream);
+
+            if (originFile == null) {
+                response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+            } else {
+                String tei = getCachedResult(getResultCacheKey(originFile, modelToRun));
+                if (tei != null) {
+                    response = Response.ok(tei).build();
+                } else {
+                    parsers = DictionaryPoolingFactory.getParsersFromPool();
+                    response = Response.ok(streamTEI(originFile, modelToRun, parsers)).build();
+
+                    // the streaming output releases the worker and the input file, see streamTEI
+                    originFile = null;
+                    parsers = null;
+                }
             }
         } catch (NoSuchElementException nseExp) {
             LOGGER.error("Could not get an engine from the pool within configured time. Sending service unavailable.", nseExp);
-            response = Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+            response = Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(RETRY_AFTER, DictionaryPoolingFactory.getRetryAfterSeconds())
+                    .build();
+        } catch (Exception e) {
+            response = errorResponse(e);
+        } finally {
+            if (parsers != null) {
+                DictionaryPoolingFactory.returnParsers(parsers);
+            }
+            IOUtilities.removeTempFile(originFile);
+        }
+        LOGGER.debug(methodLogOut());
+        return response;
+    }
+
+    private static StreamingOutput streamTEI(final File originFile, final String modelToRun, final DictionaryParserSet parsers) {
+        final StreamedTEI streamedTEI = new StreamedTEI(originFile, modelToRun, parsers);
+        // the container may drop the response without writing it (e.g. the request is aborted before its body is
+        // sent), the worker and the input file are then released after the same delay as a request waiting for a worker
+        streamReleaser.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (streamedTEI.release()) {
+                    LOGGER.warn("The streamed TEI of " + originFile.getName() + " was never written, its worker is released.");
+                }
+            }
+        }, DictionaryProperties.getPoolMaxWaitSeconds(), TimeUnit.SECONDS);
+        return streamedTEI;
+    }
+
+    /**
+     * TEI written to the client while it's produced. The worker and the input file are released exactly once, either
+     * once the TEI is written, or by release() if the writing has not started.
+     */
+    private static class StreamedTEI implements StreamingOutput {
+        private final File originFile;
+        private final String modelToRun;
+        private final DictionaryParserSet parsers;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        StreamedTEI(File originFile, String modelToRun, DictionaryParserSet parsers) {
+            this.originFile = originFile;
+            this.modelToRun = modelToRun;
+            this.parsers = parsers;
+        }
+
+        @Override
+        public void write(OutputStream output) throws IOException {
+            if (!claimed.compareAndSet(false, true)) {
+                throw new IOException("The streamed TEI of " + originFile.getName() + " expired before it was written.");
+            }
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                DictionaryBodySegmentationParser.getInstance()
+                        .processToTEI(originFile, modelToRun, parsers, new DictionaryProgress(), writer);
+                writer.flush();
+            } finally {
+                releaseResources();
+            }
+        }
+
+        /**
+         * @return true if the writing had not started, the worker and the input file being released now
+         */
+        boolean release() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            releaseResources();
+            return true;
+        }
+
+        private void releaseResources() {
+            DictionaryPoolingFactory.returnParsers(parsers);
+            IOUtilities.removeTempFile(originFile);
+        }
+    }
+
+    public static Response submitFullDictionaryJob(final InputStream inputStream, String modelToRun) {
+        LOGGER.debug(methodLogIn());
+        Response response;
+        File originFile = null;
+
+        try {
+            originFile = IOUtilities.writeInputFile(inputStream);
+
+            if (originFile == null) {
+                response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+            } else {
+                // the job takes care of the input file from now on
+                DictionaryJob job = DictionaryJobManager.getInstance().submit(originFile, modelToRun);
+                originFile = null;
+
+                response = Response.status(Response.Status.ACCEPTED).entity(jsonMapper.writeValueAsString(job)).build();
+            }
+        } catch (RejectedExecutionException e) {
+            LOGGER.error("Too many jobs waiting. Sending service unavailable.", e);
+            response = Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(RETRY_AFTER, DictionaryPoolingFactory.getRetryAfterSeconds())
+                    .build();
         } catch (Exception e) {
             LOGGER.error("An unexpected exception occurs. ", e);
-            response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getCause().getMessage()).build();
+            response = Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
         } finally {
             IOUtilities.removeTempFile(originFile);
         }
@@ -212,6 +438,96 @@ public class DictionaryProcessFile {
         return response;
     }
 
+    public static Response getJobStatus(String id) {
+        DictionaryJob job = DictionaryJobManager.getInstance().getJob(id);
+        if (job == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        try {
+            return Response.ok(jsonMapper.writeValueAsString(job)).build();
+        } catch (JsonProcessingException e) {
+            LOGGER.error("An unexpected exception occurs. ", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+        }
+    }
+
+    public static Response getJobResult(String id) {
+        DictionaryJob job = DictionaryJobManager.getInstance().getJob(id);
+        if (job == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        switch (job.getStatus()) {
+            case DONE:
+                return Response.ok(DictionaryJobManager.getInstance().getResultFile(job), MediaType.APPLICATION_XML).build();
+            case FAILED:
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(job.getError()).build();
+            case TIMED_OUT:
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header(RETRY_AFTER, DictionaryPoolingFactory.getRetryAfterSeconds())
+                        .entity(job.getError())
+                        .build();
+            default:
+                return Response.status(Response.Status.CONFLICT).entity("The job " + id + " is not finished yet").build();
+        }
+    }
+
+    public static Response getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("resources", DictionaryResources.getInstance().getStatistics());
+        metrics.put("workers", DictionaryPoolingFactory.getStatistics());
+        if (DictionaryResultCache.isEnabled()) {
+            metrics.put("resultCache", DictionaryResultCache.getInstance().getStatistics());
+        }
+
+        try {
+            return Response.ok(jsonMapper.writeValueAsString(metrics)).build();
+        } catch (JsonProcessingException e) {
+            LOGGER.error("An unexpected exception occurs. ", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+        }
+    }
+
+    /**
+     * 413 for the documents over the token budget, 500 for the rest
+     */
+    private static Response errorResponse(Exception e) {
+        LOGGER.error("An unexpected exception occurs. ", e);
+        String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof GrobidException
+                    && ((GrobidException) cause).getStatus() == GrobidExceptionStatus.TOO_MANY_TOKENS) {
+                return Response.status(REQUEST_ENTITY_TOO_LARGE).entity(cause.getMessage()).build();
+            }
+        }
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(message).build();
+    }
+
+    /**
+     * Key of the result in the cache, null when the cache is disabled
+     */
+    private static String getResultCacheKey(File originFile, String modelToRun) throws IOException {
+        if (!DictionaryResultCache.isEnabled()) {
+            return null;
+        }
+        return DictionaryResultCache.getInstance().key(originFile, modelToRun);
+    }
+
+    private static String getCachedResult(String cacheKey) {
+        if (cacheKey == null) {
+            return null;
+        }
+        return DictionaryResultCache.getInstance().get(cacheKey);
+    }
+
+    private static void cacheResult(String cacheKey, String tei) {
+        if (cacheKey != null) {
+            DictionaryResultCache.getInstance().put(cacheKey, tei);
+        }
+    }
+
     private static String methodLogIn() {
         return ">> " + DictionaryProcessFile.class.getName() + "." + Thread.currentThread().getStackTrace()[1].getMethodName();
     }
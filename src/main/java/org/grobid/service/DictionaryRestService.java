@@ -8,10 +8,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.InputStream;
@@ -27,6 +30,7 @@ public class DictionaryRestService implements DictionaryPaths {
     private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryRestService.class);
     private static final String INPUT = "input";
     private static final String INPUT_BIB = "inputBib";
+    private static final String STREAM = "stream";
 
     public DictionaryRestService() {
         LOGGER.info("Initiating Servlet DictionaryRestService");
@@ -58,7 +62,11 @@ public class DictionaryRestService implements DictionaryPaths {
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     @Produces(MediaType.APPLICATION_XML)
     @POST
-    public Response processDictionaryBodySegmentation_post(@FormDataParam(INPUT) InputStream inputStream) throws Exception {
+    public Response processDictionaryBodySegmentation_post(@FormDataParam(INPUT) InputStream inputStream,
+                                                           @DefaultValue("false") @QueryParam(STREAM) boolean stream) throws Exception {
+        if (stream) {
+            return DictionaryProcessFile.processStreaming(inputStream, PROCESS_DICTIONARY_BODY_SEGMENTATION);
+        }
         return DictionaryProcessFile.processDictionaryBodySegmentation(inputStream, PROCESS_DICTIONARY_BODY_SEGMENTATION);
     }
 
@@ -82,7 +90,11 @@ public class DictionaryRestService implements DictionaryPaths {
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     @Produces(MediaType.APPLICATION_XML)
     @POST
-    public Response processLexicalEntries_post(@FormDataParam(INPUT) InputStream inputStream) throws Exception {
+    public Response processLexicalEntries_post(@FormDataParam(INPUT) InputStream inputStream,
+                                               @DefaultValue("false") @QueryParam(STREAM) boolean stream) throws Exception {
+        if (stream) {
+            return DictionaryProcessFile.processStreaming(inputStream, PATH_LEXICAL_ENTRY);
+        }
         return DictionaryProcessFile.processLexicalEntries(inputStream, PATH_LEXICAL_ENTRY);
     }
 
@@ -112,11 +124,52 @@ public class DictionaryRestService implements DictionaryPaths {
                                                @PathParam("re") String re,
                                                @PathParam("xr") String xr,
                                                @PathParam("subEntry") String subEntry,
-                                               @PathParam("note") String note) throws Exception {
+                                               @PathParam("note") String note,
+                                               @DefaultValue("false") @QueryParam(STREAM) boolean stream) throws Exception {
 
+        if (stream) {
+            return DictionaryProcessFile.processStreaming(inputStream, form+"-"+sense+"-"+etym+"-"+re+"-"+xr+"-"+subEntry+"-"+note);
+        }
         return DictionaryProcessFile.processFullDictionary(inputStream, form+"-"+sense+"-"+etym+"-"+re+"-"+xr+"-"+subEntry+"-"+note);
     }
 
+    @Path(PATH_JOBS + "/{form}/{sense}/{etym}/{re}/{xr}/{subEntry}/{note}.processFullDictionary")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    @Produces(MediaType.APPLICATION_JSON)
+    @POST
+    public Response submitFullDictionaryJob_post(@FormDataParam(INPUT) InputStream inputStream,
+                                                 @PathParam("form") String form,
+                                                 @PathParam("sense") String sense,
+                                                 @PathParam("etym") String etym,
+                                                 @PathParam("re") String re,
+                                                 @PathParam("xr") String xr,
+                                                 @PathParam("subEntry") String subEntry,
+                                                 @PathParam("note") String note) throws Exception {
+
+        return DictionaryProcessFile.submitFullDictionaryJob(inputStream, form+"-"+sense+"-"+etym+"-"+re+"-"+xr+"-"+subEntry+"-"+note);
+    }
+
+    @Path(PATH_JOBS + "/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @GET
+    public Response getJobStatus_get(@PathParam("id") String id) {
+        return DictionaryProcessFile.getJobStatus(id);
+    }
+
+    @Path(PATH_JOBS + "/{id}/result")
+    @Produces(MediaType.APPLICATION_XML)
+    @GET
+    public Response getJobResult_get(@PathParam("id") String id) {
+        return DictionaryProcessFile.getJobResult(id);
+    }
+
+    @Path(PATH_METRICS)
+    @Produces(MediaType.APPLICATION_JSON)
+    @GET
+    public Response getMetrics_get() {
+        return DictionaryProcessFile.getMetrics();
+    }
+
 //    @Path(PATH_FULL_DICTIONARY_OPTIMISED)
 //    @Consumes(MediaType.MULTIPART_FORM_DATA)
 //    @Produces(MediaType.APPLICATION_XML)
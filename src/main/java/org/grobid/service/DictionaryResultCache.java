@@ -0,0 +1,218 @@
+package org.grobid.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.grobid.core.GrobidModel;
+import org.grobid.core.engines.DictionaryModels;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.utilities.DictionaryProperties;
+import org.grobid.core.utilities.GrobidProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the TEI results of the service, in two tiers: a LRU in memory and a size capped directory on disk.
+ * A result is identified by the SHA-256 of the uploaded PDF, the models requested (modelToRun) and the checksums of
+ * the model files in grobid-home. When one of the model files changes, the whole cache is dropped.
+ * <p>
+ * The taggers already loaded in the JVM are not reloaded: after a model is retrained, the service must be restarted,
+ * otherwise the old model would label the documents under the key of the new one.
+ */
+public class DictionaryResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryResultCache.class);
+    private static volatile DictionaryResultCache instance;
+
+    private static final String TEI_EXTENSION = ".tei.xml";
+    private static final String PART_EXTENSION = ".part";
+
+    private final Cache<String, String> memoryCache;
+    private final File directory;
+    private final long maxDiskBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // size and modification date of the model files, to avoid hashing them again when nothing changed
+    private String modelFilesStamp;
+    private String modelsChecksum;
+
+    public static DictionaryResultCache getInstance() {
+        if (instance == null) {
+            getNewInstance();
+        }
+        return instance;
+    }
+
+    private static synchronized void getNewInstance() {
+        if (instance == null) {
+            instance = new DictionaryResultCache();
+        }
+    }
+
+    private DictionaryResultCache() {
+        // the weight is the number of chars, 2 bytes each
+        memoryCache = CacheBuilder.newBuilder()
+                .maximumWeight(DictionaryProperties.getCacheMemoryMb() * 1024L * 1024L / 2)
+                .weigher((String key, String tei) -> tei.length())
+                .build();
+
+        directory = DictionaryProperties.getCacheDirectory();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new GrobidException("Cannot create the cache directory " + directory.getAbsolutePath());
+        }
+        maxDiskBytes = DictionaryProperties.getCacheDiskMb() * 1024L * 1024L;
+    }
+
+    public static boolean isEnabled() {
+        return DictionaryProperties.isCacheEnabled();
+    }
+
+    /**
+     * Key of the result of processing the given PDF with the given models
+     */
+    public String key(File originFile, String modelToRun) throws IOException {
+        String pdfChecksum = Files.asByteSource(originFile).hash(Hashing.sha256()).toString();
+
+        return Hashing.sha256()
+                .hashString(pdfChecksum + "|" + modelToRun + "|" + getModelsChecksum(), StandardCharsets.UTF_8)
+                .toString();
+    }
+
+    public String get(String key) {
+        String tei = memoryCache.getIfPresent(key);
+        if (tei != null) {
+            memoryHits.incrementAndGet();
+            return tei;
+        }
+
+        File cachedFile = new File(directory, key + TEI_EXTENSION);
+        if (cachedFile.exists()) {
+            try {
+                tei = FileUtils.readFileToString(cachedFile, StandardCharsets.UTF_8);
+                // keep the most recently used files when cleaning the directory
+                cachedFile.setLastModified(System.currentTimeMillis());
+                memoryCache.put(key, tei);
+                diskHits.incrementAndGet();
+                return tei;
+            } catch (IOException e) {
+                LOGGER.warn("Cannot read the cached result " + cachedFile.getAbsolutePath(), e);
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String key, String tei) {
+        memoryCache.put(key, tei);
+
+        // written under a temporary name, so that get() never reads a partial result
+        File cachedFile = new File(directory, key + TEI_EXTENSION);
+        File partial = new File(directory, key + "." + Thread.currentThread().getId() + PART_EXTENSION);
+        try {
+            FileUtils.writeStringToFile(partial, tei, StandardCharsets.UTF_8);
+            java.nio.file.Files.move(partial.toPath(), cachedFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            cleanDirectory();
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(partial);
+            LOGGER.warn("Cannot write the result in the cache directory " + directory.getAbsolutePath(), e);
+        }
+    }
+
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("memoryHits", memoryHits.get());
+        statistics.put("diskHits", diskHits.get());
+        statistics.put("misses", misses.get());
+        statistics.put("invalidations", invalidations.get());
+        statistics.put("memoryEntries", memoryCache.size());
+        statistics.put("diskBytes", FileUtils.sizeOfDirectory(directory));
+
+        return statistics;
+    }
+
+    private synchronized String getModelsChecksum() throws IOException {
+        StringBuilder stamp = new StringBuilder();
+        for (GrobidModel model : DictionaryModels.ALL_MODELS) {
+            File modelFile = GrobidProperties.getModelPath(model);
+            stamp.append(modelFile.getAbsolutePath()).append(':')
+                    .append(modelFile.lastModified()).append(':')
+                    .append(modelFile.length()).append(';');
+        }
+        if (stamp.toString().equals(modelFilesStamp)) {
+            return modelsChecksum;
+        }
+
+        StringBuilder checksums = new StringBuilder();
+        for (GrobidModel model : DictionaryModels.ALL_MODELS) {
+            File modelFile = GrobidProperties.getModelPath(model);
+            if (modelFile.exists()) {
+                checksums.append(Files.asByteSource(modelFile).hash(Hashing.sha256()).toString());
+            }
+            checksums.append(';');
+        }
+        String newChecksum = Hashing.sha256().hashString(checksums, StandardCharsets.UTF_8).toString();
+
+        if (modelsChecksum != null && !modelsChecksum.equals(newChecksum)) {
+            LOGGER.warn("The models changed, dropping the cached results. The models already loaded are not reloaded, "
+                    + "restart the service to use the new ones.");
+            invalidateAll();
+        }
+        modelFilesStamp = stamp.toString();
+        modelsChecksum = newChecksum;
+
+        return modelsChecksum;
+    }
+
+    private void invalidateAll() {
+        invalidations.incrementAndGet();
+        memoryCache.invalidateAll();
+        try {
+            FileUtils.cleanDirectory(directory);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot clean the cache directory " + directory.getAbsolutePath(), e);
+        }
+    }
+
+    private synchronized void cleanDirectory() {
+        // the results being written are left alone
+        File[] cachedFiles = directory.listFiles((dir, name) -> name.endsWith(TEI_EXTENSION));
+        if (cachedFiles == null) {
+            return;
+        }
+
+        long size = 0;
+        for (File cachedFile : cachedFiles) {
+            size += cachedFile.length();
+        }
+        if (size <= maxDiskBytes) {
+            return;
+        }
+
+        // remove the least recently used results first
+        Arrays.sort(cachedFiles, Comparator.comparingLong(File::lastModified));
+        for (File cachedFile : cachedFiles) {
+            if (size <= maxDiskBytes) {
+                break;
+            }
+            size -= cachedFile.length();
+            FileUtils.deleteQuietly(cachedFile);
+        }
+    }
+}
@@ -5,17 +5,18 @@ import org.grobid.core.engines.DictionaryModels;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.trainer.sax.TEIDictionaryBodySegmentationSaxParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import java.io.*;
 import java.util.List;
-import java.util.StringTokenizer;
 
 /**
  * Created by med on 08.11.16.
  */
 public class DictionaryBodySegmentationTrainer extends AbstractTrainer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryBodySegmentationTrainer.class);
 
     public DictionaryBodySegmentationTrainer() {
         super(DictionaryModels.DICTIONARY_BODY_SEGMENTATION);
@@ -94,60 +95,8 @@ public class DictionaryBodySegmentationTrainer extends AbstractTrainer {
             os2 = new FileOutputStream(outputPath);
             writer2 = new OutputStreamWriter(os2, "UTF8");
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
-
-//            int n = 0;
-            for (File tf : refFiles) {
-                String name = tf.getName();
-                System.out.println(name);
-
-                TEIDictionaryBodySegmentationSaxParser parser2 = new TEIDictionaryBodySegmentationSaxParser();
-
-                //get a new instance of parser
-                SAXParser p = spf.newSAXParser();
-                p.parse(tf, parser2);
-
-                List<String> labeled = parser2.getLabeledResult();
-
-                // we can now add the features
-                // we open the featured file
-                BufferedReader bis = new BufferedReader(
-                        new InputStreamReader(new FileInputStream(sourceDictionaryBodySegmentationPathFeatures +
-                                                                          File.separator +  name.replace(".tei.xml", "")), "UTF8"));
-
-                int q = 0;
-                StringBuilder trainingDataLineBuilder = new StringBuilder();
-
-                String line;
-                while ((line = bis.readLine()) != null) {
-                    int ii = line.indexOf(' ');
-                    String token = null;
-                    if (ii != -1)
-                        token = line.substring(0, ii);
-                    // we get the label in the labelled data file for the same token
-                    for (int pp = q; pp < labeled.size(); pp++) {
-                        String localLine = labeled.get(pp);
-                        StringTokenizer st = new StringTokenizer(localLine, " ");
-                        if (st.hasMoreTokens()) {
-                            String localToken = st.nextToken();
-                            if (localToken.equals(token)) {
-                                String tag = st.nextToken();
-                                trainingDataLineBuilder.append(line).append(" ").append(tag);
-                                q = pp + 1;
-                                pp = q + 10;
-                            }
-                        }
-                        if (pp - q > 5) {
-                            break;
-                        }
-                    }
-                }
-                bis.close();
-
-                // Add the training data with suffixed label
-                writer2.write(trainingDataLineBuilder.toString() + "\n");
-            }
+            TrainingCorpusAssembler.assemble(refFiles, writer2,
+                    teiFile -> addFeaturesDictionaryBodySegmentation(teiFile, sourceDictionaryBodySegmentationPathFeatures));
 
         } catch (Exception e) {
             throw new GrobidException("An exception occurred while running Grobid.", e);
@@ -158,5 +107,45 @@ public class DictionaryBodySegmentationTrainer extends AbstractTrainer {
         return totalExamples;
     }
 
+    /**
+     * Training data of a single annotated file, its labels aligned to the tokens of its feature file
+     */
+    private String addFeaturesDictionaryBodySegmentation(File teiFile, String sourceDictionaryBodySegmentationPathFeatures) throws Exception {
+        String name = teiFile.getName();
+        System.out.println(name);
+
+        TEIDictionaryBodySegmentationSaxParser parser2 = new TEIDictionaryBodySegmentationSaxParser();
+
+        //get a new instance of parser
+        SAXParser p = TrainingCorpusAssembler.newSAXParser();
+        p.parse(teiFile, parser2);
+
+        List<String> labeled = parser2.getLabeledResult();
+
+        // we can now add the features
+        // we open the featured file
+        BufferedReader bis = new BufferedReader(
+                new InputStreamReader(new FileInputStream(sourceDictionaryBodySegmentationPathFeatures +
+                                                                  File.separator +  name.replace(".tei.xml", "")), "UTF8"));
+
+        List<String> lines = IOUtils.readLines(bis);
+        bis.close();
+
+        TrainingLabelAligner aligner = TrainingLabelAligner.fromLines(labeled);
+        int[] alignment = aligner.align(lines);
+        StringBuilder trainingDataLineBuilder = new StringBuilder();
+        for (int k = 0; k < lines.size(); k++) {
+            String line = lines.get(k);
+            if (alignment[k] == -1) {
+                continue;
+            }
+            trainingDataLineBuilder.append(line).append(" ").append(aligner.getLabel(alignment[k]));
+        }
+        LOGGER.info(name + ": " + aligner);
+
+        // Add the training data with suffixed label
+        return trainingDataLineBuilder.toString() + "\n";
+    }
+
 
 }
@@ -1,20 +1,22 @@
 package org.grobid.trainer;
 
+import org.apache.commons.io.IOUtils;
 import org.grobid.core.engines.DictionaryModels;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.trainer.sax.TEIDictionarySegmentationSaxParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import java.io.*;
 import java.util.List;
-import java.util.StringTokenizer;
 
 /**
  * Created by med on 08.11.16.
  */
 public class DictionarySegmentationTrainer extends AbstractTrainer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionarySegmentationTrainer.class);
 
     public DictionarySegmentationTrainer() {
         super(DictionaryModels.DICTIONARY_SEGMENTATION);
@@ -102,61 +104,8 @@ public class DictionarySegmentationTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
-
-//            int n = 0;
-            for (File tf : refFiles) {
-                String name = tf.getName();
-                System.out.println(name);
-
-                TEIDictionarySegmentationSaxParser parser2 = new TEIDictionarySegmentationSaxParser();
-                //parser2.setMode(TEILexicalEntrySaxParser.FULLTEXT);
-
-                //get a new instance of parser
-                SAXParser p = spf.newSAXParser();
-                p.parse(tf, parser2);
-
-                List<String> labeled = parser2.getLabeledResult();
-
-                // we can now add the features
-                // we open the featured file
-                BufferedReader bis = new BufferedReader(
-                        new InputStreamReader(new FileInputStream(sourceDictionarySegmentationPathFeatures + 
-							File.separator +  name.replace(".tei.xml", "")), "UTF8"));
-
-                int q = 0;
-                StringBuilder trainingDataLineBuilder = new StringBuilder();
-
-                String line;
-                while ((line = bis.readLine()) != null) {
-                    int ii = line.indexOf(' ');
-                    String token = null;
-                    if (ii != -1)
-                        token = line.substring(0, ii);
-                    // we get the label in the labelled data file for the same token
-                    for (int pp = q; pp < labeled.size(); pp++) {
-                        String localLine = labeled.get(pp);
-                        StringTokenizer st = new StringTokenizer(localLine, " ");
-                        if (st.hasMoreTokens()) {
-                            String localToken = st.nextToken();
-                            if (localToken.equals(token)) {
-                                String tag = st.nextToken();
-                                trainingDataLineBuilder.append(line).append(" ").append(tag);
-                                q = pp + 1;
-                                pp = q + 10;
-                            }
-                        }
-                        if (pp - q > 5) {
-                            break;
-                        }
-                    }
-                }
-                bis.close();
-
-                // Add the training data with suffixed label
-                writer2.write(trainingDataLineBuilder.toString() + "\n\n");
-            }
+            TrainingCorpusAssembler.assemble(refFiles, writer2,
+                    teiFile -> addFeaturesDictionarySegmentation(teiFile, sourceDictionarySegmentationPathFeatures));
 
         } catch (Exception e) {
             throw new GrobidException("An exception occurred while running Grobid.", e);
@@ -185,43 +134,47 @@ public class DictionarySegmentationTrainer extends AbstractTrainer {
         return totalExamples;
     }
 
-    private String getFirstToken(String line) {
-        int ii = line.indexOf(' ');
-        String token = null;
+    /**
+     * Training data of a single annotated file, its labels aligned to the tokens of its feature file
+     */
+    private String addFeaturesDictionarySegmentation(File teiFile, String sourceDictionarySegmentationPathFeatures) throws Exception {
+        String name = teiFile.getName();
+        System.out.println(name);
 
-        if (ii != -1) {
-            token = line.substring(0, ii);
-        }
+        TEIDictionarySegmentationSaxParser parser2 = new TEIDictionarySegmentationSaxParser();
+        //parser2.setMode(TEILexicalEntrySaxParser.FULLTEXT);
 
-        return token;
-    }
+        //get a new instance of parser
+        SAXParser p = TrainingCorpusAssembler.newSAXParser();
+        p.parse(teiFile, parser2);
 
-    /**
-     * Searching for the label in the labelled data file of the token in the feature file
-     */
-    protected String getLabelByToken(String featureFileToken, int counterStart, List<String> labeled) {
-
-        for (int indexLabeled = counterStart; indexLabeled < labeled.size(); indexLabeled++) {
-            String tokenPlusLabel = labeled.get(indexLabeled);
-            StringTokenizer st = new StringTokenizer(tokenPlusLabel, " ");
-            if (st.hasMoreTokens()) {
-                String labelFileToken = st.nextToken();
-
-                if(featureFileToken.equals("@BULLET")){
-                    String tag = st.nextToken();
-                    return tag;
-                } else if (labelFileToken.equals(featureFileToken)) {
-                    String tag = st.nextToken();
-                    return tag;
-                }
-            }
-            if (indexLabeled - counterStart > 5) {
-                return null;
+        List<String> labeled = parser2.getLabeledResult();
+
+        // we can now add the features
+        // we open the featured file
+        BufferedReader bis = new BufferedReader(
+                new InputStreamReader(new FileInputStream(sourceDictionarySegmentationPathFeatures + 
+							File.separator +  name.replace(".tei.xml", "")), "UTF8"));
+
+        List<String> lines = IOUtils.readLines(bis);
+        bis.close();
+
+        TrainingLabelAligner aligner = TrainingLabelAligner.fromLines(labeled);
+        int[] alignment = aligner.align(lines);
+        StringBuilder trainingDataLineBuilder = new StringBuilder();
+        for (int k = 0; k < lines.size(); k++) {
+            String line = lines.get(k);
+            if (alignment[k] == -1) {
+                continue;
             }
+            trainingDataLineBuilder.append(line).append(" ").append(aligner.getLabel(alignment[k]));
         }
+        LOGGER.info(name + ": " + aligner);
 
-        return null;
+        // Add the training data with suffixed label
+        return trainingDataLineBuilder.toString() + "\n\n";
     }
+
     /**
      * Command line execution.
      *
@@ -1,15 +1,15 @@
 package org.grobid.trainer;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.grobid.core.data.SimpleLabeled;
 import org.grobid.core.engines.DictionaryModels;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.trainer.sax.TEIFormSaxParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import java.io.*;
 import java.util.List;
 
@@ -17,6 +17,7 @@ import java.util.List;
  * Created by med on 19.08.16.
  */
 public class FormTrainer extends AbstractTrainer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FormTrainer.class);
 
     public FormTrainer() {
         super(DictionaryModels.FORM);
@@ -72,62 +73,7 @@ public class FormTrainer extends AbstractTrainer {
             os2 = new FileOutputStream(outputPath);
             writer2 = new OutputStreamWriter(os2, "UTF8");
 
-            SAXParserFactory spf = SAXParserFactory.newInstance();
-
-            for (File tf : refFiles) {
-                String name = tf.getName();
-                System.out.println("Processing: " + name);
-
-                TEIFormSaxParser parser2 = new TEIFormSaxParser();
-
-                //get a new instance of parser
-                SAXParser p = spf.newSAXParser();
-                p.parse(tf, parser2);
-
-                List<SimpleLabeled> labeled = parser2.getLabeledResult();
-
-                // we open the featured file
-                BufferedReader featuresFile = new BufferedReader(
-                        new InputStreamReader(new FileInputStream(sourceFeatures + File.separator +
-                                name.replace(".tei.xml", "")), "UTF8"));
-                //Index to iterate through a list of LabeledForm
-                int indexLabeledList = 0;
-                //Index to iterate through the LabeledFormLabels
-                int indexLabeledForm = 0;
-                StringBuilder trainingDataLineBuilder = new StringBuilder();
-
-                String line;
-                while ((line = featuresFile.readLine()) != null) {
-
-                    String tokenFromFeatures = extractToken(line);
-
-                    // we get the label in the labelled data file for the same token
-                    outer:
-                    for (int pp = indexLabeledList; pp < labeled.size(); pp++) {
-                        SimpleLabeled simpleLabeled = labeled.get(pp);
-
-                        for (int qq = indexLabeledForm; qq < simpleLabeled.getLabels().size(); qq++) {
-
-                            final String labelToken = simpleLabeled.getLabels().get(qq).getRight();
-                            final String tokenFromLabels = simpleLabeled.getLabels().get(qq).getLeft();
-                            if (StringUtils.equals(tokenFromLabels, tokenFromFeatures)) {
-                                trainingDataLineBuilder.append(line).append(" ").append(labelToken).append("\n");
-                                indexLabeledForm = qq + 1;
-                                if (simpleLabeled.getLabels().size() == indexLabeledForm) {
-                                    pp++;
-                                    indexLabeledForm = 0;
-                                    trainingDataLineBuilder.append("\n");
-                                }
-                                indexLabeledList = pp;
-
-                                break outer;
-                            }
-                        }
-                    }
-                }
-                IOUtils.closeQuietly(featuresFile);
-                writer2.write(trainingDataLineBuilder.toString() + "");
-            }
+            TrainingCorpusAssembler.assemble(refFiles, writer2, teiFile -> addFeaturesSense(teiFile, sourceFeatures));
 
         } catch (Exception e) {
             throw new GrobidException("An exception occurred while running Grobid.", e);
@@ -137,12 +83,43 @@ public class FormTrainer extends AbstractTrainer {
         return totalExamples;
     }
 
-    private String extractToken(String line) {
-        int ii = line.indexOf(' ');
-        String token = null;
-        if (ii != -1)
-            token = line.substring(0, ii);
-        return token;
+    /**
+     * Training data of a single annotated file, its labels aligned to the tokens of its feature file
+     */
+    private String addFeaturesSense(File teiFile, String sourceFeatures) throws Exception {
+        String name = teiFile.getName();
+        System.out.println("Processing: " + name);
+
+        TEIFormSaxParser parser2 = new TEIFormSaxParser();
+
+        //get a new instance of parser
+        SAXParser p = TrainingCorpusAssembler.newSAXParser();
+        p.parse(teiFile, parser2);
+
+        List<SimpleLabeled> labeled = parser2.getLabeledResult();
+
+        // we open the featured file
+        BufferedReader featuresFile = new BufferedReader(
+                new InputStreamReader(new FileInputStream(sourceFeatures + File.separator +
+                        name.replace(".tei.xml", "")), "UTF8"));
+        List<String> lines = IOUtils.readLines(featuresFile);
+        IOUtils.closeQuietly(featuresFile);
+
+        TrainingLabelAligner aligner = TrainingLabelAligner.fromSequences(labeled);
+        int[] alignment = aligner.align(lines);
+        StringBuilder trainingDataLineBuilder = new StringBuilder();
+        for (int k = 0; k < lines.size(); k++) {
+            String line = lines.get(k);
+            if (alignment[k] == -1) {
+                continue;
+            }
+            trainingDataLineBuilder.append(line).append(" ").append(aligner.getLabel(alignment[k])).append("\n");
+            if (aligner.isSequenceEnd(alignment[k])) {
+                trainingDataLineBuilder.append("\n");
+            }
+        }
+        LOGGER.info(name + ": " + aligner);
+        return trainingDataLineBuilder.toString();
     }
 
 
@@ -6,17 +6,18 @@ import org.grobid.core.engines.DictionaryModels;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.trainer.sax.TEILexicalEntrySaxParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import java.io.*;
 import java.util.List;
-import java.util.StringTokenizer;
 
 /**
  * Created by med on 19.08.16.
  */
 public class LexicalEntryTrainer extends AbstractTrainer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LexicalEntryTrainer.class);
 
     public LexicalEntryTrainer() {
         super(DictionaryModels.LEXICAL_ENTRY);
@@ -95,62 +96,8 @@ public class LexicalEntryTrainer extends AbstractTrainer {
             os2 = new FileOutputStream(outputPath);
             writer2 = new OutputStreamWriter(os2, "UTF8");
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
-
-            for (File tf : refFiles) {
-                String name = tf.getName();
-                System.out.println(name);
-
-                TEILexicalEntrySaxParser parser2 = new TEILexicalEntrySaxParser();
-                //parser2.setMode(TEILexicalEntrySaxParser.FULLTEXT);
-
-                //get a new instance of parser
-                SAXParser p = spf.newSAXParser();
-                p.parse(tf, parser2);
-
-                List<String> labeled = parser2.getLabeledResult();
-
-                // we can now add the features
-                // we open the featured file
-                BufferedReader featuresFile = new BufferedReader(
-                        new InputStreamReader(new FileInputStream(sourceLexicalEntriesPathFeatures + File.separator +
-                                                                          name.replace(".tei.xml", "")), "UTF8"));
-                int q = 0;
-                StringBuilder trainingDataLineBuilder = new StringBuilder();
-
-                String line;
-                while ((line = featuresFile.readLine()) != null) {
-
-                    //A new line in the feature file separate the new training example
-                    if(StringUtils.isBlank(line)) {
-                        trainingDataLineBuilder.append("\n");
-                    }
-                    int ii = line.indexOf(' ');
-                    String token = null;
-                    if (ii != -1)
-                        token = line.substring(0, ii);
-                    // we get the label in the labelled data file for the same token
-                    for (int pp = q; pp < labeled.size(); pp++) {
-                        String localLine = labeled.get(pp);
-                        StringTokenizer st = new StringTokenizer(localLine, " ");
-                        if (st.hasMoreTokens()) {
-                            String localToken = st.nextToken();
-                            if (localToken.equals(token)) {
-                                String label = st.nextToken();
-                                trainingDataLineBuilder.append(StringUtils.trim(line)).append(" ").append(label);
-                                q = pp + 1;
-                                pp = q + 10;
-                            }
-                        }
-                        if (pp - q > 5) {
-                            break;
-                        }
-                    }
-                }
-                featuresFile.close();
-                writer2.write(trainingDataLineBuilder.toString() + "");
-            }
+            TrainingCorpusAssembler.assemble(refFiles, writer2,
+                    teiFile -> addFeaturesLexicalEntries(teiFile, sourceLexicalEntriesPathFeatures));
 
         } catch (Exception e) {
             throw new GrobidException("An exception occurred while running Grobid.", e);
@@ -161,5 +108,48 @@ public class LexicalEntryTrainer extends AbstractTrainer {
         return totalExamples;
     }
 
+    /**
+     * Training data of a single annotated file, its labels aligned to the tokens of its feature file
+     */
+    private String addFeaturesLexicalEntries(File teiFile, String sourceLexicalEntriesPathFeatures) throws Exception {
+        String name = teiFile.getName();
+        System.out.println(name);
+
+        TEILexicalEntrySaxParser parser2 = new TEILexicalEntrySaxParser();
+        //parser2.setMode(TEILexicalEntrySaxParser.FULLTEXT);
+
+        //get a new instance of parser
+        SAXParser p = TrainingCorpusAssembler.newSAXParser();
+        p.parse(teiFile, parser2);
+
+        List<String> labeled = parser2.getLabeledResult();
+
+        // we can now add the features
+        // we open the featured file
+        BufferedReader featuresFile = new BufferedReader(
+                new InputStreamReader(new FileInputStream(sourceLexicalEntriesPathFeatures + File.separator +
+                                                                  name.replace(".tei.xml", "")), "UTF8"));
+        List<String> lines = IOUtils.readLines(featuresFile);
+        featuresFile.close();
+
+        TrainingLabelAligner aligner = TrainingLabelAligner.fromLines(labeled);
+        int[] alignment = aligner.align(lines);
+        StringBuilder trainingDataLineBuilder = new StringBuilder();
+        for (int k = 0; k < lines.size(); k++) {
+            String line = lines.get(k);
+
+            //A new line in the feature file separate the new training example
+            if (StringUtils.isBlank(line)) {
+                trainingDataLineBuilder.append("\n");
+            }
+            if (alignment[k] == -1) {
+                continue;
+            }
+            trainingDataLineBuilder.append(StringUtils.trim(line)).append(" ").append(aligner.getLabel(alignment[k]));
+        }
+        LOGGER.info(name + ": " + aligner);
+        return trainingDataLineBuilder.toString();
+    }
+
 
 }
@@ -0,0 +1,78 @@
+package org.grobid.trainer;
+
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.utilities.DictionaryProperties;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.File;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Training data of a model from the annotated TEI files of its corpus: the training data of each file (its labels
+ * aligned to its raw feature file) is built on a pool of workers, and written in the order of the files, so the
+ * output is the same as when the files are handled one after the other.
+ *
+ * The number of workers is given by -Dgrobid.dictionaries.training.parallelism (the number of CPUs by default).
+ */
+public class TrainingCorpusAssembler {
+
+    // SAXParserFactory is not thread safe, each worker has its own
+    private static final ThreadLocal<SAXParserFactory> saxParserFactory =
+            ThreadLocal.withInitial(SAXParserFactory::newInstance);
+
+    /**
+     * Training data of a single annotated file
+     */
+    public interface FileAssembler {
+        String assemble(File teiFile) throws Exception;
+    }
+
+    public static SAXParser newSAXParser() throws Exception {
+        return saxParserFactory.get().newSAXParser();
+    }
+
+    /**
+     * Writes the training data of each file with the writer, in the order of the files. The exception of the first
+     * file that failed is thrown as it is.
+     */
+    public static void assemble(File[] teiFiles, Writer writer, final FileAssembler fileAssembler) throws Exception {
+        int parallelism = Math.min(DictionaryProperties.getTrainingParallelism(), teiFiles.length);
+        if (parallelism <= 1) {
+            for (File teiFile : teiFiles) {
+                writer.write(fileAssembler.assemble(teiFile));
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            // at most two files per worker are kept in memory ahead of the writer
+            Deque<Future<String>> pending = new ArrayDeque<>();
+            int next = 0;
+            while (next < teiFiles.length || !pending.isEmpty()) {
+                while (next < teiFiles.length && pending.size() < 2 * parallelism) {
+                    final File teiFile = teiFiles[next++];
+                    pending.add(executor.submit(() -> fileAssembler.assemble(teiFile)));
+                }
+                writer.write(pending.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrobidException("Interrupted while creating the training data.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw new GrobidException("An exception occurred while creating the training data.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.grobid.trainer;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.data.SimpleLabeled;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Labels of the lines of a raw feature file, taken from the tokens labeled in its annotated TEI file. Both sequences
+ * are walked once, with two positions: the label of a feature token is the one of the first same token among the
+ * next labeled tokens (bounded lookahead). When it is not there, the labeled tokens are searched further ahead for a
+ * place where the next feature token is labeled too, so that a part of the TEI missing from the features does not
+ * leave all the following tokens without label. Each feature token costs at most a bounded number of comparisons.
+ *
+ * The labels are the ones of the former searches of the trainers (see TrainingLabelAlignerToyDataTest), except that
+ * @BULLET matches any labeled token, the tokens after a part of the TEI missing from the features are labeled, and the
+ * form, sense and sub-sense tokens are no longer searched beyond the lookahead.
+ *
+ * The feature tokens left without label and the labeled tokens skipped are counted, see toString().
+ */
+public class TrainingLabelAligner {
+
+    // same window as the former search of the trainers: the current labeled token and the 6 next ones
+    public static final int LOOKAHEAD = 6;
+    public static final int RESYNCHRONISATION_LOOKAHEAD = 64;
+
+    // token of the feature files standing for any bullet character
+    private static final String BULLET = "@BULLET";
+
+    private final String[] tokens;
+    private final String[] labels;
+    private final boolean[] sequenceEnds;
+
+    private int featureTokens = 0;
+    private int alignedTokens = 0;
+    private int skippedLabels = 0;
+
+    private TrainingLabelAligner(List<String> tokens, List<String> labels, List<Boolean> sequenceEnds) {
+        this.tokens = tokens.toArray(new String[0]);
+        this.labels = labels.toArray(new String[0]);
+        this.sequenceEnds = new boolean[sequenceEnds.size()];
+        for (int i = 0; i < this.sequenceEnds.length; i++) {
+            this.sequenceEnds[i] = sequenceEnds.get(i);
+        }
+    }
+
+    /**
+     * Aligner of labeled lines made of a token and its label separated by a space (e.g. "area I-<form>\n"), the
+     * label being kept as it is, trailing new line included
+     */
+    public static TrainingLabelAligner fromLines(List<String> labeled) {
+        List<String> tokens = new ArrayList<>(labeled.size());
+        List<String> labels = new ArrayList<>(labeled.size());
+        List<Boolean> sequenceEnds = new ArrayList<>(labeled.size());
+        for (String line : labeled) {
+            int tokenStart = skipSpaces(line, 0);
+            int tokenEnd = nextSpace(line, tokenStart);
+            int labelStart = skipSpaces(line, tokenEnd);
+            tokens.add(tokenStart < tokenEnd ? line.substring(tokenStart, tokenEnd) : null);
+            labels.add(labelStart < line.length() ? line.substring(labelStart, nextSpace(line, labelStart)) : null);
+            sequenceEnds.add(false);
+        }
+        return new TrainingLabelAligner(tokens, labels, sequenceEnds);
+    }
+
+    /**
+     * Aligner of sequences of labeled tokens, the end of each sequence being kept to separate the training examples
+     */
+    public static TrainingLabelAligner fromSequences(List<SimpleLabeled> labeled) {
+        List<String> tokens = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        List<Boolean> sequenceEnds = new ArrayList<>();
+        for (SimpleLabeled sequence : labeled) {
+            List<Pair<String, String>> sequenceLabels = sequence.getLabels();
+            for (int i = 0; i < sequenceLabels.size(); i++) {
+                tokens.add(sequenceLabels.get(i).getLeft());
+                labels.add(sequenceLabels.get(i).getRight());
+                sequenceEnds.add(i == sequenceLabels.size() - 1);
+            }
+        }
+        return new TrainingLabelAligner(tokens, labels, sequenceEnds);
+    }
+
+    /**
+     * Token of a line of a feature file: its first field, null for a line without features (e.g. a blank line)
+     */
+    public static String getFeatureToken(String line) {
+        int ii = line.indexOf(' ');
+        if (ii == -1) {
+            return null;
+        }
+        return line.substring(0, ii);
+    }
+
+    /**
+     * Index of the labeled token of each line of the feature file, -1 for the lines without label
+     */
+    public int[] align(List<String> featureLines) {
+        featureTokens = 0;
+        alignedTokens = 0;
+        skippedLabels = 0;
+
+        String[] lineTokens = new String[featureLines.size()];
+        for (int k = 0; k < lineTokens.length; k++) {
+            lineTokens[k] = getFeatureToken(featureLines.get(k));
+        }
+
+        int[] alignment = new int[lineTokens.length];
+        int position = 0;
+        for (int k = 0; k < lineTokens.length; k++) {
+            alignment[k] = -1;
+            String token = lineTokens[k];
+            if (token == null) {
+                continue;
+            }
+            featureTokens++;
+
+            int found = -1;
+            int end = Math.min(tokens.length, position + LOOKAHEAD + 1);
+            for (int i = position; i < end; i++) {
+                if (matches(token, i)) {
+                    found = i;
+                    break;
+                }
+            }
+            if (found == -1 && k + 1 < lineTokens.length && lineTokens[k + 1] != null) {
+                int resynchronisationEnd = Math.min(tokens.length - 1, position + RESYNCHRONISATION_LOOKAHEAD + 1);
+                for (int i = end; i < resynchronisationEnd; i++) {
+                    if (matches(token, i) && matches(lineTokens[k + 1], i + 1)) {
+                        found = i;
+                        break;
+                    }
+                }
+            }
+            if (found != -1) {
+                alignment[k] = found;
+                alignedTokens++;
+                skippedLabels += found - position;
+                position = found + 1;
+            }
+        }
+        skippedLabels += tokens.length - position;
+        return alignment;
+    }
+
+    public String getLabel(int index) {
+        return labels[index];
+    }
+
+    /**
+     * True when the labeled token is the last one of its sequence (see fromSequences)
+     */
+    public boolean isSequenceEnd(int index) {
+        return sequenceEnds[index];
+    }
+
+    public int getFeatureTokens() {
+        return featureTokens;
+    }
+
+    public int getAlignedTokens() {
+        return alignedTokens;
+    }
+
+    public int getSkippedLabels() {
+        return skippedLabels;
+    }
+
+    @Override
+    public String toString() {
+        return alignedTokens + "/" + featureTokens + " tokens labeled, " + (featureTokens - alignedTokens)
+                + " without label, " + skippedLabels + "/" + tokens.length + " labeled tokens not used";
+    }
+
+    private boolean matches(String featureToken, int index) {
+        return labels[index] != null && (featureToken.equals(tokens[index]) || featureToken.equals(BULLET));
+    }
+
+    private static int skipSpaces(String line, int from) {
+        while (from < line.length() && line.charAt(from) == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int nextSpace(String line, int from) {
+        while (from < line.length() && line.charAt(from) != ' ') {
+            from++;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,150 @@
+package org.grobid.core.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.grobid.core.exceptions.GrobidException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the JSON results of a JMH run (-rf json) with a stored baseline, benchmark by benchmark (and parameters),
+ * and fails when a score is worse than the baseline one by more than the tolerance (e.g. 0.10 for 10%). Only the
+ * steady state scores (average time, throughput and sampled time) are held to the tolerance: the single shot ones,
+ * measured on a few cold invocations, are printed but not compared. The baseline is created from the results when it
+ * does not exist yet, and replaced by them with -Dbenchmark.updateBaseline=true.
+ *
+ * Arguments: the results file, the baseline file and the tolerance.
+ */
+public class JmhBaselineComparison {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            throw new GrobidException("Usage: JmhBaselineComparison RESULTS BASELINE TOLERANCE");
+        }
+        File results = new File(args[0]);
+        File baseline = new File(args[1]);
+        double tolerance = Double.parseDouble(args[2]);
+
+        if (!results.exists()) {
+            throw new GrobidException("No JMH results in " + results.getAbsolutePath());
+        }
+        if (!baseline.exists()) {
+            saveBaseline(results, baseline);
+            System.out.println("No baseline yet, the results are saved as the baseline in " + baseline.getAbsolutePath());
+            return;
+        }
+
+        List<String> regressions = compare(readScores(results), readScores(baseline), tolerance);
+        if (Boolean.getBoolean("benchmark.updateBaseline")) {
+            saveBaseline(results, baseline);
+            System.out.println("Baseline updated in " + baseline.getAbsolutePath());
+        } else if (!regressions.isEmpty()) {
+            throw new GrobidException(regressions.size() + " benchmark(s) slower than the baseline by more than "
+                    + Math.round(tolerance * 100) + "%: " + regressions);
+        }
+    }
+
+    /**
+     * Prints the change of each score against the baseline, and returns the benchmarks worse than the baseline by
+     * more than the tolerance
+     */
+    static List<String> compare(Map<String, Score> results, Map<String, Score> baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Score> result : results.entrySet()) {
+            Score reference = baseline.get(result.getKey());
+            if (reference == null) {
+                System.out.println(String.format("%-100s %12.3f %s (not in the baseline)", result.getKey(),
+                        result.getValue().score, result.getValue().unit));
+                continue;
+            }
+            if (!reference.unit.equals(result.getValue().unit)) {
+                System.out.println(String.format("%-100s %s instead of %s in the baseline, not compared",
+                        result.getKey(), result.getValue().unit, reference.unit));
+                continue;
+            }
+
+            double change = result.getValue().getChange(reference);
+            if (!result.getValue().isSteadyState()) {
+                System.out.println(String.format("%-100s %12.3f %s %+8.1f%% (single shot, not compared)",
+                        result.getKey(), result.getValue().score, result.getValue().unit, change * 100));
+                continue;
+            }
+            System.out.println(String.format("%-100s %12.3f %s %+8.1f%%", result.getKey(), result.getValue().score,
+                    result.getValue().unit, change * 100));
+            if (change > tolerance) {
+                regressions.add(result.getKey());
+            }
+        }
+        for (String benchmark : baseline.keySet()) {
+            if (!results.containsKey(benchmark)) {
+                System.out.println(String.format("%-100s not run", benchmark));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Primary scores of a JMH JSON results file, by benchmark name and parameters
+     */
+    static Map<String, Score> readScores(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asText());
+            JsonNode params = run.get("params");
+            if (params != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            JsonNode primaryMetric = run.get("primaryMetric");
+            scores.put(key.toString(), new Score(run.get("mode").asText(), primaryMetric.get("score").asDouble(),
+                    primaryMetric.get("scoreUnit").asText()));
+        }
+        return scores;
+    }
+
+    private static void saveBaseline(File results, File baseline) throws IOException {
+        File directory = baseline.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory.getAbsolutePath());
+        }
+        Files.copy(results.toPath(), baseline.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static class Score {
+        final String mode;
+        final double score;
+        final String unit;
+
+        Score(String mode, double score, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+
+        boolean isSteadyState() {
+            return mode.equals("avgt") || mode.equals("thrpt") || mode.equals("sample");
+        }
+
+        /**
+         * Relative change against the baseline score, positive when worse: a higher time, or a lower throughput
+         */
+        double getChange(Score baseline) {
+            if (baseline.score == 0) {
+                return 0;
+            }
+            double change = (score - baseline.score) / baseline.score;
+            return mode.equals("thrpt") ? -change : change;
+        }
+    }
+}
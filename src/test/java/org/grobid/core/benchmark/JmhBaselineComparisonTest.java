@@ -0,0 +1,55 @@
+package org.grobid.core.benchmark;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class JmhBaselineComparisonTest {
+
+    @Test
+    public void testChange_shouldBePositiveWhenWorse() throws Exception {
+        JmhBaselineComparison.Score baseline = new JmhBaselineComparison.Score("avgt", 100, "us/op");
+        assertThat(new JmhBaselineComparison.Score("avgt", 120, "us/op").getChange(baseline), is(closeTo(0.2, 1e-9)));
+        assertThat(new JmhBaselineComparison.Score("avgt", 80, "us/op").getChange(baseline), is(closeTo(-0.2, 1e-9)));
+
+        JmhBaselineComparison.Score throughput = new JmhBaselineComparison.Score("thrpt", 100, "ops/s");
+        assertThat(new JmhBaselineComparison.Score("thrpt", 80, "ops/s").getChange(throughput), is(closeTo(0.2, 1e-9)));
+    }
+
+    @Test
+    public void testCompare_shouldReturnTheRegressionsBeyondTheTolerance() throws Exception {
+        Map<String, JmhBaselineComparison.Score> baseline = new LinkedHashMap<>();
+        baseline.put("a", new JmhBaselineComparison.Score("avgt", 100, "us/op"));
+        baseline.put("b", new JmhBaselineComparison.Score("avgt", 100, "us/op"));
+        baseline.put("c", new JmhBaselineComparison.Score("avgt", 100, "us/op"));
+
+        Map<String, JmhBaselineComparison.Score> results = new LinkedHashMap<>();
+        results.put("a", new JmhBaselineComparison.Score("avgt", 105, "us/op"));
+        results.put("b", new JmhBaselineComparison.Score("avgt", 130, "us/op"));
+        results.put("d", new JmhBaselineComparison.Score("avgt", 500, "us/op"));
+
+        assertThat(JmhBaselineComparison.compare(results, baseline, 0.10), is(Collections.singletonList("b")));
+        assertThat(JmhBaselineComparison.compare(results, baseline, 0.50), is(Collections.<String>emptyList()));
+        assertThat(JmhBaselineComparison.compare(results, baseline, 0.01), is(Arrays.asList("a", "b")));
+    }
+
+    @Test
+    public void testCompare_shouldNotHoldTheSingleShotScoresToTheTolerance() throws Exception {
+        Map<String, JmhBaselineComparison.Score> baseline = new LinkedHashMap<>();
+        baseline.put("a", new JmhBaselineComparison.Score("avgt", 100, "us/op"));
+        baseline.put("memory", new JmhBaselineComparison.Score("ss", 100, "ms/op"));
+
+        Map<String, JmhBaselineComparison.Score> results = new LinkedHashMap<>();
+        results.put("a", new JmhBaselineComparison.Score("avgt", 130, "us/op"));
+        results.put("memory", new JmhBaselineComparison.Score("ss", 300, "ms/op"));
+
+        assertThat(JmhBaselineComparison.compare(results, baseline, 0.10), is(Collections.singletonList("a")));
+    }
+}
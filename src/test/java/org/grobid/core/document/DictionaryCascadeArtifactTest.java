@@ -0,0 +1,83 @@
+package org.grobid.core.document;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.data.LabeledLexicalInformation;
+import org.grobid.core.layout.LayoutToken;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class DictionaryCascadeArtifactTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteRead_shouldKeepTheTokensAndTheClusters() throws Exception {
+        List<LayoutToken> tokens = new ArrayList<>();
+        String[] texts = {"abaisser", " ", "v.", "\n", "tr.", " ", "Faire", "\n", "descendre", "é"};
+        for (int i = 0; i < texts.length; i++) {
+            LayoutToken token = new LayoutToken(texts[i]);
+            token.setFont(i % 3 == 0 ? null : "TimesNewRoman");
+            token.setFontSize(9.5 + i);
+            token.setBold(i % 2 == 0);
+            token.setItalic(i % 3 == 0);
+            token.setNewLineAfter(texts[i].equals("\n"));
+            token.setPage(i < 6 ? 1 : 2);
+            tokens.add(token);
+        }
+
+        LabeledLexicalInformation bodyComponents = new LabeledLexicalInformation();
+        bodyComponents.addLabel(Pair.of(new ArrayList<>(tokens.subList(0, 8)), "<entry>"));
+        bodyComponents.addLabel(Pair.of(new ArrayList<>(tokens.subList(8, 10)), "<dictScrap>"));
+        LabeledLexicalInformation lexicalEntry = new LabeledLexicalInformation();
+        List<LayoutToken> form = new ArrayList<>(tokens.subList(0, 3));
+        form.addAll(tokens.subList(5, 7));
+        lexicalEntry.addLabel(Pair.of(form, "<form>"));
+        lexicalEntry.addLabel(Pair.of(new ArrayList<>(tokens.subList(3, 5)), null));
+
+        File file = folder.newFile("entries.cascade");
+        new DictionaryCascadeArtifact(bodyComponents, Arrays.asList(lexicalEntry, new LabeledLexicalInformation())).write(file);
+        DictionaryCascadeArtifact artifact = DictionaryCascadeArtifact.read(file);
+
+        assertThat(artifact.getBodyComponents().getLabels().size(), is(2));
+        assertThat(artifact.getBodyComponents().getLabels().get(1).getRight(), is("<dictScrap>"));
+        List<LayoutToken> entry = artifact.getBodyComponents().getLabels().get(0).getLeft();
+        assertThat(entry.size(), is(8));
+        for (int i = 0; i < entry.size(); i++) {
+            assertToken(entry.get(i), tokens.get(i));
+        }
+        assertThat(artifact.getBodyComponents().getLabels().get(1).getLeft().get(1).getText(), is("é"));
+
+        assertThat(artifact.getLexicalEntries().size(), is(2));
+        List<Pair<List<LayoutToken>, String>> clusters = artifact.getLexicalEntries().get(0).getLabels();
+        assertThat(clusters.get(0).getRight(), is("<form>"));
+        assertThat(clusters.get(0).getLeft().size(), is(5));
+        assertToken(clusters.get(0).getLeft().get(3), tokens.get(5));
+        assertThat(clusters.get(1).getRight(), is(nullValue()));
+        assertThat(artifact.getLexicalEntries().get(1).getLabels().size(), is(0));
+
+        // a token of the body and of a lexical entry is read as a single token
+        assertThat(clusters.get(0).getLeft().get(0), sameInstance(entry.get(0)));
+    }
+
+    private static void assertToken(LayoutToken actual, LayoutToken expected) {
+        assertThat(actual.getText(), is(expected.getText()));
+        assertThat(actual.getFont(), is(expected.getFont()));
+        assertThat(actual.getFontSize(), is(expected.getFontSize()));
+        assertThat(actual.getBold(), is(expected.getBold()));
+        assertThat(actual.getItalic(), is(expected.getItalic()));
+        assertThat(actual.isNewLineAfter(), is(expected.isNewLineAfter()));
+        assertThat(actual.getPage(), is(expected.getPage()));
+    }
+}
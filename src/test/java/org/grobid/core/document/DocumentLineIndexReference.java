@@ -0,0 +1,73 @@
+package org.grobid.core.document;
+
+import org.grobid.core.layout.Block;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.utilities.TextUtilities;
+
+import java.util.List;
+
+/**
+ * The lines of a block as the dictionary segmentation got them before DocumentLineIndex, splitting the block text
+ * again at each call, for the parity tests.
+ */
+public class DocumentLineIndexReference {
+
+    public static boolean isBlank(Block block) {
+        String localText = block.getText();
+        return (localText == null) || (localText.trim().length() == 0);
+    }
+
+    public static String[] getLines(Block block) {
+        String localText = block.getText();
+        if (localText == null) {
+            return new String[0];
+        }
+        return localText.split("[\\n\\r]");
+    }
+
+    public static int getMaxLineLength(Block block) {
+        String[] lines = getLines(block);
+        int maxLineLength = 0;
+        for (int p = 0; p < lines.length; p++) {
+            if (lines[p].length() > maxLineLength)
+                maxLineLength = lines[p].length();
+        }
+        return maxLineLength;
+    }
+
+    /**
+     * False for the lines which were set to null and not labeled
+     */
+    public static boolean isSignificant(String line) {
+        return !((line.trim().length() == 0) || (TextUtilities.filterLine(line)));
+    }
+
+    /**
+     * Document positions of the first and last tokens of a line, scanning the block tokens from the start of the
+     * block, {-1, -1} when not found
+     */
+    public static int[] getTokenRange(Block block, int indexLine) {
+        List<LayoutToken> tokens = block.getTokens();
+        int startToken = block.getStartToken();
+        if (tokens == null || startToken < 0) {
+            return new int[]{-1, -1};
+        }
+
+        int line = 0;
+        int lineStart = startToken;
+        for (int i = 0; i < tokens.size(); i++) {
+            String text = tokens.get(i).t();
+            if (text.equals("\n") || text.equals("\r")) {
+                if (line == indexLine) {
+                    return new int[]{lineStart, startToken + i - 1};
+                }
+                line++;
+                lineStart = startToken + i + 1;
+            }
+        }
+        if (line == indexLine && lineStart < startToken + tokens.size()) {
+            return new int[]{lineStart, startToken + tokens.size() - 1};
+        }
+        return new int[]{-1, -1};
+    }
+}
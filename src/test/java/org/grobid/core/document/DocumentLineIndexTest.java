@@ -0,0 +1,117 @@
+package org.grobid.core.document;
+
+import org.grobid.core.engines.SyntheticSegmentationDocument;
+import org.grobid.core.layout.Block;
+import org.grobid.core.layout.LayoutToken;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DocumentLineIndexTest {
+
+    private static final List<String> WORDS = Arrays.asList(
+            "area", "noun", "/eəriə/", "1.", "a", "surface", "(of)", "argue", "verb", "@IMAGE", "•", "-", "12");
+
+    private static List<Block> blocks;
+    private static DocumentLineIndex target;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        SyntheticSegmentationDocument document = new SyntheticSegmentationDocument(7);
+        Random random = new Random(3);
+        for (int i = 0; i < 400; i++) {
+            List<String> words = new ArrayList<>();
+            int nbWords = 1 + random.nextInt(6);
+            for (int w = 0; w < nbWords; w++) {
+                words.add(WORDS.get(random.nextInt(WORDS.size())));
+            }
+            document.addLine(words);
+        }
+        document.close();
+
+        blocks = new ArrayList<>();
+        for (int b = 0; b < document.blockStarts.size(); b++) {
+            int start = document.blockStarts.get(b);
+            int end = document.blockEnds.get(b);
+            blocks.add(newBlock(document.tokens.subList(start, end + 1), start, end));
+        }
+        // a block without tokens, a block of white spaces, a block outside of the document tokenization
+        blocks.add(3, new Block());
+        blocks.add(5, newBlock(Arrays.asList(new LayoutToken(" "), new LayoutToken("\n"), new LayoutToken("\t")),
+                document.blockStarts.get(4), document.blockStarts.get(4) + 2));
+        blocks.add(newBlock(Arrays.asList(new LayoutToken("area"), new LayoutToken("\r"), new LayoutToken("\n"),
+                new LayoutToken("noun")), -1, -1));
+
+        Document doc = createMock(Document.class);
+        expect(doc.getBlocks()).andStubReturn(blocks);
+        replay(doc);
+        target = DocumentLineIndex.of(doc);
+    }
+
+    @Test
+    public void testSameLinesAsTheBlockText() throws Exception {
+        int significantLines = 0;
+        for (int blockIndex = 0; blockIndex < blocks.size(); blockIndex++) {
+            Block block = blocks.get(blockIndex);
+            String[] lines = DocumentLineIndexReference.getLines(block);
+
+            assertThat("block " + blockIndex, target.isBlank(blockIndex), is(DocumentLineIndexReference.isBlank(block)));
+            assertThat("block " + blockIndex, target.getMaxLineLength(block),
+                    is(DocumentLineIndexReference.getMaxLineLength(block)));
+            assertThat("block " + blockIndex, target.getLines(blockIndex).length, is(lines.length));
+            assertThat("block " + blockIndex, target.getLines(block), is(target.getLines(blockIndex)));
+
+            for (int indexLine = 0; indexLine < lines.length; indexLine++) {
+                DocumentLineIndex.Line line = target.getLines(blockIndex)[indexLine];
+                String message = "block " + blockIndex + ", line " + indexLine;
+
+                assertThat(message, line.getBlockIndex(), is(blockIndex));
+                assertThat(message, line.getIndexInBlock(), is(indexLine));
+                assertThat(message, line.getText(), is(lines[indexLine]));
+                assertThat(message, line.getTrimmedText(), is(lines[indexLine].trim()));
+                assertThat(message, line.isSignificant(), is(DocumentLineIndexReference.isSignificant(lines[indexLine])));
+                assertThat(message, new int[]{line.getStartToken(), line.getEndToken()},
+                        is(DocumentLineIndexReference.getTokenRange(block, indexLine)));
+                significantLines += line.isSignificant() ? 1 : 0;
+            }
+        }
+        assertThat(significantLines, greaterThan(0));
+    }
+
+    @Test
+    public void testGetLines_blockNotInTheDocument_shouldSplitItsText() throws Exception {
+        Block block = newBlock(Arrays.asList(new LayoutToken("area"), new LayoutToken("\n"), new LayoutToken("noun")),
+                10, 12);
+
+        DocumentLineIndex.Line[] lines = target.getLines(block);
+
+        assertThat(lines.length, is(2));
+        assertThat(lines[1].getText(), is("noun"));
+        assertThat(lines[1].getBlockIndex(), is(-1));
+        assertThat(new int[]{lines[1].getStartToken(), lines[1].getEndToken()}, is(new int[]{12, 12}));
+    }
+
+    private static Block newBlock(List<LayoutToken> tokens, int startToken, int endToken) {
+        Block block = new Block();
+        StringBuilder text = new StringBuilder();
+        for (LayoutToken token : tokens) {
+            block.addToken(token);
+            text.append(token.getText());
+        }
+        block.setText(text.toString());
+        block.setStartToken(startToken);
+        block.setEndToken(endToken);
+        return block;
+    }
+}
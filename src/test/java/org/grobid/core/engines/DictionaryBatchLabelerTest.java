@@ -0,0 +1,57 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.EngineMockTest;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class DictionaryBatchLabelerTest extends EngineMockTest {
+
+    @Test
+    public void testLabel_shouldSplitTheOutputBySequence() throws Exception {
+        FakeTaggerParser parser = new FakeTaggerParser();
+        DictionaryProgress progress = new DictionaryProgress();
+
+        List<String> outputs = DictionaryBatchLabeler.label(parser,
+                Arrays.asList("a f1\nb f1\n", "", "c f2\n", "d f3\ne f3\nf f3"), progress);
+
+        assertThat(outputs, contains("a f1\tL\nb f1\tL\n", "", "c f2\tL\n", "d f3\tL\ne f3\tL\nf f3\tL\n"));
+        assertThat(parser.calls, is(1));
+        assertThat(progress.getTaggerCalls(), is(1));
+        assertThat(progress.getLabeledSequences(), is(3));
+    }
+
+    @Test
+    public void testLabel_blankSequences_shouldNotCallTheTagger() throws Exception {
+        FakeTaggerParser parser = new FakeTaggerParser();
+        DictionaryProgress progress = new DictionaryProgress();
+
+        List<String> outputs = DictionaryBatchLabeler.label(parser, Arrays.asList("", " \n"), progress);
+
+        assertThat(outputs, contains("", ""));
+        assertThat(parser.calls, is(0));
+        assertThat(progress.getTaggerCalls(), is(0));
+    }
+
+    /**
+     * Labels every token with L, and separates the sequences with a blank line as Wapiti does
+     */
+    private static class FakeTaggerParser extends FormParser {
+        private int calls;
+
+        @Override
+        public String label(String data) {
+            calls++;
+            StringBuilder output = new StringBuilder();
+            for (String line : data.split("\n", -1)) {
+                output.append(line.isEmpty() ? "" : line + "\tL").append("\n");
+            }
+            return output.toString();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.grobid.core.engines;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.EngineMockTest;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.utilities.DictionaryProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.grobid.core.engines.label.DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Runs the full cascade on the lexical entries of the toy data (see ToyDataEntries) with one tagger call per sequence
+ * and with batched labeling, and checks that the TEI is identical and that the batched labeling calls the tagger once
+ * per stage of the cascade and chunk.
+ */
+public class DictionaryBatchLabelingTest extends EngineMockTest {
+
+    private static final String FULL_DICTIONARY = "form-sense-etym-re-xr-subEntry-note";
+    private static final String FULL_DICTIONARY_SUB_SENSES = "form-subSense-etym-re-xr-subEntry-note";
+
+    // lexical entry, form, sense, etym quote, then sub-sense, sense again on the segments of the senses, and etym
+    private static final int CASCADE_STAGES = 7;
+
+    private DictionaryBodySegmentationParser target;
+
+    @Before
+    public void setUp() throws Exception {
+        target = DictionaryBodySegmentationParser.getInstance();
+        System.setProperty(DictionaryProperties.CASCADE_PARALLELISM, "1");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(DictionaryProperties.CASCADE_PARALLELISM);
+        System.clearProperty(DictionaryProperties.CASCADE_BATCH_SIZE);
+    }
+
+    @Test
+    public void testFullDictionary_batched_shouldMatchPerSequenceLabeling() throws Exception {
+        compareBatchedWithPerSequence(FULL_DICTIONARY);
+    }
+
+    @Test
+    public void testFullDictionarySubSenses_batched_shouldMatchPerSequenceLabeling() throws Exception {
+        compareBatchedWithPerSequence(FULL_DICTIONARY_SUB_SENSES);
+    }
+
+    private void compareBatchedWithPerSequence(String modelToRun) throws Exception {
+        DictionaryParserSet parsers = new DictionaryParserSet();
+
+        System.setProperty(DictionaryProperties.CASCADE_BATCH_SIZE, "1");
+        StringBuilder expected = new StringBuilder();
+        target.processFullBodyComponentsToTEI(readBodyComponents(), expected, modelToRun, parsers, new DictionaryProgress(), null);
+
+        // several chunks for the toy data
+        System.setProperty(DictionaryProperties.CASCADE_BATCH_SIZE, "16");
+        DictionaryProgress progress = new DictionaryProgress();
+        StringBuilder batched = new StringBuilder();
+        target.processFullBodyComponentsToTEI(readBodyComponents(), batched, modelToRun, parsers, progress, null);
+
+        assertThat(batched.toString(), is(expected.toString()));
+        assertThat(progress.getLabeledChunks(), greaterThan(1));
+        assertThat(progress.getTaggerCalls(), lessThanOrEqualTo(CASCADE_STAGES * progress.getLabeledChunks()));
+    }
+
+    /**
+     * The tokens are read again for each run, as the ones of a document processed twice
+     */
+    private static List<Pair<List<LayoutToken>, String>> readBodyComponents() throws Exception {
+        List<Pair<List<LayoutToken>, String>> bodyComponents = new ArrayList<>();
+        for (List<LayoutToken> entry : ToyDataEntries.read(new File("toyData"))) {
+            bodyComponents.add(Pair.of(entry, DICTIONARY_ENTRY_LABEL));
+        }
+        return bodyComponents;
+    }
+}
@@ -0,0 +1,106 @@
+package org.grobid.core.engines;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.EngineMockTest;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.utilities.DictionaryProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.grobid.core.engines.label.DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Runs the lexical entries of the toy data (see ToyDataEntries) through one shared DictionaryBodySegmentationParser,
+ * first sequentially and then concurrently, and checks that every concurrent output is identical to the sequential
+ * one: several documents at the same time, and the entries of one document on the cascade pool.
+ */
+public class DictionaryBodySegmentationParserConcurrencyTest extends EngineMockTest {
+
+    private static final String FULL_DICTIONARY = "form-sense-etym-re-xr-subEntry-note";
+    private static final String FULL_DICTIONARY_SUB_SENSES = "form-subSense-etym-re-xr-subEntry-note";
+
+    private static final int RUNS = 4;
+
+    private DictionaryBodySegmentationParser target;
+
+    @Before
+    public void setUp() throws Exception {
+        target = DictionaryBodySegmentationParser.getInstance();
+        System.setProperty(DictionaryProperties.CASCADE_PARALLELISM, "1");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(DictionaryProperties.CASCADE_PARALLELISM);
+        System.clearProperty(DictionaryProperties.CASCADE_BATCH_SIZE);
+    }
+
+    @Test
+    public void testFullDictionary_concurrentRuns_shouldMatchSequentialRuns() throws Exception {
+        compareConcurrentWithSequential(FULL_DICTIONARY);
+    }
+
+    @Test
+    public void testFullDictionarySubSenses_concurrentRuns_shouldMatchSequentialRuns() throws Exception {
+        compareConcurrentWithSequential(FULL_DICTIONARY_SUB_SENSES);
+    }
+
+    @Test
+    public void testFullDictionary_cascadePool_shouldMatchSequentialRun() throws Exception {
+        for (String batchSize : new String[]{"1", "64"}) {
+            System.setProperty(DictionaryProperties.CASCADE_BATCH_SIZE, batchSize);
+
+            System.setProperty(DictionaryProperties.CASCADE_PARALLELISM, "1");
+            String expected = process(FULL_DICTIONARY, new DictionaryParserSet());
+
+            System.setProperty(DictionaryProperties.CASCADE_PARALLELISM, "4");
+            assertThat("batch size " + batchSize, process(FULL_DICTIONARY, new DictionaryParserSet()), is(expected));
+        }
+    }
+
+    private void compareConcurrentWithSequential(final String modelToRun) throws Exception {
+        String expected = process(modelToRun, new DictionaryParserSet());
+
+        // each run has its own parser set and its own tokens, as the requests of the service
+        ExecutorService executor = Executors.newFixedThreadPool(RUNS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int run = 0; run < RUNS; run++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return process(modelToRun, new DictionaryParserSet());
+                    }
+                }));
+            }
+
+            for (Future<String> result : results) {
+                assertThat(result.get(), is(expected));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String process(String modelToRun, DictionaryParserSet parsers) throws Exception {
+        List<Pair<List<LayoutToken>, String>> bodyComponents = new ArrayList<>();
+        for (List<LayoutToken> entry : ToyDataEntries.read(new File("toyData"))) {
+            bodyComponents.add(Pair.of(entry, DICTIONARY_ENTRY_LABEL));
+        }
+
+        StringBuilder tei = new StringBuilder();
+        target.processFullBodyComponentsToTEI(bodyComponents, tei, modelToRun, parsers, new DictionaryProgress(), null);
+        return tei.toString();
+    }
+}
@@ -0,0 +1,161 @@
+package org.grobid.core.engines;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.GrobidModel;
+import org.grobid.core.data.LabeledLexicalInformation;
+import org.grobid.core.document.DictionaryCascadeArtifact;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.utilities.DictionaryProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class DictionaryCascadeArtifactsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File pdf;
+    private File models;
+    private File directory;
+    private StubArtifacts target;
+
+    @Before
+    public void setUp() throws Exception {
+        System.setProperty(DictionaryProperties.ARTIFACTS_ENABLED, "true");
+        pdf = folder.newFile("dictionary.pdf");
+        FileUtils.writeStringToFile(pdf, "%PDF-1.4 dictionary", StandardCharsets.UTF_8);
+        models = folder.newFolder("models");
+        directory = new File(folder.getRoot(), "artifacts");
+        target = new StubArtifacts(directory, models);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(DictionaryProperties.ARTIFACTS_ENABLED);
+    }
+
+    @Test
+    public void testGet_shouldBeReadFromTheArtifactOnTheNextRun() throws Exception {
+        assertThat(target.get(pdf).getLexicalEntries().size(), is(1));
+        assertThat(target.getFile(pdf).exists(), is(true));
+
+        DictionaryCascadeArtifact artifact = target.get(pdf);
+
+        assertThat(artifact.getLexicalEntries().get(0).getLabels().get(0).getRight(), is("<form>"));
+        assertThat(target.segmentations, is(1));
+        assertThat(target.labelings, is(1));
+    }
+
+    @Test
+    public void testGet_bodySegmentationOnly_shouldNotLabelTheLexicalEntries() throws Exception {
+        assertThat(target.get(pdf).getBodyComponents().getLabels().size(), is(1));
+
+        assertThat(target.labelings, is(0));
+        assertThat(directory.exists(), is(false));
+    }
+
+    @Test
+    public void testGet_modelChanged_shouldRunTheCascadeAgain() throws Exception {
+        target.get(pdf).getLexicalEntries();
+        File before = target.getFile(pdf);
+
+        // a new instance, as for the next run of a command
+        target = new StubArtifacts(directory, models);
+        FileUtils.writeStringToFile(target.getModelFile(DictionaryModels.LEXICAL_ENTRY), "retrained model",
+                StandardCharsets.UTF_8);
+        target.get(pdf).getLexicalEntries();
+
+        assertThat(target.getFile(pdf), is(not(before)));
+        assertThat(target.segmentations, is(1));
+        assertThat(target.labelings, is(1));
+        assertThat(directory.list().length, is(2));
+    }
+
+    @Test
+    public void testGetFile_cascadeVersionChanged_shouldChangeTheKey() throws Exception {
+        int version = DictionaryCascadeArtifact.CASCADE_VERSION;
+
+        assertThat(target.getFile(pdf), is(target.getFile(pdf, version)));
+        assertThat(target.getFile(pdf, version + 1), is(not(target.getFile(pdf, version))));
+    }
+
+    @Test
+    public void testGet_corruptArtifact_shouldRunTheCascadeAgainAndReplaceIt() throws Exception {
+        File file = target.getFile(pdf);
+        FileUtils.writeStringToFile(file, "not an artifact", StandardCharsets.UTF_8);
+
+        assertThat(target.get(pdf).getLexicalEntries().size(), is(1));
+
+        assertThat(target.segmentations, is(1));
+        assertThat(target.labelings, is(1));
+        assertThat(DictionaryCascadeArtifact.read(file).getLexicalEntries().size(), is(1));
+    }
+
+    @Test
+    public void testGet_disabled_shouldWriteNothing() throws Exception {
+        System.setProperty(DictionaryProperties.ARTIFACTS_ENABLED, "false");
+
+        assertThat(target.get(pdf).getLexicalEntries().size(), is(1));
+        assertThat(target.get(pdf).getLexicalEntries().size(), is(1));
+
+        assertThat(target.segmentations, is(2));
+        assertThat(target.labelings, is(2));
+        assertThat(directory.exists(), is(false));
+    }
+
+    /**
+     * Artifacts of a body with a single entry, labeled as a single form, the model files being the ones of the given
+     * directory
+     */
+    private static class StubArtifacts extends DictionaryCascadeArtifacts {
+        private final File models;
+        private int segmentations = 0;
+        private int labelings = 0;
+
+        StubArtifacts(File directory, File models) {
+            super(directory);
+            this.models = models;
+        }
+
+        @Override
+        LabeledLexicalInformation segmentBody(File pdf) {
+            segmentations++;
+            List<LayoutToken> entry = new ArrayList<>();
+            for (String text : new String[]{"abaisser", " ", "v.", "\n", "tr."}) {
+                LayoutToken token = new LayoutToken(text);
+                token.setPage(1);
+                entry.add(token);
+            }
+            LabeledLexicalInformation bodyComponents = new LabeledLexicalInformation();
+            bodyComponents.addLabel(Pair.of(entry, "<entry>"));
+            return bodyComponents;
+        }
+
+        @Override
+        List<LabeledLexicalInformation> labelLexicalEntries(LabeledLexicalInformation bodyComponents) {
+            labelings++;
+            LabeledLexicalInformation lexicalEntry = new LabeledLexicalInformation();
+            lexicalEntry.addLabel(Pair.of(bodyComponents.getLabels().get(0).getLeft(), "<form>"));
+            return Collections.singletonList(lexicalEntry);
+        }
+
+        @Override
+        File getModelFile(GrobidModel model) {
+            return new File(models, model.getModelName() + ".wapiti");
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.grobid.core.engines;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.document.DictionaryDocument;
+import org.grobid.core.document.DocumentUtils;
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.grobid.core.features.FeatureVectorLexicalEntry;
+import org.grobid.core.features.FeaturesUtils;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.main.LibraryLoader;
+import org.grobid.core.utilities.GrobidProperties;
+import org.grobid.core.utilities.LayoutTokensUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.grobid.core.engines.label.DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL;
+import static org.grobid.core.engines.label.FormLabels.GRAMMATICAL_GROUP_FORM_LABEL;
+import static org.grobid.core.engines.label.FormLabels.ORTHOGRAPHY_FORM_LABEL;
+import static org.grobid.core.engines.label.FormLabels.PRONUNCIATION_FORM_LABEL;
+
+/**
+ * Hot paths of the dictionary cascade on the lexical entries of the toy data (see ToyDataEntries): feature vectors,
+ * punctuation type, clustering of a form labeled output, TEI elements and the whole cascade from the lexical entries
+ * down to the forms, senses and etyms.
+ *
+ * The cascade and the line features of the dictionary segmentation need the trained models and pdfalto of the grobid
+ * home, and the line features a PDF given with -Dgrobid.dictionaries.benchmark.pdf. Run them with
+ * mvn -P benchmark verify, which leaves out the line features unless the exclusions are changed, see docs/Benchmarks.md.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DictionaryCascadeBenchmark {
+
+    private static final String PDF_PROPERTY = "grobid.dictionaries.benchmark.pdf";
+    private static final String CASCADE_MODELS = "form-sense-etym-re-xr-subEntry-note";
+
+    @Param({"toyData"})
+    public String dataDirectory;
+
+    private List<List<LayoutToken>> entries;
+    private List<String> words;
+    private List<String> entryTexts;
+    private List<String> formOutputs;
+    private DocumentUtils formatter;
+
+    @State(Scope.Benchmark)
+    public static class Cascade {
+
+        @Param({"10"})
+        public int copies;
+
+        DictionaryBodySegmentationParser parser;
+        DictionaryParserSet parsers;
+        List<Pair<List<LayoutToken>, String>> bodyComponents;
+
+        @Setup
+        public void setUp(DictionaryCascadeBenchmark benchmark) throws Exception {
+            initGrobid();
+            parser = new DictionaryBodySegmentationParser();
+            parsers = new DictionaryParserSet();
+
+            // the tokens of each copy are read again, so that no token is shared by two entries
+            bodyComponents = new ArrayList<>();
+            for (int i = 0; i < copies; i++) {
+                for (List<LayoutToken> entry : ToyDataEntries.read(new File(benchmark.dataDirectory))) {
+                    bodyComponents.add(Pair.of(entry, DICTIONARY_ENTRY_LABEL));
+                }
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PdfDocument {
+
+        DictionarySegmentationParser parser;
+        DictionaryDocument document;
+
+        @Setup
+        public void setUp() {
+            String pdf = System.getProperty(PDF_PROPERTY, "");
+            if (pdf.isEmpty()) {
+                throw new IllegalStateException("No PDF for the dictionary segmentation, give it with -D" + PDF_PROPERTY);
+            }
+            initGrobid();
+            parser = new DictionarySegmentationParser();
+            document = parser.initiateProcessing(new File(pdf), GrobidAnalysisConfig.defaultInstance());
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        LibraryLoader.load();
+
+        entries = ToyDataEntries.read(new File(dataDirectory));
+        formatter = new DocumentUtils();
+        words = new ArrayList<>();
+        entryTexts = new ArrayList<>();
+        formOutputs = new ArrayList<>();
+        for (List<LayoutToken> entry : entries) {
+            for (LayoutToken token : entry) {
+                if (!token.getText().trim().isEmpty()) {
+                    words.add(token.getText());
+                }
+            }
+            entryTexts.add(LayoutTokensUtil.normalizeText(LayoutTokensUtil.toText(entry)));
+            formOutputs.add(formOutput(entry));
+        }
+    }
+
+    @Benchmark
+    public void createFeaturesFromLayoutTokens(Blackhole blackhole) {
+        for (List<LayoutToken> entry : entries) {
+            blackhole.consume(FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(entry));
+        }
+    }
+
+    @Benchmark
+    public void checkPunctuationType(Blackhole blackhole) {
+        for (String word : words) {
+            blackhole.consume(FeaturesUtils.checkPunctuationType(word));
+        }
+    }
+
+    @Benchmark
+    public void taggingTokenClusteror(Blackhole blackhole) {
+        for (int i = 0; i < entries.size(); i++) {
+            blackhole.consume(new TaggingTokenClusteror(DictionaryModels.FORM, formOutputs.get(i), entries.get(i)).cluster());
+        }
+    }
+
+    @Benchmark
+    public void createMyXMLString(Blackhole blackhole) {
+        for (String entryText : entryTexts) {
+            blackhole.consume(formatter.createMyXMLString(ORTHOGRAPHY_FORM_LABEL, null, entryText));
+        }
+    }
+
+    @Benchmark
+    public String getAllLinesFeatured(PdfDocument pdfDocument) {
+        return pdfDocument.parser.getAllLinesFeatured(pdfDocument.document);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public String fullCascade(Cascade cascade) {
+        return cascade.parser.processFullBodyComponentsChunkToTEI(cascade.bodyComponents, true, CASCADE_MODELS,
+                cascade.parsers, new DictionaryProgress());
+    }
+
+    /**
+     * Output of the form model as the tagger gives it: the feature vector of each token followed by its label, the
+     * orthography on the first line of the entry, the pronunciation on the second one and the grammatical group after
+     */
+    private static String formOutput(List<LayoutToken> entry) {
+        String[] rows = FeatureVectorLexicalEntry.createFeaturesFromLayoutTokens(entry).toString().split("\n");
+        StringBuilder output = new StringBuilder();
+        int row = 0;
+        int line = 0;
+        boolean lineStart = true;
+        for (LayoutToken token : entry) {
+            if (token.getText().equals("\n")) {
+                line++;
+                lineStart = true;
+            }
+            if (token.getText().trim().isEmpty() || row >= rows.length) {
+                continue;
+            }
+            String label = line == 0 ? ORTHOGRAPHY_FORM_LABEL : line == 1 ? PRONUNCIATION_FORM_LABEL : GRAMMATICAL_GROUP_FORM_LABEL;
+            output.append(rows[row++]).append('\t').append(lineStart ? "I-" : "").append(label).append('\n');
+            lineStart = false;
+        }
+        return output.toString();
+    }
+
+    private static void initGrobid() {
+        GrobidProperties.getInstance();
+        LibraryLoader.load();
+    }
+}
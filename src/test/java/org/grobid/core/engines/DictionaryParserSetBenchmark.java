@@ -0,0 +1,83 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.main.LibraryLoader;
+import org.grobid.core.utilities.GrobidProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsers used for the lexical entries of the toy data (see ToyDataEntries): built again for each entry, as
+ * processALexicalEntryComponentToTEI did before DictionaryParserSet (a lexical entry, form, sense, etym quote and
+ * etym parser per entry component, counted here once per entry), or taken from one DictionaryParserSet reused for all
+ * the entries. The benchmark profile runs them with -prof gc: gc.alloc.rate.norm gives the bytes allocated for all
+ * the entries of the toy data by each way.
+ *
+ * The parsers load their models from the grobid home, without the trained models both benchmarks fail, see
+ * docs/Benchmarks.md.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DictionaryParserSetBenchmark {
+
+    @Param({"toyData"})
+    public String dataDirectory;
+
+    private List<List<LayoutToken>> entries;
+    private DictionaryParserSet parsers;
+
+    @Setup
+    public void setUp() throws Exception {
+        GrobidProperties.getInstance();
+        LibraryLoader.load();
+
+        entries = ToyDataEntries.read(new File(dataDirectory));
+        parsers = new DictionaryParserSet();
+        // the models are loaded before the measurements, for both ways
+        parsers.getLexicalEntryParser();
+        parsers.getFormParser();
+        parsers.getSenseParser();
+        parsers.getEtymQuoteParser();
+        parsers.getEtymParser();
+    }
+
+    @Benchmark
+    public void newParsersPerEntry(Blackhole blackhole) {
+        for (int i = 0; i < entries.size(); i++) {
+            blackhole.consume(new LexicalEntryParser());
+            blackhole.consume(new FormParser());
+            blackhole.consume(new SenseParser());
+            blackhole.consume(new EtymQuoteParser());
+            blackhole.consume(new EtymParser());
+        }
+    }
+
+    @Benchmark
+    public void parserSetPerEntry(Blackhole blackhole) {
+        for (int i = 0; i < entries.size(); i++) {
+            blackhole.consume(parsers.getLexicalEntryParser());
+            blackhole.consume(parsers.getFormParser());
+            blackhole.consume(parsers.getSenseParser());
+            blackhole.consume(parsers.getEtymQuoteParser());
+            blackhole.consume(parsers.getEtymParser());
+        }
+    }
+}
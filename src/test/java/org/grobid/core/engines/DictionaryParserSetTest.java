@@ -0,0 +1,27 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.EngineMockTest;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class DictionaryParserSetTest extends EngineMockTest {
+
+    @Test
+    public void testParsersAreBuiltOnce() throws Exception {
+        DictionaryParserSet parsers = new DictionaryParserSet();
+
+        assertThat(parsers.getLexicalEntryParser(), sameInstance(parsers.getLexicalEntryParser()));
+        assertThat(parsers.getFormParser(), sameInstance(parsers.getFormParser()));
+        assertThat(parsers.getSenseParser(), sameInstance(parsers.getSenseParser()));
+        assertThat(parsers.getSubSenseParser(), sameInstance(parsers.getSubSenseParser()));
+        assertThat(parsers.getEtymQuoteParser(), sameInstance(parsers.getEtymQuoteParser()));
+        assertThat(parsers.getEtymParser(), sameInstance(parsers.getEtymParser()));
+    }
+
+    @Test
+    public void testForCurrentThread() throws Exception {
+        assertThat(DictionaryParserSet.forCurrentThread(), sameInstance(DictionaryParserSet.forCurrentThread()));
+    }
+}
@@ -0,0 +1,110 @@
+package org.grobid.core.engines;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DictionaryTrainingBatchTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File input;
+    private File output;
+
+    @Before
+    public void setUp() throws Exception {
+        input = folder.newFolder("input");
+        output = folder.newFolder("output");
+        for (String name : Arrays.asList("a.pdf", "b.pdf", "c.pdf", "notes.txt", "sub/d.pdf")) {
+            FileUtils.writeStringToFile(new File(input, name), name, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testCreateTrainingBatch_shouldGoOnAfterAFailureAndSkipTheFilesDoneOnRerun() throws Exception {
+        final List<String> created = new CopyOnWriteArrayList<>();
+        DictionaryTrainingBatch.TrainingFileCreator failingOnB = (pdf, outputDirectory) -> {
+            if (pdf.getName().equals("b.pdf")) {
+                throw new IllegalStateException("cannot parse\nb.pdf");
+            }
+            created.add(pdf.getName());
+        };
+
+        int processed = new DictionaryTrainingBatch("form", false, 2, false)
+                .createTrainingBatch(input.getPath(), output.getPath(), failingOnB);
+
+        assertThat(processed, is(2));
+        assertThat(created, containsInAnyOrder("a.pdf", "c.pdf"));
+        assertThat(new File(output, "form.rng").exists(), is(true));
+        assertThat(new File(output, "form.css").exists(), is(true));
+        File manifest = new File(output, "form.training.manifest.tsv");
+        assertThat(DictionaryTrainingBatch.readDone(manifest), containsInAnyOrder("a.pdf", "c.pdf"));
+        assertThat(FileUtils.readFileToString(manifest, StandardCharsets.UTF_8).contains("b.pdf\tFAILED\t"), is(true));
+
+        // the failed file is retried, the others are skipped
+        created.clear();
+        processed = new DictionaryTrainingBatch("form", false, 2, true)
+                .createTrainingBatch(input.getPath(), output.getPath(), (pdf, outputDirectory) -> created.add(pdf.getName()));
+
+        assertThat(processed, is(2));
+        assertThat(created, containsInAnyOrder("b.pdf", "d.pdf"));
+        assertThat(DictionaryTrainingBatch.readDone(manifest),
+                containsInAnyOrder("a.pdf", "b.pdf", "c.pdf", "sub" + File.separator + "d.pdf"));
+    }
+
+    @Test
+    public void testCreateTrainingBatch_recursive_shouldNotOverwriteTheFilesOfAPdfOfTheSameName() throws Exception {
+        for (String name : Arrays.asList("x/a.pdf", "y/c.pdf")) {
+            FileUtils.writeStringToFile(new File(input, name), name, StandardCharsets.UTF_8);
+        }
+        final List<String> created = new CopyOnWriteArrayList<>();
+        DictionaryTrainingBatch.TrainingFileCreator creator = (pdf, outputDirectory) -> created.add(input.toPath().relativize(pdf.toPath()).toString());
+
+        int processed = new DictionaryTrainingBatch("form", false, 2, true)
+                .createTrainingBatch(input.getPath(), output.getPath(), creator);
+
+        assertThat(processed, is(4));
+        assertThat(created, containsInAnyOrder("a.pdf", "b.pdf", "c.pdf", "sub" + File.separator + "d.pdf"));
+        File manifest = new File(output, "form.training.manifest.tsv");
+        String records = FileUtils.readFileToString(manifest, StandardCharsets.UTF_8);
+        assertThat(records.contains("x" + File.separator + "a.pdf\tFAILED\t0\tsame file name as a.pdf"), is(true));
+        assertThat(records.contains("y" + File.separator + "c.pdf\tFAILED\t0\tsame file name as c.pdf"), is(true));
+
+        // they are not recorded as done, so they stay failed on rerun
+        created.clear();
+        processed = new DictionaryTrainingBatch("form", false, 2, true)
+                .createTrainingBatch(input.getPath(), output.getPath(), creator);
+
+        assertThat(processed, is(0));
+        assertThat(created.isEmpty(), is(true));
+        assertThat(DictionaryTrainingBatch.readDone(manifest),
+                containsInAnyOrder("a.pdf", "b.pdf", "c.pdf", "sub" + File.separator + "d.pdf"));
+    }
+
+    @Test
+    public void testCreateTrainingBatch_annotated_shouldHaveItsOwnManifest() throws Exception {
+        new DictionaryTrainingBatch("form", false, 1, false)
+                .createTrainingBatch(input.getPath(), output.getPath(), (pdf, outputDirectory) -> {});
+
+        final List<String> created = new CopyOnWriteArrayList<>();
+        int processed = new DictionaryTrainingBatch("form", true, 1, false)
+                .createTrainingBatch(input.getPath(), output.getPath(), (pdf, outputDirectory) -> created.add(pdf.getName()));
+
+        assertThat(processed, is(3));
+        assertThat(created, containsInAnyOrder("a.pdf", "b.pdf", "c.pdf"));
+        assertThat(new File(output, "form.annotatedTraining.manifest.tsv").exists(), is(true));
+    }
+}
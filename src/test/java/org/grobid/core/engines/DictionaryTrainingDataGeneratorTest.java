@@ -0,0 +1,193 @@
+package org.grobid.core.engines;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.EngineMockTest;
+import org.grobid.core.data.LabeledLexicalInformation;
+import org.grobid.core.document.DictionaryCascadeArtifact;
+import org.grobid.core.layout.LayoutToken;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.grobid.core.engines.label.DictionaryBodySegmentationLabels.DICTIONARY_ENTRY_LABEL;
+import static org.grobid.core.engines.label.EtymLabels.LANG_ETYM_LABEL;
+import static org.grobid.core.engines.label.EtymLabels.MENTIONED_ETYM_LABEL;
+import static org.grobid.core.engines.label.EtymQuoteLabels.QUOTE__ETYMQUOTE_LABEL;
+import static org.grobid.core.engines.label.EtymQuoteLabels.SEG_ETYMQUOTE_LABEL;
+import static org.grobid.core.engines.label.FormLabels.GRAMMATICAL_GROUP_FORM_LABEL;
+import static org.grobid.core.engines.label.FormLabels.ORTHOGRAPHY_FORM_LABEL;
+import static org.grobid.core.engines.label.FormLabels.PRONUNCIATION_FORM_LABEL;
+import static org.grobid.core.engines.label.LexicalEntryLabels.LEXICAL_ENTRY_ETYM_LABEL;
+import static org.grobid.core.engines.label.LexicalEntryLabels.LEXICAL_ENTRY_FORM_LABEL;
+import static org.grobid.core.engines.label.LexicalEntryLabels.LEXICAL_ENTRY_SENSE_LABEL;
+import static org.grobid.core.engines.label.SenseLabels.NOTE_SENSE_LABEL;
+import static org.grobid.core.engines.label.SenseLabels.SUBSENSE_SENSE_LABEL;
+import static org.grobid.core.engines.label.SubSenseLabels.SUB_SENSE_DEF_LABEL;
+import static org.grobid.core.engines.label.SubSenseLabels.SUB_SENSE_EXAMPLE_LABEL;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Training data of the lexical entry level and of the levels below it for the lexical entries of the toy data (see
+ * ToyDataEntries), written by the all-levels run (lexical entries labeled in one batch) and by the createTraining*
+ * method of each level on lexical entries labeled one by one, as the per-level commands did before. The parsers
+ * handed the lexical entries label with fake taggers; the sense and etym quote parsers run inside the sub-sense and
+ * etym levels use the models of the grobid home, in both runs.
+ */
+public class DictionaryTrainingDataGeneratorTest extends EngineMockTest {
+
+    private static final List<String> LEVELS = Arrays.asList("lexicalEntry", "form", "sense", "subSense", "etymQuote", "etym");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAllLevels_shouldWriteTheFilesOfThePerLevelRuns() throws Exception {
+        File pdf = new File(folder.getRoot(), "Basic15-18.pdf");
+        File allLevels = folder.newFolder("allLevels");
+        File perLevel = folder.newFolder("perLevel");
+        FakeParserSet parsers = new FakeParserSet();
+
+        // all levels: the lexical entries are labeled in one batch, when the artifact is first read
+        LabeledLexicalInformation bodyComponents = readBodyComponents();
+        DictionaryCascadeArtifact artifact = new DictionaryCascadeArtifact(bodyComponents,
+                parsers.getLexicalEntryParser()::processLexicalEntries);
+        DictionaryTrainingDataGenerator.getInstance()
+                .createTrainingLexicalEntryLevels(pdf, artifact, allLevels.getPath(), true, parsers);
+
+        // per level: the lexical entries are labeled one by one
+        bodyComponents = readBodyComponents();
+        List<LabeledLexicalInformation> lexicalEntries = new ArrayList<>();
+        for (Pair<List<LayoutToken>, String> bodyComponent : bodyComponents.getLabels()) {
+            lexicalEntries.add(parsers.getLexicalEntryParser().process(bodyComponent.getLeft(), DICTIONARY_ENTRY_LABEL));
+        }
+        parsers.getLexicalEntryParser().createTrainingLexicalEntries(pdf, bodyComponents, perLevel.getPath(), true);
+        parsers.getFormParser().createTrainingForm(pdf, lexicalEntries, perLevel.getPath(), true);
+        parsers.getSenseParser().createTrainingSense(pdf, lexicalEntries, perLevel.getPath(), true);
+        parsers.getSubSenseParser().createTrainingSubSense(pdf, lexicalEntries, perLevel.getPath(), true);
+        parsers.getEtymQuoteParser().createTrainingtoEtymQuote(pdf, lexicalEntries, perLevel.getPath(), true);
+        parsers.getEtymParser().createTrainingEtym(pdf, lexicalEntries, perLevel.getPath(), true);
+
+        for (String level : LEVELS) {
+            for (String extension : Arrays.asList("", ".rawtxt", ".tei.xml")) {
+                String name = "Basic15-18.training." + level + extension;
+                assertThat(name, read(new File(allLevels, name)), is(read(new File(perLevel, name))));
+            }
+        }
+        assertThat(allLevels.list().length, is(3 * LEVELS.size()));
+        assertThat(read(new File(allLevels, "Basic15-18.training.form.tei.xml")), containsString("<orth>"));
+        assertThat(read(new File(allLevels, "Basic15-18.training.sense.tei.xml")), containsString("<note>"));
+    }
+
+    /**
+     * The tokens are read again for each run, as the ones of a document processed twice
+     */
+    private static LabeledLexicalInformation readBodyComponents() throws Exception {
+        LabeledLexicalInformation bodyComponents = new LabeledLexicalInformation();
+        for (List<LayoutToken> entry : ToyDataEntries.read(new File("toyData"))) {
+            bodyComponents.addLabel(Pair.of(entry, DICTIONARY_ENTRY_LABEL));
+        }
+        return bodyComponents;
+    }
+
+    private static String read(File file) throws Exception {
+        return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Output of a tagger labeling the tokens of each sequence by segments of 4 tokens, with the given labels in turn,
+     * the sequences being separated with a blank line as Wapiti does
+     */
+    private static String fakeLabel(String data, String... labels) {
+        StringBuilder output = new StringBuilder();
+        int token = 0;
+        for (String line : data.split("\n", -1)) {
+            if (line.trim().isEmpty()) {
+                token = 0;
+                output.append("\n");
+                continue;
+            }
+            output.append(line).append('\t').append(token % 4 == 0 ? "I-" : "")
+                    .append(labels[(token / 4) % labels.length]).append('\n');
+            token++;
+        }
+        return output.toString();
+    }
+
+    private static class FakeParserSet extends DictionaryParserSet {
+        private final LexicalEntryParser lexicalEntryParser = new LexicalEntryParser() {
+            @Override
+            public String label(String data) {
+                return fakeLabel(data, LEXICAL_ENTRY_FORM_LABEL, LEXICAL_ENTRY_SENSE_LABEL, LEXICAL_ENTRY_ETYM_LABEL);
+            }
+        };
+        private final FormParser formParser = new FormParser() {
+            @Override
+            public String label(String data) {
+                return fakeLabel(data, ORTHOGRAPHY_FORM_LABEL, PRONUNCIATION_FORM_LABEL, GRAMMATICAL_GROUP_FORM_LABEL);
+            }
+        };
+        private final SenseParser senseParser = new SenseParser() {
+            @Override
+            public String label(String data) {
+                return fakeLabel(data, SUBSENSE_SENSE_LABEL, NOTE_SENSE_LABEL);
+            }
+        };
+        private final SubSenseParser subSenseParser = new SubSenseParser() {
+            @Override
+            public String label(String data) {
+                return fakeLabel(data, SUB_SENSE_DEF_LABEL, SUB_SENSE_EXAMPLE_LABEL);
+            }
+        };
+        private final EtymQuoteParser etymQuoteParser = new EtymQuoteParser() {
+            @Override
+            public String label(String data) {
+                return fakeLabel(data, SEG_ETYMQUOTE_LABEL, QUOTE__ETYMQUOTE_LABEL);
+            }
+        };
+        private final EtymParser etymParser = new EtymParser() {
+            @Override
+            public String label(String data) {
+                return fakeLabel(data, LANG_ETYM_LABEL, MENTIONED_ETYM_LABEL);
+            }
+        };
+
+        @Override
+        public LexicalEntryParser getLexicalEntryParser() {
+            return lexicalEntryParser;
+        }
+
+        @Override
+        public FormParser getFormParser() {
+            return formParser;
+        }
+
+        @Override
+        public SenseParser getSenseParser() {
+            return senseParser;
+        }
+
+        @Override
+        public SubSenseParser getSubSenseParser() {
+            return subSenseParser;
+        }
+
+        @Override
+        public EtymQuoteParser getEtymQuoteParser() {
+            return etymQuoteParser;
+        }
+
+        @Override
+        public EtymParser getEtymParser() {
+            return etymParser;
+        }
+    }
+}
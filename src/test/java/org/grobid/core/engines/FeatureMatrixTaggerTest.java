@@ -0,0 +1,140 @@
+package org.grobid.core.engines;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.EngineMockTest;
+import org.grobid.core.data.LabeledLexicalInformation;
+import org.grobid.core.engines.label.TaggingLabel;
+import org.grobid.core.features.FeatureMatrix;
+import org.grobid.core.features.TokenFeatureTable;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.tokenization.TaggingTokenCluster;
+import org.grobid.core.tokenization.TaggingTokenClusteror;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class FeatureMatrixTaggerTest extends EngineMockTest {
+
+    @Test
+    public void testSameClustersAsTheTextPath() throws Exception {
+        List<LayoutToken> first = entry("abandon", " ", "n.", " ", "m.", "\n", "Action", " ", "d'", "abandonner", ";",
+                " ", "DÉLAISSEMENT", " ", "(", "1080", ")", ".", " ");
+        List<LayoutToken> second = entry("  ", "abaque", " ", "n.", "\n", "m.", " ", "Tablette", ".");
+        List<List<LayoutToken>> sequences = Arrays.asList(first, second, new ArrayList<>());
+        TokenFeatureTable features = TokenFeatureTable.forSequences(sequences);
+
+        ScriptedTaggerParser parser = new ScriptedTaggerParser("I-<orth>", "I-<gramGrp>", "<gramGrp>",
+                "I-<dictScrap>", "<dictScrap>", "<dictScrap>", "I-<pc>", "I-<dictScrap>", "I-<dictScrap>",
+                "<dictScrap>", "<dictScrap>", "I-<pc>",
+                "I-<orth>", "I-<gramGrp>", "I-<gramGrp>", "<orth>", "I-<pc>");
+        DictionaryProgress progress = new DictionaryProgress();
+
+        List<LabeledLexicalInformation> labeled = DictionaryBatchLabeler.process(parser, DictionaryModels.FORM,
+                sequences, features, progress, FeatureMatrixTaggerTest::textClustering);
+
+        assertThat(parser.calls, is(1));
+        assertThat(progress.getLabeledSequences(), is(2));
+        for (int i = 0; i < sequences.size(); i++) {
+            List<String> expected = clusters(textClustering(sequences.get(i), parser.outputs.get(i)));
+            assertThat(clusters(labeled.get(i)), is(expected));
+        }
+        assertThat(clusters(labeled.get(0)).get(0), is("<orth>:abandon"));
+        assertThat(clusters(labeled.get(0)).get(1), is("<gramGrp>: n. m."));
+    }
+
+    @Test
+    public void testLabel_shouldReadTheLastColumn() throws Exception {
+        TaggingLabelVocabulary vocabulary = TaggingLabelVocabulary.forModel(DictionaryModels.FORM);
+        List<LayoutToken> entry = entry("abandon", " ", "n.");
+        FeatureMatrix matrix = TokenFeatureTable.forTokens(entry).getFeatureMatrixWithIds(entry);
+
+        List<int[]> labels = FeatureMatrixTagger.label(new ScriptedTaggerParser("I-<orth>", "<orth>"), vocabulary,
+                Arrays.asList(matrix, new FeatureMatrix("", new int[0])), new DictionaryProgress());
+
+        assertThat(labels.get(0).length, is(2));
+        assertThat(labels.get(1).length, is(0));
+        assertThat(vocabulary.isBeginning(labels.get(0)[0]), is(true));
+        assertThat(vocabulary.isBeginning(labels.get(0)[1]), is(false));
+        assertThat(vocabulary.getTaggingLabel(labels.get(0)[0]), is(vocabulary.getTaggingLabel(labels.get(0)[1])));
+        assertThat(vocabulary.getTaggingLabel(labels.get(0)[0]).getLabel(), is("<orth>"));
+    }
+
+    private static LabeledLexicalInformation textClustering(List<LayoutToken> sequence, String output) {
+        LabeledLexicalInformation labeled = new LabeledLexicalInformation();
+        if (output.trim().isEmpty()) {
+            return labeled;
+        }
+        for (TaggingTokenCluster cluster : new TaggingTokenClusteror(DictionaryModels.FORM, output, sequence).cluster()) {
+            TaggingLabel clusterLabel = cluster.getTaggingLabel();
+            labeled.addLabel(Pair.of(cluster.concatTokens(), clusterLabel.getLabel()));
+        }
+        return labeled;
+    }
+
+    private static List<String> clusters(LabeledLexicalInformation labeled) {
+        List<String> clusters = new ArrayList<>();
+        for (Pair<List<LayoutToken>, String> label : labeled.getLabels()) {
+            StringBuilder text = new StringBuilder();
+            for (LayoutToken token : label.getLeft()) {
+                text.append(token.getText());
+            }
+            clusters.add(label.getRight() + ":" + text.toString().replace("\n", " "));
+        }
+        return clusters;
+    }
+
+    private static List<LayoutToken> entry(String... texts) {
+        List<LayoutToken> tokens = new ArrayList<>();
+        for (int i = 0; i < texts.length; i++) {
+            LayoutToken token = new LayoutToken(texts[i]);
+            token.setFont("Times");
+            token.setFontSize(9.0);
+            token.setNewLineAfter(i + 1 < texts.length && texts[i + 1].equals("\n"));
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Gives the labels in order to the token lines, and separates the sequences with a blank line as Wapiti does.
+     * The output of each sequence is kept for the text path.
+     */
+    private static class ScriptedTaggerParser extends FormParser {
+        private final List<String> labels;
+        private final List<String> outputs = new ArrayList<>();
+        private int calls;
+
+        ScriptedTaggerParser(String... labels) {
+            this.labels = Arrays.asList(labels);
+        }
+
+        @Override
+        public String label(String data) {
+            calls++;
+            StringBuilder output = new StringBuilder();
+            StringBuilder sequenceOutput = new StringBuilder();
+            int position = 0;
+            for (String line : data.split("\n", -1)) {
+                if (line.isEmpty()) {
+                    output.append("\n");
+                    if (sequenceOutput.length() > 0) {
+                        outputs.add(sequenceOutput.toString());
+                        sequenceOutput.setLength(0);
+                    }
+                    continue;
+                }
+                String outputLine = line + "\t" + labels.get(position++) + "\n";
+                output.append(outputLine);
+                sequenceOutput.append(outputLine);
+            }
+            // the empty sequence has no output
+            outputs.add("");
+            return output.toString();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.grobid.core.engines;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alignment of the labeled lines of a synthetic 2,000 pages two-column dictionary to its tokens, with the token by
+ * token scan and with LineTokenAligner (its precomputation included).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LineTokenAlignerBenchmark {
+
+    private static final int NB_PAGES = 2000;
+    private static final int LINES_PER_COLUMN = 60;
+
+    private static final List<String> WORDS = Arrays.asList("abandon", "n.", "m.", "Action", "d'abandonner", ";",
+            "état", "de", "ce", "qui", "est", "abandonné", ".", "V.", "DÉLAISSEMENT", "(", "1080", ")");
+
+    private SyntheticSegmentationDocument document;
+
+    @Setup
+    public void setUp() {
+        // one block per column
+        document = new SyntheticSegmentationDocument(LINES_PER_COLUMN);
+        for (int line = 0; line < NB_PAGES * 2 * LINES_PER_COLUMN; line++) {
+            List<String> words = new ArrayList<>();
+            for (int i = 0; i < 4 + line % 5; i++) {
+                words.add(WORDS.get((line + i * 7) % WORDS.size()));
+            }
+            document.addLine(words);
+        }
+        document.close();
+    }
+
+    @Benchmark
+    public int tokenScan() {
+        int lastTokenInd = document.getLastTokenInd();
+        int checksum = 0;
+        for (int block = 0; block < document.blockStarts.size(); block++) {
+            int blockEnd = document.blockEnds.get(block);
+            int lineStartPosition = document.blockStarts.get(block);
+            for (String lineStart : document.labeledLines.get(block)) {
+                if (lineStartPosition > lastTokenInd) {
+                    continue;
+                }
+                lineStartPosition = LineTokenAlignerReference.findLineStart(document.tokens, lastTokenInd,
+                        lineStartPosition, blockEnd, lineStart);
+                int lineEndPosition = LineTokenAlignerReference.findLineEnd(document.tokens, lineStartPosition, blockEnd);
+                checksum += lineEndPosition - lineStartPosition;
+                lineStartPosition = lineEndPosition + 2;
+            }
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public int lineTokenAligner() {
+        int lastTokenInd = document.getLastTokenInd();
+        LineTokenAligner aligner = new LineTokenAligner(document.tokens, lastTokenInd);
+        int checksum = 0;
+        for (int block = 0; block < document.blockStarts.size(); block++) {
+            int blockEnd = document.blockEnds.get(block);
+            int lineStartPosition = document.blockStarts.get(block);
+            for (String lineStart : document.labeledLines.get(block)) {
+                if (lineStartPosition > lastTokenInd) {
+                    continue;
+                }
+                lineStartPosition = aligner.findLineStart(lineStartPosition, blockEnd, lineStart);
+                int lineEndPosition = aligner.findLineEnd(lineStartPosition, blockEnd);
+                checksum += lineEndPosition - lineStartPosition;
+                lineStartPosition = lineEndPosition + 2;
+            }
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,53 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.layout.LayoutToken;
+
+import java.util.List;
+
+/**
+ * The token by token scan of generalResultSegmentation that LineTokenAligner replaces, for the regression tests and
+ * the benchmarks.
+ */
+public class LineTokenAlignerReference {
+
+    public static int findLineStart(List<LayoutToken> documentTokens, int lastTokenInd, int currentLineStartPos,
+                                    int blockEndToken, String lineStart) {
+        while ((documentTokens.get(currentLineStartPos).t().equals(" ") ||
+                documentTokens.get(currentLineStartPos).t().equals("\t"))
+                && (currentLineStartPos != lastTokenInd)) {
+            currentLineStartPos++;
+        }
+        if (!lineStart.startsWith(documentTokens.get(currentLineStartPos).getText())) {
+            while (currentLineStartPos < blockEndToken) {
+                if (documentTokens.get(currentLineStartPos).t().equals("\n")
+                        || documentTokens.get(currentLineStartPos).t().equals("\r")) {
+                    currentLineStartPos++;
+                    while ((documentTokens.get(currentLineStartPos).t().equals(" ") ||
+                            documentTokens.get(currentLineStartPos).t().equals("\t"))
+                            && (currentLineStartPos != lastTokenInd)) {
+                        currentLineStartPos++;
+                    }
+                    if ((currentLineStartPos != lastTokenInd) &&
+                            lineStart.startsWith(documentTokens.get(currentLineStartPos).getText())) {
+                        break;
+                    }
+                }
+                currentLineStartPos++;
+            }
+        }
+        return currentLineStartPos;
+    }
+
+    public static int findLineEnd(List<LayoutToken> documentTokens, int currentLineStartPos, int blockEndToken) {
+        int currentLineEndPos = currentLineStartPos;
+        while (currentLineEndPos < blockEndToken) {
+            if (documentTokens.get(currentLineEndPos).t().equals("\n")
+                    || documentTokens.get(currentLineEndPos).t().equals("\r")) {
+                currentLineEndPos--;
+                break;
+            }
+            currentLineEndPos++;
+        }
+        return currentLineEndPos;
+    }
+}
@@ -0,0 +1,111 @@
+package org.grobid.core.engines;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LineTokenAlignerTest {
+
+    private static SyntheticSegmentationDocument document;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        document = new SyntheticSegmentationDocument(12);
+
+        // the lines of the toy dictionary segmentation corpus, from the two first words of their features
+        for (String set : Arrays.asList("corpus", "evaluation")) {
+            File segmentation = new File("toyData/dataset/dictionary-segmentation/" + set
+                    + "/raw/AFirstTwo.training.dictionarySegmentation");
+            for (String featureLine : FileUtils.readLines(segmentation, StandardCharsets.UTF_8)) {
+                String[] features = featureLine.trim().split("\\s+");
+                if (features.length > 2) {
+                    document.addLine(Arrays.asList(features[0], features[1]));
+                }
+            }
+        }
+
+        // the segmentation corpus is only a few lines: more lines from the tokens of the toy form corpus
+        File form = new File("toyData/dataset/form/corpus/raw/Basic15-18.training.form");
+        List<String> words = new ArrayList<>();
+        for (String featureLine : FileUtils.readLines(form, StandardCharsets.UTF_8)) {
+            String[] features = featureLine.trim().split("\\s+");
+            if (features.length < 3) {
+                continue;
+            }
+            if (features[features.length - 2].equals("LINESTART") && !words.isEmpty()) {
+                document.addLine(words);
+                words = new ArrayList<>();
+            }
+            words.add(features[0]);
+        }
+        if (!words.isEmpty()) {
+            document.addLine(words);
+        }
+        document.close();
+    }
+
+    @Test
+    public void testSamePositionsAsTheTokenScan() throws Exception {
+        int lastTokenInd = document.getLastTokenInd();
+        LineTokenAligner aligner = new LineTokenAligner(document.tokens, lastTokenInd);
+
+        int block = 0;
+        for (int position = 0; position <= lastTokenInd; position++) {
+            while (position > document.blockEnds.get(block)) {
+                block++;
+            }
+            int blockEnd = document.blockEnds.get(block);
+
+            for (String lineStart : Arrays.asList(document.tokens.get(position).getText(), "a", "@MISSING@")) {
+                assertThat("line start from " + position, aligner.findLineStart(position, blockEnd, lineStart),
+                        is(LineTokenAlignerReference.findLineStart(document.tokens, lastTokenInd, position, blockEnd, lineStart)));
+            }
+            assertThat("line end from " + position, aligner.findLineEnd(position, blockEnd),
+                    is(LineTokenAlignerReference.findLineEnd(document.tokens, position, blockEnd)));
+        }
+    }
+
+    @Test
+    public void testSameLinesAsTheTokenScan() throws Exception {
+        int lastTokenInd = document.getLastTokenInd();
+        LineTokenAligner aligner = new LineTokenAligner(document.tokens, lastTokenInd);
+
+        assertThat(alignLines(aligner, lastTokenInd, false), is(alignLines(aligner, lastTokenInd, true)));
+    }
+
+    // first and last token positions of the labeled lines, following them as generalResultSegmentation does
+    static List<Integer> alignLines(LineTokenAligner aligner, int lastTokenInd, boolean reference) {
+        List<Integer> positions = new ArrayList<>();
+        for (int block = 0; block < document.blockStarts.size(); block++) {
+            int blockEnd = document.blockEnds.get(block);
+            int lineStartPosition = document.blockStarts.get(block);
+            for (String lineStart : document.labeledLines.get(block)) {
+                if (lineStartPosition > lastTokenInd) {
+                    continue;
+                }
+                int lineEndPosition;
+                if (reference) {
+                    lineStartPosition = LineTokenAlignerReference.findLineStart(document.tokens, lastTokenInd,
+                            lineStartPosition, blockEnd, lineStart);
+                    lineEndPosition = LineTokenAlignerReference.findLineEnd(document.tokens, lineStartPosition, blockEnd);
+                } else {
+                    lineStartPosition = aligner.findLineStart(lineStartPosition, blockEnd, lineStart);
+                    lineEndPosition = aligner.findLineEnd(lineStartPosition, blockEnd);
+                }
+                positions.add(lineStartPosition);
+                positions.add(lineEndPosition);
+                lineStartPosition = lineEndPosition + 2;
+            }
+        }
+        return positions;
+    }
+}
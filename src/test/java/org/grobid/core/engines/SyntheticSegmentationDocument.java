@@ -0,0 +1,72 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.layout.LayoutToken;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tokens of a document laid out in blocks of lines, as seen by generalResultSegmentation, with the irregular
+ * spacing of noisy OCR: indented lines, tabs, empty lines and lines missing from the labeled result.
+ */
+public class SyntheticSegmentationDocument {
+
+    public final List<LayoutToken> tokens = new ArrayList<>();
+    public final List<Integer> blockStarts = new ArrayList<>();
+    public final List<Integer> blockEnds = new ArrayList<>();
+    // first word of each labeled line, per block
+    final List<List<String>> labeledLines = new ArrayList<>();
+
+    private final int linesPerBlock;
+    private int nbLines = 0;
+
+    public SyntheticSegmentationDocument(int linesPerBlock) {
+        this.linesPerBlock = linesPerBlock;
+    }
+
+    /**
+     * Add a line of words, in a new block every linesPerBlock lines
+     */
+    public void addLine(List<String> words) {
+        if (nbLines % linesPerBlock == 0) {
+            if (!blockStarts.isEmpty()) {
+                blockEnds.add(tokens.size() - 1);
+            }
+            blockStarts.add(tokens.size());
+            labeledLines.add(new ArrayList<>());
+        }
+
+        if (nbLines % 5 == 1) {
+            tokens.add(new LayoutToken(" "));
+        }
+        if (nbLines % 9 == 4) {
+            tokens.add(new LayoutToken("\t"));
+        }
+        for (int i = 0; i < words.size(); i++) {
+            if (i > 0) {
+                tokens.add(new LayoutToken(" "));
+            }
+            tokens.add(new LayoutToken(words.get(i)));
+        }
+        tokens.add(new LayoutToken("\n"));
+        if (nbLines % 7 == 3) {
+            tokens.add(new LayoutToken("\n"));
+        }
+
+        // some lines of the OCR are not in the labeled result, or are labeled with another first word
+        if (nbLines % 11 == 6) {
+            labeledLines.get(labeledLines.size() - 1).add("@MISSING@");
+        } else if (nbLines % 13 != 8) {
+            labeledLines.get(labeledLines.size() - 1).add(words.get(0));
+        }
+        nbLines++;
+    }
+
+    public void close() {
+        blockEnds.add(tokens.size() - 1);
+    }
+
+    int getLastTokenInd() {
+        return blockEnds.get(blockEnds.size() - 1);
+    }
+}
@@ -0,0 +1,71 @@
+package org.grobid.core.engines;
+
+import org.grobid.core.layout.LayoutToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lexical entries rebuilt from the raw feature file of the form model of the toy data: one token per line with its
+ * font size, bold and italic flags, line and font status. A new entry starts at each bold token at the start of a
+ * line (the headwords), and the tokens of a line are separated by spaces.
+ */
+class ToyDataEntries {
+
+    private static final String FORM_RAW_DIRECTORY = "dataset/form/corpus/raw";
+
+    static List<List<LayoutToken>> read(File dataDirectory) throws IOException {
+        File[] rawFiles = new File(dataDirectory, FORM_RAW_DIRECTORY).listFiles();
+        if (rawFiles == null || rawFiles.length == 0) {
+            throw new IOException("No raw form file under " + new File(dataDirectory, FORM_RAW_DIRECTORY));
+        }
+
+        List<List<LayoutToken>> entries = new ArrayList<>();
+        List<LayoutToken> entry = null;
+        int fontId = 0;
+        for (File rawFile : rawFiles) {
+            for (String line : Files.readAllLines(rawFile.toPath(), StandardCharsets.UTF_8)) {
+                String[] features = line.trim().split(" ");
+                if (features.length < 17) {
+                    continue;
+                }
+                boolean lineStart = features[15].equals("LINESTART");
+                boolean bold = Boolean.parseBoolean(features[11]);
+                if (features[16].equals("NEWFONT")) {
+                    fontId++;
+                }
+
+                if (entry == null || (lineStart && bold)) {
+                    entry = new ArrayList<>();
+                    entries.add(entry);
+                } else if (lineStart) {
+                    entry.get(entry.size() - 1).setNewLineAfter(true);
+                    entry.add(token("\n", entry.get(entry.size() - 1)));
+                } else {
+                    entry.add(token(" ", entry.get(entry.size() - 1)));
+                }
+
+                LayoutToken token = new LayoutToken(features[0]);
+                token.setFont("font" + fontId);
+                token.setFontSize(Double.parseDouble(features[10]));
+                token.setBold(bold);
+                token.setItalic(Boolean.parseBoolean(features[12]));
+                token.setPage(1);
+                entry.add(token);
+            }
+        }
+        return entries;
+    }
+
+    private static LayoutToken token(String text, LayoutToken previous) {
+        LayoutToken token = new LayoutToken(text);
+        token.setFont(previous.getFont());
+        token.setFontSize(previous.getFontSize());
+        token.setPage(previous.getPage());
+        return token;
+    }
+}
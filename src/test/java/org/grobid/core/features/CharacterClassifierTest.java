@@ -0,0 +1,48 @@
+package org.grobid.core.features;
+
+import org.grobid.core.main.LibraryLoader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CharacterClassifierTest {
+
+    private static final List<String> WORDS = Arrays.asList("abandon", "Abandon", "ABANDON", "n.", "V.", "1080",
+            "d'abandonner", "DÉLAISSEMENT", "état", "Éduquer", "ÇA", "ŒUVRE", "œuvre", "ﬁn",
+            "слово", "Слово", "СЛОВО", "Ёлка", "λόγος", "Λόγος", "ΛΌΓΟΣ", "ς",
+            "ǅemal", "ǄEMAL", "ǈ", "𝐀", "𝐀bc", "a𝐀", "\uD835", "\uDC00\uD835", "", "...", "--", "()", "a b");
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        LibraryLoader.load();
+    }
+
+    @Test
+    public void testSameClassesForEveryCharacter() throws Exception {
+        for (char c = 0; c < Character.MAX_VALUE; c++) {
+            assertSameClasses(String.valueOf(c));
+        }
+        assertSameClasses(String.valueOf(Character.MAX_VALUE));
+    }
+
+    @Test
+    public void testSameClassesForWords() throws Exception {
+        for (String word : WORDS) {
+            assertSameClasses(word);
+        }
+    }
+
+    private static void assertSameClasses(String token) {
+        String message = "token U+" + (token.isEmpty() ? "" : Integer.toHexString(token.charAt(0))) + " " + token;
+
+        assertThat(message, FeaturesUtils.checkPunctuationType(token), is(FeaturesUtilsReference.checkPunctuationType(token)));
+        assertThat(message, FeaturesUtils.computeCapitalisation(token), is(FeaturesUtilsReference.computeCapitalisation(token)));
+        assertThat(message, FeaturesUtils.containsSpecialCharacter(token), is(FeaturesUtilsReference.containsSpecialCharacter(token)));
+        assertThat(message, FeaturesUtils.isPureAscii(token), is(FeaturesUtilsReference.isPureAscii(token)));
+    }
+}
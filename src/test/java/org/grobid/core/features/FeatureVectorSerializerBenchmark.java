@@ -0,0 +1,92 @@
+package org.grobid.core.features;
+
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.main.LibraryLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feature matrix of a lexical entry sized sequence of tokens, written with the feature vector classes and with
+ * FeatureVectorSerializer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureVectorSerializerBenchmark {
+
+    private static final String[] WORDS = {"abandon", "[a-bã-dõ]", "n.", "m.", "Action", "d'abandonner", ";",
+            "état", "de", "ce", "qui", "est", "abandonné", ".", "V.", "DÉLAISSEMENT", "(", "1080", ")"};
+
+    private static final int NB_TOKENS = 200;
+
+    private List<LayoutToken> tokens;
+
+    @Setup
+    public void setUp() {
+        LibraryLoader.load();
+
+        tokens = new ArrayList<>(NB_TOKENS);
+        for (int i = 0; i < NB_TOKENS; i++) {
+            LayoutToken token = new LayoutToken(WORDS[i % WORDS.length]);
+            token.setFontSize(9.0);
+            token.setBold(i % WORDS.length == 0);
+            token.setItalic(i % 5 == 0);
+            tokens.add(token);
+        }
+    }
+
+    @Benchmark
+    public String lexicalEntryVector() {
+        StringBuilder featureMatrix = new StringBuilder();
+        for (LayoutToken token : tokens) {
+            FeatureVectorLexicalEntry vector = FeatureVectorLexicalEntry.addFeaturesLexicalEntries(token, "",
+                    "LINEIN", "SAMEFONT");
+            featureMatrix.append(vector.printVector() + "\n");
+        }
+        return featureMatrix.toString();
+    }
+
+    @Benchmark
+    public String formVector() {
+        StringBuilder featureMatrix = new StringBuilder();
+        for (LayoutToken token : tokens) {
+            FeatureVectorForm vector = FeatureVectorForm.addFeaturesForm(token, "", "LINEIN", "SAMEFONT");
+            featureMatrix.append(vector.printVector() + "\n");
+        }
+        return featureMatrix.toString();
+    }
+
+    @Benchmark
+    public String senseVector() {
+        StringBuilder featureMatrix = new StringBuilder();
+        for (LayoutToken token : tokens) {
+            FeatureVectorSense vector = FeatureVectorSense.addFeaturesSense(token, "", "LINEIN", "SAMEFONT");
+            featureMatrix.append(vector.printVector() + "\n");
+        }
+        return featureMatrix.toString();
+    }
+
+    @Benchmark
+    public String serializer() {
+        StringBuilder featureMatrix = new StringBuilder();
+        for (LayoutToken token : tokens) {
+            FeatureVectorSerializer.appendVector(featureMatrix, token, "", "LINEIN", "SAMEFONT");
+        }
+        return featureMatrix.toString();
+    }
+}
@@ -0,0 +1,93 @@
+package org.grobid.core.features;
+
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.main.LibraryLoader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FeatureVectorSerializerTest {
+
+    private static final List<String> WORDS = Arrays.asList("a", "Ab", "abc", "text", "Dictionary", "ÉTYMOLOGIE",
+            "naïve", "(", ")", ".", "-", "%", "1795", "l'", "ΣΟΦΊΑ", "İstanbul", "𝐀bc", " ");
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        LibraryLoader.load();
+    }
+
+    @Test
+    public void testSameOutputAsLexicalEntryVector() throws Exception {
+        for (LayoutToken token : tokens()) {
+            String expected = FeatureVectorLexicalEntry.addFeaturesLexicalEntries(token, "", "LINESTART", "NEWFONT")
+                    .printVector() + "\n";
+
+            assertThat(serialize(token, "", "LINESTART", "NEWFONT"), is(expected));
+        }
+    }
+
+    @Test
+    public void testSameOutputAsFormVector() throws Exception {
+        for (LayoutToken token : tokens()) {
+            String expected = FeatureVectorForm.addFeaturesForm(token, "", "LINEIN", "SAMEFONT").printVector() + "\n";
+
+            assertThat(serialize(token, "", "LINEIN", "SAMEFONT"), is(expected));
+        }
+    }
+
+    @Test
+    public void testSameOutputAsSenseVector() throws Exception {
+        for (LayoutToken token : tokens()) {
+            String expected = FeatureVectorSense.addFeaturesSense(token, "", "LINEEND", "NEWFONT").printVector() + "\n";
+
+            assertThat(serialize(token, "", "LINEEND", "NEWFONT"), is(expected));
+        }
+    }
+
+    @Test
+    public void testSameOutputForAnEmptyToken() throws Exception {
+        LayoutToken token = new LayoutToken("");
+
+        String expected = FeatureVectorForm.addFeaturesForm(token, "", "LINEIN", "SAMEFONT").printVector() + "\n";
+
+        assertThat(serialize(token, "", "LINEIN", "SAMEFONT"), is(expected));
+    }
+
+    @Test
+    public void testAppendToTheSameBuffer() throws Exception {
+        StringBuilder expected = new StringBuilder();
+        StringBuilder output = new StringBuilder();
+        for (LayoutToken token : tokens()) {
+            expected.append(FeatureVectorForm.addFeaturesForm(token, "", "LINEIN", "SAMEFONT").printVector() + "\n");
+            FeatureVectorSerializer.appendVector(output, token, "", "LINEIN", "SAMEFONT");
+        }
+
+        assertThat(output.toString(), is(expected.toString()));
+    }
+
+    private static String serialize(LayoutToken token, String label, String lineStatus, String fontStatus) {
+        StringBuilder output = new StringBuilder();
+        FeatureVectorSerializer.appendVector(output, token, label, lineStatus, fontStatus);
+        return output.toString();
+    }
+
+    private static List<LayoutToken> tokens() {
+        List<LayoutToken> tokens = new ArrayList<>();
+        int i = 0;
+        for (String word : WORDS) {
+            LayoutToken token = new LayoutToken(word);
+            token.setFontSize(8.5 + i);
+            token.setBold(i % 2 == 0);
+            token.setItalic(i % 3 == 0);
+            tokens.add(token);
+            i++;
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,75 @@
+package org.grobid.core.features;
+
+import org.grobid.core.main.LibraryLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Punctuation, capitalisation and special character classification of dictionary tokens, with the regular
+ * expressions and FeatureFactory tests and with the precomputed character classes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeaturesUtilsBenchmark {
+
+    @Param({"ascii", "latin", "cyrillic", "greek"})
+    public String script;
+
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        LibraryLoader.load();
+
+        switch (script) {
+            case "ascii":
+                tokens = new String[]{"abandon", "n", ".", "Action", "d", "'", "abandonner", ";", "(", "1080", ")", "V"};
+                break;
+            case "latin":
+                tokens = new String[]{"état", "de", "ce", "qui", "est", "abandonné", ".", "DÉLAISSEMENT", "ŒUVRE", "ça", ",", "Ève"};
+                break;
+            case "cyrillic":
+                tokens = new String[]{"слово", "Слово", "СЛОВО", "ж", ".", "Ёлка", "(", "разг", ")", "см", ".", "и"};
+                break;
+            case "greek":
+                tokens = new String[]{"λόγος", "Λόγος", "ΛΌΓΟΣ", "ὁ", ",", "τοῦ", "(", "ἀρχ", ")", "ή", ".", "Ἀθῆναι"};
+                break;
+            default:
+                throw new IllegalArgumentException(script);
+        }
+    }
+
+    @Benchmark
+    public void regularExpressions(Blackhole blackhole) {
+        for (String token : tokens) {
+            blackhole.consume(FeaturesUtilsReference.checkPunctuationType(token));
+            blackhole.consume(FeaturesUtilsReference.computeCapitalisation(token));
+            blackhole.consume(FeaturesUtilsReference.containsSpecialCharacter(token));
+        }
+    }
+
+    @Benchmark
+    public void characterClasses(Blackhole blackhole) {
+        for (String token : tokens) {
+            blackhole.consume(FeaturesUtils.computePunctuationType(token));
+            blackhole.consume(FeaturesUtils.computeCapitalisation(token));
+            blackhole.consume(FeaturesUtils.containsSpecialCharacter(token));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.grobid.core.features;
+
+import org.grobid.core.features.enums.CapitalisationType;
+import org.grobid.core.features.enums.PonctuationType;
+
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regular expression and FeatureFactory based classification that CharacterClassifier replaces, and the pattern
+ * counts that RepetitivePatterns replaces, for the parity tests and the benchmarks.
+ */
+public class FeaturesUtilsReference {
+
+    public static String checkPunctuationType(String token) {
+        String punctuationType;
+
+        Pattern punctuationPattern = Pattern.compile("\\p{Punct}");
+        Matcher mP = punctuationPattern.matcher(token);
+        boolean isPonctuationCharacter = mP.matches();
+
+        if (isPonctuationCharacter) {
+            Pattern openBracketPattern = Pattern.compile("[\\[\\(\\{]");
+            Matcher mOB = openBracketPattern.matcher(token);
+            boolean isOpenBracket = mOB.matches();
+            Pattern closeBracketPattern = Pattern.compile("[\\]\\)\\}]");
+            Matcher mCB = closeBracketPattern.matcher(token);
+            boolean isCloseBracket = mCB.matches();
+            if (isOpenBracket) {
+                punctuationType = PonctuationType.OPENBRACKET.toString();
+            } else if (isCloseBracket) {
+                punctuationType = PonctuationType.ENDBRACKET.toString();
+            } else {
+                punctuationType = PonctuationType.PUNCT.toString();
+            }
+        } else {
+            punctuationType = PonctuationType.NOPUNCT.toString();
+        }
+
+        return punctuationType;
+    }
+
+    public static CapitalisationType computeCapitalisation(String word) {
+        FeatureFactory featureFactory = FeatureFactory.getInstance();
+        if (featureFactory.test_all_capital(word)) {
+            return CapitalisationType.ALLCAPS;
+        } else if (featureFactory.test_first_capital(word)) {
+            return CapitalisationType.INITCAP;
+        } else {
+            return CapitalisationType.NOCAPS;
+        }
+    }
+
+    public static boolean containsSpecialCharacter(String s) {
+        return (s == null) ? false : s.matches("[^A-Za-z0-9 ]");
+    }
+
+    public static boolean isPureAscii(String v) {
+        return Charset.forName("US-ASCII").newEncoder().canEncode(v);
+    }
+
+    /**
+     * The former counts of the head and foot line patterns of DictionarySegmentationParser, keyed by the pattern
+     */
+    public static class RepetitivePatterns {
+        private final Map<String, Integer> patterns = new TreeMap<String, Integer>();
+        private final Map<String, Boolean> firstTimePattern = new TreeMap<String, Boolean>();
+
+        public void add(String line) {
+            String pattern = FeatureFactory.getInstance().getPattern(line);
+            if (pattern.length() > 8) {
+                Integer nb = patterns.get(pattern);
+                if (nb == null) {
+                    patterns.put(pattern, 1);
+                    firstTimePattern.put(pattern, false);
+                } else
+                    patterns.put(pattern, nb + 1);
+            }
+        }
+
+        /**
+         * The repetitivePattern and firstRepetitivePattern features of the line
+         */
+        public boolean[] getFeatures(String line) {
+            boolean[] features = new boolean[2];
+            String pattern = FeatureFactory.getInstance().getPattern(line);
+            Integer nb = patterns.get(pattern);
+            if ((nb != null) && (nb > 1)) {
+                features[0] = true;
+
+                Boolean firstTimeDone = firstTimePattern.get(pattern);
+                if ((firstTimeDone != null) && !firstTimeDone) {
+                    features[1] = true;
+                    firstTimePattern.put(pattern, true);
+                }
+            }
+            return features;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.grobid.core.features;
+
+import org.grobid.core.features.enums.LineStatus;
+import org.grobid.core.layout.LayoutToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line status of the tokens of a lexical entry sized sequence, from the neighbours of each token in the list with
+ * FeaturesUtils.checkLineStatus, and with LineStatuses (bitmaps included).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineStatusesBenchmark {
+
+    private static final String[] WORDS = {"abandon", " ", "n.", " ", "m.", "\n", "Action", " ", "d'", "aban", "-",
+            "\n", "donner", ";", " ", "DÉLAISSEMENT", " ", "(", "1080", ")", "."};
+
+    private static final int NB_TOKENS = 400;
+
+    private List<LayoutToken> tokens;
+
+    @Setup
+    public void setUp() {
+        tokens = new ArrayList<>(NB_TOKENS);
+        for (int i = 0; i < NB_TOKENS; i++) {
+            LayoutToken token = new LayoutToken(WORDS[i % WORDS.length]);
+            token.setNewLineAfter(WORDS[(i + 1) % WORDS.length].equals("\n"));
+            tokens.add(token);
+        }
+    }
+
+    @Benchmark
+    public void tokenNeighbours(Blackhole blackhole) {
+        for (int i = 0; i < tokens.size(); i++) {
+            blackhole.consume(LineStatusesTest.referenceLineStatus(tokens, i, 0, tokens.size()));
+        }
+    }
+
+    @Benchmark
+    public void lineStatuses(Blackhole blackhole) {
+        for (LineStatus lineStatus : LineStatuses.of(tokens).getAll(0, tokens.size())) {
+            blackhole.consume(lineStatus);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.grobid.core.features;
+
+import org.grobid.core.features.enums.LineStatus;
+import org.grobid.core.layout.LayoutToken;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LineStatusesTest {
+
+    @Test
+    public void testLineStatuses() throws Exception {
+        // "n." is before a space and the last token of its line, "aban" is before the last token of its line
+        List<LayoutToken> tokens = tokens("abandon", " ", "n.", " ", "-", "\n", "Action", " ", "d'", "aban", "-",
+                "\n", "donner", ";");
+        LineStatuses lineStatuses = LineStatuses.of(tokens);
+
+        List<String> statuses = new ArrayList<>();
+        for (LineStatus lineStatus : lineStatuses.getAll(0, tokens.size())) {
+            statuses.add(lineStatus.toString());
+        }
+
+        assertThat(statuses, is(Arrays.asList("LINESTART", "LINEIN", "LINEEND", "LINEEND", "LINEIN", "LINESTART",
+                "LINEIN", "LINEIN", "LINEIN", "LINEEND", "LINEIN", "LINESTART", "LINEIN", "LINEEND")));
+        assertThat(LineStatus.fromName(statuses.get(3)), is(LineStatus.LINE_END));
+    }
+
+    @Test
+    public void testSameStatusesAsTheTokenNeighbours() throws Exception {
+        String[] texts = {"a", " ", "\n", "-", "b."};
+        Random random = new Random(19);
+
+        for (int n = 0; n < 500; n++) {
+            List<LayoutToken> tokens = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(30); i++) {
+                LayoutToken token = new LayoutToken(texts[random.nextInt(texts.length)]);
+                token.setNewLineAfter(random.nextInt(4) == 0);
+                tokens.add(token);
+            }
+            LineStatuses lineStatuses = LineStatuses.of(tokens);
+
+            for (int from = 0; from < tokens.size(); from++) {
+                for (int to = from + 1; to <= tokens.size(); to++) {
+                    LineStatus[] statuses = lineStatuses.getAll(from, to);
+                    for (int i = from; i < to; i++) {
+                        assertThat(n + ":" + from + "-" + to + ":" + i, statuses[i - from].toString(),
+                                is(referenceLineStatus(tokens, i, from, to)));
+                    }
+                }
+            }
+        }
+    }
+
+    // the line status as computed by the feature loops, from the neighbours of the token in the list
+    static String referenceLineStatus(List<LayoutToken> layoutTokens, int counter, int from, int to) {
+        if (counter == from) {
+            return "LINESTART";
+        } else if (counter + 1 == to) {
+            return "LINEEND";
+        }
+        boolean afterNextTokenIsNewLineAfter = false;
+        if ((to > counter + 2) && (layoutTokens.get(counter + 2) != null)) {
+            afterNextTokenIsNewLineAfter = layoutTokens.get(counter + 2).isNewLineAfter();
+        }
+        return FeaturesUtils.checkLineStatus(layoutTokens.get(counter).getText(),
+                layoutTokens.get(counter - 1).isNewLineAfter(), layoutTokens.get(counter - 1).getText(),
+                layoutTokens.get(counter + 1).isNewLineAfter(), layoutTokens.get(counter + 1).getText(),
+                afterNextTokenIsNewLineAfter);
+    }
+
+    static List<LayoutToken> tokens(String... texts) {
+        List<LayoutToken> tokens = new ArrayList<>();
+        for (int i = 0; i < texts.length; i++) {
+            LayoutToken token = new LayoutToken(texts[i]);
+            token.setNewLineAfter(i + 1 < texts.length && texts[i + 1].equals("\n"));
+            tokens.add(token);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,134 @@
+package org.grobid.core.features;
+
+import org.grobid.core.EngineMockTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RepetitivePatternsTest extends EngineMockTest {
+
+    private static final List<String> HEADS = Arrays.asList(
+            "A DICTIONARY OF THE ENGLISH LANGUAGE", "ENGLISH DICTIONARY", "Basic English", "VOL. II");
+    private static final List<String> WORDS = Arrays.asList(
+            "area", "noun", "argue", "verb", "/eəriə/", "(of)", "1.", "a", "surface", "ii", "-ing", "Lat.", "•");
+
+    @Test
+    public void testFeatures_shouldBeTheOnesOfTheFormerPatternCounts() throws Exception {
+        Random random = new Random(7);
+        int repetitiveLines = 0;
+        int firstRepetitiveLines = 0;
+        for (int run = 0; run < 20; run++) {
+            // pages of blocks of lines
+            List<List<List<String>>> pages = new ArrayList<>();
+            for (int p = 0; p < 12; p++) {
+                List<List<String>> page = new ArrayList<>();
+                int nbBlocks = 1 + random.nextInt(6);
+                for (int b = 0; b < nbBlocks; b++) {
+                    List<String> block = new ArrayList<>();
+                    int nbLines = 1 + random.nextInt(4);
+                    for (int l = 0; l < nbLines; l++) {
+                        block.add(randomLine(random, p));
+                    }
+                    page.add(block);
+                }
+                pages.add(page);
+            }
+
+            RepetitivePatterns target = new RepetitivePatterns();
+            FeaturesUtilsReference.RepetitivePatterns reference = new FeaturesUtilsReference.RepetitivePatterns();
+            for (List<List<String>> page : pages) {
+                for (int blockIndex = 0; blockIndex < page.size(); blockIndex++) {
+                    if ((blockIndex < 2) || (blockIndex > page.size() - 2)) {
+                        String line = page.get(blockIndex).get(0);
+                        target.add(FeaturesUtils.computePatternFingerprint(line));
+                        reference.add(line);
+                    }
+                }
+            }
+
+            for (List<List<String>> page : pages) {
+                for (int blockIndex = 0; blockIndex < page.size(); blockIndex++) {
+                    if ((blockIndex < 2) || (blockIndex > page.size() - 2)) {
+                        for (String line : page.get(blockIndex)) {
+                            long pattern = FeaturesUtils.computePatternFingerprint(line);
+                            boolean repetitive = target.isRepetitive(pattern);
+                            boolean firstRepetitive = repetitive && target.isFirstRepetitive(pattern);
+
+                            assertThat(line, new boolean[]{repetitive, firstRepetitive},
+                                    is(reference.getFeatures(line)));
+                            repetitiveLines += repetitive ? 1 : 0;
+                            firstRepetitiveLines += firstRepetitive ? 1 : 0;
+                        }
+                    }
+                }
+            }
+        }
+        assertThat(repetitiveLines, greaterThan(firstRepetitiveLines));
+        assertThat(firstRepetitiveLines, greaterThan(0));
+    }
+
+    @Test
+    public void testComputePatternFingerprint_shouldBeTheHashOfThePattern() throws Exception {
+        List<String> lines = new ArrayList<>(Arrays.asList("", "12", "ÉTYMOLOGIE DU FRANÇAIS 204",
+                "İSTANBUL SÖZLÜĞÜ 3",
+                "ΟΔΥΣΣΕΥΣ ΚΑΙ ΛΕΞΙΚΟΝ", "𝔄 DICTIONARY OF THE ENGLISH LANGUAGE", "Straße\u00A0und Weg 7"));
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            lines.add(randomLine(random, random.nextInt(1000)));
+        }
+        for (String line : lines) {
+            String pattern = FeatureFactory.getInstance().getPattern(line);
+
+            assertThat(line, FeaturesUtils.computePatternFingerprint(line),
+                    is(FeaturesUtils.computeFingerprint(pattern)));
+        }
+    }
+
+    @Test
+    public void testIsFirstRepetitive_shouldBeTrueOnce() throws Exception {
+        long pattern = FeaturesUtils.computePatternFingerprint("A DICTIONARY OF THE ENGLISH LANGUAGE 12");
+        long other = FeaturesUtils.computePatternFingerprint("ENGLISH DICTIONARY");
+        RepetitivePatterns target = new RepetitivePatterns();
+        target.add(pattern);
+        target.add(other);
+        target.add(pattern);
+
+        assertThat(target.isRepetitive(other), is(false));
+        assertThat(target.isFirstRepetitive(other), is(false));
+        assertThat(target.isRepetitive(pattern), is(true));
+        assertThat(target.isFirstRepetitive(pattern), is(true));
+        assertThat(target.isFirstRepetitive(pattern), is(false));
+        assertThat(target.isRepetitive(FeaturesUtils.NO_PATTERN), is(false));
+    }
+
+    /**
+     * A running head with the page number, a short line (pattern of 8 characters or less, not counted) or a line of
+     * the entries
+     */
+    private static String randomLine(Random random, int pageNumber) {
+        switch (random.nextInt(4)) {
+            case 0:
+                String head = HEADS.get(random.nextInt(HEADS.size()));
+                return random.nextBoolean() ? head + " " + (pageNumber + 1) : (pageNumber + 1) + " " + head;
+            case 1:
+                return WORDS.get(random.nextInt(WORDS.size()));
+            default:
+                StringBuilder line = new StringBuilder();
+                int nbWords = 1 + random.nextInt(8);
+                for (int w = 0; w < nbWords; w++) {
+                    if (w > 0) {
+                        line.append(random.nextBoolean() ? " " : "\t");
+                    }
+                    line.append(WORDS.get(random.nextInt(WORDS.size())));
+                }
+                return line.toString();
+        }
+    }
+}
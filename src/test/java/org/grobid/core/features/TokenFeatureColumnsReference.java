@@ -0,0 +1,69 @@
+package org.grobid.core.features;
+
+import org.grobid.core.features.enums.CapitalisationType;
+import org.grobid.core.features.enums.LineStatus;
+import org.grobid.core.features.enums.PonctuationType;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.utilities.TextUtilities;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * The per-token storage of TokenFeatureTable before the features were encoded by FeatureVocabulary: one column per
+ * feature and the positions of the tokens in an IdentityHashMap, kept to compare the heap used by both.
+ */
+class TokenFeatureColumnsReference {
+
+    final LayoutToken[] tokens;
+    final int[] sequences;
+    final Map<LayoutToken, Integer> positions;
+
+    final boolean[] featured;
+    final LineStatus[] lineStatuses;
+    final boolean[] sameFonts;
+    final CapitalisationType[] capitalisations;
+    final PonctuationType[] punctuationTypes;
+    final boolean[] bolds;
+    final boolean[] italics;
+    final double[] fontSizes;
+
+    TokenFeatureColumnsReference(List<LayoutToken> sequence) {
+        int nbTokens = sequence.size();
+        tokens = new LayoutToken[nbTokens];
+        sequences = new int[nbTokens];
+        positions = new IdentityHashMap<>(nbTokens);
+        featured = new boolean[nbTokens];
+        lineStatuses = new LineStatus[nbTokens];
+        sameFonts = new boolean[nbTokens];
+        capitalisations = new CapitalisationType[nbTokens];
+        punctuationTypes = new PonctuationType[nbTokens];
+        bolds = new boolean[nbTokens];
+        italics = new boolean[nbTokens];
+        fontSizes = new double[nbTokens];
+
+        String previousFont = null;
+        for (int i = 0; i < nbTokens; i++) {
+            LayoutToken token = sequence.get(i);
+            tokens[i] = token;
+            positions.putIfAbsent(token, i);
+
+            String text = token.getText().replace(" ", "");
+            if (TextUtilities.filterLine(text) || isBlank(text) || text.equals("\n") || text.equals("\r")) {
+                continue;
+            }
+            featured[i] = true;
+            lineStatuses[i] = token.isNewLineAfter() ? LineStatus.LINE_END : LineStatus.LINE_IN;
+            sameFonts[i] = previousFont != null && previousFont.equals(token.getFont());
+            previousFont = token.getFont();
+            capitalisations[i] = FeaturesUtils.computeCapitalisation(token.getText());
+            punctuationTypes[i] = FeaturesUtils.computePunctuationType(token.getText());
+            bolds[i] = token.getBold();
+            italics[i] = token.getItalic();
+            fontSizes[i] = token.getFontSize();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.grobid.core.features;
+
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.main.LibraryLoader;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap kept by the token features of a 5M tokens dictionary, with one column per feature and an IdentityHashMap of
+ * the token positions, and with the features encoded in one int per token by FeatureVocabulary. The retained bytes
+ * per token are reported as a secondary result (retainedBytesPerToken), measured from the used heap after a full GC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class TokenFeatureTableMemoryBenchmark {
+
+    private static final String[] WORDS = {"abandon", " ", "[a-bã-dõ]", " ", "n.", " ", "m.", "\n", "Action", " ",
+            "d'abandonner", ";", " ", "état", " ", "de", " ", "ce", "\n", "DÉLAISSEMENT", " ", "(", "1080", ")", "."};
+
+    private static final int NB_TOKENS = 5_000_000;
+
+    private List<LayoutToken> tokens;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedHeap {
+        public long retainedBytesPerToken;
+    }
+
+    @Setup
+    public void setUp() {
+        LibraryLoader.load();
+
+        tokens = new ArrayList<>(NB_TOKENS);
+        for (int i = 0; i < NB_TOKENS; i++) {
+            String word = WORDS[i % WORDS.length];
+            LayoutToken token = new LayoutToken(word);
+            token.setFont(i % 7 == 0 ? "Times-Bold" : "Times");
+            token.setFontSize(8.0 + (i % 3) * 0.5);
+            token.setBold(i % 7 == 0);
+            token.setItalic(i % 5 == 0);
+            token.setNewLineAfter(WORDS[(i + 1) % WORDS.length].equals("\n"));
+            tokens.add(token);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void collect() {
+        usedHeapAfterGc();
+    }
+
+    @Benchmark
+    public Object featureColumns(RetainedHeap heap) {
+        long before = usedHeapAfterGc();
+        TokenFeatureColumnsReference columns = new TokenFeatureColumnsReference(tokens);
+        heap.retainedBytesPerToken = (usedHeapAfterGc() - before) / NB_TOKENS;
+        return columns;
+    }
+
+    @Benchmark
+    public Object encodedFeatures(RetainedHeap heap) {
+        long before = usedHeapAfterGc();
+        TokenFeatureTable table = TokenFeatureTable.forTokens(tokens);
+        heap.retainedBytesPerToken = (usedHeapAfterGc() - before) / NB_TOKENS;
+        return table;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,131 @@
+package org.grobid.core.features;
+
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.main.LibraryLoader;
+import org.grobid.core.utilities.TextUtilities;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TokenFeatureTableTest {
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        LibraryLoader.load();
+    }
+
+    @Test
+    public void testEverySubSequenceHasTheFeaturesComputedOnItsOwn() throws Exception {
+        List<LayoutToken> entry = entry("abandon", " ", "[a-bã-dõ]", " ", "n.", " ", "m.", "\n", "Action", " ",
+                "d'", "aban", "-", "\n", "donner", ";", " ", "DÉLAISSEMENT", " ", "(", "1080", ")", ".");
+        TokenFeatureTable table = TokenFeatureTable.forTokens(entry);
+
+        for (int from = 0; from < entry.size(); from++) {
+            for (int to = from + 1; to <= entry.size(); to++) {
+                List<LayoutToken> sequence = entry.subList(from, to);
+
+                assertThat(from + "-" + to, table.getFeatureMatrix(sequence), is(referenceFeatureMatrix(sequence)));
+            }
+        }
+    }
+
+    @Test
+    public void testSeveralSequences() throws Exception {
+        List<LayoutToken> first = entry("abandon", " ", "n.", "\n", "Action", ".");
+        List<LayoutToken> second = entry("abandonner", " ", "v.", " ", "tr", ".");
+        TokenFeatureTable table = TokenFeatureTable.forSequences(Arrays.asList(first, second));
+
+        assertThat(table.getFeatureMatrix(first), is(referenceFeatureMatrix(first)));
+        assertThat(table.getFeatureMatrix(second), is(referenceFeatureMatrix(second)));
+        assertThat(table.getFeatureMatrix(second.subList(2, 5)), is(referenceFeatureMatrix(second.subList(2, 5))));
+    }
+
+    @Test
+    public void testSequenceNotInTheTable() throws Exception {
+        List<LayoutToken> first = entry("abandon", " ", "n.", "\n", "Action", ".");
+        List<LayoutToken> other = entry("Action", " ", "d'", "abandonner");
+        TokenFeatureTable table = TokenFeatureTable.forTokens(first);
+
+        assertThat(table.getFeatureMatrix(other), is(referenceFeatureMatrix(other)));
+        assertThat(table.getFeatureMatrix(new ArrayList<>()), is(""));
+    }
+
+    @Test
+    public void testManyDistinctFontSizes() throws Exception {
+        // more sizes than the shared cache of their texts has slots
+        List<LayoutToken> tokens = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            LayoutToken token = new LayoutToken(i % 2 == 0 ? "word" + i : " ");
+            token.setFont("Times");
+            token.setFontSize(6.0 + i / 1000.0);
+            tokens.add(token);
+        }
+        TokenFeatureTable table = TokenFeatureTable.forTokens(tokens);
+
+        assertThat(table.getFeatureMatrix(tokens), is(referenceFeatureMatrix(tokens)));
+    }
+
+    private static List<LayoutToken> entry(String... texts) {
+        List<LayoutToken> tokens = new ArrayList<>();
+        for (int i = 0; i < texts.length; i++) {
+            LayoutToken token = new LayoutToken(texts[i]);
+            token.setFont(i % 4 == 0 ? "Times-Bold" : "Times");
+            token.setBold(i % 4 == 0);
+            token.setItalic(i % 5 == 0);
+            token.setFontSize(9.0 + i % 2);
+            token.setNewLineAfter(i + 1 < texts.length && texts[i + 1].equals("\n"));
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    // the feature loop of the cascade levels before the table
+    private static String referenceFeatureMatrix(List<LayoutToken> layoutTokens) {
+        StringBuilder featureMatrix = new StringBuilder();
+        String previousFont = null;
+        String fontStatus;
+        String lineStatus;
+
+        int counter = 0;
+        int nbToken = layoutTokens.size();
+        for (LayoutToken token : layoutTokens) {
+            String text = token.getText();
+            text = text.replace(" ", "");
+
+            if (TextUtilities.filterLine(text) || isBlank(text)) {
+                counter++;
+                continue;
+            }
+
+            if (counter - 1 < 0) {
+                lineStatus = "LINESTART";
+            } else if (counter + 1 == nbToken) {
+                lineStatus = "LINEEND";
+            } else {
+                boolean afterNextTokenIsNewLineAfter = false;
+                if ((nbToken > counter + 2) && (layoutTokens.get(counter + 2) != null)) {
+                    afterNextTokenIsNewLineAfter = layoutTokens.get(counter + 2).isNewLineAfter();
+                }
+                lineStatus = FeaturesUtils.checkLineStatus(text, layoutTokens.get(counter - 1).isNewLineAfter(),
+                        layoutTokens.get(counter - 1).getText(), layoutTokens.get(counter + 1).isNewLineAfter(),
+                        layoutTokens.get(counter + 1).getText(), afterNextTokenIsNewLineAfter);
+            }
+            counter++;
+
+            String[] returnedFont = FeaturesUtils.checkFontStatus(token.getFont(), previousFont);
+            previousFont = returnedFont[0];
+            fontStatus = returnedFont[1];
+
+            featureMatrix.append(FeatureVectorForm.addFeaturesForm(token, "", lineStatus, fontStatus).printVector() + "\n");
+        }
+
+        return featureMatrix.toString();
+    }
+}
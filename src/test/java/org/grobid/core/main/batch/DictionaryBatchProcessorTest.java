@@ -0,0 +1,105 @@
+package org.grobid.core.main.batch;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DictionaryBatchProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File input;
+    private File output;
+    private final List<String> processedFiles = new CopyOnWriteArrayList<>();
+
+    // writes the name of the PDF as its TEI, and fails on b.pdf after having written a part of it
+    private final DictionaryBatchProcessor.FileProcessor failingOnB = (pdf, parsers, writer) -> {
+        writer.write("<TEI>");
+        writer.flush();
+        if (pdf.getName().equals("b.pdf")) {
+            throw new IllegalStateException("cannot parse b.pdf");
+        }
+        writer.write(pdf.getName() + "</TEI>");
+        processedFiles.add(pdf.getName());
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        input = folder.newFolder("input");
+        output = folder.newFolder("output");
+        for (String name : Arrays.asList("a.pdf", "b.pdf", "c.PDF", "notes.txt", "sub/d.pdf")) {
+            FileUtils.writeStringToFile(new File(input, name), name, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testProcessBatch_shouldSkipTheFilesAlreadyProcessed() throws Exception {
+        FileUtils.writeStringToFile(new File(output, "a.tei.xml"), "done", StandardCharsets.UTF_8);
+
+        int processed = newProcessor(false).processBatch(input.getPath(), output.getPath(), failingOnB);
+
+        assertThat(processed, is(1));
+        assertThat(processedFiles, containsInAnyOrder("c.PDF"));
+        assertThat(read("a.tei.xml"), is("done"));
+        assertThat(read("c.tei.xml"), is("<TEI>c.PDF</TEI>"));
+    }
+
+    @Test
+    public void testProcessBatch_failure_shouldRemoveThePartialFileAndGoOn() throws Exception {
+        int processed = newProcessor(false).processBatch(input.getPath(), output.getPath(), failingOnB);
+
+        assertThat(processed, is(2));
+        assertThat(processedFiles, containsInAnyOrder("a.pdf", "c.PDF"));
+        assertThat(new File(output, "b.tei.xml").exists(), is(false));
+        assertThat(new File(output, "b.tei.xml.part").exists(), is(false));
+        assertThat(read("a.tei.xml"), is("<TEI>a.pdf</TEI>"));
+
+        // the failed file is processed again by the next run, the others are skipped
+        processedFiles.clear();
+        processed = newProcessor(false).processBatch(input.getPath(), output.getPath(),
+                (pdf, parsers, writer) -> processedFiles.add(pdf.getName()));
+
+        assertThat(processed, is(1));
+        assertThat(processedFiles, containsInAnyOrder("b.pdf"));
+        assertThat(new File(output, "b.tei.xml").exists(), is(true));
+    }
+
+    @Test
+    public void testProcessBatch_recursive_shouldMirrorTheSubDirectories() throws Exception {
+        int processed = newProcessor(true).processBatch(input.getPath(), output.getPath(), failingOnB);
+
+        assertThat(processed, is(3));
+        assertThat(processedFiles, containsInAnyOrder("a.pdf", "c.PDF", "d.pdf"));
+        assertThat(read("sub/d.tei.xml"), is("<TEI>d.pdf</TEI>"));
+        assertThat(new File(output, "d.tei.xml").exists(), is(false));
+        assertThat(new File(output, "notes.tei.xml").exists(), is(false));
+    }
+
+    @Test
+    public void testProcessBatch_notRecursive_shouldIgnoreTheSubDirectories() throws Exception {
+        newProcessor(false).processBatch(input.getPath(), output.getPath(), failingOnB);
+
+        assertThat(new File(output, "sub").exists(), is(false));
+    }
+
+    private static DictionaryBatchProcessor newProcessor(boolean recursive) {
+        return new DictionaryBatchProcessor(DictionaryBatchProcessor.Level.FULL_DICTIONARY, null, 2, recursive);
+    }
+
+    private String read(String path) throws Exception {
+        return FileUtils.readFileToString(new File(output, path), StandardCharsets.UTF_8);
+    }
+}
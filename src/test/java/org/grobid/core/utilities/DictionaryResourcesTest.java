@@ -0,0 +1,99 @@
+package org.grobid.core.utilities;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class DictionaryResourcesTest {
+
+    private static final long GB = 1024L * 1024L * 1024L;
+
+    @Rule
+    public TemporaryFolder cgroup = new TemporaryFolder();
+
+    @Test
+    public void testCgroupV2Limits() throws Exception {
+        write("cpu.max", "150000 100000\n");
+        write("memory.max", "4294967296\n");
+        write("memory.current", "1073741824\n");
+
+        DictionaryResources resources = new DictionaryResources(cgroup.getRoot().toPath(), 2 * GB);
+
+        assertThat(resources.readCpuQuota(), is(1.5));
+        assertThat(resources.readMemoryLimit(), is(4 * GB));
+        assertThat(resources.readMemoryUsage(), is(GB));
+    }
+
+    @Test
+    public void testCgroupV2NoLimits() throws Exception {
+        write("cpu.max", "max 100000\n");
+        write("memory.max", "max\n");
+
+        DictionaryResources resources = new DictionaryResources(cgroup.getRoot().toPath(), 2 * GB);
+
+        assertThat(resources.readCpuQuota(), is((double) DictionaryResources.UNLIMITED));
+        assertThat(resources.readMemoryLimit(), is(DictionaryResources.UNLIMITED));
+        assertThat(resources.getPlan().getCpuLimit(), is(Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Test
+    public void testCgroupV1Limits() throws Exception {
+        write("cpu/cpu.cfs_quota_us", "200000\n");
+        write("cpu/cpu.cfs_period_us", "100000\n");
+        write("memory/memory.limit_in_bytes", "3221225472\n");
+
+        DictionaryResources resources = new DictionaryResources(cgroup.getRoot().toPath(), 2 * GB);
+
+        assertThat(resources.readCpuQuota(), is(2.0));
+        assertThat(resources.readMemoryLimit(), is(3 * GB));
+    }
+
+    @Test
+    public void testCgroupV1NoLimits() throws Exception {
+        write("cpu/cpu.cfs_quota_us", "-1\n");
+        write("cpu/cpu.cfs_period_us", "100000\n");
+        write("memory/memory.limit_in_bytes", "9223372036854771712\n");
+
+        DictionaryResources resources = new DictionaryResources(cgroup.getRoot().toPath(), 2 * GB);
+
+        assertThat(resources.readCpuQuota(), is((double) DictionaryResources.UNLIMITED));
+        assertThat(resources.readMemoryLimit(), is(DictionaryResources.UNLIMITED));
+    }
+
+    @Test
+    public void testPlanFollowsTheLimits() throws Exception {
+        write("cpu.max", "100000 100000\n");
+        write("memory.max", String.valueOf(4 * GB));
+
+        // 1.5GB for the documents: at most 1 CPU, and 1.5GB / 2048 bytes per token
+        DictionaryResources resources = new DictionaryResources(cgroup.getRoot().toPath(), 2 * GB);
+        DictionaryResources.Plan plan = resources.getPlan();
+
+        assertThat(plan.getCpuLimit(), is(1));
+        assertThat(plan.getDocumentWorkers(), is(1));
+        assertThat(plan.getCascadeWorkers(), is(1));
+        assertThat(plan.getPdfaltoProcesses(), is(1));
+        assertThat(plan.getMaxTokensPerDocument(), is((int) (1.5 * GB / 2048)));
+
+        if (Runtime.getRuntime().availableProcessors() >= 2) {
+            write("cpu.max", "200000 100000\n");
+            resources.refresh();
+
+            // 2 CPUs: 2 documents and 2 pdfalto processes, one per CPU, fewer than the heap and the memory left next to it allow
+            assertThat(resources.getPlan().getCpuLimit(), is(2));
+            assertThat(resources.getPlan().getDocumentWorkers(), is(2));
+            assertThat(resources.getPlan().getPdfaltoProcesses(), is(2));
+        }
+    }
+
+    private void write(String path, String content) throws Exception {
+        FileUtils.writeStringToFile(new File(cgroup.getRoot(), path), content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package org.grobid.core.utilities;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class LongIntHashMapTest {
+
+    @Test
+    public void testSameValuesAsAHashMap() throws Exception {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(17);
+
+        for (int i = 0; i < 100000; i++) {
+            // a small range of keys so that they are found again, and large keys with the same low bits
+            long key = random.nextBoolean() ? random.nextInt(2000) - 1000 : ((long) random.nextInt(500)) << 40;
+            if (random.nextInt(3) == 0) {
+                int value = random.nextInt();
+                map.put(key, value);
+                reference.put(key, value);
+            } else {
+                int value = map.addTo(key, 1);
+                reference.merge(key, 1, Integer::sum);
+                assertThat(value, is(reference.get(key)));
+            }
+        }
+
+        assertThat(map.size(), is(reference.size()));
+        for (long key = -1000; key < 1000; key++) {
+            assertThat(map.containsKey(key), is(reference.containsKey(key)));
+            assertThat(map.get(key, -7), is(reference.getOrDefault(key, -7)));
+        }
+        for (long high = 0; high < 500; high++) {
+            assertThat(map.get(high << 40, -7), is(reference.getOrDefault(high << 40, -7)));
+        }
+    }
+
+    @Test
+    public void testZeroKey() throws Exception {
+        LongIntHashMap map = new LongIntHashMap(0);
+
+        assertThat(map.containsKey(0), is(false));
+        assertThat(map.get(0, 5), is(5));
+
+        map.addTo(0, 2);
+        map.addTo(0, 3);
+
+        assertThat(map.containsKey(0), is(true));
+        assertThat(map.get(0, 5), is(5));
+        assertThat(map.size(), is(1));
+    }
+}
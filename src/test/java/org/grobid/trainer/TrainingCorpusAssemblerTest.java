@@ -0,0 +1,64 @@
+package org.grobid.trainer;
+
+import org.grobid.core.utilities.DictionaryProperties;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TrainingCorpusAssemblerTest {
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(DictionaryProperties.TRAINING_PARALLELISM);
+    }
+
+    @Test
+    public void testAssemble_parallel_shouldWriteTheFilesInOrder() throws Exception {
+        File[] teiFiles = new File[100];
+        for (int i = 0; i < teiFiles.length; i++) {
+            teiFiles[i] = new File("file" + i + ".tei.xml");
+        }
+        final Random random = new Random(21);
+        TrainingCorpusAssembler.FileAssembler fileAssembler = teiFile -> {
+            Thread.sleep(random.nextInt(3));
+            return teiFile.getName().replace(".tei.xml", "") + " label\n\n";
+        };
+
+        System.setProperty(DictionaryProperties.TRAINING_PARALLELISM, "1");
+        StringWriter sequential = new StringWriter();
+        TrainingCorpusAssembler.assemble(teiFiles, sequential, fileAssembler);
+
+        System.setProperty(DictionaryProperties.TRAINING_PARALLELISM, "8");
+        StringWriter parallel = new StringWriter();
+        TrainingCorpusAssembler.assemble(teiFiles, parallel, fileAssembler);
+
+        assertThat(parallel.toString(), is(sequential.toString()));
+        assertThat(parallel.toString().startsWith("file0 label\n\nfile1 label\n\nfile2 label\n\n"), is(true));
+    }
+
+    @Test
+    public void testAssemble_parallel_shouldThrowTheExceptionOfTheFile() throws Exception {
+        File[] teiFiles = {new File("a.tei.xml"), new File("b.tei.xml"), new File("c.tei.xml")};
+        System.setProperty(DictionaryProperties.TRAINING_PARALLELISM, "3");
+
+        try {
+            TrainingCorpusAssembler.assemble(teiFiles, new StringWriter(), teiFile -> {
+                if (teiFile.getName().startsWith("b")) {
+                    throw new IOException("no raw file for " + teiFile.getName());
+                }
+                return teiFile.getName();
+            });
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("no raw file for b.tei.xml"));
+        }
+    }
+}
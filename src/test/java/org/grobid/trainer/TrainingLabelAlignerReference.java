@@ -0,0 +1,87 @@
+package org.grobid.trainer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.grobid.core.data.SimpleLabeled;
+
+import java.util.List;
+import java.util.StringTokenizer;
+
+/**
+ * The searches of the trainers that TrainingLabelAligner replaces, for the parity tests. Both return, for each line
+ * of the feature file, the index of its labeled token (sequences flattened as in TrainingLabelAligner.fromSequences),
+ * -1 for the lines without label.
+ */
+public class TrainingLabelAlignerReference {
+
+    /**
+     * Search of the trainers reading "token label" lines: the current labeled line and the 6 next ones
+     */
+    public static int[] alignLines(List<String> labeled, List<String> featureLines) {
+        int[] alignment = new int[featureLines.size()];
+        int q = 0;
+        for (int k = 0; k < featureLines.size(); k++) {
+            alignment[k] = -1;
+            String line = featureLines.get(k);
+            int ii = line.indexOf(' ');
+            String token = null;
+            if (ii != -1)
+                token = line.substring(0, ii);
+            // we get the label in the labelled data file for the same token
+            for (int pp = q; pp < labeled.size(); pp++) {
+                String localLine = labeled.get(pp);
+                StringTokenizer st = new StringTokenizer(localLine, " ");
+                if (st.hasMoreTokens()) {
+                    String localToken = st.nextToken();
+                    if (localToken.equals(token)) {
+                        alignment[k] = pp;
+                        q = pp + 1;
+                        pp = q + 10;
+                    }
+                }
+                if (pp - q > 5) {
+                    break;
+                }
+            }
+        }
+        return alignment;
+    }
+
+    /**
+     * Search of the form, sense and sub-sense trainers: the whole rest of the labeled sequences
+     */
+    public static int[] alignSequences(List<SimpleLabeled> labeled, List<String> featureLines) {
+        int[] offsets = new int[labeled.size()];
+        int offset = 0;
+        for (int pp = 0; pp < labeled.size(); pp++) {
+            offsets[pp] = offset;
+            offset += labeled.get(pp).getLabels().size();
+        }
+
+        int[] alignment = new int[featureLines.size()];
+        int indexLabeledList = 0;
+        int indexLabeledForm = 0;
+        for (int k = 0; k < featureLines.size(); k++) {
+            alignment[k] = -1;
+            String tokenFromFeatures = TrainingLabelAligner.getFeatureToken(featureLines.get(k));
+            outer:
+            for (int pp = indexLabeledList; pp < labeled.size(); pp++) {
+                SimpleLabeled simpleLabeled = labeled.get(pp);
+                // the former search started again from the position in the current sequence for the next ones
+                for (int qq = indexLabeledForm; qq < simpleLabeled.getLabels().size(); qq++) {
+                    String tokenFromLabeled = simpleLabeled.getLabels().get(qq).getLeft();
+                    if (StringUtils.equals(tokenFromLabeled, tokenFromFeatures)) {
+                        alignment[k] = offsets[pp] + qq;
+                        indexLabeledForm = qq + 1;
+                        if (simpleLabeled.getLabels().size() == indexLabeledForm) {
+                            pp++;
+                            indexLabeledForm = 0;
+                        }
+                        indexLabeledList = pp;
+                        break outer;
+                    }
+                }
+            }
+        }
+        return alignment;
+    }
+}
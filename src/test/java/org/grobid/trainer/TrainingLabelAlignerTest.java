@@ -0,0 +1,204 @@
+package org.grobid.trainer;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.data.SimpleLabeled;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TrainingLabelAlignerTest {
+
+    @Test
+    public void testAlign_shouldSkipTheFeatureTokensWithoutLabel() throws Exception {
+        TrainingLabelAligner target = TrainingLabelAligner.fromLines(Arrays.asList(
+                "area I-<form>\n", "noun <form>\n", "a I-<sense>\n", "surface <sense>\n"));
+
+        int[] alignment = target.align(Arrays.asList("area f1", "/ f1", "noun f1", "", "a f1", "surface f1"));
+
+        assertThat(alignment, is(new int[]{0, -1, 1, -1, 2, 3}));
+        assertThat(target.getLabel(0), is("I-<form>\n"));
+        assertThat(target.getLabel(3), is("<sense>\n"));
+        assertThat(target.toString(), is("4/5 tokens labeled, 1 without label, 0/4 labeled tokens not used"));
+    }
+
+    @Test
+    public void testAlign_labeledPartMissingFromTheFeatures_shouldResynchronise() throws Exception {
+        List<String> labeled = new ArrayList<>();
+        labeled.add("area I-<form>\n");
+        // a part of the TEI longer than the lookahead, not in the feature file
+        for (int i = 0; i < 20; i++) {
+            labeled.add("x" + i + " <note>\n");
+        }
+        labeled.add("a I-<sense>\n");
+        labeled.add("surface <sense>\n");
+        labeled.add("of <sense>\n");
+        TrainingLabelAligner target = TrainingLabelAligner.fromLines(labeled);
+
+        int[] alignment = target.align(Arrays.asList("area f1", "a f1", "surface f1", "of f1"));
+
+        assertThat(alignment, is(new int[]{0, 21, 22, 23}));
+        assertThat(target.getAlignedTokens(), is(4));
+        assertThat(target.getSkippedLabels(), is(20));
+    }
+
+    @Test
+    public void testAlign_shouldNotResynchroniseOnASingleToken() throws Exception {
+        List<String> labeled = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            labeled.add("x" + i + " <note>\n");
+        }
+        labeled.add("a I-<sense>\n");
+        labeled.add("surface <sense>\n");
+        TrainingLabelAligner target = TrainingLabelAligner.fromLines(labeled);
+
+        // "a" is far ahead, but the next feature token is not labeled after it
+        int[] alignment = target.align(Arrays.asList("a f1", "b f1"));
+
+        assertThat(alignment, is(new int[]{-1, -1}));
+    }
+
+    @Test
+    public void testAlign_sequences_shouldKeepTheSequenceEnds() throws Exception {
+        SimpleLabeled first = new SimpleLabeled();
+        first.addLabel(Pair.of("area", "I-<orth>"));
+        first.addLabel(Pair.of("noun", "I-<pos>"));
+        SimpleLabeled second = new SimpleLabeled();
+        second.addLabel(Pair.of("argue", "I-<orth>"));
+        TrainingLabelAligner target = TrainingLabelAligner.fromSequences(Arrays.asList(first, second));
+
+        int[] alignment = target.align(Arrays.asList("area f1", "noun f1", "argue f1"));
+
+        assertThat(alignment, is(new int[]{0, 1, 2}));
+        assertThat(target.isSequenceEnd(0), is(false));
+        assertThat(target.isSequenceEnd(1), is(true));
+        assertThat(target.isSequenceEnd(2), is(true));
+        assertThat(target.getLabel(1), is("I-<pos>"));
+    }
+
+    @Test
+    public void testAlign_withoutBulletNorMissingPart_shouldLabelAsTheFormerSearch() throws Exception {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            List<String> labeled = new ArrayList<>();
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                // no same token within the lookahead
+                String token = "t" + (i % 10);
+                labeled.add(token + " <label" + random.nextInt(3) + ">\n");
+                // at most 6 labeled tokens missing in a row, within the lookahead of both searches
+                if (i % 7 == 6 || random.nextInt(4) != 0) {
+                    lines.add(token + " f1");
+                }
+                // tokens without label (punctuation left out of the TEI, blank lines)
+                if (random.nextInt(5) == 0) {
+                    lines.add(random.nextBoolean() ? "/ f1" : "");
+                }
+            }
+
+            int[] alignment = TrainingLabelAligner.fromLines(labeled).align(lines);
+
+            assertThat(alignment, is(TrainingLabelAlignerReference.alignLines(labeled, lines)));
+        }
+    }
+
+    @Test
+    public void testAlign_sequencesWithoutMissingToken_shouldLabelAsTheFormerSearch() throws Exception {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            List<SimpleLabeled> labeled = new ArrayList<>();
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                SimpleLabeled sequence = new SimpleLabeled();
+                int size = 1 + random.nextInt(10);
+                for (int j = 0; j < size; j++) {
+                    String token = "t" + random.nextInt(10);
+                    sequence.addLabel(Pair.of(token, "<label" + random.nextInt(3) + ">"));
+                    lines.add(token + " f1");
+                    if (random.nextInt(5) == 0) {
+                        lines.add(random.nextBoolean() ? "/ f1" : "");
+                    }
+                }
+                labeled.add(sequence);
+            }
+
+            int[] alignment = TrainingLabelAligner.fromSequences(labeled).align(lines);
+
+            assertThat(alignment, is(TrainingLabelAlignerReference.alignSequences(labeled, lines)));
+        }
+    }
+
+    /**
+     * Intended difference: @BULLET stands for any bullet character, the former search never found it in the TEI
+     */
+    @Test
+    public void testAlign_bullet_shouldMatchAnyLabeledToken() throws Exception {
+        List<String> labeled = Arrays.asList("\u2022 I-<sense>\n", "a <sense>\n");
+        List<String> lines = Arrays.asList("@BULLET f1", "a f1");
+
+        assertThat(TrainingLabelAligner.fromLines(labeled).align(lines), is(new int[]{0, 1}));
+        assertThat(TrainingLabelAlignerReference.alignLines(labeled, lines), is(new int[]{-1, 1}));
+    }
+
+    /**
+     * Intended difference: a part of the TEI missing from the features no longer drops the labels of the tokens after it
+     */
+    @Test
+    public void testAlign_labeledPartMissingFromTheFeatures_shouldLabelWhatTheFormerSearchDropped() throws Exception {
+        List<String> labeled = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            labeled.add("x" + i + " <note>\n");
+        }
+        labeled.add("a I-<sense>\n");
+        labeled.add("surface <sense>\n");
+        List<String> lines = Arrays.asList("a f1", "surface f1");
+
+        assertThat(TrainingLabelAligner.fromLines(labeled).align(lines), is(new int[]{20, 21}));
+        assertThat(TrainingLabelAlignerReference.alignLines(labeled, lines), is(new int[]{-1, -1}));
+    }
+
+    /**
+     * Intended difference: the former search of the sequences was not bounded and labeled a lone token found anywhere
+     * further, whatever the tokens around it
+     */
+    @Test
+    public void testAlign_sequences_tokenBeyondTheLookahead_shouldNotBeLabeled() throws Exception {
+        SimpleLabeled sequence = new SimpleLabeled();
+        for (int i = 0; i < 100; i++) {
+            sequence.addLabel(Pair.of("x" + i, "<note>"));
+        }
+        sequence.addLabel(Pair.of("a", "I-<sense>"));
+        List<SimpleLabeled> labeled = Collections.singletonList(sequence);
+        List<String> lines = Arrays.asList("a f1", "b f1");
+
+        assertThat(TrainingLabelAligner.fromSequences(labeled).align(lines), is(new int[]{-1, -1}));
+        assertThat(TrainingLabelAlignerReference.alignSequences(labeled, lines), is(new int[]{100, -1}));
+    }
+
+    /**
+     * Intended difference: when the end of a sequence was missing from the features, the former search went on in the
+     * next sequences from the same position and skipped their first tokens
+     */
+    @Test
+    public void testAlign_sequences_endOfASequenceMissing_shouldLabelTheStartOfTheNextOne() throws Exception {
+        SimpleLabeled first = new SimpleLabeled();
+        first.addLabel(Pair.of("area", "I-<orth>"));
+        first.addLabel(Pair.of("noun", "I-<pos>"));
+        first.addLabel(Pair.of("plural", "I-<gram>"));
+        SimpleLabeled second = new SimpleLabeled();
+        second.addLabel(Pair.of("argue", "I-<orth>"));
+        second.addLabel(Pair.of("verb", "I-<pos>"));
+        second.addLabel(Pair.of("past", "I-<gram>"));
+        List<SimpleLabeled> labeled = Arrays.asList(first, second);
+        List<String> lines = Arrays.asList("area f1", "noun f1", "argue f1", "verb f1", "past f1");
+
+        assertThat(TrainingLabelAligner.fromSequences(labeled).align(lines), is(new int[]{0, 1, 3, 4, 5}));
+        assertThat(TrainingLabelAlignerReference.alignSequences(labeled, lines), is(new int[]{0, 1, -1, -1, 5}));
+    }
+}
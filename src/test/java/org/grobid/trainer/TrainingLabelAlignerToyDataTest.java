@@ -0,0 +1,133 @@
+package org.grobid.trainer;
+
+import org.apache.commons.io.FileUtils;
+import org.grobid.core.data.SimpleLabeled;
+import org.grobid.trainer.sax.TEIDictionaryBodySegmentationSaxParser;
+import org.grobid.trainer.sax.TEIDictionarySegmentationSaxParser;
+import org.grobid.trainer.sax.TEIEtymQuoteSaxParser;
+import org.grobid.trainer.sax.TEIEtymSaxParser;
+import org.grobid.trainer.sax.TEIFormSaxParser;
+import org.grobid.trainer.sax.TEILexicalEntrySaxParser;
+import org.grobid.trainer.sax.TEISenseSaxParser;
+import org.grobid.trainer.sax.TEISubSenseSaxParser;
+import org.junit.Test;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * The training data of the toy data must not change with TrainingLabelAligner: each feature file gets the same labels
+ * as with the former search of its trainer.
+ */
+public class TrainingLabelAlignerToyDataTest {
+
+    private static final File TOY_DATASET = new File("toyData/dataset");
+
+    @Test
+    public void testAlign_dictionarySegmentation_shouldLabelAsTheFormerSearch() throws Exception {
+        assertLinesAlignedAsBefore("dictionary-segmentation", TEIDictionarySegmentationSaxParser::new,
+                TEIDictionarySegmentationSaxParser::getLabeledResult);
+    }
+
+    @Test
+    public void testAlign_dictionaryBodySegmentation_shouldLabelAsTheFormerSearch() throws Exception {
+        assertLinesAlignedAsBefore("dictionary-body-segmentation", TEIDictionaryBodySegmentationSaxParser::new,
+                TEIDictionaryBodySegmentationSaxParser::getLabeledResult);
+    }
+
+    @Test
+    public void testAlign_lexicalEntry_shouldLabelAsTheFormerSearch() throws Exception {
+        assertLinesAlignedAsBefore("lexical-entry", TEILexicalEntrySaxParser::new,
+                TEILexicalEntrySaxParser::getLabeledResult);
+    }
+
+    @Test
+    public void testAlign_etymQuote_shouldLabelAsTheFormerSearch() throws Exception {
+        assertLinesAlignedAsBefore("etymQuote", TEIEtymQuoteSaxParser::new, TEIEtymQuoteSaxParser::getLabeledResult);
+    }
+
+    @Test
+    public void testAlign_etym_shouldLabelAsTheFormerSearch() throws Exception {
+        assertLinesAlignedAsBefore("etym", TEIEtymSaxParser::new, TEIEtymSaxParser::getLabeledResult);
+    }
+
+    @Test
+    public void testAlign_form_shouldLabelAsTheFormerSearch() throws Exception {
+        assertSequencesAlignedAsBefore("form", TEIFormSaxParser::new, TEIFormSaxParser::getLabeledResult);
+    }
+
+    @Test
+    public void testAlign_sense_shouldLabelAsTheFormerSearch() throws Exception {
+        assertSequencesAlignedAsBefore("sense", TEISenseSaxParser::new, TEISenseSaxParser::getLabeledResult);
+    }
+
+    @Test
+    public void testAlign_subSense_shouldLabelAsTheFormerSearch() throws Exception {
+        assertSequencesAlignedAsBefore("sub-sense", TEISubSenseSaxParser::new, TEISubSenseSaxParser::getLabeledResult);
+    }
+
+    private <T extends DefaultHandler> void assertLinesAlignedAsBefore(String model, Supplier<T> saxParsers,
+                                                                       Function<T, List<String>> labeledResult)
+            throws Exception {
+        int alignedTokens = 0;
+        for (File teiFile : getTeiFiles(model)) {
+            T saxParser = saxParsers.get();
+            TrainingCorpusAssembler.newSAXParser().parse(teiFile, saxParser);
+            List<String> labeled = labeledResult.apply(saxParser);
+            List<String> lines = readFeatureLines(teiFile);
+
+            TrainingLabelAligner target = TrainingLabelAligner.fromLines(labeled);
+
+            assertThat(teiFile.getPath(), target.align(lines),
+                    is(TrainingLabelAlignerReference.alignLines(labeled, lines)));
+            alignedTokens += target.getAlignedTokens();
+        }
+        assertThat(alignedTokens, greaterThan(0));
+    }
+
+    private <T extends DefaultHandler> void assertSequencesAlignedAsBefore(String model, Supplier<T> saxParsers,
+                                                                           Function<T, List<SimpleLabeled>> labeledResult)
+            throws Exception {
+        int alignedTokens = 0;
+        for (File teiFile : getTeiFiles(model)) {
+            T saxParser = saxParsers.get();
+            TrainingCorpusAssembler.newSAXParser().parse(teiFile, saxParser);
+            List<SimpleLabeled> labeled = labeledResult.apply(saxParser);
+            List<String> lines = readFeatureLines(teiFile);
+
+            TrainingLabelAligner target = TrainingLabelAligner.fromSequences(labeled);
+
+            assertThat(teiFile.getPath(), target.align(lines),
+                    is(TrainingLabelAlignerReference.alignSequences(labeled, lines)));
+            alignedTokens += target.getAlignedTokens();
+        }
+        assertThat(alignedTokens, greaterThan(0));
+    }
+
+    private static File[] getTeiFiles(String model) {
+        File[] corpusFiles = new File(TOY_DATASET, model + "/corpus/tei").listFiles(
+                (dir, name) -> name.endsWith(".tei.xml"));
+        File[] evaluationFiles = new File(TOY_DATASET, model + "/evaluation/tei").listFiles(
+                (dir, name) -> name.endsWith(".tei.xml"));
+        assertThat(corpusFiles.length, greaterThan(0));
+
+        File[] teiFiles = new File[corpusFiles.length + evaluationFiles.length];
+        System.arraycopy(corpusFiles, 0, teiFiles, 0, corpusFiles.length);
+        System.arraycopy(evaluationFiles, 0, teiFiles, corpusFiles.length, evaluationFiles.length);
+        return teiFiles;
+    }
+
+    private static List<String> readFeatureLines(File teiFile) throws Exception {
+        File featureFile = new File(teiFile.getParentFile().getParentFile(),
+                "raw" + File.separator + teiFile.getName().replace(".tei.xml", ""));
+        return FileUtils.readLines(featureFile, StandardCharsets.UTF_8);
+    }
+}